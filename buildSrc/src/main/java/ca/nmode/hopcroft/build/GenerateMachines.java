@@ -0,0 +1,116 @@
+package ca.nmode.hopcroft.build;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import groovy.json.JsonSlurper;
+
+/**
+ * Generates the Java source of a precompiled, table-driven deterministic finite-state machine from every machine
+ * specification it is given. A specification is a JSON object naming the generated class and describing the machine:
+ *
+ * <pre>
+ * {
+ *     "package": "com.example.machines",
+ *     "class": "Parity",
+ *     "inputType": "Character",
+ *     "outputType": "String",
+ *     "states": ["even", "odd"],
+ *     "acceptStates": ["even"],
+ *     "startState": "even",
+ *     "inputElements": ["0", "1"],
+ *     "outputElements": ["same", "flipped"],
+ *     "transitions": {"even": {"0": "even", "1": "odd"}, "odd": {"0": "odd", "1": "even"}},
+ *     "MealyTranslations": {"even": {"0": "same", "1": "flipped"}, "odd": {"0": "same", "1": "flipped"}},
+ *     "MooreTranslations": {}
+ * }
+ * </pre>
+ *
+ * States are strings, and input and output elements are {@code String}s, {@code Character}s or {@code Integer}s, as
+ * given by the input and output types, which default to {@code String}. The accept states, output elements and
+ * translations may be omitted. A specification is validated as a {@code OneWayDFSM} would be when the source is
+ * generated, so that the generated class, which extends {@code ca.nmode.hopcroft.machines.TableDFSM}, need not
+ * validate it again at runtime.
+ *
+ * @author Naeem Model
+ */
+public class GenerateMachines extends DefaultTask {
+    private FileCollection specifications;
+    private File outputDirectory;
+
+    /**
+     * Returns the machine specifications to generate machines from.
+     *
+     * @return the machine specifications to generate machines from
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public FileCollection getSpecifications() {
+        return specifications;
+    }
+
+    public void setSpecifications(FileCollection specifications) {
+        this.specifications = specifications;
+    }
+
+    /**
+     * Returns the directory the source of the generated machines is written to, in directories named by their
+     * packages.
+     *
+     * @return the directory the source of the generated machines is written to
+     */
+    @OutputDirectory
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    @TaskAction
+    public void generate() throws IOException {
+        // Remove the source of machines whose specifications have since been removed.
+        Path output = outputDirectory.toPath();
+        if (Files.exists(output))
+            try (Stream<Path> paths = Files.walk(output)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                    if (!path.equals(output))
+                        Files.delete(path);
+            }
+
+        for (File file : specifications.getFiles()) {
+            Object specification;
+            try {
+                specification = new JsonSlurper().parse(file, StandardCharsets.UTF_8.name());
+            } catch (RuntimeException e) {
+                throw new InvalidUserDataException("Cannot generate a machine from " + file.getName() + ", which is "
+                        + "not valid JSON.", e);
+            }
+            if (!(specification instanceof Map))
+                throw new InvalidUserDataException("Cannot generate a machine from " + file.getName() + ", which is "
+                        + "not a JSON object.");
+
+            MachineSource source = new MachineSource(file.getName(), (Map<?, ?>) specification);
+            Path path = output.resolve(source.packageName().replace('.', File.separatorChar))
+                    .resolve(source.className() + ".java");
+            Files.createDirectories(path.getParent());
+            Files.write(path, source.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package ca.nmode.hopcroft.build;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.gradle.api.InvalidUserDataException;
+
+/* The Java source of a table-driven deterministic finite-state machine, generated from a validated specification. The
+   states and elements are interned to their indices in the order the specification lists them. Every table is packed
+   into string constants of at most CHUNK_SIZE characters, which fit in a class file's constant pool however the
+   characters are encoded. */
+final class MachineSource {
+    private static final int CHUNK_SIZE = 20000;
+
+    private final String file;
+    private final String packageName;
+    private final String className;
+    private final String inputType;
+    private final String outputType;
+    private final List<String> states;
+    private final List<Object> inputElements;
+    private final List<Object> outputElements;
+    private final int startState;
+    private final int[] acceptStates;
+    private final int[] transitions;
+    private final int[] MealyOutputs;
+    private final int[] MooreOutputs;
+
+    MachineSource(String file, Map<?, ?> specification) {
+        this.file = file;
+        packageName = string(specification, "package");
+        className = string(specification, "class");
+        String name = "\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*";
+        if (!packageName.isEmpty() && !packageName.matches(name + "(\\." + name + ")*") || !className.matches(name))
+            throw invalid("whose package or class is not a valid Java name");
+        inputType = type(specification, "inputType");
+        outputType = type(specification, "outputType");
+
+        states = new ArrayList<>();
+        for (Object state : list(specification, "states", true))
+            states.add(String.valueOf(state));
+        Map<String, Integer> stateIds = ids(states, "states");
+        inputElements = elements(list(specification, "inputElements", true), inputType);
+        Map<Object, Integer> inputElementIds = ids(inputElements, "input elements");
+        outputElements = elements(list(specification, "outputElements", false), outputType);
+        Map<Object, Integer> outputElementIds = ids(outputElements, "output elements");
+
+        // Ensure the set of states is non-empty, and contains the start state and every accept state.
+        if (states.isEmpty())
+            throw invalid("whose set of states is empty");
+        startState = state(stateIds, string(specification, "startState"), "start state");
+        List<?> acceptStateList = list(specification, "acceptStates", false);
+        acceptStates = new int[acceptStateList.size()];
+        for (int i = 0; i < acceptStates.length; i++)
+            acceptStates[i] = state(stateIds, String.valueOf(acceptStateList.get(i)), "set of accept states");
+
+        // Ensure there is exactly one transition for every state-element pair, into a state.
+        int alphabetSize = inputElements.size();
+        transitions = new int[states.size() * alphabetSize];
+        Arrays.fill(transitions, -1);
+        Map<?, ?> transitionMap = map(specification, "transitions", true);
+        for (Map.Entry<?, ?> stateTransitions : transitionMap.entrySet()) {
+            int state = state(stateIds, String.valueOf(stateTransitions.getKey()), "transition map's keys");
+            if (!(stateTransitions.getValue() instanceof Map))
+                throw invalid("whose transitions from a state are not a JSON object");
+            for (Map.Entry<?, ?> transition : ((Map<?, ?>) stateTransitions.getValue()).entrySet()) {
+                int element = element(inputElementIds, transition.getKey(), inputType, "transition map's keys");
+                transitions[state * alphabetSize + element] = state(stateIds, String.valueOf(transition.getValue()),
+                        "transition map's values");
+            }
+        }
+        for (int transition : transitions)
+            if (transition < 0)
+                throw invalid("whose transition map does not contain a transition for each element in its set of "
+                        + "input elements on every state in its set of states");
+
+        // Ensure every translation is of a transition or state, into an output element.
+        int[] MealyOutputs = new int[transitions.length];
+        Arrays.fill(MealyOutputs, -1);
+        boolean hasMealyOutputs = false;
+        for (Map.Entry<?, ?> stateTranslations : map(specification, "MealyTranslations", false).entrySet()) {
+            int state = state(stateIds, String.valueOf(stateTranslations.getKey()), "Mealy translation map's keys");
+            if (!(stateTranslations.getValue() instanceof Map))
+                throw invalid("whose Mealy translations from a state are not a JSON object");
+            for (Map.Entry<?, ?> translation : ((Map<?, ?>) stateTranslations.getValue()).entrySet()) {
+                int element = element(inputElementIds, translation.getKey(), inputType,
+                        "Mealy translation map's keys");
+                MealyOutputs[state * alphabetSize + element] = element(outputElementIds, translation.getValue(),
+                        outputType, "Mealy translation map's values");
+                hasMealyOutputs = true;
+            }
+        }
+        int[] MooreOutputs = new int[states.size()];
+        Arrays.fill(MooreOutputs, -1);
+        boolean hasMooreOutputs = false;
+        for (Map.Entry<?, ?> translation : map(specification, "MooreTranslations", false).entrySet()) {
+            int state = state(stateIds, String.valueOf(translation.getKey()), "Moore translation map's keys");
+            MooreOutputs[state] = element(outputElementIds, translation.getValue(), outputType,
+                    "Moore translation map's values");
+            hasMooreOutputs = true;
+        }
+        // Ensure the translations of either kind are of every transition or state, if there are any.
+        if (hasMealyOutputs)
+            for (int output : MealyOutputs)
+                if (output < 0)
+                    throw invalid("whose Mealy translation map's key set is not equal to its transition map's key set");
+        if (hasMooreOutputs)
+            for (int output : MooreOutputs)
+                if (output < 0)
+                    throw invalid("whose Moore translation map's key set is not equal to its set of states");
+        // Omit the translation tables of a machine that has no translations of that kind.
+        this.MealyOutputs = hasMealyOutputs ? MealyOutputs : null;
+        this.MooreOutputs = hasMooreOutputs ? MooreOutputs : null;
+    }
+
+    String packageName() {
+        return packageName;
+    }
+
+    String className() {
+        return className;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty())
+            source.append("package ").append(packageName).append(";\n\n");
+        if (inputType.equals("Integer") || outputType.equals("Integer"))
+            source.append("import java.util.Arrays;\n\n");
+        source.append("import ca.nmode.hopcroft.machines.TableDFSM;\n\n");
+        source.append("/**\n * The machine specified by {@code ").append(file).append("}, generated by the ")
+                .append("{@code generateMachines} task.\n */\n");
+        source.append("public final class ").append(className).append(" extends TableDFSM<String, ").append(inputType)
+                .append(", ").append(outputType).append("> {\n");
+
+        source.append("    private static final Object[] STATES = ").append(strings(states)).append(";\n");
+        source.append("    private static final Object[] INPUT_ELEMENTS = ").append(elements(inputElements, inputType))
+                .append(";\n");
+        source.append("    private static final Object[] OUTPUT_ELEMENTS = ")
+                .append(elements(outputElements, outputType)).append(";\n");
+        source.append("    private static final int[] TRANSITIONS = ").append(integers(transitions)).append(";\n");
+        source.append("    private static final int[] ACCEPT_STATES = ").append(integers(acceptStates)).append(";\n");
+        source.append("    private static final int[] MEALY_OUTPUTS = ").append(integers(MealyOutputs)).append(";\n");
+        source.append("    private static final int[] MOORE_OUTPUTS = ").append(integers(MooreOutputs)).append(";\n");
+
+        source.append("\n    public ").append(className).append("() {\n");
+        source.append("        super(STATES, INPUT_ELEMENTS, OUTPUT_ELEMENTS, ").append(startState)
+                .append(", TRANSITIONS, ACCEPT_STATES, MEALY_OUTPUTS,\n                MOORE_OUTPUTS);\n");
+        source.append("    }\n}\n");
+        return source.toString();
+    }
+
+    private InvalidUserDataException invalid(String reason) {
+        return new InvalidUserDataException("Cannot generate a machine from " + file + " " + reason + ".");
+    }
+
+    private String string(Map<?, ?> specification, String key) {
+        Object value = specification.get(key);
+        if (value == null)
+            throw invalid("whose \"" + key + "\" is missing");
+        return String.valueOf(value);
+    }
+
+    private String type(Map<?, ?> specification, String key) {
+        Object type = specification.get(key);
+        if (type == null)
+            return "String";
+        if (!type.equals("String") && !type.equals("Character") && !type.equals("Integer"))
+            throw invalid("whose \"" + key + "\" is not String, Character or Integer");
+        return (String) type;
+    }
+
+    private List<?> list(Map<?, ?> specification, String key, boolean required) {
+        Object value = specification.get(key);
+        if (value == null && !required)
+            return Collections.emptyList();
+        if (!(value instanceof List))
+            throw invalid("whose \"" + key + "\" is not a JSON array");
+        return (List<?>) value;
+    }
+
+    private Map<?, ?> map(Map<?, ?> specification, String key, boolean required) {
+        Object value = specification.get(key);
+        if (value == null && !required)
+            return Collections.emptyMap();
+        if (!(value instanceof Map))
+            throw invalid("whose \"" + key + "\" is not a JSON object");
+        return (Map<?, ?>) value;
+    }
+
+    /* Returns the specified JSON values as elements of the specified type. */
+    private List<Object> elements(Collection<?> values, String type) {
+        List<Object> elements = new ArrayList<>(values.size());
+        for (Object value : values)
+            elements.add(element(value, type));
+        return elements;
+    }
+
+    private Object element(Object value, String type) {
+        String string = String.valueOf(value);
+        switch (type) {
+        case "Character":
+            if (string.length() != 1)
+                throw invalid("whose element \"" + string + "\" is not a single character");
+            return string.charAt(0);
+        case "Integer":
+            try {
+                return Integer.valueOf(string);
+            } catch (NumberFormatException e) {
+                throw invalid("whose element \"" + string + "\" is not an integer");
+            }
+        default:
+            return string;
+        }
+    }
+
+    private <T> Map<T, Integer> ids(List<T> elements, String name) {
+        Map<T, Integer> ids = new HashMap<>();
+        for (T element : elements)
+            if (ids.putIfAbsent(element, ids.size()) != null)
+                throw invalid("whose " + name + " contain \"" + element + "\" more than once");
+        return ids;
+    }
+
+    private int state(Map<String, Integer> stateIds, String state, String where) {
+        Integer id = stateIds.get(state);
+        if (id == null)
+            throw invalid("whose " + where + " contain the state \"" + state + "\", which is not in its set of states");
+        return id;
+    }
+
+    private int element(Map<Object, Integer> ids, Object value, String type, String where) {
+        Integer id = ids.get(element(value, type));
+        if (id == null)
+            throw invalid("whose " + where + " contain the element \"" + value + "\", which is not in its set of "
+                    + "elements");
+        return id;
+    }
+
+    /* Returns an expression unpacking the specified elements of the specified type. */
+    private static String elements(List<Object> elements, String type) {
+        switch (type) {
+        case "Character":
+            StringBuilder characters = new StringBuilder();
+            for (Object element : elements)
+                characters.append((char) (Character) element);
+            return "unpackCharacters(" + literal(characters) + ")";
+        case "Integer":
+            int[] integers = new int[elements.size()];
+            for (int i = 0; i < integers.length; i++)
+                integers[i] = (Integer) elements.get(i);
+            return "Arrays.stream(" + integers(integers) + ").boxed().toArray()";
+        default:
+            List<String> strings = new ArrayList<>(elements.size());
+            for (Object element : elements)
+                strings.add((String) element);
+            return strings(strings);
+        }
+    }
+
+    private static String strings(List<String> strings) {
+        StringBuilder packed = new StringBuilder();
+        for (String string : strings) {
+            pack(packed, string.length());
+            packed.append(string);
+        }
+        return "unpackStrings(" + strings.size() + chunks(packed) + ")";
+    }
+
+    private static String integers(int[] integers) {
+        if (integers == null)
+            return "null";
+        StringBuilder packed = new StringBuilder();
+        for (int integer : integers)
+            pack(packed, integer);
+        return "unpackIntegers(" + integers.length + chunks(packed) + ")";
+    }
+
+    /* Packs the specified integer plus one, as an unsigned integer, in groups of 15 bits from the most significant,
+       setting the most significant bit of every group but the last. */
+    private static void pack(StringBuilder packed, int integer) {
+        int value = integer + 1;
+        int shift = 30;
+        while (shift > 0 && value >>> shift == 0)
+            shift -= 15;
+        for (; shift > 0; shift -= 15)
+            packed.append((char) (0x8000 | value >>> shift & 0x7FFF));
+        packed.append((char) (value & 0x7FFF));
+    }
+
+    /* Returns the specified characters as comma-separated string literals of at most CHUNK_SIZE characters, each on a
+       line of its own. */
+    private static String chunks(CharSequence packed) {
+        StringBuilder chunks = new StringBuilder();
+        for (int from = 0; from < packed.length(); from += CHUNK_SIZE)
+            chunks.append(",\n            ")
+                    .append(literal(packed.subSequence(from, Math.min(packed.length(), from + CHUNK_SIZE))));
+        return chunks.toString();
+    }
+
+    private static String literal(CharSequence characters) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < characters.length(); i++) {
+            char c = characters.charAt(i);
+            // Escape line terminators, quotes and backslashes, which a unicode escape would not escape.
+            if (c == '\n')
+                literal.append("\\n");
+            else if (c == '\r')
+                literal.append("\\r");
+            else if (c == '"' || c == '\\')
+                literal.append('\\').append(c);
+            else if (c >= 0x20 && c < 0x7F)
+                literal.append(c);
+            else
+                literal.append(String.format("\\u%04x", (int) c));
+        }
+        return literal.append('"').toString();
+    }
+}
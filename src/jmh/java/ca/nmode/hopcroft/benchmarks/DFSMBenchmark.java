@@ -0,0 +1,71 @@
+package ca.nmode.hopcroft.benchmarks;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.nmode.hopcroft.graphs.SerialTrace;
+import ca.nmode.hopcroft.machines.OneWayDFSM;
+
+/**
+ * Benchmarks of the computations of one-way deterministic finite-state machines on inputs.
+ *
+ * @author Naeem Model
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DFSMBenchmark {
+    @Param({ "16", "1024" })
+    public int states;
+
+    @Param({ "2", "16" })
+    public int alphabetSize;
+
+    @Param({ "16", "1024", "65536" })
+    public int inputLength;
+
+    private OneWayDFSM<Integer, Integer, Integer> machine;
+    private List<Integer> input;
+
+    @Setup
+    public void setup() {
+        machine = Machines.dfsm(Machines.deterministic(states, alphabetSize));
+        input = Machines.input(inputLength, alphabetSize);
+    }
+
+    @Benchmark
+    public List<Entry<Entry<Integer, Integer>, Integer>> compute() {
+        return machine.compute(input);
+    }
+
+    @Benchmark
+    public boolean accepts() {
+        return machine.accepts(input);
+    }
+
+    @Benchmark
+    public List<Integer> MooreTransduce() {
+        return machine.MooreTransduce(input);
+    }
+
+    @Benchmark
+    public SerialTrace<Integer, Integer> trace() {
+        return machine.trace(input);
+    }
+}
@@ -0,0 +1,95 @@
+package ca.nmode.hopcroft.benchmarks;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import ca.nmode.hopcroft.machines.OneWayDFSM;
+import ca.nmode.hopcroft.machines.OneWayNFSM;
+
+/* Random machines and inputs for the benchmarks. States and input elements are integers, every state transitions on
+   every input element, and a fixed seed makes every run of a benchmark compute the same machines on the same inputs. */
+final class Machines {
+    private static final long SEED = 0x5EEDL;
+
+    private Machines() {}
+
+    /* The components of a random machine, from which it can be constructed repeatedly. */
+    static final class Components<V> {
+        final Set<Integer> states = new HashSet<>();
+        final Set<Integer> acceptStates = new HashSet<>();
+        final Set<Integer> inputElements = new HashSet<>();
+        final Set<Integer> outputElements = Set.of(0, 1);
+        final Map<Entry<Integer, Integer>, V> transitions = new HashMap<>();
+        final Map<Entry<Integer, Integer>, Integer> MealyTranslations = new HashMap<>();
+        final Map<Integer, Integer> MooreTranslations = new HashMap<>();
+
+        private Components(int stateCount, int alphabetSize, Random random) {
+            for (int state = 0; state < stateCount; state++) {
+                states.add(state);
+                if (random.nextBoolean())
+                    acceptStates.add(state);
+                MooreTranslations.put(state, state & 1);
+            }
+            for (int element = 0; element < alphabetSize; element++)
+                inputElements.add(element);
+        }
+    }
+
+    /* Returns the components of a random deterministic machine. */
+    static Components<Integer> deterministic(int stateCount, int alphabetSize) {
+        Random random = new Random(SEED);
+        Components<Integer> components = new Components<>(stateCount, alphabetSize, random);
+        for (int state = 0; state < stateCount; state++)
+            for (int element = 0; element < alphabetSize; element++) {
+                components.transitions.put(new SimpleEntry<>(state, element), random.nextInt(stateCount));
+                components.MealyTranslations.put(new SimpleEntry<>(state, element), random.nextInt(2));
+            }
+        return components;
+    }
+
+    /* Returns the components of a random nondeterministic machine whose every state transitions to up to two random
+       states on every input element, and to one random state on an epsilon transition if so specified. */
+    static Components<Set<Integer>> nondeterministic(int stateCount, int alphabetSize, boolean epsilon) {
+        Random random = new Random(SEED);
+        Components<Set<Integer>> components = new Components<>(stateCount, alphabetSize, random);
+        for (int state = 0; state < stateCount; state++) {
+            for (int element = 0; element < alphabetSize; element++) {
+                components.transitions.put(new SimpleEntry<>(state, element),
+                        new HashSet<>(Arrays.asList(random.nextInt(stateCount), random.nextInt(stateCount))));
+                components.MealyTranslations.put(new SimpleEntry<>(state, element), random.nextInt(2));
+            }
+            if (epsilon)
+                components.transitions.put(new SimpleEntry<>(state, null), Set.of(random.nextInt(stateCount)));
+        }
+        return components;
+    }
+
+    static OneWayDFSM<Integer, Integer, Integer> dfsm(Components<Integer> components) {
+        return new OneWayDFSM<>(components.states, components.acceptStates, 0, components.inputElements,
+                components.outputElements, components.transitions, components.MealyTranslations,
+                components.MooreTranslations);
+    }
+
+    static OneWayNFSM<Integer, Integer, Integer> nfsm(Components<Set<Integer>> components) {
+        return new OneWayNFSM<>(components.states, components.acceptStates, 0, components.inputElements,
+                components.outputElements, components.transitions, components.MealyTranslations,
+                components.MooreTranslations);
+    }
+
+    /* Returns a random input of the specified length over the specified number of input elements. */
+    static List<Integer> input(int length, int alphabetSize) {
+        Random random = new Random(SEED);
+        List<Integer> input = new ArrayList<>(length);
+        for (int i = 0; i < length; i++)
+            input.add(random.nextInt(alphabetSize));
+        return input;
+    }
+}
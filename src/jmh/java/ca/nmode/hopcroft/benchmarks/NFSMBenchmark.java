@@ -0,0 +1,65 @@
+package ca.nmode.hopcroft.benchmarks;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.nmode.hopcroft.machines.OneWayNFSM;
+
+/**
+ * Benchmarks of the computations of one-way nondeterministic finite-state machines on inputs, with and without epsilon
+ * transitions.
+ *
+ * @author Naeem Model
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NFSMBenchmark {
+    @Param({ "16", "256" })
+    public int states;
+
+    @Param({ "2", "16" })
+    public int alphabetSize;
+
+    @Param({ "16", "1024", "65536" })
+    public int inputLength;
+
+    @Param({ "false", "true" })
+    public boolean epsilon;
+
+    private OneWayNFSM<Integer, Integer, Integer> machine;
+    private List<Integer> input;
+
+    @Setup
+    public void setup() {
+        machine = Machines.nfsm(Machines.nondeterministic(states, alphabetSize, epsilon));
+        input = Machines.input(inputLength, alphabetSize);
+    }
+
+    @Benchmark
+    public List<Entry<Entry<Set<Integer>, Integer>, Set<Integer>>> compute() {
+        return machine.compute(input);
+    }
+
+    @Benchmark
+    public boolean accepts() {
+        return machine.accepts(input);
+    }
+}
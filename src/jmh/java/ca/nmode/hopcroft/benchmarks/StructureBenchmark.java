@@ -0,0 +1,79 @@
+package ca.nmode.hopcroft.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.nmode.hopcroft.benchmarks.Machines.Components;
+import ca.nmode.hopcroft.graphs.StateDiagram;
+import ca.nmode.hopcroft.machines.OneWayDFSM;
+import ca.nmode.hopcroft.machines.OneWayNFSM;
+
+/**
+ * Benchmarks of the construction of machines, which validates their components, and of the operations on their
+ * structure that do not depend on an input.
+ *
+ * @author Naeem Model
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StructureBenchmark {
+    @Param({ "16", "256", "4096" })
+    public int states;
+
+    @Param({ "2", "16" })
+    public int alphabetSize;
+
+    private Components<Integer> deterministic;
+    private Components<Set<Integer>> nondeterministic;
+    private OneWayDFSM<Integer, Integer, Integer> dfsm;
+    private OneWayNFSM<Integer, Integer, Integer> nfsm;
+
+    @Setup
+    public void setup() {
+        deterministic = Machines.deterministic(states, alphabetSize);
+        nondeterministic = Machines.nondeterministic(states, alphabetSize, true);
+        dfsm = Machines.dfsm(deterministic);
+        nfsm = Machines.nfsm(nondeterministic);
+    }
+
+    @Benchmark
+    public OneWayDFSM<Integer, Integer, Integer> constructDFSM() {
+        return Machines.dfsm(deterministic);
+    }
+
+    @Benchmark
+    public OneWayNFSM<Integer, Integer, Integer> constructNFSM() {
+        return Machines.nfsm(nondeterministic);
+    }
+
+    @Benchmark
+    public Set<Integer> DFSMReachableStates() {
+        return dfsm.reachableStates();
+    }
+
+    @Benchmark
+    public Set<Integer> NFSMReachableStates() {
+        return nfsm.reachableStates();
+    }
+
+    @Benchmark
+    public StateDiagram<Integer, Integer> diagram() {
+        return dfsm.diagram();
+    }
+}
@@ -11,7 +11,8 @@
 /**
  * A {@link ca.nmode.hopcroft.graphs graph} representation of a {@link NFSM nondeterministic finite-state machine}'s
  * computation. A parallel trace's {@link StateVertex vertex} is a container for any object, and so vertices
- * corresponding to the same state can be added. More generally, it is a tree.
+ * corresponding to the same state can be added. More generally, it is a tree, unless its vertices are
+ * {@link #isShared() shared}, in which case it is a directed acyclic graph whose vertices may have any indegree.
  * 
  * @param <S> the type of the states associated with this parallel trace's vertices
  * @param <L> the type of the labels of this parallel trace's transition edges
@@ -22,6 +23,7 @@
     private static final long serialVersionUID = 9086645988134404927L;
     private StateVertex<S> startVertex;
     private Set<StateVertex<S>> acceptVertices;
+    private boolean shared;
 
     private ParallelTrace(Class<TransitionEdge<L>> edgeClass) {
         super(edgeClass);
@@ -33,12 +35,24 @@ private ParallelTrace(Class<TransitionEdge<L>> edgeClass) {
      * @param startVertex the start vertex of the new parallel trace
      */
     public ParallelTrace(StateVertex<S> startVertex) {
+        this(startVertex, false);
+    }
+
+    /**
+     * Constructs a parallel trace with the specified start vertex, whose vertices may be shared by several paths if
+     * {@code shared} is {@code true}.
+     * 
+     * @param startVertex the start vertex of the new parallel trace
+     * @param shared      whether the vertices of the new parallel trace may have an indegree greater than 1
+     */
+    public ParallelTrace(StateVertex<S> startVertex, boolean shared) {
         this(TransitionEdge.generified());
         if (startVertex == null)
             throw new NullPointerException("Cannot construct a parallel trace whose start vertex is null.");
         addVertex(startVertex);
         this.startVertex = startVertex;
         acceptVertices = new HashSet<>();
+        this.shared = shared;
     }
 
     /**
@@ -61,19 +75,51 @@ public boolean removeVertex(StateVertex<S> v) {
      * 
      * @throws NullPointerException     if the specified edge is {@code null}
      * @throws IllegalArgumentException if the source or target vertices are not contained in this parallel trace; the
-     *                                  target vertex is the start vertex; or the target vertex has indegree 1
+     *                                  target vertex is the start vertex; or the target vertex has indegree 1 and this
+     *                                  parallel trace's vertices are not shared
      * 
      * @return {@code true} if this parallel trace does not contain the specified edge, {@code false} otherwise
      */
     @Override
     public TransitionEdge<L> addEdge(StateVertex<S> sourceVertex, StateVertex<S> targetVertex) {
+        checkTarget(targetVertex);
+        return super.addEdge(sourceVertex, targetVertex);
+    }
+
+    /**
+     * Adds the specified edge to this graph, going from the source vertex to the target vertex, if not already present.
+     * 
+     * @throws NullPointerException     if the specified edge is {@code null}
+     * @throws IllegalArgumentException if the source or target vertices are not contained in this parallel trace; the
+     *                                  target vertex is the start vertex; or the target vertex has indegree 1 and this
+     *                                  parallel trace's vertices are not shared
+     * 
+     * @return {@code true} if this parallel trace does not contain the specified edge, {@code false} otherwise
+     */
+    @Override
+    public boolean addEdge(StateVertex<S> sourceVertex, StateVertex<S> targetVertex, TransitionEdge<L> e) {
+        checkTarget(targetVertex);
+        return super.addEdge(sourceVertex, targetVertex, e);
+    }
+
+    /* Ensures an edge can be added into the specified target vertex. */
+    private void checkTarget(StateVertex<S> targetVertex) {
         if (startVertex == targetVertex)
             throw new IllegalArgumentException(
                     "Cannot add an edge, whose target vertex is the start vertex, to a parallel trace.");
-        if (inDegreeOf(targetVertex) == 1)
+        if (!shared && inDegreeOf(targetVertex) == 1)
             throw new IllegalArgumentException(
                     "Cannot add an edge, whose target vertex has an indegree greater than zero, to a parallel trace.");
-        return super.addEdge(sourceVertex, targetVertex);
+    }
+
+    /**
+     * Determines whether this parallel trace's vertices may be shared by several paths, making it a directed acyclic
+     * graph rather than a tree.
+     * 
+     * @return {@code true} if this parallel trace's vertices may be shared, {@code false} otherwise
+     */
+    public boolean isShared() {
+        return shared;
     }
 
     /**
@@ -0,0 +1,360 @@
+package ca.nmode.hopcroft.graphs;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultGraphType;
+
+/**
+ * A read-only {@link StateDiagram state diagram} of a deterministic finite-state machine, backed by its
+ * {@link TransitionTable transition table}. The view copies nothing: its vertex and edge sets, and the edges and
+ * degrees of every vertex, are computed from the table when they are asked for, so graph algorithms can run over large
+ * machines without materializing their diagrams. An edge is allocated for a transition every time it is returned, and
+ * the edges of the same transition are equal, but not necessarily identical.
+ * <p>
+ * Like a state diagram, the view has a {@link #startVertex() start vertex} and {@link #acceptVertexSet() accept
+ * vertices}. It cannot be modified, and attempts to modify it result in an {@code UnsupportedOperationException}.
+ *
+ * @param <V> the type of this view's vertices
+ * @param <L> the type of the labels of this view's transition edges
+ *
+ * @author Naeem Model
+ */
+public final class StateDiagramView<V, L> extends AbstractGraph<V, TransitionEdge<L>> {
+    private static final GraphType TYPE = DefaultGraphType.directedPseudograph().asUnmodifiable();
+
+    private final TransitionTable<V, L> table;
+    private final int labelCount;
+    private final Set<V> vertexSet;
+    private final Set<V> acceptVertexSet;
+    private final Set<TransitionEdge<L>> edgeSet;
+    /* The transitions into every vertex, grouped by target, and the index of every vertex's first transition. They are
+       only indexed the first time the incoming edges of a vertex are asked for. */
+    private volatile int[][] incoming;
+
+    /**
+     * Constructs a state diagram view backed by the specified transition table, which must not change.
+     *
+     * @param table the transition table to back the new view
+     *
+     * @throws NullPointerException if {@code table} is {@code null}
+     */
+    public StateDiagramView(TransitionTable<V, L> table) {
+        if (table == null)
+            throw new NullPointerException("Cannot construct a state diagram view of a null transition table.");
+        this.table = table;
+        labelCount = table.labelCount();
+        int vertexCount = table.vertexCount();
+        vertexSet = new IndexSet<>(() -> IntStream.range(0, vertexCount), table::vertexIndex, index -> true,
+                table::vertex, vertexCount);
+        acceptVertexSet = new IndexSet<>(() -> IntStream.range(0, vertexCount).filter(table::isAcceptVertex),
+                table::vertexIndex, table::isAcceptVertex, table::vertex, -1);
+        edgeSet = new IndexSet<>(() -> IntStream.range(0, vertexCount * labelCount), this::transition,
+                transition -> true, this::edge, vertexCount * labelCount);
+    }
+
+    /**
+     * Returns this view's start vertex.
+     *
+     * @return this view's start vertex
+     */
+    public V startVertex() {
+        return table.vertex(table.startVertexIndex());
+    }
+
+    /**
+     * Returns the set of accept vertices contained in this view. The returned set is unmodifiable and attempts to
+     * modify it result in an {@code UnsupportedOperationException}.
+     *
+     * @return the set of accept vertices contained in this view
+     */
+    public Set<V> acceptVertexSet() {
+        return acceptVertexSet;
+    }
+
+    @Override
+    public Set<TransitionEdge<L>> getAllEdges(V sourceVertex, V targetVertex) {
+        int source = table.vertexIndex(sourceVertex);
+        int target = table.vertexIndex(targetVertex);
+        if (source < 0 || target < 0)
+            return null;
+        Set<TransitionEdge<L>> edges = new HashSet<>();
+        for (int label = 0; label < labelCount; label++)
+            if (table.target(source, label) == target)
+                edges.add(edge(source * labelCount + label));
+        return edges;
+    }
+
+    @Override
+    public TransitionEdge<L> getEdge(V sourceVertex, V targetVertex) {
+        int source = table.vertexIndex(sourceVertex);
+        int target = table.vertexIndex(targetVertex);
+        if (source >= 0 && target >= 0)
+            for (int label = 0; label < labelCount; label++)
+                if (table.target(source, label) == target)
+                    return edge(source * labelCount + label);
+        return null;
+    }
+
+    @Override
+    public Supplier<V> getVertexSupplier() {
+        return null;
+    }
+
+    @Override
+    public Supplier<TransitionEdge<L>> getEdgeSupplier() {
+        return null;
+    }
+
+    @Override
+    public TransitionEdge<L> addEdge(V sourceVertex, V targetVertex) {
+        throw unmodifiable();
+    }
+
+    @Override
+    public boolean addEdge(V sourceVertex, V targetVertex, TransitionEdge<L> e) {
+        throw unmodifiable();
+    }
+
+    @Override
+    public V addVertex() {
+        throw unmodifiable();
+    }
+
+    @Override
+    public boolean addVertex(V v) {
+        throw unmodifiable();
+    }
+
+    @Override
+    public boolean containsEdge(TransitionEdge<L> e) {
+        return transition(e) >= 0;
+    }
+
+    @Override
+    public boolean containsVertex(V v) {
+        return table.vertexIndex(v) >= 0;
+    }
+
+    @Override
+    public Set<TransitionEdge<L>> edgeSet() {
+        return edgeSet;
+    }
+
+    @Override
+    public int degreeOf(V vertex) {
+        return inDegreeOf(vertex) + outDegreeOf(vertex);
+    }
+
+    @Override
+    public Set<TransitionEdge<L>> edgesOf(V vertex) {
+        int index = vertexIndex(vertex);
+        int[][] incoming = incoming();
+        // Count the loops on the vertex once, with its outgoing edges.
+        int loops = 0;
+        for (int label = 0; label < labelCount; label++)
+            if (table.target(index, label) == index)
+                loops++;
+        return new IndexSet<>(
+                () -> IntStream.concat(IntStream.range(index * labelCount, (index + 1) * labelCount),
+                        Arrays.stream(incoming[1], incoming[0][index], incoming[0][index + 1])
+                                .filter(transition -> transition / labelCount != index)),
+                this::transition, transition -> transition / labelCount == index || target(transition) == index,
+                this::edge, labelCount + incoming[0][index + 1] - incoming[0][index] - loops);
+    }
+
+    @Override
+    public int inDegreeOf(V vertex) {
+        int index = vertexIndex(vertex);
+        int[][] incoming = incoming();
+        return incoming[0][index + 1] - incoming[0][index];
+    }
+
+    @Override
+    public Set<TransitionEdge<L>> incomingEdgesOf(V vertex) {
+        int index = vertexIndex(vertex);
+        int[][] incoming = incoming();
+        return new IndexSet<>(() -> Arrays.stream(incoming[1], incoming[0][index], incoming[0][index + 1]),
+                this::transition, transition -> target(transition) == index, this::edge,
+                incoming[0][index + 1] - incoming[0][index]);
+    }
+
+    @Override
+    public int outDegreeOf(V vertex) {
+        vertexIndex(vertex);
+        return labelCount;
+    }
+
+    @Override
+    public Set<TransitionEdge<L>> outgoingEdgesOf(V vertex) {
+        int index = vertexIndex(vertex);
+        return new IndexSet<>(() -> IntStream.range(index * labelCount, (index + 1) * labelCount),
+                this::transition, transition -> transition / labelCount == index, this::edge, labelCount);
+    }
+
+    @Override
+    public TransitionEdge<L> removeEdge(V sourceVertex, V targetVertex) {
+        throw unmodifiable();
+    }
+
+    @Override
+    public boolean removeEdge(TransitionEdge<L> e) {
+        throw unmodifiable();
+    }
+
+    @Override
+    public boolean removeVertex(V v) {
+        throw unmodifiable();
+    }
+
+    @Override
+    public Set<V> vertexSet() {
+        return vertexSet;
+    }
+
+    @Override
+    public V getEdgeSource(TransitionEdge<L> e) {
+        // Resolve the edge's transition through the table, which also ensures the edge is in this view.
+        return table.vertex(edgeTransition(e) / labelCount);
+    }
+
+    @Override
+    public V getEdgeTarget(TransitionEdge<L> e) {
+        return table.vertex(target(edgeTransition(e)));
+    }
+
+    @Override
+    public GraphType getType() {
+        return TYPE;
+    }
+
+    @Override
+    public double getEdgeWeight(TransitionEdge<L> e) {
+        if (e == null)
+            throw new NullPointerException("Cannot get the weight of a null edge.");
+        return DEFAULT_EDGE_WEIGHT;
+    }
+
+    @Override
+    public void setEdgeWeight(TransitionEdge<L> e, double weight) {
+        throw unmodifiable();
+    }
+
+    /* Returns an edge of the transition at the specified index, which is its source's index times the number of labels
+       plus its label's index. */
+    private TransitionEdge<L> edge(int transition) {
+        int source = transition / labelCount;
+        int label = transition % labelCount;
+        return new TransitionEdge<>(table.label(label), table.vertex(source),
+                table.vertex(table.target(source, label)));
+    }
+
+    /* Returns the index of the transition of the specified edge, or -1 if it is not an edge of this view. */
+    private int transition(Object edge) {
+        if (!(edge instanceof TransitionEdge))
+            return -1;
+        TransitionEdge<?> e = (TransitionEdge<?>) edge;
+        int source = table.vertexIndex(e.sourceVertex());
+        int label = table.labelIndex(e.label());
+        if (source < 0 || label < 0 || table.vertexIndex(e.targetVertex()) != table.target(source, label))
+            return -1;
+        return source * labelCount + label;
+    }
+
+    private int edgeTransition(TransitionEdge<L> e) {
+        if (e == null)
+            throw new NullPointerException("Cannot get an endpoint of a null edge.");
+        int transition = transition(e);
+        if (transition < 0)
+            throw new IllegalArgumentException(
+                    "Cannot get an endpoint of an edge that is not in a state diagram view.");
+        return transition;
+    }
+
+    private int target(int transition) {
+        return table.target(transition / labelCount, transition % labelCount);
+    }
+
+    private int vertexIndex(V vertex) {
+        if (vertex == null)
+            throw new NullPointerException("Cannot get the edges of a null vertex.");
+        int index = table.vertexIndex(vertex);
+        if (index < 0)
+            throw new IllegalArgumentException("Cannot get the edges of a vertex that is not in a state diagram view.");
+        return index;
+    }
+
+    /* Indexes the transitions into every vertex the first time they are asked for, as a vertex's edges are otherwise
+       only its outgoing ones. */
+    private int[][] incoming() {
+        int[][] incoming = this.incoming;
+        if (incoming == null) {
+            int vertexCount = table.vertexCount();
+            int[] start = new int[vertexCount + 1];
+            for (int source = 0; source < vertexCount; source++)
+                for (int label = 0; label < labelCount; label++)
+                    start[table.target(source, label) + 1]++;
+            for (int vertex = 0; vertex < vertexCount; vertex++)
+                start[vertex + 1] += start[vertex];
+            int[] transitions = new int[vertexCount * labelCount];
+            int[] fill = Arrays.copyOf(start, vertexCount);
+            for (int source = 0; source < vertexCount; source++)
+                for (int label = 0; label < labelCount; label++)
+                    transitions[fill[table.target(source, label)]++] = source * labelCount + label;
+            this.incoming = incoming = new int[][] { start, transitions };
+        }
+        return incoming;
+    }
+
+    private static UnsupportedOperationException unmodifiable() {
+        return new UnsupportedOperationException("Cannot modify a state diagram view.");
+    }
+
+    /* An unmodifiable set of the vertices or edges at the indices a stream supplies, computed on demand. An object is
+       in the set if it has an index in the view that the set's predicate accepts. */
+    private static final class IndexSet<T> extends AbstractSet<T> {
+        private final Supplier<IntStream> indices;
+        private final ToIntFunction<Object> index;
+        private final IntPredicate contains;
+        private final IntFunction<T> element;
+        private int size;
+
+        IndexSet(Supplier<IntStream> indices, ToIntFunction<Object> index, IntPredicate contains,
+                IntFunction<T> element, int size) {
+            this.indices = indices;
+            this.index = index;
+            this.contains = contains;
+            this.element = element;
+            this.size = size;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return indices.get().mapToObj(element).iterator();
+        }
+
+        @Override
+        public int size() {
+            // Count the indices the first time the size is asked for, if it is not known.
+            if (size < 0)
+                size = (int) indices.get().count();
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            int i = index.applyAsInt(o);
+            return i >= 0 && contains.test(i);
+        }
+    }
+}
@@ -16,6 +16,9 @@
 public final class TransitionEdge<L> extends DefaultEdge {
     private static final long serialVersionUID = 1031826645375149535L;
     private L label;
+    /* The source and target vertices of an edge of a state diagram view, which is in no graph to set them. */
+    private final Object viewSource;
+    private final Object viewTarget;
 
     /**
      * Constructs a new transition edge with the specified label.
@@ -23,7 +26,14 @@
      * @param label the label of the new transition edge
      */
     public TransitionEdge(L label) {
+        this(label, null, null);
+    }
+
+    /* Constructs an edge of a state diagram view, with the specified source and target vertices. */
+    TransitionEdge(L label, Object viewSource, Object viewTarget) {
         this.label = label;
+        this.viewSource = viewSource;
+        this.viewTarget = viewTarget;
     }
 
     /**
@@ -35,6 +45,26 @@ public L label() {
         return label;
     }
 
+    @Override
+    protected Object getSource() {
+        return viewSource != null ? viewSource : super.getSource();
+    }
+
+    @Override
+    protected Object getTarget() {
+        return viewTarget != null ? viewTarget : super.getTarget();
+    }
+
+    /* Return the source and target vertices of this edge to the state diagram views in this package, which cannot read
+       them from the graph they are in. */
+    Object sourceVertex() {
+        return getSource();
+    }
+
+    Object targetVertex() {
+        return getTarget();
+    }
+
     /* Returns a class instance parametrized with the label type. */
     @SuppressWarnings("unchecked")
     static <T> Class<T> generified() {
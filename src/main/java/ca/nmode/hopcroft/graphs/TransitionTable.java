@@ -0,0 +1,90 @@
+package ca.nmode.hopcroft.graphs;
+
+/**
+ * The transition structure of a deterministic finite-state machine, whose states and labels are indexed by consecutive
+ * integers from zero. Every state has exactly one transition on every label. It backs a
+ * {@link StateDiagramView state diagram view}, which computes its vertices and edges from the table on demand.
+ *
+ * @param <V> the type of this table's states
+ * @param <L> the type of the labels of this table's transitions
+ *
+ * @author Naeem Model
+ */
+public interface TransitionTable<V, L> {
+    /**
+     * Returns the number of states in this table.
+     *
+     * @return the number of states in this table
+     */
+    int vertexCount();
+
+    /**
+     * Returns the state at the specified index.
+     *
+     * @param index the index of the state, from zero to the number of states
+     *
+     * @return the state at the specified index
+     */
+    V vertex(int index);
+
+    /**
+     * Returns the index of the specified state, or -1 if it is not in this table.
+     *
+     * @param vertex the state to find the index of
+     *
+     * @return the index of the specified state, or -1 if it is not in this table
+     */
+    int vertexIndex(Object vertex);
+
+    /**
+     * Returns the number of labels in this table.
+     *
+     * @return the number of labels in this table
+     */
+    int labelCount();
+
+    /**
+     * Returns the label at the specified index.
+     *
+     * @param index the index of the label, from zero to the number of labels
+     *
+     * @return the label at the specified index
+     */
+    L label(int index);
+
+    /**
+     * Returns the index of the specified label, or -1 if it is not in this table.
+     *
+     * @param label the label to find the index of
+     *
+     * @return the index of the specified label, or -1 if it is not in this table
+     */
+    int labelIndex(Object label);
+
+    /**
+     * Returns the index of this table's start state.
+     *
+     * @return the index of this table's start state
+     */
+    int startVertexIndex();
+
+    /**
+     * Determines whether the state at the specified index is an accept state.
+     *
+     * @param index the index of the state
+     *
+     * @return {@code true} if the state at the specified index is an accept state, {@code false} otherwise
+     */
+    boolean isAcceptVertex(int index);
+
+    /**
+     * Returns the index of the state that the state at the specified index transitions to on the label at the
+     * specified index.
+     *
+     * @param vertex the index of the state the transition goes from
+     * @param label  the index of the transition's label
+     *
+     * @return the index of the state the transition goes to
+     */
+    int target(int vertex, int label);
+}
@@ -74,27 +74,27 @@
                     "Cannot construct a finite-state machine whose transition map contains null values.");
 
         /* Ensure the Mealy translation map is not null, its values are in the set of output elements and its key set is
-           equal to the transition map's key set. */
+           either empty (for acceptors) or equal to the transition map's key set. */
         if (MealyTranslations == null)
             throw new NullPointerException(
                     "Cannot construct a finite-state machine whose Mealy translation map is null.");
         if (!this.outputElements.containsAll(MealyTranslations.values()))
             throw new IllegalArgumentException("Cannot construct a finite-state machine whose Mealy translation map "
                     + "contains values that are not in its set of output elements.");
-        if (!MealyTranslations.keySet().equals(transitions.keySet()))
-            throw new IllegalArgumentException("Cannot construct a finite-state machine whose Moore translation map's "
+        if (!MealyTranslations.isEmpty() && !MealyTranslations.keySet().equals(transitions.keySet()))
+            throw new IllegalArgumentException("Cannot construct a finite-state machine whose Mealy translation map's "
                     + "key set is not equal to its transition map's key set.");
         this.MealyTranslations = Collections.unmodifiableMap(MealyTranslations);
 
         /* Ensure the Moore translation map is not null, its values are in the set of output elements and its key set is
-           equal to the set of states. */
+           either empty (for acceptors) or equal to the set of states. */
         if (MooreTranslations == null)
             throw new NullPointerException(
                     "Cannot construct a finite-state machine whose Moore translation map is null.");
         if (!this.outputElements.containsAll(MooreTranslations.values()))
             throw new IllegalArgumentException("Cannot construct a finite-state machine whose Moore translation map "
                     + "contains values that are not in its set of output elements.");
-        if (!MooreTranslations.keySet().equals(states))
+        if (!MooreTranslations.isEmpty() && !MooreTranslations.keySet().equals(states))
             throw new IllegalArgumentException("Cannot construct a finite-state machine whose Moore translation map's "
                     + "key set is not equal to its set of states.");
         this.MooreTranslations = Collections.unmodifiableMap(MooreTranslations);
@@ -0,0 +1,109 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/* A computation of a machine on a batch of inputs, partitioned across the threads of an executor. Workers claim
+   consecutive batches of inputs from a shared counter, so that uneven inputs balance across them, and the calling
+   thread works alongside them. When only whether every input is accepted is wanted, every worker stops as soon as any
+   input is rejected, and every worker stops as soon as any one of them fails. */
+final class BatchRecognition {
+    /* The number of consecutive inputs a worker claims at once. */
+    private static final int BATCH_SIZE = 64;
+
+    private BatchRecognition() {}
+
+    /* Returns true if every input is accepted, stopping every worker as soon as one is rejected. */
+    static <I> boolean all(Collection<? extends List<I>> inputs, Predicate<List<I>> accepts, Executor executor) {
+        List<List<I>> batch = new ArrayList<>(inputs);
+        AtomicInteger next = new AtomicInteger();
+        // Set when an input is rejected or a worker fails, either of which settles the result.
+        AtomicBoolean stopped = new AtomicBoolean();
+        run(batch.size(), executor, stopped, () -> {
+            for (int from; (from = next.getAndAdd(BATCH_SIZE)) < batch.size();)
+                for (int i = from, to = Math.min(batch.size(), from + BATCH_SIZE); i < to; i++) {
+                    if (stopped.get())
+                        return;
+                    if (!accepts.test(batch.get(i))) {
+                        stopped.set(true);
+                        return;
+                    }
+                }
+        });
+        return !stopped.get();
+    }
+
+    /* Returns whether each input is accepted, in order. */
+    static <I> boolean[] each(List<? extends List<I>> inputs, Predicate<List<I>> accepts, Executor executor) {
+        List<List<I>> batch = new ArrayList<>(inputs);
+        boolean[] accepted = new boolean[batch.size()];
+        AtomicInteger next = new AtomicInteger();
+        // Set when a worker fails, after which the result is discarded.
+        AtomicBoolean stopped = new AtomicBoolean();
+        run(batch.size(), executor, stopped, () -> {
+            for (int from; !stopped.get() && (from = next.getAndAdd(BATCH_SIZE)) < batch.size();)
+                for (int i = from, to = Math.min(batch.size(), from + BATCH_SIZE); i < to; i++)
+                    accepted[i] = accepts.test(batch.get(i));
+        });
+        return accepted;
+    }
+
+    /* Runs the specified worker on the calling thread and as many threads of the executor as are useful for the
+       specified number of inputs, and waits for every one of them to finish. A worker that fails sets the specified
+       flag so that the others stop early, and its exception is rethrown as if it was thrown on the calling thread. If
+       the executor rejects a worker, the inputs are left to the workers already submitted and the calling thread. */
+    private static void run(int size, Executor executor, AtomicBoolean stopped, Runnable worker) {
+        Runnable task = () -> {
+            boolean completed = false;
+            try {
+                worker.run();
+                completed = true;
+            } finally {
+                if (!completed)
+                    stopped.set(true);
+            }
+        };
+        int parallelism = executor instanceof ForkJoinPool ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        int workers = Math.min(parallelism, (size + BATCH_SIZE - 1) / BATCH_SIZE);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(Math.max(0, workers - 1));
+        try {
+            for (int w = 1; w < workers; w++)
+                futures.add(CompletableFuture.runAsync(task, executor));
+        } catch (RejectedExecutionException e) {
+            // Workers claim inputs from a shared counter, so fewer of them still compute every input.
+        }
+
+        Throwable failure = null;
+        try {
+            task.run();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() instanceof RuntimeException || e.getCause() instanceof Error
+                        ? e.getCause() : e;
+                if (failure == null)
+                    failure = cause;
+                else if (failure != cause)
+                    failure.addSuppressed(cause);
+            }
+        }
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+    }
+}
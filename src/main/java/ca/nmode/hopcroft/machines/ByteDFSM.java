@@ -0,0 +1,386 @@
+package ca.nmode.hopcroft.machines;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A {@link OneWayDFSM one-way deterministic finite-state machine} over bytes, specialized to run directly on byte
+ * arrays, byte buffers and memory-mapped files without boxing. Its transition function is a table of 256 columns per
+ * state, with an extra dead state standing in for the {@code null} state, which every byte that is not in the machine's
+ * set of input elements transitions to.
+ *
+ * @param <S> the type of the machine's states
+ *
+ * @author Naeem Model
+ */
+public final class ByteDFSM<S> {
+    /* The largest region of a file mapped at once. */
+    private static final long MAPPING_SIZE = 1L << 30;
+
+    private final OneWayDFSM<S, Byte, ?> machine;
+    private final Object[] states;
+    private final int startState;
+    private final int deadState;
+    private final int[] transitions;
+    private final boolean[] accepting;
+    private final int[] reachableStates;
+    private final boolean[] sinks;
+
+    /**
+     * Constructs a byte-specialized machine equivalent to the specified one-way deterministic finite-state machine.
+     *
+     * @param machine the one-way deterministic finite-state machine over bytes to specialize
+     *
+     * @throws NullPointerException     if {@code machine} is {@code null}
+     * @throws IllegalArgumentException if {@code machine} has too many states for a table of 256 columns per state to
+     *                                  fit in an array
+     */
+    public ByteDFSM(OneWayDFSM<S, Byte, ?> machine) {
+        if (machine == null)
+            throw new NullPointerException("Cannot specialize a null one-way deterministic finite-state machine.");
+        this.machine = machine;
+
+        DFSMTable<S, Byte, ?> table = machine.table;
+        states = table.states;
+        startState = table.startState;
+        deadState = states.length;
+        transitions = new int[tableSize(deadState + 1)];
+        accepting = new boolean[deadState + 1];
+        System.arraycopy(table.accepting, 0, accepting, 0, deadState);
+
+        // Transition on every byte that is not an input element, and every byte from the dead state, to the dead state.
+        for (int state = 0; state <= deadState; state++)
+            for (int b = 0; b < 256; b++) {
+                int element = state == deadState ? -1 : table.inputElementId((byte) b);
+                transitions[state << 8 | b] = element < 0 ? deadState
+                        : table.transitions[state * table.alphabetSize + element];
+            }
+
+        // The dead state is only reachable if some byte is not an input element.
+        if (table.inputElements.length < 256) {
+            reachableStates = Arrays.copyOf(table.reachableStates, table.reachableStates.length + 1);
+            reachableStates[reachableStates.length - 1] = deadState;
+        } else {
+            reachableStates = table.reachableStates;
+        }
+        sinks = SpeculativeRun.sinks(transitions, deadState + 1, 256);
+    }
+
+    /* Returns the number of entries in the transition table of the specified number of states, including the dead
+       state. */
+    static int tableSize(int stateCount) {
+        long size = (long) stateCount << 8;
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Cannot specialize a one-way deterministic finite-state machine whose "
+                    + "transition table is larger than " + Integer.MAX_VALUE + " entries.");
+        return (int) size;
+    }
+
+    /**
+     * Returns the machine this byte-specialized machine is equivalent to.
+     *
+     * @return the machine this byte-specialized machine is equivalent to
+     */
+    public OneWayDFSM<S, Byte, ?> machine() {
+        return machine;
+    }
+
+    /**
+     * Returns the final state of this machine's computation on the specified bytes.
+     *
+     * @param input the bytes to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return the final state of this machine's computation, or {@code null} if it read a byte that is not an input
+     *         element
+     */
+    public S classify(byte[] input) {
+        return state(run(input));
+    }
+
+    /**
+     * Returns the final state of this machine's computation on the specified range of bytes.
+     *
+     * @param input  the array containing the bytes to compute this machine on
+     * @param offset the index of the first byte to compute this machine on
+     * @param length the number of bytes to compute this machine on
+     *
+     * @throws NullPointerException      if {@code input} is {@code null}
+     * @throws IndexOutOfBoundsException if the range is out of the bounds of {@code input}
+     *
+     * @return the final state of this machine's computation, or {@code null} if it read a byte that is not an input
+     *         element
+     */
+    public S classify(byte[] input, int offset, int length) {
+        return state(run(input, offset, length));
+    }
+
+    /**
+     * Returns the final state of this machine's computation on the remaining bytes of the specified buffer, which may
+     * be direct or memory-mapped. The buffer's position is not changed.
+     *
+     * @param input the buffer containing the bytes to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return the final state of this machine's computation, or {@code null} if it read a byte that is not an input
+     *         element
+     */
+    public S classify(ByteBuffer input) {
+        return state(run(startState, input));
+    }
+
+    /**
+     * Returns the final state of this machine's computation on the contents of the specified file. The file is mapped
+     * into memory region by region, and its contents are never copied onto the heap.
+     *
+     * @param file the path of the file to compute this machine on
+     *
+     * @throws NullPointerException if {@code file} is {@code null}
+     * @throws IOException          if the file cannot be opened or mapped
+     *
+     * @return the final state of this machine's computation, or {@code null} if it read a byte that is not an input
+     *         element
+     */
+    public S classify(Path file) throws IOException {
+        return state(run(file, MAPPING_SIZE));
+    }
+
+    /* Returns the final state of this machine's computation on the contents of the specified file, mapped in regions
+       of the specified size. */
+    S classify(Path file, long mappingSize) throws IOException {
+        return state(run(file, mappingSize));
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the specified bytes, {@code false} otherwise.
+     *
+     * @param input the bytes to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return {@code true} if this machine accepts the specified bytes, {@code false} otherwise
+     */
+    public boolean accepts(byte[] input) {
+        return accepting[run(input)];
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the specified range of bytes, {@code false} otherwise.
+     *
+     * @param input  the array containing the bytes to compute this machine on
+     * @param offset the index of the first byte to compute this machine on
+     * @param length the number of bytes to compute this machine on
+     *
+     * @throws NullPointerException      if {@code input} is {@code null}
+     * @throws IndexOutOfBoundsException if the range is out of the bounds of {@code input}
+     *
+     * @return {@code true} if this machine accepts the specified range of bytes, {@code false} otherwise
+     */
+    public boolean accepts(byte[] input, int offset, int length) {
+        return accepting[run(input, offset, length)];
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the remaining bytes of the specified buffer, {@code false}
+     * otherwise. The buffer's position is not changed.
+     *
+     * @param input the buffer containing the bytes to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return {@code true} if this machine accepts the remaining bytes of the specified buffer, {@code false} otherwise
+     */
+    public boolean accepts(ByteBuffer input) {
+        return accepting[run(startState, input)];
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the contents of the specified file, {@code false} otherwise.
+     *
+     * @param file the path of the file to compute this machine on
+     *
+     * @throws NullPointerException if {@code file} is {@code null}
+     * @throws IOException          if the file cannot be opened or mapped
+     *
+     * @return {@code true} if this machine accepts the contents of the specified file, {@code false} otherwise
+     */
+    public boolean accepts(Path file) throws IOException {
+        return accepting[run(file, MAPPING_SIZE)];
+    }
+
+    /**
+     * Returns the final state of this machine's computation on the specified bytes, computed in parallel on the
+     * specified fork/join pool. The bytes are split into chunks, each of which is run from every state at once to
+     * obtain the function from the state it begins in to the state it ends in, and the functions are composed in order.
+     * Short inputs are computed sequentially.
+     *
+     * @param input the bytes to compute this machine on
+     * @param pool  the fork/join pool to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} or {@code pool} is {@code null}
+     *
+     * @return the final state of this machine's computation, or {@code null} if it read a byte that is not an input
+     *         element
+     */
+    public S parallelClassify(byte[] input, ForkJoinPool pool) {
+        return state(parallelRun(input == null ? null : ByteBuffer.wrap(input), pool));
+    }
+
+    /**
+     * Returns the final state of this machine's computation on the remaining bytes of the specified buffer, computed in
+     * parallel on the specified fork/join pool. The buffer's position is not changed.
+     *
+     * @param input the buffer containing the bytes to compute this machine on
+     * @param pool  the fork/join pool to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} or {@code pool} is {@code null}
+     *
+     * @return the final state of this machine's computation, or {@code null} if it read a byte that is not an input
+     *         element
+     *
+     * @see #parallelClassify(byte[], ForkJoinPool)
+     */
+    public S parallelClassify(ByteBuffer input, ForkJoinPool pool) {
+        return state(parallelRun(input, pool));
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the specified bytes, computed in parallel on the specified fork/join
+     * pool, {@code false} otherwise.
+     *
+     * @param input the bytes to compute this machine on
+     * @param pool  the fork/join pool to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} or {@code pool} is {@code null}
+     *
+     * @return {@code true} if this machine accepts the specified bytes, {@code false} otherwise
+     *
+     * @see #parallelClassify(byte[], ForkJoinPool)
+     */
+    public boolean parallelAccepts(byte[] input, ForkJoinPool pool) {
+        return accepting[parallelRun(input == null ? null : ByteBuffer.wrap(input), pool)];
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the remaining bytes of the specified buffer, computed in parallel on
+     * the specified fork/join pool, {@code false} otherwise. The buffer's position is not changed.
+     *
+     * @param input the buffer containing the bytes to compute this machine on
+     * @param pool  the fork/join pool to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} or {@code pool} is {@code null}
+     *
+     * @return {@code true} if this machine accepts the remaining bytes of the specified buffer, {@code false} otherwise
+     *
+     * @see #parallelClassify(byte[], ForkJoinPool)
+     */
+    public boolean parallelAccepts(ByteBuffer input, ForkJoinPool pool) {
+        return accepting[parallelRun(input, pool)];
+    }
+
+    private int run(byte[] input) {
+        if (input == null)
+            throw new NullPointerException("Cannot compute a byte-specialized one-way deterministic finite-state "
+                    + "machine on a null input.");
+        return run(input, 0, input.length);
+    }
+
+    private int run(byte[] input, int offset, int length) {
+        if (input == null)
+            throw new NullPointerException("Cannot compute a byte-specialized one-way deterministic finite-state "
+                    + "machine on a null input.");
+        Objects.checkFromIndexSize(offset, length, input.length);
+
+        // Stop early once the dead state is reached, as it transitions to itself on every byte.
+        int[] transitions = this.transitions;
+        int deadState = this.deadState;
+        int state = startState;
+        for (int i = offset, end = offset + length; i < end && state != deadState; i++)
+            state = transitions[state << 8 | input[i] & 0xFF];
+        return state;
+    }
+
+    private int run(int state, ByteBuffer input) {
+        if (input == null)
+            throw new NullPointerException("Cannot compute a byte-specialized one-way deterministic finite-state "
+                    + "machine on a null input.");
+
+        // Read heap buffers through their backing array, and others through absolute gets, stopping early once the dead
+        // state is reached.
+        int[] transitions = this.transitions;
+        int deadState = this.deadState;
+        if (input.hasArray()) {
+            byte[] array = input.array();
+            int offset = input.arrayOffset();
+            for (int i = offset + input.position(), end = offset + input.limit(); i < end && state != deadState; i++)
+                state = transitions[state << 8 | array[i] & 0xFF];
+            return state;
+        }
+        for (int i = input.position(), end = input.limit(); i < end && state != deadState; i++)
+            state = transitions[state << 8 | input.get(i) & 0xFF];
+        return state;
+    }
+
+    private int parallelRun(ByteBuffer input, ForkJoinPool pool) {
+        if (input == null)
+            throw new NullPointerException("Cannot compute a byte-specialized one-way deterministic finite-state "
+                    + "machine on a null input.");
+        if (pool == null)
+            throw new NullPointerException("Cannot compute a byte-specialized one-way deterministic finite-state "
+                    + "machine on a null fork/join pool.");
+
+        // Read heap buffers through their backing array, and others through absolute gets, so that chunks can be read
+        // concurrently.
+        int[] transitions = this.transitions;
+        int position = input.position();
+        if (input.hasArray()) {
+            byte[] array = input.array();
+            int offset = input.arrayOffset() + position;
+            return new SpeculativeRun(deadState + 1, reachableStates, sinks) {
+                @Override
+                int run(int state, int from, int to) {
+                    for (int i = offset + from, end = offset + to; i < end; i++)
+                        state = transitions[state << 8 | array[i] & 0xFF];
+                    return state;
+                }
+            }.run(pool, startState, input.remaining());
+        }
+        return new SpeculativeRun(deadState + 1, reachableStates, sinks) {
+            @Override
+            int run(int state, int from, int to) {
+                for (int i = position + from, end = position + to; i < end; i++)
+                    state = transitions[state << 8 | input.get(i) & 0xFF];
+                return state;
+            }
+        }.run(pool, startState, input.remaining());
+    }
+
+    private int run(Path file, long mappingSize) throws IOException {
+        if (file == null)
+            throw new NullPointerException("Cannot compute a byte-specialized one-way deterministic finite-state "
+                    + "machine on a null file.");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int state = startState;
+            long size = channel.size();
+            // Map and compute on one region at a time, stopping early once the dead state is reached.
+            for (long position = 0; position < size && state != deadState; position += mappingSize)
+                state = run(state, channel.map(MapMode.READ_ONLY, position, Math.min(mappingSize, size - position)));
+            return state;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private S state(int state) {
+        return state == deadState ? null : (S) states[state];
+    }
+}
@@ -0,0 +1,277 @@
+package ca.nmode.hopcroft.machines;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A {@link OneWayDFSM one-way deterministic finite-state machine} compiled into a class of its own, whose match loop
+ * encodes every state as a block of code that reads the next element and jumps straight to the block of its target
+ * state, rather than looking the target up in a transition table. The class is defined at runtime as a hidden class,
+ * which is unloaded once the compiled machine is no longer reachable, so that the JIT can compile a small, hot machine
+ * into a tight native loop without array bounds checks or indirect loads. Only machines whose match loop fits within
+ * the size of the largest methods the JIT compiles can be compiled.
+ * <p>
+ * As every transition is a branch, a compiled machine is fastest on inputs whose paths through its states the processor
+ * predicts well, such as those spending most of their elements in a few states. On inputs whose transitions are close
+ * to random, the {@link OneWayDFSM#classify(List) table-driven} computation can be faster.
+ * <p>
+ * A compiled machine is safe for concurrent use.
+ *
+ * @param <S> the type of the machine's states
+ * @param <I> the type of the machine's input elements
+ *
+ * @author Naeem Model
+ */
+public final class CompiledDFSM<S, I> {
+    /* The largest method, in bytes of bytecode, that the JIT compiles by default. */
+    private static final int MAX_CODE_SIZE = 8000;
+    /* The number of elements mapped to their indices before the match loop is entered. */
+    private static final int CHUNK_SIZE = 1024;
+
+    /* The match loop of a compiled machine, which returns the index of the state reached from the specified state on
+       the element indices in the specified range, or -1 if the state is not reachable. */
+    interface Matcher {
+        int run(int state, int[] elements, int from, int to);
+    }
+
+    private final OneWayDFSM<S, I, ?> machine;
+    private final DFSMTable<S, I, ?> table;
+    private final Matcher matcher;
+
+    /**
+     * Compiles the specified one-way deterministic finite-state machine into a class of its own.
+     *
+     * @param machine the one-way deterministic finite-state machine to compile
+     *
+     * @throws NullPointerException     if {@code machine} is {@code null}
+     * @throws IllegalArgumentException if the machine's match loop is too large for the JIT to compile
+     */
+    public CompiledDFSM(OneWayDFSM<S, I, ?> machine) {
+        if (machine == null)
+            throw new NullPointerException("Cannot compile a null one-way deterministic finite-state machine.");
+        this.machine = machine;
+        table = machine.table;
+
+        byte[] code = code(table);
+        try {
+            Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile(code), true);
+            MethodType constructor = MethodType.methodType(void.class);
+            matcher = (Matcher) lookup.findConstructor(lookup.lookupClass(), constructor).invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot define the class of a compiled one-way deterministic finite-state "
+                    + "machine.", e);
+        }
+    }
+
+    /**
+     * Returns the machine this compiled machine is equivalent to.
+     *
+     * @return the machine this compiled machine is equivalent to
+     */
+    public OneWayDFSM<S, I, ?> machine() {
+        return machine;
+    }
+
+    /**
+     * Returns the final state of this machine's computation on the specified input. The returned state is equal to the
+     * one returned by {@link OneWayDFSM#classify(List)}.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return the final state of this machine's computation, or {@code null} if it read an element that is not an
+     *         input element
+     */
+    public S classify(List<I> input) {
+        return table.state(run(input));
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the specified input, {@code false} otherwise.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return {@code true} if the specified input is accepted, {@code false} otherwise
+     */
+    public boolean accepts(List<I> input) {
+        int state = run(input);
+        return state >= 0 && table.accepting[state];
+    }
+
+    /* Runs the compiled match loop on the indices of the input's elements, one chunk at a time, and returns the index
+       of the final state, or -1 if the computation halts on an element that is not in the set of input elements. */
+    private int run(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException("Cannot compute a compiled one-way deterministic finite-state machine on a "
+                    + "null input.");
+
+        int state = table.startState;
+        int[] elements = new int[Math.min(CHUNK_SIZE, input.size())];
+        Iterator<I> it = input.iterator();
+        while (it.hasNext()) {
+            int length = 0;
+            while (length < elements.length && it.hasNext()) {
+                int element = table.inputElementId(it.next());
+                if (element < 0)
+                    return -1;
+                elements[length++] = element;
+            }
+            state = matcher.run(state, elements, 0, length);
+        }
+        return state;
+    }
+
+    /* Returns the bytecode of the match loop of the specified table, whose locals are the state, the element indices,
+       the index of the next element and the end of the range. The loop begins by jumping to the block of the state it
+       is given. The block of a state returns the state if the range is exhausted, and otherwise reads the next element
+       and jumps to the block of its target. Unreachable states have no block, and the blocks of sink states return
+       immediately, as no element can leave them. */
+    private static byte[] code(DFSMTable<?, ?, ?> table) {
+        int stateCount = table.states.length;
+        int alphabetSize = table.alphabetSize;
+        long bound = 17 + 4L * stateCount + table.reachableStates.length * (32 + 4L * alphabetSize) + 2;
+        if (bound > MAX_CODE_SIZE)
+            throw new IllegalArgumentException("Cannot compile a one-way deterministic finite-state machine whose "
+                    + "match loop is larger than " + MAX_CODE_SIZE + " bytes.");
+
+        ByteBuffer code = ByteBuffer.allocate((int) bound);
+        int[] blocks = new int[stateCount];
+        // Record every jump to a block, as the position of its offset and the position it is relative to.
+        int[] jumps = new int[2 * (stateCount + table.reachableStates.length * alphabetSize)];
+        int[] jumpTargets = new int[jumps.length / 2];
+        int jumpCount = 0;
+        int[] halts = new int[stateCount + table.reachableStates.length + 1];
+        int haltCount = 0;
+
+        // Jump to the block of the given state.
+        code.put(ILOAD_1);
+        int dispatch = code.position();
+        code.put(TABLESWITCH);
+        align(code);
+        halts[haltCount++] = code.position();
+        code.putInt(dispatch).putInt(0).putInt(stateCount - 1);
+        boolean[] reachable = new boolean[stateCount];
+        for (int state : table.reachableStates)
+            reachable[state] = true;
+        for (int state = 0; state < stateCount; state++) {
+            if (reachable[state]) {
+                jumps[2 * jumpCount] = code.position();
+                jumps[2 * jumpCount + 1] = dispatch;
+                jumpTargets[jumpCount++] = state;
+                code.putInt(0);
+            } else {
+                halts[haltCount++] = code.position();
+                code.putInt(dispatch);
+            }
+        }
+
+        for (int state : table.reachableStates) {
+            blocks[state] = code.position();
+            if (table.sinks[state] || alphabetSize == 0) {
+                code.put(SIPUSH).putShort((short) state).put(IRETURN);
+                continue;
+            }
+            // Return the state if the range is exhausted.
+            int exhausted = code.position();
+            code.put(ILOAD_3).put(ILOAD).put((byte) 4).put(IF_ICMPGE).putShort((short) 0);
+            // Read the next element and jump to the block of its target.
+            code.put(ALOAD_2).put(ILOAD_3).put(IALOAD).put(IINC).put((byte) 3).put((byte) 1);
+            int transition = code.position();
+            code.put(TABLESWITCH);
+            align(code);
+            halts[haltCount++] = code.position();
+            code.putInt(transition).putInt(0).putInt(alphabetSize - 1);
+            for (int element = 0; element < alphabetSize; element++) {
+                jumps[2 * jumpCount] = code.position();
+                jumps[2 * jumpCount + 1] = transition;
+                jumpTargets[jumpCount++] = table.transitions[state * alphabetSize + element];
+                code.putInt(0);
+            }
+            code.putShort(exhausted + 4, (short) (code.position() - exhausted - 3));
+            code.put(SIPUSH).putShort((short) state).put(IRETURN);
+        }
+
+        // Return -1 for an unreachable state or an element that is not in the set of input elements.
+        int halt = code.position();
+        code.put(ICONST_M1).put(IRETURN);
+        for (int h = 0; h < haltCount; h++)
+            code.putInt(halts[h], halt - code.getInt(halts[h]));
+        for (int j = 0; j < jumpCount; j++)
+            code.putInt(jumps[2 * j], blocks[jumpTargets[j]] - jumps[2 * j + 1]);
+        return Arrays.copyOf(code.array(), code.position());
+    }
+
+    /* Pads a tableswitch instruction so that its operands begin on a multiple of four bytes. */
+    private static void align(ByteBuffer code) {
+        while ((code.position() & 3) != 0)
+            code.put((byte) 0);
+    }
+
+    /* Returns a class file of a final class implementing the matcher interface with the specified match loop. The
+       class file predates stack map frames, so that the verifier infers the types of the loop's jumps itself. */
+    private static byte[] classFile(byte[] code) {
+        String[] constants = {"ca/nmode/hopcroft/machines/CompiledDFSM$Loop", "java/lang/Object",
+                "ca/nmode/hopcroft/machines/CompiledDFSM$Matcher", "<init>", "()V", "run", "(I[III)I", "Code"};
+        ByteBuffer classFile = ByteBuffer.allocate(512 + code.length);
+        classFile.putInt(0xCAFEBABE).putShort((short) 0).putShort((short) 49);
+
+        // 1-8: the strings, 9-11: the classes, 12: the constructor name and type, 13: the superclass constructor.
+        classFile.putShort((short) 14);
+        for (String constant : constants) {
+            byte[] utf = constant.getBytes(StandardCharsets.UTF_8);
+            classFile.put((byte) 1).putShort((short) utf.length).put(utf);
+        }
+        for (int name = 1; name <= 3; name++)
+            classFile.put((byte) 7).putShort((short) name);
+        classFile.put((byte) 12).putShort((short) 4).putShort((short) 5);
+        classFile.put((byte) 10).putShort((short) 10).putShort((short) 12);
+
+        // A final class extending Object and implementing the matcher interface, with no fields.
+        classFile.putShort((short) 0x0030).putShort((short) 9).putShort((short) 10);
+        classFile.putShort((short) 1).putShort((short) 11);
+        classFile.putShort((short) 0);
+
+        // A public constructor calling the superclass constructor, and the public match loop.
+        classFile.putShort((short) 2);
+        byte[] constructor = {ALOAD_0, INVOKESPECIAL, 0, 13, RETURN};
+        method(classFile, 4, 5, 1, 1, constructor);
+        method(classFile, 6, 7, 2, 5, code);
+        classFile.putShort((short) 0);
+
+        return Arrays.copyOf(classFile.array(), classFile.position());
+    }
+
+    private static void method(ByteBuffer classFile, int name, int descriptor, int maxStack, int maxLocals,
+            byte[] code) {
+        classFile.putShort((short) 0x0001).putShort((short) name).putShort((short) descriptor).putShort((short) 1);
+        classFile.putShort((short) 8).putInt(12 + code.length).putShort((short) maxStack).putShort((short) maxLocals);
+        classFile.putInt(code.length).put(code).putShort((short) 0).putShort((short) 0);
+    }
+
+    private static final byte ICONST_M1 = 0x02;
+    private static final byte SIPUSH = 0x11;
+    private static final byte ILOAD = 0x15;
+    private static final byte ILOAD_1 = 0x1B;
+    private static final byte ILOAD_3 = 0x1D;
+    private static final byte ALOAD_0 = 0x2A;
+    private static final byte ALOAD_2 = 0x2C;
+    private static final byte IALOAD = 0x2E;
+    private static final byte IINC = (byte) 0x84;
+    private static final byte IF_ICMPGE = (byte) 0xA2;
+    private static final byte TABLESWITCH = (byte) 0xAA;
+    private static final byte IRETURN = (byte) 0xAC;
+    private static final byte RETURN = (byte) 0xB1;
+    private static final byte INVOKESPECIAL = (byte) 0xB7;
+}
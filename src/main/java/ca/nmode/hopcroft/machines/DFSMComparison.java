@@ -0,0 +1,163 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/* A comparison of the languages of two one-way deterministic finite-state machines. The machines are run side by side
+   on the input elements of either, and a machine that reads an element that is not one of its own halts in a dead
+   state of its own. Equivalence is decided with the Hopcroft-Karp algorithm, which merges the classes of paired states
+   with a union-find structure and only follows pairs whose states are not yet known to be equivalent, in near-linear
+   time in the number of transitions. Counterexamples are found by breadth-first search of the pairs reachable from the
+   start states, so that they are as short as possible. */
+final class DFSMComparison<I> {
+    private final DFSMTable<?, I, ?> table;
+    private final DFSMTable<?, I, ?> otherTable;
+    private final Object[] inputElements;
+    private final int[] elementIds;
+    private final int[] otherElementIds;
+    /* The dead states of both machines, and the offset of the other machine's states among the union-find nodes. */
+    private final int deadState;
+    private final int otherDeadState;
+    private final int offset;
+
+    DFSMComparison(DFSMTable<?, I, ?> table, DFSMTable<?, I, ?> otherTable) {
+        this.table = table;
+        this.otherTable = otherTable;
+        Set<Object> union = new LinkedHashSet<>();
+        Collections.addAll(union, table.inputElements);
+        Collections.addAll(union, otherTable.inputElements);
+        inputElements = union.toArray();
+        elementIds = new int[inputElements.length];
+        otherElementIds = new int[inputElements.length];
+        for (int element = 0; element < inputElements.length; element++) {
+            elementIds[element] = table.inputElementId(inputElements[element]);
+            otherElementIds[element] = otherTable.inputElementId(inputElements[element]);
+        }
+        deadState = table.states.length;
+        otherDeadState = otherTable.states.length;
+        offset = deadState + 1;
+    }
+
+    /* Returns true if the machines accept the same language. */
+    boolean equivalent() {
+        int[] parents = new int[offset + otherDeadState + 1];
+        int[] sizes = new int[parents.length];
+        for (int node = 0; node < parents.length; node++) {
+            parents[node] = node;
+            sizes[node] = 1;
+        }
+
+        // Merge the start states, and then the successors of every merged pair whose classes differ.
+        List<Long> pairs = new ArrayList<>();
+        pairs.add(pair(table.startState, otherTable.startState));
+        union(parents, sizes, table.startState, offset + otherTable.startState);
+        for (int p = 0; p < pairs.size(); p++) {
+            int state = (int) (pairs.get(p) >> 32);
+            int otherState = (int) (long) pairs.get(p);
+            if (accepting(state) != otherAccepting(otherState))
+                return false;
+            for (int element = 0; element < inputElements.length; element++) {
+                int target = step(state, element);
+                int otherTarget = otherStep(otherState, element);
+                if (union(parents, sizes, target, offset + otherTarget))
+                    pairs.add(pair(target, otherTarget));
+            }
+        }
+        return true;
+    }
+
+    /* Returns a shortest input accepted by exactly one machine if inclusion is false, or by the first machine and not
+       the other if it is true, or null if there is none. */
+    List<I> counterexample(boolean inclusion) {
+        // Search the reachable pairs breadth first, recording the pair and element every pair was reached from.
+        Map<Long, Integer> pairIds = new HashMap<>();
+        List<Long> pairs = new ArrayList<>();
+        List<Integer> parents = new ArrayList<>();
+        List<Integer> parentElements = new ArrayList<>();
+        pairIds.put(pair(table.startState, otherTable.startState), 0);
+        pairs.add(pair(table.startState, otherTable.startState));
+        parents.add(-1);
+        parentElements.add(-1);
+        for (int p = 0; p < pairs.size(); p++) {
+            int state = (int) (pairs.get(p) >> 32);
+            int otherState = (int) (long) pairs.get(p);
+            boolean accepting = accepting(state);
+            boolean otherAccepting = otherAccepting(otherState);
+            if (inclusion ? accepting && !otherAccepting : accepting != otherAccepting)
+                return input(p, parents, parentElements);
+            for (int element = 0; element < inputElements.length; element++) {
+                long target = pair(step(state, element), otherStep(otherState, element));
+                if (!pairIds.containsKey(target)) {
+                    pairIds.put(target, pairs.size());
+                    pairs.add(target);
+                    parents.add(p);
+                    parentElements.add(element);
+                }
+            }
+        }
+        return null;
+    }
+
+    /* Returns the input that reaches the specified pair, following its parents back to the pair of start states. */
+    @SuppressWarnings("unchecked")
+    private List<I> input(int pair, List<Integer> parents, List<Integer> parentElements) {
+        List<I> input = new ArrayList<>();
+        for (int p = pair; parents.get(p) >= 0; p = parents.get(p))
+            input.add((I) inputElements[parentElements.get(p)]);
+        Collections.reverse(input);
+        return input;
+    }
+
+    private int step(int state, int element) {
+        return state == deadState || elementIds[element] < 0 ? deadState
+                : table.transitions[state * table.alphabetSize + elementIds[element]];
+    }
+
+    private int otherStep(int otherState, int element) {
+        return otherState == otherDeadState || otherElementIds[element] < 0 ? otherDeadState
+                : otherTable.transitions[otherState * otherTable.alphabetSize + otherElementIds[element]];
+    }
+
+    private boolean accepting(int state) {
+        return state != deadState && table.accepting[state];
+    }
+
+    private boolean otherAccepting(int otherState) {
+        return otherState != otherDeadState && otherTable.accepting[otherState];
+    }
+
+    private static long pair(int state, int otherState) {
+        return (long) state << 32 | otherState & 0xFFFFFFFFL;
+    }
+
+    /* Merges the classes of the specified nodes, the smaller into the larger, returning false if they were already
+       merged. */
+    private static boolean union(int[] parents, int[] sizes, int node, int otherNode) {
+        int root = find(parents, node);
+        int otherRoot = find(parents, otherNode);
+        if (root == otherRoot)
+            return false;
+        if (sizes[root] < sizes[otherRoot]) {
+            int smaller = root;
+            root = otherRoot;
+            otherRoot = smaller;
+        }
+        parents[otherRoot] = root;
+        sizes[root] += sizes[otherRoot];
+        return true;
+    }
+
+    /* Returns the root of the specified node's class, halving the path to it. */
+    private static int find(int[] parents, int node) {
+        while (parents[node] != node) {
+            parents[node] = parents[parents[node]];
+            node = parents[node];
+        }
+        return node;
+    }
+}
@@ -0,0 +1,129 @@
+package ca.nmode.hopcroft.machines;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/* The binary format of a one-way deterministic finite-state machine, which stores its compiled table as it is, so that
+   it can be mapped into memory and run without being rebuilt or revalidated. Every integer is big-endian, and every
+   section begins on a multiple of four bytes. The format is, in order:
+
+       a header of the magic number, the version, the number of states, the number of input elements, the number of
+           output elements, the index of the start state and the flags of the translation sections present;
+       the state, input element and output element tables, each of which is the offsets of its elements' encodings
+           into its data, followed by one more offset for the end of its data, followed by its data;
+       the transition table, of the index of the target of every state-element pair, by state then element;
+       the bitset of the accept states;
+       the Mealy translation table, of the index of the output of every state-element pair or -1 for none, if present;
+       the Moore translation table, of the index of the output of every state or -1 for none, if present;
+       the CRC-32C checksum of everything before it. */
+final class DFSMFormat {
+    static final int MAGIC = 0x484F5044;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 7 * Integer.BYTES;
+    static final int MEALY = 1;
+    static final int MOORE = 2;
+
+    private DFSMFormat() {}
+
+    /* Writes the specified machine to the specified file, replacing it if it exists. */
+    @SuppressWarnings("unchecked")
+    static <S, I, O> void write(OneWayDFSM<S, I, O> machine, Path file, ElementCodec<S> stateCodec,
+            ElementCodec<I> inputCodec, ElementCodec<O> outputCodec) throws IOException {
+        DFSMTable<S, I, O> table = machine.table;
+        Object[] outputElements = machine.outputElements.toArray();
+        Map<Object, Integer> outputElementIds = new HashMap<>();
+        for (int id = 0; id < outputElements.length; id++)
+            outputElementIds.put(outputElements[id], id);
+
+        byte[][] states = new byte[table.states.length][];
+        for (int state = 0; state < states.length; state++)
+            states[state] = stateCodec.encode((S) table.states[state]);
+        byte[][] inputElements = new byte[table.alphabetSize][];
+        for (int element = 0; element < inputElements.length; element++)
+            inputElements[element] = inputCodec.encode((I) table.inputElements[element]);
+        byte[][] outputs = new byte[outputElements.length][];
+        for (int output = 0; output < outputs.length; output++)
+            outputs[output] = outputCodec.encode((O) outputElements[output]);
+
+        // Omit the translation tables of a machine that has no translations of that kind.
+        int flags = 0;
+        if (table.MealyOutputs != null)
+            for (Object output : table.MealyOutputs)
+                if (output != null)
+                    flags |= MEALY;
+        if (table.MooreOutputs != null)
+            for (Object output : table.MooreOutputs)
+                if (output != null)
+                    flags |= MOORE;
+
+        long size = HEADER_SIZE + tableSize(states) + tableSize(inputElements) + tableSize(outputs)
+                + 4L * table.transitions.length + 4L * ((states.length + 31) >>> 5)
+                + ((flags & MEALY) != 0 ? 4L * table.transitions.length : 0)
+                + ((flags & MOORE) != 0 ? 4L * states.length : 0) + Integer.BYTES;
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Cannot write a one-way deterministic finite-state machine whose "
+                    + "binary format is larger than " + Integer.MAX_VALUE + " bytes.");
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(states.length).putInt(inputElements.length)
+                .putInt(outputs.length).putInt(table.startState).putInt(flags);
+        putTable(buffer, states);
+        putTable(buffer, inputElements);
+        putTable(buffer, outputs);
+        buffer.asIntBuffer().put(table.transitions);
+        buffer.position(buffer.position() + 4 * table.transitions.length);
+        int[] accepting = new int[(states.length + 31) >>> 5];
+        for (int state = 0; state < states.length; state++)
+            if (table.accepting[state])
+                accepting[state >>> 5] |= 1 << state;
+        for (int word : accepting)
+            buffer.putInt(word);
+        if ((flags & MEALY) != 0)
+            for (Object output : table.MealyOutputs)
+                buffer.putInt(output == null ? -1 : outputElementIds.get(output));
+        if ((flags & MOORE) != 0)
+            for (Object output : table.MooreOutputs)
+                buffer.putInt(output == null ? -1 : outputElementIds.get(output));
+
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) checksum.getValue());
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    private static long tableSize(byte[][] elements) {
+        long size = 4L * (elements.length + 1);
+        for (byte[] element : elements)
+            size += element.length;
+        return align(size);
+    }
+
+    private static void putTable(ByteBuffer buffer, byte[][] elements) {
+        int offset = 0;
+        for (byte[] element : elements) {
+            buffer.putInt(offset);
+            offset += element.length;
+        }
+        buffer.putInt(offset);
+        for (byte[] element : elements)
+            buffer.put(element);
+        buffer.position((int) align(buffer.position()));
+    }
+
+    /* Returns the specified size rounded up to a multiple of four bytes. */
+    static long align(long size) {
+        return size + 3 & ~3L;
+    }
+}
@@ -0,0 +1,153 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* The coarsest partition of the reachable states of a one-way deterministic finite-state machine into equivalence
+   classes, computed with Hopcroft's partition-refinement algorithm in O(k n log n) time for n states and k input
+   elements. Two states start in the same block if they agree on acceptance and on their Moore and Mealy outputs, and
+   blocks are split until every transition maps the states of a block into a single block. */
+final class DFSMPartition {
+    final int[] blocks;
+    final int blockCount;
+
+    DFSMPartition(DFSMTable<?, ?, ?> table) {
+        int alphabetSize = table.alphabetSize;
+
+        // Renumber the reachable states densely, as only they take part in the refinement.
+        int[] reachableStates = table.reachableStates;
+        int n = reachableStates.length;
+        int[] local = new int[table.states.length];
+        Arrays.fill(local, -1);
+        for (int i = 0; i < n; i++)
+            local[reachableStates[i]] = i;
+
+        // Index the predecessors of every state on every input element.
+        int[] predecessorStart = new int[alphabetSize * (n + 1) + 1];
+        int[] predecessors = new int[alphabetSize * n];
+        for (int i = 0; i < n; i++)
+            for (int element = 0; element < alphabetSize; element++)
+                predecessorStart[element * (n + 1)
+                        + local[table.transitions[reachableStates[i] * alphabetSize + element]] + 1]++;
+        for (int i = 1; i < predecessorStart.length; i++)
+            predecessorStart[i] += predecessorStart[i - 1];
+        int[] fill = Arrays.copyOf(predecessorStart, predecessorStart.length);
+        for (int i = 0; i < n; i++)
+            for (int element = 0; element < alphabetSize; element++)
+                predecessors[fill[element * (n + 1)
+                        + local[table.transitions[reachableStates[i] * alphabetSize + element]]]++] = i;
+
+        // Split the states into initial blocks by acceptance and outputs.
+        int[] blockOf = new int[n];
+        Map<List<Object>, Integer> initialBlocks = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            int state = reachableStates[i];
+            Object[] signature = new Object[alphabetSize + 2];
+            signature[0] = table.accepting[state];
+            signature[1] = table.MooreOutput(state);
+            for (int element = 0; element < alphabetSize; element++)
+                signature[element + 2] = table.MealyOutput(state * alphabetSize + element);
+            Integer block = initialBlocks.putIfAbsent(Arrays.asList(signature), initialBlocks.size());
+            blockOf[i] = block == null ? initialBlocks.size() - 1 : block;
+        }
+
+        // Lay out the states of every block contiguously.
+        int[] blockStart = new int[n + 1];
+        int[] blockEnd = new int[n];
+        int count = initialBlocks.size();
+        for (int i = 0; i < n; i++)
+            blockStart[blockOf[i] + 1]++;
+        for (int block = 0; block < count; block++)
+            blockStart[block + 1] += blockStart[block];
+        int[] elements = new int[n];
+        int[] location = new int[n];
+        System.arraycopy(blockStart, 0, blockEnd, 0, count);
+        for (int i = 0; i < n; i++) {
+            location[i] = blockEnd[blockOf[i]]++;
+            elements[location[i]] = i;
+        }
+
+        // Queue every initial block but the largest on every input element.
+        int largest = 0;
+        for (int block = 1; block < count; block++)
+            if (blockEnd[block] - blockStart[block] > blockEnd[largest] - blockStart[largest])
+                largest = block;
+        int[] worklist = new int[n * alphabetSize + 1];
+        int head = 0;
+        int tail = 0;
+        for (int block = 0; block < count; block++)
+            if (block != largest)
+                for (int element = 0; element < alphabetSize; element++)
+                    worklist[tail++] = block * alphabetSize + element;
+
+        int[] marked = new int[n];
+        int[] touched = new int[n];
+        int[] splitters = new int[n];
+        while (head != tail) {
+            int splitter = worklist[head];
+            head = (head + 1) % worklist.length;
+            int block = splitter / alphabetSize;
+            int element = splitter % alphabetSize;
+
+            // Gather the predecessors of the splitter's states on its element before moving any of them.
+            int splitterSize = 0;
+            for (int i = blockStart[block]; i < blockEnd[block]; i++) {
+                int target = elements[i];
+                for (int p = predecessorStart[element * (n + 1) + target];
+                        p < predecessorStart[element * (n + 1) + target + 1]; p++)
+                    splitters[splitterSize++] = predecessors[p];
+            }
+
+            // Move every predecessor to the marked front of its block.
+            int touchedCount = 0;
+            for (int i = 0; i < splitterSize; i++) {
+                int state = splitters[i];
+                int b = blockOf[state];
+                if (marked[b] == 0)
+                    touched[touchedCount++] = b;
+                int front = blockStart[b] + marked[b]++;
+                int other = elements[front];
+                elements[location[state]] = other;
+                location[other] = location[state];
+                elements[front] = state;
+                location[state] = front;
+            }
+
+            // Split every touched block whose states were not all marked, renumbering the smaller half.
+            for (int t = 0; t < touchedCount; t++) {
+                int b = touched[t];
+                int split = blockStart[b] + marked[b];
+                marked[b] = 0;
+                if (split == blockEnd[b])
+                    continue;
+                int created = count++;
+                if (split - blockStart[b] <= blockEnd[b] - split) {
+                    blockStart[created] = blockStart[b];
+                    blockEnd[created] = split;
+                    blockStart[b] = split;
+                } else {
+                    blockStart[created] = split;
+                    blockEnd[created] = blockEnd[b];
+                    blockEnd[b] = split;
+                }
+                for (int i = blockStart[created]; i < blockEnd[created]; i++)
+                    blockOf[elements[i]] = created;
+
+                /* The new block is the smaller half, so it is queued on every element, whether or not the block it was
+                   split from is still queued. */
+                for (int e = 0; e < alphabetSize; e++) {
+                    worklist[tail] = created * alphabetSize + e;
+                    tail = (tail + 1) % worklist.length;
+                }
+            }
+        }
+
+        blocks = new int[table.states.length];
+        Arrays.fill(blocks, -1);
+        for (int i = 0; i < n; i++)
+            blocks[reachableStates[i]] = blockOf[i];
+        blockCount = count;
+    }
+}
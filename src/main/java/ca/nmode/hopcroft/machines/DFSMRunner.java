@@ -0,0 +1,144 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * An incremental run of a {@link OneWayDFSM one-way deterministic finite-state machine}. A runner begins at the
+ * machine's start state and is fed its input one element, or one chunk of elements, at a time, so that an unbounded
+ * stream can be computed on without buffering it. The current state and whether it is accepting can be queried at any
+ * point, and the runner can be {@link #reset() reset} and reused without allocation.
+ * <p>
+ * A runner is not safe for concurrent use, though any number of runners can be obtained from the same machine.
+ *
+ * @param <S> the type of the machine's states
+ * @param <I> the type of the machine's input elements
+ * @param <O> the type of the machine's output elements
+ *
+ * @author Naeem Model
+ */
+public final class DFSMRunner<S, I, O> {
+    private final OneWayDFSM<S, I, O> machine;
+    private final DFSMTable<S, I, O> table;
+    private int currentState;
+
+    DFSMRunner(OneWayDFSM<S, I, O> machine) {
+        this.machine = machine;
+        table = machine.table;
+        currentState = table.startState;
+    }
+
+    /**
+     * Returns the machine this runner computes.
+     *
+     * @return the machine this runner computes
+     */
+    public OneWayDFSM<S, I, O> machine() {
+        return machine;
+    }
+
+    /**
+     * Transitions this runner's current state on the specified element. If the element is not in the machine's set of
+     * input elements, the runner ends up in the {@code null} state, and ignores any further elements until reset.
+     *
+     * @param inputElement the element to transition on
+     *
+     * @return this runner
+     */
+    public DFSMRunner<S, I, O> feed(I inputElement) {
+        if (currentState >= 0) {
+            int element = table.inputElementId(inputElement);
+            currentState = element < 0 ? -1 : table.transitions[currentState * table.alphabetSize + element];
+        }
+        return this;
+    }
+
+    /**
+     * Transitions this runner's current state on the specified range of elements, in order.
+     *
+     * @param inputElements the array containing the elements to transition on
+     * @param offset        the index of the first element to transition on
+     * @param length        the number of elements to transition on
+     *
+     * @throws NullPointerException      if {@code inputElements} is {@code null}
+     * @throws IndexOutOfBoundsException if the range is out of the bounds of {@code inputElements}
+     *
+     * @return this runner
+     */
+    public DFSMRunner<S, I, O> feed(I[] inputElements, int offset, int length) {
+        if (inputElements == null)
+            throw new NullPointerException("Cannot feed a null array of input elements to a one-way deterministic "
+                    + "finite-state machine's runner.");
+        Objects.checkFromIndexSize(offset, length, inputElements.length);
+
+        int state = currentState;
+        for (int i = offset, end = offset + length; i < end && state >= 0; i++) {
+            int element = table.inputElementId(inputElements[i]);
+            state = element < 0 ? -1 : table.transitions[state * table.alphabetSize + element];
+        }
+        currentState = state;
+        return this;
+    }
+
+    /**
+     * Transitions this runner's current state on the remaining elements of the specified iterator, in order.
+     *
+     * @param inputElements the iterator over the elements to transition on
+     *
+     * @throws NullPointerException if {@code inputElements} is {@code null}
+     *
+     * @return this runner
+     */
+    public DFSMRunner<S, I, O> feed(Iterator<? extends I> inputElements) {
+        if (inputElements == null)
+            throw new NullPointerException("Cannot feed a null iterator of input elements to a one-way deterministic "
+                    + "finite-state machine's runner.");
+
+        int state = currentState;
+        while (state >= 0 && inputElements.hasNext()) {
+            int element = table.inputElementId(inputElements.next());
+            state = element < 0 ? -1 : table.transitions[state * table.alphabetSize + element];
+        }
+        currentState = state;
+        return this;
+    }
+
+    /**
+     * Returns this runner's current state, which is {@code null} if it was fed an element that is not in the machine's
+     * set of input elements.
+     *
+     * @return this runner's current state
+     */
+    public S currentState() {
+        return table.state(currentState);
+    }
+
+    /**
+     * Returns {@code true} if this runner's current state is in the machine's set of accept states, {@code false}
+     * otherwise.
+     *
+     * @return {@code true} if this runner's current state is an accept state, {@code false} otherwise
+     */
+    public boolean isAccepting() {
+        return currentState >= 0 && table.accepting[currentState];
+    }
+
+    /**
+     * Returns {@code true} if this runner is in the {@code null} state, {@code false} otherwise.
+     *
+     * @return {@code true} if this runner is in the {@code null} state, {@code false} otherwise
+     */
+    public boolean isHalted() {
+        return currentState < 0;
+    }
+
+    /**
+     * Returns this runner to the machine's start state.
+     *
+     * @return this runner
+     */
+    public DFSMRunner<S, I, O> reset() {
+        currentState = table.startState;
+        return this;
+    }
+}
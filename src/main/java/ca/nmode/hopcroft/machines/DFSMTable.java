@@ -0,0 +1,203 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.RandomAccess;
+
+import ca.nmode.hopcroft.graphs.TransitionTable;
+
+/* A compiled form of a one-way deterministic finite-state machine. States and input elements are interned to dense
+   integers, and the transition function is stored in a flat table indexed by state * |input elements| + element. The
+   table backs the state diagram views of its machine, with the input elements as labels. */
+final class DFSMTable<S, I, O> implements TransitionTable<S, I> {
+    final Object[] states;
+    final Map<Object, Integer> stateIds;
+    final Object[] inputElements;
+    final Map<Object, Integer> inputElementIds;
+    final int startState;
+    final int alphabetSize;
+    final int[] transitions;
+    final boolean[] accepting;
+    final Object[] MealyOutputs;
+    final Object[] MooreOutputs;
+    final int[] reachableStates;
+    final boolean[] sinks;
+
+    DFSMTable(OneWayDFSM<S, I, O> machine) {
+        // Intern every state and input element to its index in the corresponding array.
+        states = machine.states.toArray();
+        stateIds = new HashMap<>();
+        for (int id = 0; id < states.length; id++)
+            stateIds.put(states[id], id);
+        inputElements = machine.inputElements.toArray();
+        inputElementIds = new HashMap<>();
+        for (int id = 0; id < inputElements.length; id++)
+            inputElementIds.put(inputElements[id], id);
+
+        startState = stateIds.get(machine.startState);
+        alphabetSize = inputElements.length;
+        transitions = new int[states.length * alphabetSize];
+        accepting = new boolean[states.length];
+        // Leave out the translation tables of a machine that has no translations of that kind.
+        MealyOutputs = machine.MealyTranslations.isEmpty() ? null : new Object[transitions.length];
+        MooreOutputs = machine.MooreTranslations.isEmpty() ? null : new Object[states.length];
+
+        // Fill the flat tables by looking up every state-element pair once.
+        for (int state = 0; state < states.length; state++) {
+            accepting[state] = machine.acceptStates.contains(states[state]);
+            if (MooreOutputs != null)
+                MooreOutputs[state] = machine.MooreTranslations.get(states[state]);
+            for (int element = 0; element < alphabetSize; element++) {
+                Entry<Object, Object> transitionKey = new SimpleEntry<>(states[state], inputElements[element]);
+                transitions[state * alphabetSize + element] = stateIds.get(machine.transitions.get(transitionKey));
+                if (MealyOutputs != null)
+                    MealyOutputs[state * alphabetSize + element] = machine.MealyTranslations.get(transitionKey);
+            }
+        }
+        reachableStates = reachableStates();
+        sinks = SpeculativeRun.sinks(transitions, states.length, alphabetSize);
+    }
+
+    /* Returns the index of the specified input element, or -1 if it is not in the set of input elements. */
+    int inputElementId(Object inputElement) {
+        Integer id = inputElementIds.get(inputElement);
+        return id == null ? -1 : id;
+    }
+
+    /* Returns the index of the state after reading the input from the start state, or -1 if the computation halts on
+       an element that is not in the set of input elements. */
+    int run(List<I> input) {
+        int state = startState;
+        if (input instanceof RandomAccess) {
+            for (int i = 0, size = input.size(); i < size; i++) {
+                Integer element = inputElementIds.get(input.get(i));
+                if (element == null)
+                    return -1;
+                state = transitions[state * alphabetSize + element];
+            }
+        } else {
+            for (Iterator<I> it = input.iterator(); it.hasNext();) {
+                Integer element = inputElementIds.get(it.next());
+                if (element == null)
+                    return -1;
+                state = transitions[state * alphabetSize + element];
+            }
+        }
+        return state;
+    }
+
+    /* Returns the indices of the states reachable from the start state, in breadth-first order. */
+    private int[] reachableStates() {
+        int[] visit = new int[states.length];
+        boolean[] reached = new boolean[states.length];
+        int reachedCount = 0;
+        visit[reachedCount++] = startState;
+        reached[startState] = true;
+        for (int i = 0; i < reachedCount; i++)
+            for (int element = 0; element < alphabetSize; element++) {
+                int target = transitions[visit[i] * alphabetSize + element];
+                if (!reached[target]) {
+                    reached[target] = true;
+                    visit[reachedCount++] = target;
+                }
+            }
+        return Arrays.copyOf(visit, reachedCount);
+    }
+
+    /* Returns which states can reach an accepting state, found breadth first from the accepting states backwards. */
+    boolean[] coreachable() {
+        // Index the predecessors of every state on any input element.
+        int[] predecessorStart = new int[states.length + 1];
+        for (int transition = 0; transition < transitions.length; transition++)
+            predecessorStart[transitions[transition] + 1]++;
+        for (int state = 0; state < states.length; state++)
+            predecessorStart[state + 1] += predecessorStart[state];
+        int[] predecessors = new int[transitions.length];
+        int[] fill = Arrays.copyOf(predecessorStart, states.length);
+        for (int transition = 0; transition < transitions.length; transition++)
+            predecessors[fill[transitions[transition]]++] = transition / alphabetSize;
+
+        boolean[] coreachable = new boolean[states.length];
+        int[] visit = new int[states.length];
+        int visitCount = 0;
+        for (int state = 0; state < states.length; state++)
+            if (accepting[state]) {
+                coreachable[state] = true;
+                visit[visitCount++] = state;
+            }
+        for (int i = 0; i < visitCount; i++)
+            for (int p = predecessorStart[visit[i]]; p < predecessorStart[visit[i] + 1]; p++)
+                if (!coreachable[predecessors[p]]) {
+                    coreachable[predecessors[p]] = true;
+                    visit[visitCount++] = predecessors[p];
+                }
+        return coreachable;
+    }
+
+    @Override
+    public int vertexCount() {
+        return states.length;
+    }
+
+    @Override
+    public S vertex(int index) {
+        return state(index);
+    }
+
+    @Override
+    public int vertexIndex(Object vertex) {
+        Integer id = stateIds.get(vertex);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public int labelCount() {
+        return alphabetSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public I label(int index) {
+        return (I) inputElements[index];
+    }
+
+    @Override
+    public int labelIndex(Object label) {
+        return inputElementId(label);
+    }
+
+    @Override
+    public int startVertexIndex() {
+        return startState;
+    }
+
+    @Override
+    public boolean isAcceptVertex(int index) {
+        return accepting[index];
+    }
+
+    @Override
+    public int target(int vertex, int label) {
+        return transitions[vertex * alphabetSize + label];
+    }
+
+    @SuppressWarnings("unchecked")
+    S state(int id) {
+        return id < 0 ? null : (S) states[id];
+    }
+
+    @SuppressWarnings("unchecked")
+    O MealyOutput(int transition) {
+        return MealyOutputs == null ? null : (O) MealyOutputs[transition];
+    }
+
+    @SuppressWarnings("unchecked")
+    O MooreOutput(int state) {
+        return state < 0 || MooreOutputs == null ? null : (O) MooreOutputs[state];
+    }
+}
@@ -0,0 +1,147 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.AbstractList;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import ca.nmode.hopcroft.graphs.SerialTrace;
+import ca.nmode.hopcroft.graphs.StateVertex;
+import ca.nmode.hopcroft.graphs.TransitionEdge;
+
+/**
+ * A compact trace of a {@link OneWayDFSM one-way deterministic finite-state machine}'s computation. The trace stores
+ * the index of the state after every step in an array, along with a reference to the input, and is an unmodifiable
+ * list equal to the machine's {@link OneWayDFSM#compute(List) computation} on the input, whose steps are created only
+ * when they are accessed. Its {@link SerialTrace serial trace}, or that of any range of its steps, is likewise only
+ * built when it is asked for.
+ * <p>
+ * The input is not copied if it supports random access, and must not be modified while the trace is in use.
+ *
+ * @param <S> the type of the machine's states
+ * @param <I> the type of the machine's input elements
+ *
+ * @author Naeem Model
+ */
+public final class DFSMTrace<S, I> extends AbstractList<Entry<Entry<S, I>, S>> implements RandomAccess {
+    private final DFSMTable<S, I, ?> table;
+    private final List<I> input;
+    private final int[] states;
+    private final int size;
+
+    DFSMTrace(DFSMTable<S, I, ?> table, List<I> input) {
+        this.table = table;
+        this.input = input instanceof RandomAccess ? input : new ArrayList<>(input);
+
+        // Record the state after every step, halting in the null state on an element not in the set of input elements.
+        int inputSize = this.input.size();
+        states = new int[inputSize + 1];
+        int state = table.startState;
+        states[0] = state;
+        int size = 1;
+        for (int i = 0; i < inputSize && state >= 0; i++) {
+            int element = table.inputElementId(this.input.get(i));
+            state = element < 0 ? -1 : table.transitions[state * table.alphabetSize + element];
+            states[size++] = state;
+        }
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of steps in this trace, including step zero, before any element is read.
+     *
+     * @return the number of steps in this trace
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the specified step of this trace, as an entry of the transition's key and the state after the step. The
+     * key of step zero is the start state and {@code null}.
+     *
+     * @param step the index of the step to return
+     *
+     * @throws IndexOutOfBoundsException if {@code step} is negative, or not less than the number of steps
+     *
+     * @return the specified step of this trace
+     */
+    @Override
+    public Entry<Entry<S, I>, S> get(int step) {
+        Objects.checkIndex(step, size);
+        return new SimpleEntry<>(new SimpleEntry<>(table.state(states[Math.max(step - 1, 0)]), inputElement(step)),
+                table.state(states[step]));
+    }
+
+    /**
+     * Returns the state after the specified step of this trace, which is {@code null} if the computation halted on an
+     * element that is not in the machine's set of input elements.
+     *
+     * @param step the index of the step
+     *
+     * @throws IndexOutOfBoundsException if {@code step} is negative, or not less than the number of steps
+     *
+     * @return the state after the specified step of this trace
+     */
+    public S state(int step) {
+        Objects.checkIndex(step, size);
+        return table.state(states[step]);
+    }
+
+    /**
+     * Returns the element read on the specified step of this trace, which is {@code null} for step zero.
+     *
+     * @param step the index of the step
+     *
+     * @throws IndexOutOfBoundsException if {@code step} is negative, or not less than the number of steps
+     *
+     * @return the element read on the specified step of this trace
+     */
+    public I inputElement(int step) {
+        Objects.checkIndex(step, size);
+        return step == 0 ? null : input.get(step - 1);
+    }
+
+    /**
+     * Returns the serial trace of every step of this trace.
+     *
+     * @return the serial trace of every step of this trace
+     *
+     * @see #toSerialTrace(int, int)
+     */
+    public SerialTrace<S, I> toSerialTrace() {
+        return toSerialTrace(0, size);
+    }
+
+    /**
+     * Returns the serial trace of the specified range of steps of this trace. Its start vertex corresponds to the state
+     * after the first step in the range, and each of its edges to a later step in the range, labeled with the element
+     * read on it.
+     *
+     * @param fromStep the index of the first step in the range, inclusive
+     * @param toStep   the index of the last step in the range, exclusive
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the bounds of this trace's steps, or is empty
+     *
+     * @return the serial trace of the specified range of steps of this trace
+     */
+    public SerialTrace<S, I> toSerialTrace(int fromStep, int toStep) {
+        Objects.checkFromToIndex(fromStep, toStep, size);
+        if (fromStep == toStep)
+            throw new IndexOutOfBoundsException("Cannot construct the serial trace of an empty range of steps.");
+
+        StateVertex<S> currentStateVertex = new StateVertex<>(table.state(states[fromStep]));
+        SerialTrace<S, I> trace = new SerialTrace<>(currentStateVertex);
+        for (int step = fromStep + 1; step < toStep; step++) {
+            StateVertex<S> nextStateVertex = new StateVertex<>(table.state(states[step]));
+            trace.addVertex(nextStateVertex);
+            trace.addEdge(currentStateVertex, nextStateVertex, new TransitionEdge<>(input.get(step - 1)));
+            currentStateVertex = nextStateVertex;
+        }
+        return trace;
+    }
+}
@@ -0,0 +1,111 @@
+package ca.nmode.hopcroft.machines;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An encoding of the states, input elements or output elements of a machine as bytes, used to
+ * {@link OneWayDFSM#write(java.nio.file.Path, ElementCodec, ElementCodec, ElementCodec) write} machines in a compact
+ * binary format and to {@link MappedDFSM#open(java.nio.file.Path, ElementCodec, ElementCodec, ElementCodec) map} them
+ * back. A codec must decode every element it encodes to an element equal to it.
+ *
+ * @param <T> the type of the elements this codec encodes
+ *
+ * @author Naeem Model
+ */
+public interface ElementCodec<T> {
+    /**
+     * Returns the bytes encoding the specified element.
+     *
+     * @param element the element to encode
+     *
+     * @return the bytes encoding the specified element
+     */
+    byte[] encode(T element);
+
+    /**
+     * Returns the element encoded by the remaining bytes of the specified buffer, which are exactly the bytes returned
+     * by {@link #encode(Object)} for it.
+     *
+     * @param bytes the buffer whose remaining bytes encode an element
+     *
+     * @return the element encoded by the remaining bytes of the specified buffer
+     */
+    T decode(ByteBuffer bytes);
+
+    /**
+     * Returns a codec encoding strings as UTF-8.
+     *
+     * @return a codec encoding strings as UTF-8
+     */
+    static ElementCodec<String> strings() {
+        return new ElementCodec<>() {
+            @Override
+            public byte[] encode(String element) {
+                return element.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(ByteBuffer bytes) {
+                return StandardCharsets.UTF_8.decode(bytes).toString();
+            }
+        };
+    }
+
+    /**
+     * Returns a codec encoding integers as four bytes.
+     *
+     * @return a codec encoding integers as four bytes
+     */
+    static ElementCodec<Integer> integers() {
+        return new ElementCodec<>() {
+            @Override
+            public byte[] encode(Integer element) {
+                return ByteBuffer.allocate(Integer.BYTES).putInt(element).array();
+            }
+
+            @Override
+            public Integer decode(ByteBuffer bytes) {
+                return bytes.getInt();
+            }
+        };
+    }
+
+    /**
+     * Returns a codec encoding characters as two bytes.
+     *
+     * @return a codec encoding characters as two bytes
+     */
+    static ElementCodec<Character> characters() {
+        return new ElementCodec<>() {
+            @Override
+            public byte[] encode(Character element) {
+                return ByteBuffer.allocate(Character.BYTES).putChar(element).array();
+            }
+
+            @Override
+            public Character decode(ByteBuffer bytes) {
+                return bytes.getChar();
+            }
+        };
+    }
+
+    /**
+     * Returns a codec encoding bytes as themselves.
+     *
+     * @return a codec encoding bytes as themselves
+     */
+    static ElementCodec<Byte> bytes() {
+        return new ElementCodec<>() {
+            @Override
+            public byte[] encode(Byte element) {
+                return new byte[] {element};
+            }
+
+            @Override
+            public Byte decode(ByteBuffer bytes) {
+                return bytes.get();
+            }
+        };
+    }
+}
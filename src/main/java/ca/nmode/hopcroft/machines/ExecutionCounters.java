@@ -0,0 +1,212 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link ExecutionListener execution listener} that counts the events of a machine's computations. It keeps a
+ * striped counter for every state and transition of the machine, counters of its computations, the elements they read
+ * and their halts, and histograms of their latencies and input lengths, so that the machines computed by many threads
+ * can be counted without contention. Recording an event is an increment of a counter, and the counts are only summed
+ * when they are read.
+ * <p>
+ * The counts read while computations are recorded are not an atomic snapshot, but every event that happened before
+ * they are read is counted.
+ *
+ * @param <S> the type of the machine's states
+ * @param <I> the type of the machine's input elements
+ *
+ * @author Naeem Model
+ */
+public final class ExecutionCounters<S, I> implements ExecutionListener {
+    private final Object[] states;
+    private final Object[] inputElements;
+    private final LongAdder[] stateVisits;
+    private final LongAdder[] transitions;
+    private final LongAdder computations;
+    private final LongAdder elements;
+    private final LongAdder halts;
+    private final LongAdder nanos;
+    /* The number of computations whose latency in nanoseconds, or input length, has its highest set bit at every
+       index, with the computations of latency or length zero counted at index zero. */
+    private final LongAdder[] latencies;
+    private final LongAdder[] inputLengths;
+
+    ExecutionCounters(Object[] states, Object[] inputElements) {
+        this.states = states;
+        this.inputElements = inputElements;
+        stateVisits = adders(states.length);
+        transitions = adders(states.length * inputElements.length);
+        computations = new LongAdder();
+        elements = new LongAdder();
+        halts = new LongAdder();
+        nanos = new LongAdder();
+        latencies = adders(Long.SIZE);
+        inputLengths = adders(Integer.SIZE);
+    }
+
+    @Override
+    public void computationStarted(int inputLength) {
+        inputLengths[bucket(inputLength)].increment();
+    }
+
+    @Override
+    public void stateVisited(int state) {
+        stateVisits[state].increment();
+    }
+
+    @Override
+    public void transitionTaken(int state, int inputElement) {
+        transitions[state * inputElements.length + inputElement].increment();
+    }
+
+    @Override
+    public void computationHalted(int step) {
+        halts.increment();
+    }
+
+    @Override
+    public void computationEnded(int elementsRead, long nanos) {
+        computations.increment();
+        elements.add(elementsRead);
+        this.nanos.add(nanos);
+        latencies[bucket(nanos)].increment();
+    }
+
+    /**
+     * Returns the number of computations counted.
+     *
+     * @return the number of computations counted
+     */
+    public long computations() {
+        return computations.sum();
+    }
+
+    /**
+     * Returns the number of elements read by the computations counted.
+     *
+     * @return the number of elements read by the computations counted
+     */
+    public long elements() {
+        return elements.sum();
+    }
+
+    /**
+     * Returns the number of computations counted that halted in the {@code null} state.
+     *
+     * @return the number of computations counted that halted in the {@code null} state
+     */
+    public long halts() {
+        return halts.sum();
+    }
+
+    /**
+     * Returns the total number of nanoseconds taken by the computations counted.
+     *
+     * @return the total number of nanoseconds taken by the computations counted
+     */
+    public long nanos() {
+        return nanos.sum();
+    }
+
+    /**
+     * Returns the number of elements read per second by the computations counted, over the time they took, or zero if
+     * they took no time.
+     *
+     * @return the number of elements read per second by the computations counted
+     */
+    public double elementsPerSecond() {
+        long nanos = this.nanos.sum();
+        return nanos == 0 ? 0 : elements.sum() * 1e9 / nanos;
+    }
+
+    /**
+     * Returns the number of times every state was visited by the computations counted, omitting the states that were
+     * not visited.
+     *
+     * @return a map from every visited state to the number of times it was visited
+     */
+    @SuppressWarnings("unchecked")
+    public Map<S, Long> stateVisits() {
+        Map<S, Long> stateVisits = new HashMap<>();
+        for (int state = 0; state < states.length; state++) {
+            long visits = this.stateVisits[state].sum();
+            if (visits > 0)
+                stateVisits.put((S) states[state], visits);
+        }
+        return stateVisits;
+    }
+
+    /**
+     * Returns the number of times every transition was taken by the computations counted, omitting the transitions
+     * that were not taken. Transitions are keyed as in the machine's transition map.
+     *
+     * @return a map from the key of every taken transition to the number of times it was taken
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Entry<S, I>, Long> transitionCounts() {
+        Map<Entry<S, I>, Long> transitionCounts = new HashMap<>();
+        for (int transition = 0; transition < transitions.length; transition++) {
+            long taken = transitions[transition].sum();
+            if (taken > 0)
+                transitionCounts.put(new SimpleEntry<>((S) states[transition / inputElements.length],
+                        (I) inputElements[transition % inputElements.length]), taken);
+        }
+        return transitionCounts;
+    }
+
+    /**
+     * Returns the histogram of the latencies of the computations counted. The element at index {@code i} is the
+     * number of computations that took from 2<sup>{@code i}</sup> up to 2<sup>{@code i + 1}</sup> nanoseconds, and the
+     * element at index zero also counts the computations that took no time.
+     *
+     * @return the histogram of the latencies of the computations counted, by powers of two
+     */
+    public long[] latencyHistogram() {
+        return sums(latencies);
+    }
+
+    /**
+     * Returns the histogram of the lengths of the inputs of the computations counted, by powers of two, as
+     * {@link #latencyHistogram()} is of their latencies.
+     *
+     * @return the histogram of the lengths of the inputs of the computations counted, by powers of two
+     */
+    public long[] inputLengthHistogram() {
+        return sums(inputLengths);
+    }
+
+    /**
+     * Resets every count to zero. The events recorded while the counts are reset may or may not be counted.
+     */
+    public void reset() {
+        for (LongAdder[] adders : new LongAdder[][] { stateVisits, transitions, latencies, inputLengths })
+            for (LongAdder adder : adders)
+                adder.reset();
+        computations.reset();
+        elements.reset();
+        halts.reset();
+        nanos.reset();
+    }
+
+    private static int bucket(long value) {
+        return 63 - Long.numberOfLeadingZeros(value | 1);
+    }
+
+    private static LongAdder[] adders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        long[] sums = new long[adders.length];
+        for (int i = 0; i < adders.length; i++)
+            sums[i] = adders[i].sum();
+        return sums;
+    }
+}
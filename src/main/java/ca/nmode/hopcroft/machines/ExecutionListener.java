@@ -0,0 +1,62 @@
+package ca.nmode.hopcroft.machines;
+
+/**
+ * A listener to the computations of an {@link InstrumentedDFSM instrumented deterministic} or
+ * {@link InstrumentedNFSM instrumented nondeterministic} finite-state machine. States and input elements are given by
+ * their indices in the machine, which the instrumented machine resolves, so that an event can be recorded without
+ * hashing them. Every method does nothing by default.
+ * <p>
+ * A listener is called on the thread that computes the machine, once for every event, and so must be safe for
+ * concurrent use if the machine is computed concurrently, and should return quickly.
+ *
+ * @author Naeem Model
+ *
+ * @see ExecutionCounters
+ */
+public interface ExecutionListener {
+    /**
+     * Called when a computation begins on an input of the specified length.
+     *
+     * @param inputLength the number of elements in the input
+     */
+    default void computationStarted(int inputLength) {
+    }
+
+    /**
+     * Called when a computation visits the state with the specified index, on step zero or after taking a transition.
+     * A nondeterministic computation visits every state it is in on every step.
+     *
+     * @param state the index of the visited state
+     */
+    default void stateVisited(int state) {
+    }
+
+    /**
+     * Called when a computation takes the transition from the state with the specified index on the input element with
+     * the specified index.
+     *
+     * @param state        the index of the state the transition is taken from
+     * @param inputElement the index of the input element the transition is taken on
+     */
+    default void transitionTaken(int state, int inputElement) {
+    }
+
+    /**
+     * Called when a computation halts in the {@code null} state before its input is read, on an element that is not in
+     * the machine's set of input elements, or, for a nondeterministic computation, on an element that none of its
+     * states have transitions on.
+     *
+     * @param step the step the computation halts on, which is the number of elements it has read
+     */
+    default void computationHalted(int step) {
+    }
+
+    /**
+     * Called when a computation ends.
+     *
+     * @param elementsRead the number of elements the computation read
+     * @param nanos        the number of nanoseconds the computation took
+     */
+    default void computationEnded(int elementsRead, long nanos) {
+    }
+}
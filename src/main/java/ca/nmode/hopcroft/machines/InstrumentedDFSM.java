@@ -0,0 +1,173 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An instrumented {@link OneWayDFSM one-way deterministic finite-state machine}, which reports the events of its
+ * computations to an {@link ExecutionListener execution listener}: their start, every state visited and transition
+ * taken, their halts in the {@code null} state, and their end, with the number of elements read and the time taken.
+ * The machine itself is not instrumented, so its computations cost nothing more, and only the computations of the
+ * instrumented machine are reported.
+ * <p>
+ * The listener is given the indices of states and input elements, which {@link #state(int)} and
+ * {@link #inputElement(int)} resolve. An instrumented machine is safe for concurrent use if its listener is.
+ *
+ * @param <S> the type of the machine's states
+ * @param <I> the type of the machine's input elements
+ * @param <O> the type of the machine's output elements
+ *
+ * @author Naeem Model
+ *
+ * @see ExecutionCounters
+ */
+public final class InstrumentedDFSM<S, I, O> {
+    private final OneWayDFSM<S, I, O> machine;
+    private final DFSMTable<S, I, O> table;
+    private final ExecutionListener listener;
+
+    InstrumentedDFSM(OneWayDFSM<S, I, O> machine, ExecutionListener listener) {
+        if (listener == null)
+            throw new NullPointerException(
+                    "Cannot instrument a one-way deterministic finite-state machine with a null listener.");
+        this.machine = machine;
+        table = machine.table;
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the deterministic finite-state machine this machine instruments.
+     *
+     * @return the deterministic finite-state machine this machine instruments
+     */
+    public OneWayDFSM<S, I, O> machine() {
+        return machine;
+    }
+
+    /**
+     * Returns the listener this machine reports its computations to.
+     *
+     * @return the listener this machine reports its computations to
+     */
+    public ExecutionListener listener() {
+        return listener;
+    }
+
+    /**
+     * Returns the state with the specified index, as reported to this machine's listener.
+     *
+     * @param index the index of the state
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is negative, or not less than the number of states
+     *
+     * @return the state with the specified index
+     */
+    public S state(int index) {
+        return table.state(Objects.checkIndex(index, table.states.length));
+    }
+
+    /**
+     * Returns the input element with the specified index, as reported to this machine's listener.
+     *
+     * @param index the index of the input element
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is negative, or not less than the number of input elements
+     *
+     * @return the input element with the specified index
+     */
+    @SuppressWarnings("unchecked")
+    public I inputElement(int index) {
+        return (I) table.inputElements[Objects.checkIndex(index, table.alphabetSize)];
+    }
+
+    /**
+     * Returns the deterministic machine's computation on the specified input, reporting it to this machine's listener.
+     * The returned computation is equal to the one returned by {@link OneWayDFSM#compute(List)}.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return the deterministic machine's computation on the specified input
+     */
+    public List<Entry<Entry<S, I>, S>> compute(List<I> input) {
+        List<Entry<Entry<S, I>, S>> computation = new ArrayList<>();
+        run(input, computation);
+        return computation;
+    }
+
+    /**
+     * Returns the final state of the deterministic machine's computation on the specified input, reporting it to this
+     * machine's listener.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return the final state of the deterministic machine's computation on the specified input
+     */
+    public S classify(List<I> input) {
+        return table.state(run(input, null));
+    }
+
+    /**
+     * Returns {@code true} if the deterministic machine accepts the specified input, reporting its computation to this
+     * machine's listener.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return {@code true} if the specified input is accepted, {@code false} otherwise
+     */
+    public boolean accepts(List<I> input) {
+        int finalState = run(input, null);
+        return finalState >= 0 && table.accepting[finalState];
+    }
+
+    /* Runs the machine on the specified input, reporting every event to the listener and adding every step to the
+       computation if it is not null, and returns the index of the final state, or -1 for the null state. */
+    private int run(List<I> input, List<Entry<Entry<S, I>, S>> computation) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way deterministic finite-state machine on a null input.");
+
+        ExecutionListener listener = this.listener;
+        long start = System.nanoTime();
+        int size = input.size();
+        listener.computationStarted(size);
+        int state = table.startState;
+        listener.stateVisited(state);
+        if (computation != null)
+            computation.add(new SimpleEntry<>(new SimpleEntry<>(table.state(state), null), table.state(state)));
+
+        int read = 0;
+        Iterator<I> it = input instanceof RandomAccess ? null : input.iterator();
+        while (read < size) {
+            I inputElement = it == null ? input.get(read) : it.next();
+            int element = table.inputElementId(inputElement);
+            read++;
+            int nextState = element < 0 ? -1 : table.transitions[state * table.alphabetSize + element];
+            if (computation != null)
+                computation.add(new SimpleEntry<>(new SimpleEntry<>(table.state(state), inputElement),
+                        table.state(nextState)));
+            // Halt the computation on an element that is not in the set of input elements.
+            if (nextState < 0) {
+                listener.computationHalted(read);
+                state = -1;
+                break;
+            }
+            listener.transitionTaken(state, element);
+            listener.stateVisited(nextState);
+            state = nextState;
+        }
+        listener.computationEnded(read, System.nanoTime() - start);
+        return state;
+    }
+}
@@ -0,0 +1,189 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An instrumented {@link OneWayNFSM one-way nondeterministic finite-state machine}, which reports the events of its
+ * computations to an {@link ExecutionListener execution listener}. On every step, every state the computation is in is
+ * visited, and the transitions of every one of them on the element read are taken, while the computation halts once
+ * it is in the {@code null} state alone. The machine itself is not instrumented, so its computations cost nothing more,
+ * and only the computations of the instrumented machine are reported.
+ * <p>
+ * The listener is given the indices of states and input elements, which {@link #state(int)} and
+ * {@link #inputElement(int)} resolve. An instrumented machine is safe for concurrent use if its listener is.
+ *
+ * @param <S> the type of the machine's states
+ * @param <I> the type of the machine's input elements
+ * @param <O> the type of the machine's output elements
+ *
+ * @author Naeem Model
+ *
+ * @see ExecutionCounters
+ */
+public final class InstrumentedNFSM<S, I, O> {
+    private final OneWayNFSM<S, I, O> machine;
+    private final NFSMTable<S, I, O> table;
+    private final ExecutionListener listener;
+
+    InstrumentedNFSM(OneWayNFSM<S, I, O> machine, ExecutionListener listener) {
+        if (listener == null)
+            throw new NullPointerException(
+                    "Cannot instrument a one-way nondeterministic finite-state machine with a null listener.");
+        this.machine = machine;
+        table = machine.table;
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the nondeterministic finite-state machine this machine instruments.
+     *
+     * @return the nondeterministic finite-state machine this machine instruments
+     */
+    public OneWayNFSM<S, I, O> machine() {
+        return machine;
+    }
+
+    /**
+     * Returns the listener this machine reports its computations to.
+     *
+     * @return the listener this machine reports its computations to
+     */
+    public ExecutionListener listener() {
+        return listener;
+    }
+
+    /**
+     * Returns the state with the specified index, as reported to this machine's listener.
+     *
+     * @param index the index of the state
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is negative, or not less than the number of states
+     *
+     * @return the state with the specified index
+     */
+    @SuppressWarnings("unchecked")
+    public S state(int index) {
+        return (S) table.states[Objects.checkIndex(index, table.states.length)];
+    }
+
+    /**
+     * Returns the input element with the specified index, as reported to this machine's listener.
+     *
+     * @param index the index of the input element
+     *
+     * @throws IndexOutOfBoundsException if {@code index} is negative, or not less than the number of input elements
+     *
+     * @return the input element with the specified index
+     */
+    @SuppressWarnings("unchecked")
+    public I inputElement(int index) {
+        return (I) table.inputElements[Objects.checkIndex(index, table.alphabetSize)];
+    }
+
+    /**
+     * Returns the nondeterministic machine's computation on the specified input, reporting it to this machine's
+     * listener. The returned computation is equal to the one returned by {@link OneWayNFSM#compute(List)}.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return the nondeterministic machine's computation on the specified input
+     */
+    public List<Entry<Entry<Set<S>, I>, Set<S>>> compute(List<I> input) {
+        List<Entry<Entry<Set<S>, I>, Set<S>>> computation = new ArrayList<>();
+        run(input, computation);
+        return computation;
+    }
+
+    /**
+     * Returns the final set of states of the nondeterministic machine's computation on the specified input, reporting
+     * it to this machine's listener. The returned set is equal to the one returned by
+     * {@link OneWayNFSM#classify(List)}.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return the final set of states of the nondeterministic machine's computation on the specified input
+     */
+    public Set<S> classify(List<I> input) {
+        return table.states(run(input, null));
+    }
+
+    /**
+     * Returns {@code true} if the final set of states of the nondeterministic machine's computation on the specified
+     * input contains an accept state, reporting the computation to this machine's listener.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return {@code true} if the specified input is accepted, {@code false} otherwise
+     */
+    public boolean accepts(List<I> input) {
+        return table.isAccepting(run(input, null));
+    }
+
+    /* Runs the machine on the specified input, reporting every event to the listener and adding every step to the
+       computation if it is not null, and returns the bitset of the final set of states. */
+    private long[] run(List<I> input, List<Entry<Entry<Set<S>, I>, Set<S>>> computation) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way nondeterministic finite-state machine on a null input.");
+
+        ExecutionListener listener = this.listener;
+        long start = System.nanoTime();
+        listener.computationStarted(input.size());
+        long[] current = table.startStates.clone();
+        long[] next = new long[current.length];
+        visit(current);
+        Set<S> currentStateSet = null;
+        if (computation != null) {
+            currentStateSet = table.states(current);
+            computation.add(new SimpleEntry<>(new SimpleEntry<>(Set.of(machine.startState()), null),
+                    currentStateSet));
+        }
+
+        int read = 0;
+        for (Iterator<I> it = input.iterator(); it.hasNext();) {
+            I inputElement = it.next();
+            int element = table.inputElementId(inputElement);
+            read++;
+            // Take the transitions of every current state that does not halt on the element.
+            if (element >= 0)
+                for (int word = 0; word < table.words; word++)
+                    for (long w = current[word] & ~table.halting[element * table.words + word]; w != 0; w &= w - 1)
+                        listener.transitionTaken((word << 6) + Long.numberOfTrailingZeros(w), element);
+            table.step(current, element, next);
+            long[] previous = current;
+            current = next;
+            next = previous;
+            visit(current);
+            if (computation != null) {
+                Set<S> nextStateSet = table.states(current);
+                computation.add(new SimpleEntry<>(new SimpleEntry<>(currentStateSet, inputElement), nextStateSet));
+                currentStateSet = nextStateSet;
+            }
+            if (table.isHalted(current)) {
+                listener.computationHalted(read);
+                break;
+            }
+        }
+        listener.computationEnded(read, System.nanoTime() - start);
+        return current;
+    }
+
+    private void visit(long[] states) {
+        for (int word = 0; word < table.words; word++)
+            for (long w = states[word]; w != 0; w &= w - 1)
+                listener.stateVisited((word << 6) + Long.numberOfTrailingZeros(w));
+    }
+}
@@ -0,0 +1,283 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A lazily determinized {@link OneWayNFSM one-way nondeterministic finite-state machine}. Rather than constructing
+ * every reachable set of states up front, deterministic states are constructed as inputs reach them and kept in a cache
+ * bounded by a memory budget. When the cache is full, a state is evicted by the CLOCK approximation of least recently
+ * used eviction: every cached state has a reference bit, which is set whenever a transition reaches the state again,
+ * and eviction sweeps over the cached states, clearing their bits until it finds a state whose bit is already clear.
+ * Following a cached transition thus costs a single store, states that are reached often stay cached, and states that
+ * are reached once are evicted first. If the cache thrashes on
+ * an input, the rest of the input is computed by simulating the set of states directly. A lazily
+ * determinized machine keeps counters of its cache hits, misses, evictions and fallbacks, so that its memory budget can
+ * be sized.
+ * <p>
+ * A lazily determinized machine is not safe for concurrent use, as computing it on an input updates its cache.
+ *
+ * @param <S> the type of the states of the nondeterministic machine
+ * @param <I> the type of the input elements of the nondeterministic machine
+ * @param <O> the type of the output elements of the nondeterministic machine
+ *
+ * @author Naeem Model
+ */
+public final class LazyDFSM<S, I, O> {
+    /* The number of elements an input is computed on before its cache misses are checked for thrashing, and the
+       fraction of those elements above which misses are considered to be thrashing. */
+    private static final int THRASHING_WINDOW = 1024;
+    private static final int THRASHING_RATIO = 4;
+
+    private final OneWayNFSM<S, I, O> machine;
+    private final NFSMTable<S, I, O> table;
+    private final long memoryBudget;
+    private final int capacity;
+
+    /* Every cached deterministic state occupies a slot. Transitions between slots are packed into longs holding the
+       target slot plus one and the target's generation, which is incremented whenever the slot is evicted, so that
+       transitions into evicted states are detected as misses rather than followed. The slot arrays grow with the
+       cache, up to its capacity. */
+    private final Map<BitSet, Integer> slots;
+    private long[][] slotStates;
+    private boolean[] slotHalted;
+    private int[] slotGenerations;
+    private long[] slotTransitions;
+    private boolean[] referenced;
+    private int hand;
+    private int size;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long fallbacks;
+
+    LazyDFSM(OneWayNFSM<S, I, O> machine, long memoryBudget) {
+        if (memoryBudget <= 0)
+            throw new IllegalArgumentException("Cannot lazily determinize a one-way nondeterministic finite-state "
+                    + "machine with a memory budget that is not positive.");
+        this.machine = machine;
+        table = machine.table;
+        this.memoryBudget = memoryBudget;
+
+        // Estimate a cached state's footprint from its bitset, transitions, generation, bits and index entry.
+        long stateBytes = 8L * (table.words + 1) + 8L * table.alphabetSize + 96;
+        capacity = (int) Math.min(Integer.MAX_VALUE / Math.max(1, table.alphabetSize),
+                Math.max(2, memoryBudget / stateBytes));
+
+        // Allocate a few slots, growing them as states are cached rather than reserving the whole budget up front.
+        int slotCount = Math.min(capacity, 16);
+        slots = new HashMap<>();
+        slotStates = new long[slotCount][];
+        slotHalted = new boolean[slotCount];
+        slotGenerations = new int[slotCount];
+        slotTransitions = new long[slotCount * table.alphabetSize];
+        referenced = new boolean[slotCount];
+    }
+
+    /**
+     * Returns the nondeterministic finite-state machine this machine lazily determinizes.
+     *
+     * @return the nondeterministic finite-state machine this machine lazily determinizes
+     */
+    public OneWayNFSM<S, I, O> machine() {
+        return machine;
+    }
+
+    /**
+     * Returns the final set of states of the nondeterministic machine's computation on the specified input. The
+     * returned set is equal to the one returned by {@link OneWayNFSM#classify(List)}.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return the final set of states of the nondeterministic machine's computation on the specified input
+     */
+    public Set<S> classify(List<I> input) {
+        return table.states(run(input));
+    }
+
+    /**
+     * Returns {@code true} if the final set of states of the nondeterministic machine's computation on the specified
+     * input contains an accept state, {@code false} otherwise.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return {@code true} if the specified input is accepted, {@code false} otherwise
+     */
+    public boolean accepts(List<I> input) {
+        return table.isAccepting(run(input));
+    }
+
+    /**
+     * Returns this machine's memory budget for cached deterministic states, in bytes.
+     *
+     * @return this machine's memory budget, in bytes
+     */
+    public long memoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Returns the number of deterministic states currently cached by this machine.
+     *
+     * @return the number of cached deterministic states
+     */
+    public int cachedStates() {
+        return size;
+    }
+
+    /**
+     * Returns the number of transitions this machine has taken from its cache.
+     *
+     * @return the number of cache hits
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of transitions this machine has had to compute because they were not cached.
+     *
+     * @return the number of cache misses
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of deterministic states this machine has evicted from its cache.
+     *
+     * @return the number of cache evictions
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of inputs on which this machine's cache thrashed, and which were finished by simulating the
+     * set of states directly.
+     *
+     * @return the number of fallbacks to set simulation
+     */
+    public long fallbacks() {
+        return fallbacks;
+    }
+
+    /* Runs the machine on the input, returning the bitset of the final set of states. */
+    private long[] run(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException("Cannot compute a lazily determinized one-way nondeterministic finite-state "
+                    + "machine on a null input.");
+
+        int current = slot(table.startStates, -1);
+        long runMisses = 0;
+        long runEvictions = evictions;
+        long read = 0;
+        for (Iterator<I> it = input.iterator(); it.hasNext();) {
+            if (slotHalted[current])
+                return slotStates[current];
+            int element = table.inputElementId(it.next());
+            if (element < 0) {
+                long[] halted = new long[table.words + 1];
+                halted[table.words] = 1;
+                return halted;
+            }
+            read++;
+
+            // Follow the cached transition if its target has not been evicted since it was taken.
+            long transition = slotTransitions[current * table.alphabetSize + element];
+            int target = (int) transition - 1;
+            if (target >= 0 && slotGenerations[target] == (int) (transition >>> 32)) {
+                hits++;
+                referenced[target] = true;
+                current = target;
+                continue;
+            }
+
+            misses++;
+            runMisses++;
+            // Finish the input by set simulation if the cache is missing on too many elements.
+            if (read >= THRASHING_WINDOW && runMisses * THRASHING_RATIO > read && evictions > runEvictions) {
+                fallbacks++;
+                return simulate(slotStates[current], element, it);
+            }
+            long[] nextStates = new long[table.words + 1];
+            table.step(slotStates[current], element, nextStates);
+            target = slot(nextStates, current);
+            slotTransitions[current * table.alphabetSize + element] = (long) slotGenerations[target] << 32
+                    | (target + 1);
+            current = target;
+        }
+        return slotStates[current];
+    }
+
+    /* Finishes a run by simulating the set of states, beginning with a step from the specified states on the
+       specified element. */
+    private long[] simulate(long[] states, int element, Iterator<I> it) {
+        long[] current = new long[table.words + 1];
+        long[] next = new long[table.words + 1];
+        table.step(states, element, current);
+        while (it.hasNext() && !table.isHalted(current)) {
+            table.step(current, table.inputElementId(it.next()), next);
+            long[] previous = current;
+            current = next;
+            next = previous;
+        }
+        return current;
+    }
+
+    /* Returns the slot of the specified set of states, caching it if it is not already cached, without evicting the
+       specified pinned slot. */
+    private int slot(long[] states, int pinned) {
+        BitSet key = BitSet.valueOf(states);
+        Integer cached = slots.get(key);
+        if (cached != null) {
+            referenced[cached] = true;
+            return cached;
+        }
+
+        // Take a free slot, or sweep the clock hand to the first slot not referenced since the hand last passed it.
+        int slot;
+        if (size < capacity) {
+            if (size == slotStates.length)
+                grow((int) Math.min(capacity, 2L * size));
+            slot = size++;
+        } else {
+            while (hand == pinned || referenced[hand]) {
+                referenced[hand] = false;
+                hand = (hand + 1) % capacity;
+            }
+            slot = hand;
+            hand = (hand + 1) % capacity;
+            slots.remove(BitSet.valueOf(slotStates[slot]));
+            slotGenerations[slot]++;
+            evictions++;
+        }
+        slotStates[slot] = states;
+        slotHalted[slot] = table.isHalted(states);
+        for (int element = 0; element < table.alphabetSize; element++)
+            slotTransitions[slot * table.alphabetSize + element] = 0;
+        referenced[slot] = false;
+        slots.put(key, slot);
+        return slot;
+    }
+
+    /* Grows the slot arrays to the specified number of slots. */
+    private void grow(int slotCount) {
+        slotStates = Arrays.copyOf(slotStates, slotCount);
+        slotHalted = Arrays.copyOf(slotHalted, slotCount);
+        slotGenerations = Arrays.copyOf(slotGenerations, slotCount);
+        slotTransitions = Arrays.copyOf(slotTransitions, slotCount * table.alphabetSize);
+        referenced = Arrays.copyOf(referenced, slotCount);
+    }
+}
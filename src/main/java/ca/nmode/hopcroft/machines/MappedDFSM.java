@@ -0,0 +1,357 @@
+package ca.nmode.hopcroft.machines;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+/**
+ * A {@link OneWayDFSM one-way deterministic finite-state machine} run directly from a memory-mapped file written by
+ * {@link OneWayDFSM#write(Path, ElementCodec, ElementCodec, ElementCodec)}. Opening a file only verifies its checksum
+ * and decodes its input and output elements, rather than copying and revalidating every state and transition, so that
+ * machines with millions of transitions open in milliseconds. States are decoded from the file only when a computation
+ * returns them.
+ * <p>
+ * A mapped machine is safe for concurrent use.
+ *
+ * @param <S> the type of the machine's states
+ * @param <I> the type of the machine's input elements
+ * @param <O> the type of the machine's output elements
+ *
+ * @author Naeem Model
+ */
+public final class MappedDFSM<S, I, O> {
+    private final ByteBuffer buffer;
+    private final ElementCodec<S> stateCodec;
+    private final int stateCount;
+    private final int alphabetSize;
+    private final int startState;
+    private final int stateTable;
+    private final Object[] inputElements;
+    private final Map<Object, Integer> inputElementIds;
+    private final Object[] outputElements;
+    private final IntBuffer transitions;
+    private final IntBuffer accepting;
+    private final IntBuffer MealyOutputs;
+    private final IntBuffer MooreOutputs;
+
+    private MappedDFSM(ByteBuffer buffer, ElementCodec<S> stateCodec, ElementCodec<I> inputCodec,
+            ElementCodec<O> outputCodec) throws IOException {
+        int size = buffer.capacity();
+        // Ensure the file is in the binary format, and that its contents are those that were written.
+        if (size < DFSMFormat.HEADER_SIZE + Integer.BYTES || buffer.getInt(0) != DFSMFormat.MAGIC)
+            throw new IOException("Cannot map a one-way deterministic finite-state machine from a file that is not in "
+                    + "its binary format.");
+        if (buffer.getInt(4) != DFSMFormat.VERSION)
+            throw new IOException("Cannot map a one-way deterministic finite-state machine from a file in an "
+                    + "unsupported version of its binary format.");
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.duplicate().limit(size - Integer.BYTES));
+        if ((int) checksum.getValue() != buffer.getInt(size - Integer.BYTES))
+            throw new IOException("Cannot map a one-way deterministic finite-state machine from a file whose checksum "
+                    + "does not match its contents.");
+
+        this.buffer = buffer;
+        this.stateCodec = stateCodec;
+        stateCount = buffer.getInt(8);
+        alphabetSize = buffer.getInt(12);
+        int outputCount = buffer.getInt(16);
+        startState = buffer.getInt(20);
+        int flags = buffer.getInt(24);
+
+        // Locate every section, which only a file written by a faulty writer can fail to fit.
+        long position = DFSMFormat.HEADER_SIZE;
+        stateTable = (int) position;
+        position = skipTable(position, stateCount);
+        int inputTable = (int) position;
+        position = skipTable(position, alphabetSize);
+        int outputTable = (int) position;
+        position = skipTable(position, outputCount);
+        long transitionCount = (long) stateCount * alphabetSize;
+        transitions = section(position, transitionCount);
+        position += 4 * transitionCount;
+        accepting = section(position, (stateCount + 31) >>> 5);
+        position += 4L * ((stateCount + 31) >>> 5);
+        MealyOutputs = (flags & DFSMFormat.MEALY) == 0 ? null : section(position, transitionCount);
+        position += (flags & DFSMFormat.MEALY) == 0 ? 0 : 4 * transitionCount;
+        MooreOutputs = (flags & DFSMFormat.MOORE) == 0 ? null : section(position, stateCount);
+        position += (flags & DFSMFormat.MOORE) == 0 ? 0 : 4L * stateCount;
+        if (position != size - Integer.BYTES)
+            throw new IOException("Cannot map a one-way deterministic finite-state machine from a file whose sections "
+                    + "do not fill it.");
+
+        // Decode the input and output elements, which are looked up on every computation.
+        inputElements = new Object[alphabetSize];
+        inputElementIds = new HashMap<>();
+        for (int element = 0; element < alphabetSize; element++) {
+            inputElements[element] = decode(inputTable, alphabetSize, element, inputCodec);
+            inputElementIds.put(inputElements[element], element);
+        }
+        if (outputCount > 0 && outputCodec == null)
+            throw new NullPointerException("Cannot map a one-way deterministic finite-state machine with output "
+                    + "elements using a null output element codec.");
+        outputElements = new Object[outputCount];
+        for (int output = 0; output < outputCount; output++)
+            outputElements[output] = decode(outputTable, outputCount, output, outputCodec);
+    }
+
+    /**
+     * Maps the specified file, written by {@link OneWayDFSM#write(Path, ElementCodec, ElementCodec, ElementCodec)},
+     * into memory and returns the machine it contains. The file must not be modified while the returned machine is in
+     * use.
+     *
+     * @param <S>         the type of the machine's states
+     * @param <I>         the type of the machine's input elements
+     * @param <O>         the type of the machine's output elements
+     * @param file        the path of the file to map
+     * @param stateCodec  the codec the machine's states were written with
+     * @param inputCodec  the codec the machine's input elements were written with
+     * @param outputCodec the codec the machine's output elements were written with, which may be {@code null} if it
+     *                    has no output elements
+     *
+     * @throws NullPointerException if {@code file}, {@code stateCodec} or {@code inputCodec} is {@code null}, or if
+     *                              {@code outputCodec} is {@code null} and the machine has output elements
+     * @throws IOException          if the file cannot be opened or mapped, is not in the binary format or in a
+     *                              supported version of it, or if its checksum does not match its contents
+     *
+     * @return the machine contained in the specified file
+     */
+    public static <S, I, O> MappedDFSM<S, I, O> open(Path file, ElementCodec<S> stateCodec,
+            ElementCodec<I> inputCodec, ElementCodec<O> outputCodec) throws IOException {
+        // Ensure neither the file nor the state and input element codecs are null.
+        if (file == null)
+            throw new NullPointerException("Cannot map a one-way deterministic finite-state machine from a null file.");
+        if (stateCodec == null || inputCodec == null)
+            throw new NullPointerException("Cannot map a one-way deterministic finite-state machine using a null state "
+                    + "or input element codec.");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Cannot map a one-way deterministic finite-state machine from a file larger than "
+                        + Integer.MAX_VALUE + " bytes.");
+            return new MappedDFSM<>(channel.map(MapMode.READ_ONLY, 0, channel.size()), stateCodec, inputCodec,
+                    outputCodec);
+        }
+    }
+
+    /**
+     * Returns the number of states of this machine.
+     *
+     * @return the number of states of this machine
+     */
+    public int stateCount() {
+        return stateCount;
+    }
+
+    /**
+     * Returns the final state of this machine's computation on the specified input. The returned state is equal to the
+     * one returned by {@link OneWayDFSM#classify(List)} for the machine that was written.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return the final state of this machine's computation, or {@code null} if it read an element that is not an
+     *         input element
+     */
+    public S classify(List<I> input) {
+        int state = run(input);
+        return state < 0 ? null : state(state);
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the specified input, {@code false} otherwise.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return {@code true} if the specified input is accepted, {@code false} otherwise
+     */
+    public boolean accepts(List<I> input) {
+        int state = run(input);
+        return state >= 0 && isAccepting(state);
+    }
+
+    /**
+     * Returns the outputs of the transitions this machine takes on the specified input, ending with a {@code null}
+     * output if it reads an element that is not an input element. The returned list is equal to the one returned by
+     * {@link OneWayDFSM#MealyTransduce(List)} for the machine that was written.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return the outputs of the transitions this machine takes on the specified input
+     */
+    public List<O> MealyTransduce(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException("Cannot compute a mapped one-way deterministic finite-state machine on a "
+                    + "null input.");
+
+        List<O> transduction = new ArrayList<>(input.size());
+        int state = startState;
+        for (I inputElement : input) {
+            Integer element = inputElementIds.get(inputElement);
+            // Halt the transduction with a null output if the element is not in the set of input elements.
+            if (element == null) {
+                transduction.add(null);
+                break;
+            }
+            int transition = state * alphabetSize + element;
+            transduction.add(output(MealyOutputs, transition));
+            state = transitions.get(transition);
+        }
+        return transduction;
+    }
+
+    /**
+     * Returns the outputs of the states this machine visits on the specified input, ending with a {@code null} output
+     * if it reads an element that is not an input element. The returned list is equal to the one returned by
+     * {@link OneWayDFSM#MooreTransduce(List)} for the machine that was written.
+     *
+     * @param input the sequence of elements to compute this machine on
+     *
+     * @throws NullPointerException if {@code input} is {@code null}
+     *
+     * @return the outputs of the states this machine visits on the specified input
+     */
+    public List<O> MooreTransduce(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException("Cannot compute a mapped one-way deterministic finite-state machine on a "
+                    + "null input.");
+
+        List<O> transduction = new ArrayList<>(input.size() + 1);
+        int state = startState;
+        transduction.add(output(MooreOutputs, state));
+        for (I inputElement : input) {
+            Integer element = inputElementIds.get(inputElement);
+            // Halt the transduction with a null output if the element is not in the set of input elements.
+            if (element == null) {
+                transduction.add(null);
+                break;
+            }
+            state = transitions.get(state * alphabetSize + element);
+            transduction.add(output(MooreOutputs, state));
+        }
+        return transduction;
+    }
+
+    /**
+     * Returns a one-way deterministic finite-state machine equal to the one that was written. Unlike mapping the file,
+     * this decodes every state and copies and validates every transition and translation.
+     *
+     * @return a one-way deterministic finite-state machine equal to the one that was written
+     */
+    @SuppressWarnings("unchecked")
+    public OneWayDFSM<S, I, O> toMachine() {
+        List<S> states = new ArrayList<>(stateCount);
+        for (int state = 0; state < stateCount; state++)
+            states.add(state(state));
+        Set<S> acceptStates = new HashSet<>();
+        Map<Entry<S, I>, S> transitionMap = new HashMap<>();
+        Map<Entry<S, I>, O> MealyTranslations = new HashMap<>();
+        Map<S, O> MooreTranslations = new HashMap<>();
+        for (int state = 0; state < stateCount; state++) {
+            if (isAccepting(state))
+                acceptStates.add(states.get(state));
+            if (output(MooreOutputs, state) != null)
+                MooreTranslations.put(states.get(state), output(MooreOutputs, state));
+            for (int element = 0; element < alphabetSize; element++) {
+                int transition = state * alphabetSize + element;
+                Entry<S, I> key = new SimpleEntry<>(states.get(state), (I) inputElements[element]);
+                transitionMap.put(key, states.get(transitions.get(transition)));
+                if (output(MealyOutputs, transition) != null)
+                    MealyTranslations.put(key, output(MealyOutputs, transition));
+            }
+        }
+        Set<I> inputs = new HashSet<>();
+        for (Object element : inputElements)
+            inputs.add((I) element);
+        Set<O> outputs = new HashSet<>();
+        for (Object output : outputElements)
+            outputs.add((O) output);
+        return new OneWayDFSM<>(new HashSet<>(states), acceptStates, states.get(startState), inputs, outputs,
+                transitionMap, MealyTranslations, MooreTranslations);
+    }
+
+    /* Returns the index of the state after reading the input from the start state, or -1 if the computation halts on
+       an element that is not in the set of input elements. */
+    private int run(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException("Cannot compute a mapped one-way deterministic finite-state machine on a "
+                    + "null input.");
+
+        int state = startState;
+        for (I inputElement : input) {
+            Integer element = inputElementIds.get(inputElement);
+            if (element == null)
+                return -1;
+            state = transitions.get(state * alphabetSize + element);
+        }
+        return state;
+    }
+
+    private boolean isAccepting(int state) {
+        return (accepting.get(state >>> 5) & 1 << state) != 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private O output(IntBuffer outputs, int index) {
+        int output = outputs == null ? -1 : outputs.get(index);
+        return output < 0 ? null : (O) outputElements[output];
+    }
+
+    private S state(int state) {
+        return decode(stateTable, stateCount, state, stateCodec);
+    }
+
+    /* Returns the position of the section after the element table of the specified size at the specified position,
+       ensuring that the offsets of its elements neither are negative nor decrease, so that every element it decodes
+       lies within its data. */
+    private long skipTable(long position, int count) throws IOException {
+        if (count < 0)
+            throw new IOException("Cannot map a one-way deterministic finite-state machine from a file whose element "
+                    + "tables have negative sizes.");
+        IntBuffer offsets = section(position, count + 1L);
+        for (int element = 0, previous = 0; element <= count; element++) {
+            int offset = offsets.get(element);
+            if (offset < previous)
+                throw new IOException("Cannot map a one-way deterministic finite-state machine from a file whose "
+                        + "element tables have negative or decreasing offsets.");
+            previous = offset;
+        }
+        return DFSMFormat.align(position + 4L * (count + 1) + offsets.get(count));
+    }
+
+    /* Returns a view of the specified number of integers at the specified position of the file. */
+    private IntBuffer section(long position, long count) throws IOException {
+        if (count < 0 || position + 4 * count > buffer.capacity() - Integer.BYTES)
+            throw new IOException("Cannot map a one-way deterministic finite-state machine from a file whose sections "
+                    + "do not fit in it.");
+        return buffer.duplicate().position((int) position).limit((int) (position + 4 * count)).slice().asIntBuffer();
+    }
+
+    /* Decodes the specified element of the element table of the specified size at the specified position. */
+    private <T> T decode(int table, int count, int element, ElementCodec<T> codec) {
+        int data = table + 4 * (count + 1);
+        int from = data + buffer.getInt(table + 4 * element);
+        int to = data + buffer.getInt(table + 4 * (element + 1));
+        return codec.decode(buffer.duplicate().position(from).limit(to));
+    }
+}
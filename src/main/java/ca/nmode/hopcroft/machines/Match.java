@@ -0,0 +1,63 @@
+package ca.nmode.hopcroft.machines;
+
+/**
+ * A match of a finite-state machine in an input, found by searching the input for the subsequences the machine
+ * accepts. A match is the range of the input's elements from its start offset, inclusive, to its end offset,
+ * exclusive, and is empty if the two are equal.
+ *
+ * @author Naeem Model
+ */
+public final class Match {
+    private final int start;
+    private final int end;
+
+    Match(int start, int end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns the offset of the first element of this match in the searched input.
+     *
+     * @return the offset of the first element of this match, inclusive
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Returns the offset following the last element of this match in the searched input.
+     *
+     * @return the offset following the last element of this match, exclusive
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Returns the number of elements in this match.
+     *
+     * @return the number of elements in this match
+     */
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Match))
+            return false;
+        Match other = (Match) o;
+        return start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start + end;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ")";
+    }
+}
@@ -0,0 +1,259 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* A search for the subsequences of an input that a machine accepts, in time linear in the input's length and the total
+   length of the matches. A reverse pass over the input computes, at every offset, the set of states from which the
+   machine accepts some subsequence beginning there, by unioning the predecessors of the set at the next offset with the
+   accept states. These sets are deterministic in the input, so they are interned and the transitions between them
+   cached, and the pass costs a lookup per element once the sets recur. A match begins exactly where the set contains
+   the start state, and a forward pass from there ends it at its nearest or furthest accepting offset, stopping once its
+   states leave the sets, so it never reads past the last element of the longest match. */
+abstract class MatchFinder {
+    private final int stateCount;
+    private final int alphabetSize;
+    private final int words;
+    private final int[] predecessorStart;
+    private final int[] predecessors;
+    private final long[] acceptStates;
+    private final long[] startStates;
+
+    /* Constructs a finder from the machine's transitions, given as the targets of every state on every element, which
+       are the targets from targetStart[state * alphabetSize + element] to the next state-element pair's start. */
+    private MatchFinder(int stateCount, int alphabetSize, int[] targetStart, int[] targets, long[] acceptStates,
+            long[] startStates) {
+        this.stateCount = stateCount;
+        this.alphabetSize = alphabetSize;
+        words = (stateCount + 63) >>> 6;
+        this.acceptStates = Arrays.copyOf(acceptStates, words);
+        this.startStates = Arrays.copyOf(startStates, words);
+
+        // Index the predecessors of every state on every input element.
+        predecessorStart = new int[alphabetSize * (stateCount + 1) + 1];
+        for (int state = 0; state < stateCount; state++)
+            for (int element = 0; element < alphabetSize; element++)
+                for (int t = targetStart[state * alphabetSize + element];
+                        t < targetStart[state * alphabetSize + element + 1]; t++)
+                    predecessorStart[element * (stateCount + 1) + targets[t] + 1]++;
+        for (int i = 1; i < predecessorStart.length; i++)
+            predecessorStart[i] += predecessorStart[i - 1];
+        predecessors = new int[predecessorStart[predecessorStart.length - 1]];
+        int[] fill = Arrays.copyOf(predecessorStart, predecessorStart.length);
+        for (int state = 0; state < stateCount; state++)
+            for (int element = 0; element < alphabetSize; element++)
+                for (int t = targetStart[state * alphabetSize + element];
+                        t < targetStart[state * alphabetSize + element + 1]; t++)
+                    predecessors[fill[element * (stateCount + 1) + targets[t]]++] = state;
+    }
+
+    /* Returns a finder of the matches of the specified deterministic machine. */
+    static MatchFinder of(DFSMTable<?, ?, ?> table) {
+        int stateCount = table.states.length;
+        int alphabetSize = table.alphabetSize;
+        // Every state-element pair has exactly one target, so the transition table is its own index of targets.
+        int[] targetStart = new int[stateCount * alphabetSize + 1];
+        for (int i = 0; i < targetStart.length; i++)
+            targetStart[i] = i;
+        long[] acceptStates = new long[(stateCount + 63) >>> 6];
+        for (int state = 0; state < stateCount; state++)
+            if (table.accepting[state])
+                acceptStates[state >>> 6] |= 1L << state;
+        long[] startStates = new long[(stateCount + 63) >>> 6];
+        startStates[table.startState >>> 6] |= 1L << table.startState;
+
+        return new MatchFinder(stateCount, alphabetSize, targetStart, table.transitions, acceptStates, startStates) {
+            @Override
+            int inputElementId(Object inputElement) {
+                return table.inputElementId(inputElement);
+            }
+
+            @Override
+            int end(int[] elements, int start, boolean longest, LiveStates live) {
+                int state = table.startState;
+                int end = -1;
+                for (int i = start;; i++) {
+                    if (table.accepting[state]) {
+                        end = i;
+                        if (!longest)
+                            break;
+                    }
+                    if (i == elements.length || elements[i] < 0)
+                        break;
+                    state = table.transitions[state * alphabetSize + elements[i]];
+                    if (!live.contains(i + 1, state))
+                        break;
+                }
+                return end;
+            }
+        };
+    }
+
+    /* Returns a finder of the matches of the specified nondeterministic machine. */
+    static MatchFinder of(NFSMTable<?, ?, ?> table) {
+        int stateCount = table.states.length;
+        int alphabetSize = table.alphabetSize;
+        int words = table.words;
+        // Index the targets of every state-element pair from the pair's successors.
+        int[] targetStart = new int[stateCount * alphabetSize + 1];
+        int[] targets = new int[stateCount];
+        int[] successors = new int[stateCount];
+        for (int i = 0; i < stateCount * alphabetSize; i++) {
+            int count = table.successors(i, successors);
+            if (targets.length - targetStart[i] < count)
+                targets = Arrays.copyOf(targets, Math.max(targetStart[i] + count, 2 * targets.length));
+            System.arraycopy(successors, 0, targets, targetStart[i], count);
+            targetStart[i + 1] = targetStart[i] + count;
+        }
+        targets = Arrays.copyOf(targets, targetStart[stateCount * alphabetSize]);
+
+        return new MatchFinder(stateCount, alphabetSize, targetStart, targets, table.acceptStates,
+                table.startStates) {
+            @Override
+            int inputElementId(Object inputElement) {
+                return table.inputElementId(inputElement);
+            }
+
+            @Override
+            int end(int[] elements, int start, boolean longest, LiveStates live) {
+                long[] current = table.startStates.clone();
+                long[] next = new long[words + 1];
+                int end = -1;
+                for (int i = start;; i++) {
+                    if (table.isAccepting(current)) {
+                        end = i;
+                        if (!longest)
+                            break;
+                    }
+                    if (i == elements.length || elements[i] < 0)
+                        break;
+                    table.step(current, elements[i], next);
+                    long[] previous = current;
+                    current = next;
+                    next = previous;
+                    if (!live.intersects(i + 1, current))
+                        break;
+                }
+                return end;
+            }
+        };
+    }
+
+    /* Returns the index of the specified input element, or -1 if it is not in the set of input elements. */
+    abstract int inputElementId(Object inputElement);
+
+    /* Returns the end of the shortest or longest match beginning at the specified offset, where a match is known to
+       begin. */
+    abstract int end(int[] elements, int start, boolean longest, LiveStates live);
+
+    /* Returns the matches in the specified input, in order of their start offsets. Without overlapping, the search
+       resumes at the end of every match, or after the start of an empty match. */
+    final List<Match> search(List<?> input, MatchSemantics semantics, boolean overlapping) {
+        int[] elements = new int[input.size()];
+        int length = 0;
+        for (Object inputElement : input)
+            elements[length++] = inputElementId(inputElement);
+
+        LiveStates live = new LiveStates(elements);
+        boolean longest = semantics == MatchSemantics.LEFTMOST_LONGEST;
+        List<Match> matches = new ArrayList<>();
+        for (int start = 0; start <= length;) {
+            if (!live.beginsMatch(start)) {
+                start++;
+                continue;
+            }
+            int end = end(elements, start, longest, live);
+            matches.add(new Match(start, end));
+            start = overlapping || end == start ? start + 1 : end;
+        }
+        return matches;
+    }
+
+    /* The sets of states from which the machine accepts some subsequence beginning at every offset of an input,
+       computed by the reverse pass. */
+    final class LiveStates {
+        private final List<long[]> sets = new ArrayList<>();
+        private final Map<BitSet, Integer> setIds = new HashMap<>();
+        private final BitSet beginsMatch = new BitSet();
+        private int[] transitions = new int[0];
+        private final int[] ids;
+
+        private LiveStates(int[] elements) {
+            ids = new int[elements.length + 1];
+            int accepting = id(acceptStates.clone());
+            ids[elements.length] = accepting;
+            for (int i = elements.length - 1; i >= 0; i--) {
+                int element = elements[i];
+                if (element < 0) {
+                    // Only the empty subsequence is accepted before an element that is not an input element.
+                    ids[i] = accepting;
+                    continue;
+                }
+                int id = transitions[ids[i + 1] * alphabetSize + element];
+                if (id < 0) {
+                    id = id(predecessors(sets.get(ids[i + 1]), element));
+                    transitions[ids[i + 1] * alphabetSize + element] = id;
+                }
+                ids[i] = id;
+            }
+        }
+
+        /* Returns the accept states together with the predecessors of the specified states on the element. */
+        private long[] predecessors(long[] states, int element) {
+            long[] set = acceptStates.clone();
+            int offset = element * (stateCount + 1);
+            for (int word = 0; word < words; word++)
+                for (long w = states[word]; w != 0; w &= w - 1) {
+                    int state = (word << 6) + Long.numberOfTrailingZeros(w);
+                    for (int p = predecessorStart[offset + state]; p < predecessorStart[offset + state + 1]; p++)
+                        set[predecessors[p] >>> 6] |= 1L << predecessors[p];
+                }
+            return set;
+        }
+
+        /* Returns the index of the specified set, interning it if it is new. */
+        private int id(long[] set) {
+            BitSet key = BitSet.valueOf(set);
+            Integer id = setIds.get(key);
+            if (id != null)
+                return id;
+
+            id = sets.size();
+            sets.add(set);
+            setIds.put(key, id);
+            for (int word = 0; word < words; word++)
+                if ((set[word] & startStates[word]) != 0)
+                    beginsMatch.set(id);
+            if (transitions.length < (id + 1) * alphabetSize) {
+                int capacity = transitions.length / Math.max(1, alphabetSize);
+                transitions = Arrays.copyOf(transitions, Math.max(16, capacity * 2) * alphabetSize);
+            }
+            Arrays.fill(transitions, id * alphabetSize, (id + 1) * alphabetSize, -1);
+            return id;
+        }
+
+        /* Returns true if a match begins at the specified offset. */
+        boolean beginsMatch(int offset) {
+            return beginsMatch.get(ids[offset]);
+        }
+
+        /* Returns true if the machine accepts some subsequence beginning at the specified offset from the state. */
+        boolean contains(int offset, int state) {
+            return (sets.get(ids[offset])[state >>> 6] & 1L << state) != 0;
+        }
+
+        /* Returns true if the machine accepts some subsequence beginning at the specified offset from any of the
+           states in the specified bitset. */
+        boolean intersects(int offset, long[] states) {
+            long[] set = sets.get(ids[offset]);
+            for (int word = 0; word < words; word++)
+                if ((set[word] & states[word]) != 0)
+                    return true;
+            return false;
+        }
+    }
+}
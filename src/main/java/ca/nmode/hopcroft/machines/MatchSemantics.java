@@ -0,0 +1,22 @@
+package ca.nmode.hopcroft.machines;
+
+/**
+ * The semantics by which a search of an input chooses the match beginning at a start offset, among the subsequences
+ * beginning there that a finite-state machine accepts.
+ *
+ * @author Naeem Model
+ */
+public enum MatchSemantics {
+    /**
+     * The match ends at the first offset at which the machine accepts, so that it is the shortest subsequence the
+     * machine accepts from its start offset. These are not the leftmost-first semantics of backtracking regular
+     * expression engines, which prefer matches by the order of the alternatives in the expression; a finite-state
+     * machine has no such order, and an empty match is chosen whenever its start state is an accept state.
+     */
+    LEFTMOST_SHORTEST,
+    /**
+     * The match ends at the last offset at which the machine accepts, so that it is the longest subsequence the machine
+     * accepts from its start offset.
+     */
+    LEFTMOST_LONGEST
+}
@@ -0,0 +1,278 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/* A search for an input accepted by one one-way nondeterministic finite-state machine and rejected by another, without
+   determinizing either. The search explores pairs of a state of the first machine and a set of states of the second,
+   reached on the same input, and a pair is bad if its state accepts and its set does not. A pair is pruned if an
+   explored pair subsumes it, as a bad pair reachable from the pruned pair is then reachable, on the same input, from
+   the subsuming pair, so that only an antichain of the explored pairs is kept. Without a simulation relation, a pair
+   subsumes another with the same state and a subset of its set. With simulation relations, which underapproximate the
+   inclusion of the languages of states, a pair subsumes another whose state it simulates and each of whose set's
+   states simulates one of its own, and every set drops the states another of its states simulates. Universality is
+   decided as the inclusion of a machine with a single accepting state that loops on every input element. */
+final class NFSMAntichain<I> {
+    private final NFSMTable<?, I, ?> left;
+    private final NFSMTable<?, I, ?> right;
+    private final long[] leftSimulation;
+    private final long[] leftSimulated;
+    private final long[] rightSimulation;
+    private final Object[] inputElements;
+    private final int[] rightElementIds;
+    private final int words;
+
+    /* A pair of a state of the left machine and a set of states of the right machine, with the pair and element it was
+       reached from. */
+    private static final class Pair {
+        final int state;
+        final long[] states;
+        final Pair parent;
+        final int element;
+        boolean subsumed;
+
+        Pair(int state, long[] states, Pair parent, int element) {
+            this.state = state;
+            this.states = states;
+            this.parent = parent;
+            this.element = element;
+        }
+    }
+
+    /* Constructs a search for an input accepted by the left machine, or any input over the right machine's input
+       elements if it is null, and rejected by the right machine, with the machines' simulation relations if they are
+       not null. */
+    NFSMAntichain(NFSMTable<?, I, ?> left, long[] leftSimulation, NFSMTable<?, I, ?> right, long[] rightSimulation) {
+        this.left = left;
+        this.right = right;
+        this.leftSimulation = leftSimulation;
+        this.rightSimulation = rightSimulation;
+        leftSimulated = leftSimulation == null ? null : transpose(leftSimulation, left.states.length);
+        inputElements = left == null ? right.inputElements : left.inputElements;
+        rightElementIds = new int[inputElements.length];
+        for (int element = 0; element < inputElements.length; element++)
+            rightElementIds[element] = right.inputElementId(inputElements[element]);
+        words = right.words;
+    }
+
+    /* Returns an input accepted by the left machine and rejected by the right machine, or null if there is none. */
+    List<I> counterexample() {
+        int leftStates = left == null ? 1 : left.states.length;
+        List<List<Pair>> antichain = new ArrayList<>(leftStates);
+        for (int state = 0; state < leftStates; state++)
+            antichain.add(new ArrayList<>());
+
+        // Begin with every start state of the left machine, paired with the start states of the right machine.
+        List<Pair> worklist = new ArrayList<>();
+        long[] startStates = reduce(right.startStates.clone());
+        startStates[words] = 0;
+        for (int state : leftStates(left == null ? null : left.startStates)) {
+            Pair pair = new Pair(state, startStates, null, -1);
+            if (isBad(pair))
+                return input(pair);
+            if (add(antichain, pair))
+                worklist.add(pair);
+        }
+
+        // Explore the pairs breadth first, so that the counterexample found is short.
+        for (int p = 0; p < worklist.size(); p++) {
+            Pair pair = worklist.get(p);
+            if (pair.subsumed)
+                continue;
+            for (int element = 0; element < inputElements.length; element++) {
+                long[] states = new long[words + 1];
+                if (rightElementIds[element] >= 0) {
+                    right.step(pair.states, rightElementIds[element], states);
+                    states[words] = 0;
+                    states = reduce(states);
+                }
+                for (int state : leftStates(left == null ? null : successors(pair.state, element))) {
+                    Pair next = new Pair(state, states, pair, element);
+                    if (isBad(next))
+                        return input(next);
+                    if (add(antichain, next))
+                        worklist.add(next);
+                }
+            }
+        }
+        return null;
+    }
+
+    /* Returns the states in the specified bitset of the left machine, or the universal machine's state if it is
+       null. */
+    private List<Integer> leftStates(long[] bits) {
+        if (bits == null)
+            return Collections.singletonList(0);
+        List<Integer> states = new ArrayList<>();
+        for (int word = 0; word < left.words; word++)
+            for (long w = bits[word]; w != 0; w &= w - 1)
+                states.add((word << 6) + Long.numberOfTrailingZeros(w));
+        return states;
+    }
+
+    /* Returns the successors of the specified state of the left machine on the specified element. */
+    private long[] successors(int state, int element) {
+        long[] successors = new long[left.words];
+        left.addSuccessors(state * left.alphabetSize + element, successors);
+        return successors;
+    }
+
+    private boolean isBad(Pair pair) {
+        boolean accepting = left == null || (left.acceptStates[pair.state >>> 6] & 1L << pair.state) != 0;
+        return accepting && !right.isAccepting(pair.states);
+    }
+
+    /* Adds the specified pair to the antichain unless an explored pair subsumes it, removing the pairs it subsumes,
+       and returns true if it was added. */
+    private boolean add(List<List<Pair>> antichain, Pair pair) {
+        for (int state : leftStates(leftSimulation == null ? null : row(leftSimulation, pair.state), pair.state))
+            for (Pair explored : antichain.get(state))
+                if (covers(explored.states, pair.states))
+                    return false;
+        for (int state : leftStates(leftSimulated == null ? null : row(leftSimulated, pair.state), pair.state))
+            antichain.get(state).removeIf(explored -> {
+                if (!covers(pair.states, explored.states))
+                    return false;
+                explored.subsumed = true;
+                return true;
+            });
+        antichain.get(pair.state).add(pair);
+        return true;
+    }
+
+    /* Returns the states in the specified row of a relation of the left machine, or only the specified state if there
+       is no relation. */
+    private List<Integer> leftStates(long[] row, int state) {
+        return row == null ? Collections.singletonList(state) : leftStates(row);
+    }
+
+    private long[] row(long[] relation, int state) {
+        long[] row = new long[left.words];
+        System.arraycopy(relation, state * left.words, row, 0, left.words);
+        return row;
+    }
+
+    /* Returns true if every state in the first set is simulated by a state in the second, so that the language of the
+       first set is included in the language of the second. */
+    private boolean covers(long[] states, long[] otherStates) {
+        if (rightSimulation == null) {
+            for (int word = 0; word < words; word++)
+                if ((states[word] & ~otherStates[word]) != 0)
+                    return false;
+            return true;
+        }
+        for (int word = 0; word < words; word++)
+            for (long w = states[word]; w != 0; w &= w - 1) {
+                int offset = ((word << 6) + Long.numberOfTrailingZeros(w)) * words;
+                boolean simulated = false;
+                for (int i = 0; i < words && !simulated; i++)
+                    simulated = (rightSimulation[offset + i] & otherStates[i]) != 0;
+                if (!simulated)
+                    return false;
+            }
+        return true;
+    }
+
+    /* Removes from the specified set every state that another of its states simulates, keeping the first of the
+       states that simulate one another. */
+    private long[] reduce(long[] states) {
+        if (rightSimulation == null)
+            return states;
+        long[] reduced = states.clone();
+        for (int word = 0; word < words; word++)
+            for (long w = states[word]; w != 0; w &= w - 1) {
+                int state = (word << 6) + Long.numberOfTrailingZeros(w);
+                for (int i = 0; i < words; i++) {
+                    long simulating = rightSimulation[state * words + i] & states[i];
+                    for (long s = simulating; s != 0; s &= s - 1) {
+                        int other = (i << 6) + Long.numberOfTrailingZeros(s);
+                        boolean mutual = (rightSimulation[other * words + word] & 1L << state) != 0;
+                        if (other != state && (!mutual || other < state))
+                            reduced[word] &= ~(1L << state);
+                    }
+                }
+            }
+        return reduced;
+    }
+
+    /* Returns the input that reaches the specified pair, following its parents back to a start pair. */
+    @SuppressWarnings("unchecked")
+    private List<I> input(Pair pair) {
+        List<I> input = new ArrayList<>();
+        for (Pair p = pair; p.parent != null; p = p.parent)
+            input.add((I) inputElements[p.element]);
+        Collections.reverse(input);
+        return input;
+    }
+
+    /* Returns the maximal simulation relation of the specified machine, as the bitset of the states that simulate
+       every state. A state simulates another if it accepts whenever the other does, and for every transition of the
+       other on an element, has a transition on the element into a state that simulates the other's target. The
+       relation is refined from the one that only respects acceptance until it is stable. */
+    static long[] simulation(NFSMTable<?, ?, ?> table) {
+        int stateCount = table.states.length;
+        int alphabetSize = table.alphabetSize;
+        int words = table.words;
+
+        // Index the predecessors of every state on every element as bitsets.
+        long[] predecessors = new long[stateCount * alphabetSize * words];
+        int[] successors = new int[stateCount];
+        for (int state = 0; state < stateCount; state++)
+            for (int element = 0; element < alphabetSize; element++)
+                for (int i = 0, count = table.successors(state * alphabetSize + element, successors); i < count; i++)
+                    predecessors[(successors[i] * alphabetSize + element) * words + (state >>> 6)] |= 1L << state;
+
+        long[] simulation = new long[stateCount * words];
+        for (int state = 0; state < stateCount; state++)
+            for (int word = 0; word < words; word++) {
+                long all = word < words - 1 || (stateCount & 63) == 0 ? -1L : (1L << stateCount) - 1;
+                boolean accepting = (table.acceptStates[state >>> 6] & 1L << state) != 0;
+                simulation[state * words + word] = accepting ? table.acceptStates[word] & all : all;
+            }
+
+        long[] simulating = new long[stateCount * words];
+        for (boolean changed = true; changed;) {
+            changed = false;
+            for (int element = 0; element < alphabetSize; element++) {
+                // Collect the states with a transition into a state simulating each state.
+                Arrays.fill(simulating, 0);
+                for (int state = 0; state < stateCount; state++)
+                    for (int word = 0; word < words; word++)
+                        for (long w = simulation[state * words + word]; w != 0; w &= w - 1) {
+                            int offset = (((word << 6) + Long.numberOfTrailingZeros(w)) * alphabetSize + element)
+                                    * words;
+                            for (int i = 0; i < words; i++)
+                                simulating[state * words + i] |= predecessors[offset + i];
+                        }
+
+                // Keep only the simulating states that can match every transition of the simulated state.
+                for (int state = 0; state < stateCount; state++)
+                    for (int s = 0, count = table.successors(state * alphabetSize + element, successors); s < count;
+                            s++)
+                        for (int i = 0; i < words; i++) {
+                            long refined = simulation[state * words + i] & simulating[successors[s] * words + i];
+                            if (refined != simulation[state * words + i]) {
+                                simulation[state * words + i] = refined;
+                                changed = true;
+                            }
+                        }
+            }
+        }
+        return simulation;
+    }
+
+    /* Returns the transpose of the specified relation over the specified number of states. */
+    private static long[] transpose(long[] relation, int stateCount) {
+        int words = (stateCount + 63) >>> 6;
+        long[] transpose = new long[relation.length];
+        for (int state = 0; state < stateCount; state++)
+            for (int word = 0; word < words; word++)
+                for (long w = relation[state * words + word]; w != 0; w &= w - 1) {
+                    int other = (word << 6) + Long.numberOfTrailingZeros(w);
+                    transpose[other * words + (state >>> 6)] |= 1L << state;
+                }
+        return transpose;
+    }
+}
@@ -0,0 +1,145 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An incremental run of a {@link OneWayNFSM one-way nondeterministic finite-state machine}. A runner begins at the
+ * epsilon closure of the machine's start state and is fed its input one element, or one chunk of elements, at a time,
+ * so that an unbounded stream can be computed on without buffering it. The current states and whether any of them is
+ * accepting can be queried at any point, and the runner can be {@link #reset() reset} and reused without allocation.
+ * <p>
+ * A runner is not safe for concurrent use, though any number of runners can be obtained from the same machine.
+ *
+ * @param <S> the type of the machine's states
+ * @param <I> the type of the machine's input elements
+ * @param <O> the type of the machine's output elements
+ *
+ * @author Naeem Model
+ */
+public final class NFSMRunner<S, I, O> {
+    private final OneWayNFSM<S, I, O> machine;
+    private final NFSMTable<S, I, O> table;
+    private long[] currentStates;
+    private long[] nextStates;
+
+    NFSMRunner(OneWayNFSM<S, I, O> machine) {
+        this.machine = machine;
+        table = machine.table;
+        currentStates = table.startStates.clone();
+        nextStates = new long[currentStates.length];
+    }
+
+    /**
+     * Returns the machine this runner computes.
+     *
+     * @return the machine this runner computes
+     */
+    public OneWayNFSM<S, I, O> machine() {
+        return machine;
+    }
+
+    /**
+     * Transitions this runner's current states on the specified element. Once the current states contain only the
+     * {@code null} state, the runner ignores any further elements until reset.
+     *
+     * @param inputElement the element to transition on
+     *
+     * @return this runner
+     */
+    public NFSMRunner<S, I, O> feed(I inputElement) {
+        if (!table.isHalted(currentStates))
+            step(inputElement);
+        return this;
+    }
+
+    /**
+     * Transitions this runner's current states on the specified range of elements, in order.
+     *
+     * @param inputElements the array containing the elements to transition on
+     * @param offset        the index of the first element to transition on
+     * @param length        the number of elements to transition on
+     *
+     * @throws NullPointerException      if {@code inputElements} is {@code null}
+     * @throws IndexOutOfBoundsException if the range is out of the bounds of {@code inputElements}
+     *
+     * @return this runner
+     */
+    public NFSMRunner<S, I, O> feed(I[] inputElements, int offset, int length) {
+        if (inputElements == null)
+            throw new NullPointerException("Cannot feed a null array of input elements to a one-way nondeterministic "
+                    + "finite-state machine's runner.");
+        Objects.checkFromIndexSize(offset, length, inputElements.length);
+
+        for (int i = offset, end = offset + length; i < end && !table.isHalted(currentStates); i++)
+            step(inputElements[i]);
+        return this;
+    }
+
+    /**
+     * Transitions this runner's current states on the remaining elements of the specified iterator, in order.
+     *
+     * @param inputElements the iterator over the elements to transition on
+     *
+     * @throws NullPointerException if {@code inputElements} is {@code null}
+     *
+     * @return this runner
+     */
+    public NFSMRunner<S, I, O> feed(Iterator<? extends I> inputElements) {
+        if (inputElements == null)
+            throw new NullPointerException("Cannot feed a null iterator of input elements to a one-way "
+                    + "nondeterministic finite-state machine's runner.");
+
+        while (!table.isHalted(currentStates) && inputElements.hasNext())
+            step(inputElements.next());
+        return this;
+    }
+
+    /**
+     * Returns a new set of this runner's current states, which contains {@code null} if any path of the computation
+     * has halted.
+     *
+     * @return a new set of this runner's current states
+     */
+    public Set<S> currentStates() {
+        return table.states(currentStates);
+    }
+
+    /**
+     * Returns {@code true} if this runner's current states contain an accept state, {@code false} otherwise.
+     *
+     * @return {@code true} if this runner's current states contain an accept state, {@code false} otherwise
+     */
+    public boolean isAccepting() {
+        return table.isAccepting(currentStates);
+    }
+
+    /**
+     * Returns {@code true} if this runner's current states contain only the {@code null} state, {@code false}
+     * otherwise.
+     *
+     * @return {@code true} if this runner's current states contain only the {@code null} state, {@code false}
+     *         otherwise
+     */
+    public boolean isHalted() {
+        return table.isHalted(currentStates);
+    }
+
+    /**
+     * Returns this runner to the epsilon closure of the machine's start state.
+     *
+     * @return this runner
+     */
+    public NFSMRunner<S, I, O> reset() {
+        System.arraycopy(table.startStates, 0, currentStates, 0, currentStates.length);
+        return this;
+    }
+
+    private void step(I inputElement) {
+        table.step(currentStates, table.inputElementId(inputElement), nextStates);
+        long[] previousStates = currentStates;
+        currentStates = nextStates;
+        nextStates = previousStates;
+    }
+}
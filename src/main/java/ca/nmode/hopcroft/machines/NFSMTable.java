@@ -0,0 +1,251 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/* A compiled form of a one-way nondeterministic finite-state machine. States and input elements are interned to dense
+   integers, and sets of states are represented as bitsets of ceil(|states| / 64) words followed by a word that is 1 if
+   the set contains the null state, and 0 otherwise. For every state-element pair, the epsilon closure of the pair's
+   successors is precomputed, so that a step of the computation is the union of the successors of the current states.
+   The successors are kept as a mask per pair while the masks of every pair fit in DENSE_LIMIT words, and as a sorted
+   list of state indices per pair beyond that, since the masks grow with the square of the number of states. The Mealy
+   and Moore outputs of every transition and state are kept alongside, if the machine has any. */
+final class NFSMTable<S, I, O> {
+    /* The largest number of words of successor masks kept, 32 MiB. */
+    private static final long DENSE_LIMIT = 1L << 22;
+
+    final Object[] states;
+    final Map<Object, Integer> stateIds;
+    final Object[] inputElements;
+    final Map<Object, Integer> inputElementIds;
+    final int alphabetSize;
+    final int words;
+    /* The successor mask of the pair of state s and element e at offset (s * |input elements| + e) * words, or null
+       if the successors are kept as lists. */
+    private final long[] successorMasks;
+    /* The successors of the pair of state s and element e at indices successorStart[s * |input elements| + e] up to
+       successorStart[s * |input elements| + e + 1] of successorIds, if the successors are kept as lists. */
+    private final int[] successorStart;
+    private final int[] successorIds;
+    final long[] halting;
+    final long[] startStates;
+    final long[] acceptStates;
+    final Object[] MealyOutputs;
+    final Object[] MooreOutputs;
+
+    NFSMTable(OneWayNFSM<S, I, O> machine) {
+        // Intern every state and input element to its index in the corresponding array.
+        states = machine.states.toArray();
+        stateIds = new HashMap<>();
+        for (int id = 0; id < states.length; id++)
+            stateIds.put(states[id], id);
+        inputElements = machine.inputElements.toArray();
+        inputElementIds = new HashMap<>();
+        for (int id = 0; id < inputElements.length; id++)
+            inputElementIds.put(inputElements[id], id);
+
+        alphabetSize = inputElements.length;
+        words = (states.length + 63) >>> 6;
+        // Transitions are indexed by int, as are the Mealy outputs.
+        if ((long) states.length * alphabetSize > Integer.MAX_VALUE - 1)
+            throw new IllegalArgumentException("Cannot construct a one-way nondeterministic finite-state machine with "
+                    + "more than " + (Integer.MAX_VALUE - 1) + " pairs of states and input elements.");
+        boolean dense = (long) states.length * alphabetSize * words <= DENSE_LIMIT;
+        successorMasks = dense ? new long[states.length * alphabetSize * words] : null;
+        successorStart = dense ? null : new int[states.length * alphabetSize + 1];
+        int[] ids = dense ? null : new int[states.length];
+        halting = new long[alphabetSize * words];
+        startStates = bits(machine.epsilonClosure(machine.startState));
+        acceptStates = bits(machine.acceptStates);
+        MealyOutputs = machine.MealyTranslations.isEmpty() ? null : new Object[states.length * alphabetSize];
+        MooreOutputs = machine.MooreTranslations.isEmpty() ? null : new Object[states.length];
+
+        for (int state = 0; state < states.length; state++) {
+            if (MooreOutputs != null)
+                MooreOutputs[state] = machine.MooreTranslations.get(states[state]);
+            for (int element = 0; element < alphabetSize; element++) {
+                SimpleEntry<Object, Object> transitionKey = new SimpleEntry<>(states[state], inputElements[element]);
+                if (MealyOutputs != null)
+                    MealyOutputs[state * alphabetSize + element] = machine.MealyTranslations.get(transitionKey);
+                Set<S> transitionValue = machine.transitions.get(transitionKey);
+                int transition = state * alphabetSize + element;
+                if (!dense)
+                    successorStart[transition + 1] = successorStart[transition];
+                // Mark the state as halting on the element if it has no transition on it.
+                if (transitionValue == null || transitionValue.isEmpty()) {
+                    halting[element * words + (state >>> 6)] |= 1L << state;
+                    continue;
+                }
+                // Fold the epsilon closure of the transition's value into its mask or list.
+                Set<S> epsilonClosure = machine.epsilonClosure(transitionValue);
+                if (dense) {
+                    for (S s : epsilonClosure) {
+                        int id = stateIds.get(s);
+                        successorMasks[transition * words + (id >>> 6)] |= 1L << id;
+                    }
+                    continue;
+                }
+                int start = successorStart[transition];
+                if (ids.length - start < epsilonClosure.size())
+                    ids = Arrays.copyOf(ids, Math.max(start + epsilonClosure.size(), 2 * ids.length));
+                int end = start;
+                for (S s : epsilonClosure)
+                    ids[end++] = stateIds.get(s);
+                Arrays.sort(ids, start, end);
+                successorStart[transition + 1] = end;
+            }
+        }
+        successorIds = dense ? null : Arrays.copyOf(ids, successorStart[successorStart.length - 1]);
+    }
+
+    /* Returns the index of the specified input element, or -1 if it is not in the set of input elements. */
+    int inputElementId(Object inputElement) {
+        Integer id = inputElementIds.get(inputElement);
+        return id == null ? -1 : id;
+    }
+
+    /* Returns the bitset of the states in the specified set. */
+    long[] bits(Set<S> stateSet) {
+        long[] bits = new long[words + 1];
+        for (S state : stateSet) {
+            if (state == null) {
+                bits[words] = 1;
+                continue;
+            }
+            int id = stateIds.get(state);
+            bits[id >>> 6] |= 1L << id;
+        }
+        return bits;
+    }
+
+    /* Returns the set of states in the specified bitset. */
+    @SuppressWarnings("unchecked")
+    Set<S> states(long[] bits) {
+        Set<S> stateSet = new HashSet<>();
+        for (int word = 0; word < words; word++)
+            for (long w = bits[word]; w != 0; w &= w - 1)
+                stateSet.add((S) states[(word << 6) + Long.numberOfTrailingZeros(w)]);
+        if (bits[words] != 0)
+            stateSet.add(null);
+        return stateSet;
+    }
+
+    /* Adds the successors of the transition at index state * |input elements| + element to the specified bitset. */
+    void addSuccessors(int transition, long[] bits) {
+        if (successorMasks == null) {
+            for (int i = successorStart[transition]; i < successorStart[transition + 1]; i++)
+                bits[successorIds[i] >>> 6] |= 1L << successorIds[i];
+            return;
+        }
+        for (int word = 0, offset = transition * words; word < words; word++)
+            bits[word] |= successorMasks[offset + word];
+    }
+
+    /* Stores the indices of the successors of the transition at index state * |input elements| + element in
+       ascending order at the start of the specified array, which has room for every state, and returns their
+       number. */
+    int successors(int transition, int[] ids) {
+        if (successorMasks == null) {
+            int count = successorStart[transition + 1] - successorStart[transition];
+            System.arraycopy(successorIds, successorStart[transition], ids, 0, count);
+            return count;
+        }
+        int count = 0;
+        for (int word = 0, offset = transition * words; word < words; word++)
+            for (long w = successorMasks[offset + word]; w != 0; w &= w - 1)
+                ids[count++] = (word << 6) + Long.numberOfTrailingZeros(w);
+        return count;
+    }
+
+    /* Stores in next the states reached from the current states on the element with the specified index, which is -1
+       if the element is not in the set of input elements. */
+    void step(long[] current, int element, long[] next) {
+        for (int word = 0; word <= words; word++)
+            next[word] = 0;
+        // The null state is reached if it is already current, or if any current state halts on the element.
+        if (element < 0) {
+            next[words] = 1;
+            return;
+        }
+        next[words] = current[words];
+        for (int word = 0; word < words; word++) {
+            if ((current[word] & halting[element * words + word]) != 0)
+                next[words] = 1;
+            for (long w = current[word]; w != 0; w &= w - 1)
+                addSuccessors(((word << 6) + Long.numberOfTrailingZeros(w)) * alphabetSize + element, next);
+        }
+    }
+
+    /* Returns the bitset of the final states of the computation on the specified input. */
+    long[] run(List<I> input) {
+        if (words == 1 && successorMasks != null)
+            return runSingleWord(input);
+
+        long[] current = startStates.clone();
+        long[] next = new long[words + 1];
+        for (Iterator<I> it = input.iterator(); it.hasNext() && !isHalted(current);) {
+            step(current, inputElementId(it.next()), next);
+            long[] previous = current;
+            current = next;
+            next = previous;
+        }
+        return current;
+    }
+
+    /* Runs machines of up to 64 states with the current states held in a single long and a null state flag. */
+    private long[] runSingleWord(List<I> input) {
+        long current = startStates[0];
+        boolean halted = false;
+        Iterator<I> it = input instanceof RandomAccess ? null : input.iterator();
+        for (int i = 0, size = input.size(); i < size && (current != 0 || !halted); i++) {
+            int element = inputElementId(it == null ? input.get(i) : it.next());
+            if (element < 0) {
+                current = 0;
+                halted = true;
+                continue;
+            }
+            long next = 0;
+            for (long w = current; w != 0; w &= w - 1)
+                next |= successorMasks[Long.numberOfTrailingZeros(w) * alphabetSize + element];
+            halted |= (current & halting[element]) != 0;
+            current = next;
+        }
+        return new long[] { current, halted ? 1 : 0 };
+    }
+
+    /* Returns the Mealy output of the transition at index state * |input elements| + element, or null if there is
+       none. */
+    @SuppressWarnings("unchecked")
+    O MealyOutput(int transition) {
+        return MealyOutputs == null ? null : (O) MealyOutputs[transition];
+    }
+
+    /* Returns the Moore output of the specified state, or null if there is none. */
+    @SuppressWarnings("unchecked")
+    O MooreOutput(int state) {
+        return MooreOutputs == null ? null : (O) MooreOutputs[state];
+    }
+
+    /* Returns true if the specified bitset contains only the null state. */
+    boolean isHalted(long[] bits) {
+        for (int word = 0; word < words; word++)
+            if (bits[word] != 0)
+                return false;
+        return bits[words] != 0;
+    }
+
+    /* Returns true if the specified bitset contains an accept state. */
+    boolean isAccepting(long[] bits) {
+        for (int word = 0; word < words; word++)
+            if ((bits[word] & acceptStates[word]) != 0)
+                return true;
+        return false;
+    }
+}
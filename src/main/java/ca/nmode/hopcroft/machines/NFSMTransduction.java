@@ -0,0 +1,278 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * The Mealy or Moore transduction of a {@link OneWayNFSM one-way nondeterministic finite-state machine} on an input:
+ * the set of output sequences of every path of its computation. On every step, a path reads an element, takes one of
+ * its state's transitions on it, and follows any number of epsilon transitions. A Mealy path outputs the translation of
+ * every transition it takes on an element, and a Moore path the translation of the state it is in on every step,
+ * beginning with step zero. Epsilon transitions output nothing. A path that cannot read an element, because its state
+ * has no transitions on it or it is not in the set of input elements, outputs {@code null} and ends, as does the
+ * transduction of a {@link OneWayDFSM one-way deterministic finite-state machine}.
+ * <p>
+ * A machine can have exponentially many paths, so the sequences are not materialized. Instead, the transduction is
+ * represented by a trellis of sets of states, one layer per step, in which the paths that have output the same
+ * sequence so far share the set of states they can be in. The trellis is explored only as it is needed: sequences are
+ * enumerated lazily and without duplicates, {@link #count() counted} one layer at a time without being enumerated, and
+ * tested for membership by following a single path. Constructing the transduction only interns the input, and copying
+ * it into another set materializes it.
+ * <p>
+ * The transduction is unmodifiable, and the machine's input must not be modified while it is in use.
+ *
+ * @param <O> the type of the machine's output elements
+ *
+ * @author Naeem Model
+ */
+public final class NFSMTransduction<O> extends AbstractSet<List<O>> {
+    private final NFSMTable<?, ?, O> table;
+    private final boolean Moore;
+    private final int[] elements;
+    private volatile long count = -1;
+
+    NFSMTransduction(NFSMTable<?, ?, O> table, List<?> input, boolean Moore) {
+        this.table = table;
+        this.Moore = Moore;
+        elements = new int[input.size()];
+        int i = 0;
+        for (Object inputElement : input)
+            elements[i++] = table.inputElementId(inputElement);
+    }
+
+    /**
+     * Returns the number of output sequences in this transduction, or {@link Long#MAX_VALUE} if there are more. The
+     * sequences are counted once, without enumerating them, by summing the number of distinct sequences that reach
+     * every set of states in the trellis, one layer at a time.
+     *
+     * @return the number of output sequences in this transduction
+     */
+    public long count() {
+        long count = this.count;
+        if (count >= 0)
+            return count;
+
+        // Begin with the sets of states on step zero, or the empty sequence of the Mealy transduction of no elements.
+        count = 0;
+        Map<BitSet, Long> layer = new LinkedHashMap<>();
+        if (Moore)
+            count = add(count, 1, children(-1, null), 0, layer);
+        else if (elements.length == 0)
+            count = 1;
+        else
+            layer.put(BitSet.valueOf(Arrays.copyOf(table.startStates, table.words)), 1L);
+
+        // Carry the number of sequences that reach every set of states to its children, until every path has ended.
+        for (int step = 0; !layer.isEmpty(); step++) {
+            Map<BitSet, Long> nextLayer = new LinkedHashMap<>();
+            for (Map.Entry<BitSet, Long> node : layer.entrySet())
+                count = add(count, node.getValue(),
+                        children(step, Arrays.copyOf(node.getKey().toLongArray(), table.words)), step + 1,
+                        nextLayer);
+            layer = nextLayer;
+        }
+        this.count = count;
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(count(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        // Every computation has at least one path, which outputs a sequence.
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof List))
+            return false;
+        List<?> sequence = (List<?>) o;
+
+        // Follow the sequence through the trellis, until it ends on a path's last step.
+        int step = Moore ? -1 : 0;
+        long[] states = Moore ? null : Arrays.copyOf(table.startStates, table.words);
+        if (!Moore && elements.length == 0)
+            return sequence.isEmpty();
+        for (int i = 0; i < sequence.size(); i++) {
+            Children<O> children = children(step, states);
+            boolean last = i == sequence.size() - 1;
+            long[] next = null;
+            for (int child = 0; child < children.size(); child++) {
+                if (!Objects.equals(children.outputs.get(child), sequence.get(i)))
+                    continue;
+                // A sequence ends on a halted path, or once every element has been read.
+                boolean ends = children.states.get(child) == null || step + 1 == elements.length;
+                if (last && ends)
+                    return true;
+                if (!last && !ends)
+                    next = children.states.get(child);
+            }
+            if (next == null)
+                return false;
+            states = next;
+            step++;
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<List<O>> iterator() {
+        return new Iterator<List<O>>() {
+            private final List<Children<O>> frames = new ArrayList<>();
+            private final int[] positions = new int[elements.length + 2];
+            private final List<O> prefix = new ArrayList<>();
+            private List<O> next;
+
+            {
+                // Enumerate the sequences depth first from the root of the trellis, or the empty sequence alone.
+                if (Moore)
+                    frames.add(children(-1, null));
+                else if (elements.length == 0)
+                    next = Collections.emptyList();
+                else
+                    frames.add(children(0, Arrays.copyOf(table.startStates, table.words)));
+                if (next == null)
+                    advance();
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public List<O> next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                List<O> sequence = next;
+                next = null;
+                advance();
+                return sequence;
+            }
+
+            /* Descends to the next sequence in depth-first order, backtracking from exhausted layers. */
+            private void advance() {
+                while (!frames.isEmpty()) {
+                    int depth = frames.size() - 1;
+                    Children<O> children = frames.get(depth);
+                    if (positions[depth] == children.size()) {
+                        frames.remove(depth);
+                        if (depth > 0)
+                            prefix.remove(prefix.size() - 1);
+                        continue;
+                    }
+                    int child = positions[depth]++;
+                    int step = (Moore ? -1 : 0) + depth + 1;
+                    prefix.add(children.outputs.get(child));
+                    long[] states = children.states.get(child);
+                    if (states == null || step == elements.length) {
+                        next = Collections.unmodifiableList(new ArrayList<>(prefix));
+                        prefix.remove(prefix.size() - 1);
+                        return;
+                    }
+                    frames.add(children(step, states));
+                    positions[depth + 1] = 0;
+                }
+            }
+        };
+    }
+
+    /* Adds the specified number of sequences to the count for every child that ends a sequence, and to the next layer
+       for every other child, saturating at Long.MAX_VALUE. */
+    private long add(long count, long sequences, Children<O> children, int step, Map<BitSet, Long> nextLayer) {
+        for (int child = 0; child < children.size(); child++) {
+            long[] states = children.states.get(child);
+            if (states == null || step == elements.length)
+                count = saturatedAdd(count, sequences);
+            else
+                nextLayer.merge(BitSet.valueOf(states), sequences, NFSMTransduction::saturatedAdd);
+        }
+        return count;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /* Returns the children of the set of states the paths are in after the specified step, grouped by the output of
+       the next step. A Moore transduction's root, before step zero, is step -1, whose children group the epsilon
+       closure of the start state. */
+    private Children<O> children(int step, long[] states) {
+        Children<O> children = new Children<>();
+        Map<O, long[]> groups = new LinkedHashMap<>();
+        if (step < 0) {
+            for (int word = 0; word < table.words; word++)
+                for (long w = table.startStates[word]; w != 0; w &= w - 1)
+                    group(groups, table.MooreOutput((word << 6) + Long.numberOfTrailingZeros(w)),
+                            (word << 6) + Long.numberOfTrailingZeros(w));
+            children.addAll(groups);
+            return children;
+        }
+
+        int element = elements[step];
+        boolean halted = false;
+        int[] successors = Moore ? new int[table.states.length] : null;
+        for (int word = 0; word < table.words; word++)
+            for (long w = states[word]; w != 0; w &= w - 1) {
+                int state = (word << 6) + Long.numberOfTrailingZeros(w);
+                // A path halts if its state has no transitions on the element, or the element is not an input element.
+                if (element < 0 || (table.halting[element * table.words + word] & 1L << state) != 0) {
+                    halted = true;
+                    continue;
+                }
+                int transition = state * table.alphabetSize + element;
+                if (!Moore) {
+                    table.addSuccessors(transition,
+                            groups.computeIfAbsent(table.MealyOutput(transition), o -> new long[table.words]));
+                    continue;
+                }
+                for (int i = 0, count = table.successors(transition, successors); i < count; i++)
+                    group(groups, table.MooreOutput(successors[i]), successors[i]);
+            }
+        children.addAll(groups);
+        // A halted path outputs null and ends, which is the sequence of a path outputting null on the last step.
+        if (halted && !(step + 1 == elements.length && groups.containsKey(null)))
+            children.add(null, null);
+        return children;
+    }
+
+    private void group(Map<O, long[]> groups, O output, int state) {
+        groups.computeIfAbsent(output, o -> new long[table.words])[state >>> 6] |= 1L << state;
+    }
+
+    /* The children of a set of states in the trellis: the output of every edge out of it, and the set of states the
+       edge leads to, or null if the edge ends a halted path. Every child has a different output, but for a halted
+       path's null output. */
+    private static final class Children<O> {
+        final List<O> outputs = new ArrayList<>();
+        final List<long[]> states = new ArrayList<>();
+
+        void add(O output, long[] states) {
+            outputs.add(output);
+            this.states.add(states);
+        }
+
+        void addAll(Map<O, long[]> groups) {
+            for (Map.Entry<O, long[]> group : groups.entrySet())
+                add(group.getKey(), group.getValue());
+        }
+
+        int size() {
+            return outputs.size();
+        }
+    }
+}
@@ -1,23 +1,34 @@
 package ca.nmode.hopcroft.machines;
 
-import java.util.ArrayDeque;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiPredicate;
 
 import ca.nmode.hopcroft.graphs.SerialTrace;
 import ca.nmode.hopcroft.graphs.StateDiagram;
-import ca.nmode.hopcroft.graphs.StateVertex;
+import ca.nmode.hopcroft.graphs.StateDiagramView;
 import ca.nmode.hopcroft.graphs.TransitionEdge;
 
 import java.util.Set;
 import java.util.AbstractMap.SimpleEntry;
 
 public class OneWayDFSM<S, I, O> extends AbstractDFSM<S, I, O, Entry<S, I>, S, List<Entry<Entry<S, I>, S>>> {
+    final DFSMTable<S, I, O> table;
+    private volatile MatchFinder matchFinder;
+    private volatile Set<S> reachableStates;
+    private volatile Set<S> coreachableStates;
+    private volatile StateDiagramView<S, I> diagramView;
 
     public OneWayDFSM(Set<S> states, Set<S> acceptStates, S startState, Set<I> inputElements, Set<O> outputElements,
             Map<Entry<S, I>, S> transitions, Map<Entry<S, I>, O> MealyTranslations, Map<S, O> MooreTranslations) {
@@ -44,6 +55,9 @@ public OneWayDFSM(Set<S> states, Set<S> acceptStates, S startState, Set<I> input
                 throw new IllegalArgumentException("Cannot construct a one-way deterministic finite-state machine whose"
                         + " transition map contains a value that is not in its set of states.");
         }
+
+        // Compile the validated transition function into an int-indexed table.
+        table = new DFSMTable<>(this);
     }
 
     public OneWayDFSM(Set<S> states, S startState, Set<I> inputElements, Set<O> outputElements,
@@ -90,15 +104,137 @@ public List<Entry<Entry<S, I>, S>> compute(List<I> input) {
 
     @Override
     public S classify(List<I> input) {
-        // Return the final state of the computation.
-        List<Entry<Entry<S, I>, S>> computation = compute(input);
-        return computation.get(computation.size() - 1).getValue();
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way deterministic finite-state machine on a null input.");
+        // Return the final state of the computation, as run on the compiled transition table.
+        return table.state(table.run(input));
     }
 
     @Override
     public boolean accepts(List<I> input) {
-        List<Entry<Entry<S, I>, S>> computation = compute(input);
-        return acceptStates.contains(computation.get(computation.size() - 1).getValue());
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way deterministic finite-state machine on a null input.");
+        int finalState = table.run(input);
+        return finalState >= 0 && table.accepting[finalState];
+    }
+
+    /**
+     * Returns the final state of this machine's computation on the specified input, computed in parallel on the common
+     * fork/join pool.
+     * 
+     * @param input the sequence of elements to compute this machine on
+     * 
+     * @throws NullPointerException if {@code input} is {@code null}
+     * 
+     * @return the final state of this machine's computation on the specified input
+     * 
+     * @see #parallelClassify(List, ForkJoinPool)
+     */
+    public S parallelClassify(List<I> input) {
+        return parallelClassify(input, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the final state of this machine's computation on the specified input, computed in parallel on the
+     * specified fork/join pool. The input is split into chunks, each of which is run from every state at once to
+     * obtain the function from the state it begins in to the state it ends in, and the functions are composed in order.
+     * Inputs that are short or do not support fast random access are computed sequentially.
+     * 
+     * @param input the sequence of elements to compute this machine on
+     * @param pool  the fork/join pool to compute this machine on
+     * 
+     * @throws NullPointerException if {@code input} or {@code pool} is {@code null}
+     * 
+     * @return the final state of this machine's computation on the specified input
+     * 
+     * @see #classify(List)
+     */
+    public S parallelClassify(List<I> input, ForkJoinPool pool) {
+        return table.state(parallelRun(input, pool));
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the specified input, computed in parallel on the common fork/join
+     * pool, {@code false} otherwise.
+     * 
+     * @param input the sequence of elements to compute this machine on
+     * 
+     * @throws NullPointerException if {@code input} is {@code null}
+     * 
+     * @return {@code true} if this machine accepts the specified input, {@code false} otherwise
+     * 
+     * @see #parallelClassify(List, ForkJoinPool)
+     */
+    public boolean parallelAccepts(List<I> input) {
+        return parallelAccepts(input, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the specified input, computed in parallel on the specified
+     * fork/join pool, {@code false} otherwise.
+     * 
+     * @param input the sequence of elements to compute this machine on
+     * @param pool  the fork/join pool to compute this machine on
+     * 
+     * @throws NullPointerException if {@code input} or {@code pool} is {@code null}
+     * 
+     * @return {@code true} if this machine accepts the specified input, {@code false} otherwise
+     * 
+     * @see #parallelClassify(List, ForkJoinPool)
+     */
+    public boolean parallelAccepts(List<I> input, ForkJoinPool pool) {
+        int finalState = parallelRun(input, pool);
+        return finalState >= 0 && table.accepting[finalState];
+    }
+
+    /* Runs the machine on the input in parallel, returning the index of its final state, or -1 if it halts. */
+    private int parallelRun(List<I> input, ForkJoinPool pool) {
+        // Ensure the input and pool are not null.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way deterministic finite-state machine on a null input.");
+        if (pool == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way deterministic finite-state machine on a null fork/join pool.");
+        int length = input.size();
+        if (length < 2 * SpeculativeRun.MIN_CHUNK_SIZE || !(input instanceof RandomAccess)
+                || pool.getParallelism() < 2)
+            return table.run(input);
+
+        // Intern the input's elements in parallel, as the computation halts if any is not an input element.
+        int[] elements = new int[length];
+        int chunks = pool.getParallelism();
+        List<ForkJoinTask<Boolean>> interned = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int from = (int) ((long) length * chunk / chunks);
+            int to = (int) ((long) length * (chunk + 1) / chunks);
+            interned.add(pool.submit(() -> {
+                for (int i = from; i < to; i++)
+                    if ((elements[i] = table.inputElementId(input.get(i))) < 0)
+                        return false;
+                return true;
+            }));
+        }
+        boolean halts = false;
+        for (ForkJoinTask<Boolean> chunk : interned)
+            halts |= !chunk.join();
+        if (halts)
+            return -1;
+
+        int[] transitions = table.transitions;
+        int alphabetSize = table.alphabetSize;
+        return new SpeculativeRun(table.states.length, table.reachableStates, table.sinks) {
+            @Override
+            int run(int state, int from, int to) {
+                for (int i = from; i < to; i++)
+                    state = transitions[state * alphabetSize + elements[i]];
+                return state;
+            }
+        }.run(pool, table.startState, length);
     }
 
     @Override
@@ -113,7 +249,7 @@ public boolean recognizes(Set<List<I>> inputs) {
 
         // The empty set is recognized if there are no reachable accept states.
         if (inputs.isEmpty())
-            return Collections.disjoint(acceptStates, reachableStates());
+            return Collections.disjoint(acceptStates, reachableStatesView());
 
         // Return true if every input in the set is accepted, false otherwise.
         for (List<I> input : inputs)
@@ -122,44 +258,681 @@ public boolean recognizes(Set<List<I>> inputs) {
         return true;
     }
 
+    /**
+     * Returns {@code true} if this machine recognizes the specified set of inputs, computed in parallel on the common
+     * fork/join pool, {@code false} otherwise.
+     * 
+     * @param inputs the set of inputs to compute this machine on
+     * 
+     * @throws NullPointerException if {@code inputs} is or contains {@code null}
+     * 
+     * @return {@code true} if this machine recognizes the specified set of inputs, {@code false} otherwise
+     * 
+     * @see #parallelRecognizes(Set, Executor)
+     */
+    public boolean parallelRecognizes(Set<List<I>> inputs) {
+        return parallelRecognizes(inputs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns {@code true} if this machine recognizes the specified set of inputs, computed in parallel on the
+     * specified executor, {@code false} otherwise. The inputs are partitioned across the executor's threads and the
+     * calling thread, and every thread stops as soon as any input is rejected.
+     * 
+     * @param inputs   the set of inputs to compute this machine on
+     * @param executor the executor to compute this machine on
+     * 
+     * @throws NullPointerException if {@code inputs} is or contains {@code null}, or if {@code executor} is
+     *                              {@code null}
+     * 
+     * @return {@code true} if this machine recognizes the specified set of inputs, {@code false} otherwise
+     * 
+     * @see #recognizes(Set)
+     */
+    public boolean parallelRecognizes(Set<List<I>> inputs, Executor executor) {
+        // Ensure the set of inputs neither is nor contains null, and the executor is not null.
+        if (inputs == null)
+            throw new NullPointerException("A one-way deterministic finite-state machine cannot attempt to recognize "
+                    + "a null set of inputs.");
+        if (inputs.contains(null))
+            throw new NullPointerException("A one-way deterministic finite-state machine cannot attempt to recognize "
+                    + "a set of inputs that contains null.");
+        if (executor == null)
+            throw new NullPointerException("A one-way deterministic finite-state machine cannot attempt to recognize "
+                    + "a set of inputs on a null executor.");
+
+        // The empty set is recognized if there are no reachable accept states.
+        if (inputs.isEmpty())
+            return Collections.disjoint(acceptStates, reachableStatesView());
+        return BatchRecognition.all(inputs, this::accepts, executor);
+    }
+
+    /**
+     * Returns whether this machine accepts each of the specified inputs, computed in parallel on the common fork/join
+     * pool.
+     * 
+     * @param inputs the list of inputs to compute this machine on
+     * 
+     * @throws NullPointerException if {@code inputs} is or contains {@code null}
+     * 
+     * @return an array whose every element is {@code true} if this machine accepts the input at the same index,
+     *         {@code false} otherwise
+     * 
+     * @see #acceptsEach(List, Executor)
+     */
+    public boolean[] acceptsEach(List<? extends List<I>> inputs) {
+        return acceptsEach(inputs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns whether this machine accepts each of the specified inputs, computed in parallel on the specified
+     * executor. The inputs are partitioned across the executor's threads and the calling thread.
+     * 
+     * @param inputs   the list of inputs to compute this machine on
+     * @param executor the executor to compute this machine on
+     * 
+     * @throws NullPointerException if {@code inputs} is or contains {@code null}, or if {@code executor} is
+     *                              {@code null}
+     * 
+     * @return an array whose every element is {@code true} if this machine accepts the input at the same index,
+     *         {@code false} otherwise
+     * 
+     * @see #accepts(List)
+     */
+    public boolean[] acceptsEach(List<? extends List<I>> inputs, Executor executor) {
+        // Ensure the list of inputs neither is nor contains null, and the executor is not null.
+        if (inputs == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way deterministic finite-state machine on a null list of inputs.");
+        if (inputs.contains(null))
+            throw new NullPointerException("Cannot compute a one-way deterministic finite-state machine on a list of "
+                    + "inputs that contains null.");
+        if (executor == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way deterministic finite-state machine on a null executor.");
+        return BatchRecognition.each(inputs, this::accepts, executor);
+    }
+
     @Override
     public List<O> MealyTransduce(List<I> input) {
-        List<O> transduction = new ArrayList<>();
-        List<Entry<Entry<S, I>, S>> computation = compute(input);
-        // Translate the key of each transition taken in the computation to its corresponding output.
-        for (Entry<Entry<S, I>, S> step : computation.subList(1, computation.size()))
-            transduction.add(MealyTranslations.get(step.getKey()));
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way deterministic finite-state machine on a null input.");
+
+        List<O> transduction = new ArrayList<>(input.size());
+        int currentState = table.startState;
+        // Translate each transition taken in the computation to its corresponding output.
+        for (I inputElement : input) {
+            int element = table.inputElementId(inputElement);
+            // Halt the transduction with a null output if the element is not in the set of input elements.
+            if (element < 0) {
+                transduction.add(null);
+                break;
+            }
+            int transition = currentState * table.alphabetSize + element;
+            transduction.add(table.MealyOutput(transition));
+            currentState = table.transitions[transition];
+        }
         return transduction;
     }
 
     @Override
     public List<O> MooreTransduce(List<I> input) {
-        List<O> transduction = new ArrayList<>();
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way deterministic finite-state machine on a null input.");
+
+        List<O> transduction = new ArrayList<>(input.size() + 1);
+        int currentState = table.startState;
         // Translate each visited state in the computation to its corresponding output.
-        for (Entry<Entry<S, I>, S> step : compute(input))
-            transduction.add(MooreTranslations.get(step.getValue()));
+        transduction.add(table.MooreOutput(currentState));
+        for (I inputElement : input) {
+            int element = table.inputElementId(inputElement);
+            // Halt the transduction with a null output if the element is not in the set of input elements.
+            if (element < 0) {
+                transduction.add(null);
+                break;
+            }
+            currentState = table.transitions[currentState * table.alphabetSize + element];
+            transduction.add(table.MooreOutput(currentState));
+        }
         return transduction;
     }
 
+    /**
+     * Returns the non-overlapping matches of this machine in the specified input, with leftmost-longest semantics.
+     * 
+     * @param input the sequence of elements to search
+     * 
+     * @throws NullPointerException if {@code input} is {@code null}
+     * 
+     * @return the matches of this machine in the specified input, in order of their start offsets
+     * 
+     * @see #search(List, MatchSemantics, boolean)
+     */
+    public List<Match> search(List<I> input) {
+        return search(input, MatchSemantics.LEFTMOST_LONGEST, false);
+    }
+
+    /**
+     * Returns the matches of this machine in the specified input, which are the subsequences of the input this machine
+     * accepts. A match begins at every offset at which this machine accepts some subsequence, and ends at the nearest
+     * or furthest offset at which it accepts one, so that it is the shortest or longest such subsequence, according to
+     * the specified semantics. Without overlapping, the search resumes at the end of every match, or after an empty
+     * match, so that the matches are the leftmost ones; with overlapping, a match is found at every offset at which one
+     * begins. The input is read once backwards to find where matches begin and where they can still be extended, and
+     * then once forwards over each match, so that the search takes time linear in the length of the input and of the
+     * matches.
+     * 
+     * @param input       the sequence of elements to search
+     * @param semantics   the semantics by which a match's end is chosen
+     * @param overlapping whether matches may overlap
+     * 
+     * @throws NullPointerException if {@code input} or {@code semantics} is {@code null}
+     * 
+     * @return the matches of this machine in the specified input, in order of their start offsets
+     */
+    public List<Match> search(List<I> input, MatchSemantics semantics, boolean overlapping) {
+        // Ensure the input and semantics are not null.
+        if (input == null)
+            throw new NullPointerException("Cannot search a null input with a one-way deterministic finite-state "
+                    + "machine.");
+        if (semantics == null)
+            throw new NullPointerException("Cannot search an input with a one-way deterministic finite-state machine "
+                    + "with null match semantics.");
+
+        // Construct the finder once, as it indexes the predecessors of every state.
+        MatchFinder finder = matchFinder;
+        if (finder == null)
+            matchFinder = finder = MatchFinder.of(table);
+        return finder.search(input, semantics, overlapping);
+    }
+
+    /**
+     * Returns a new runner that computes this machine incrementally, beginning at the start state.
+     * 
+     * @return a new runner that computes this machine incrementally
+     */
+    public DFSMRunner<S, I, O> runner() {
+        return new DFSMRunner<>(this);
+    }
+
+    /**
+     * Returns an instrumented view of this machine, which reports the events of its computations to the specified
+     * listener. This machine's own computations are not reported, and cost nothing more.
+     * 
+     * @param listener the listener to report the computations to
+     * 
+     * @throws NullPointerException if {@code listener} is {@code null}
+     * 
+     * @return an instrumented view of this machine
+     * 
+     * @see #counters()
+     */
+    public InstrumentedDFSM<S, I, O> instrument(ExecutionListener listener) {
+        return new InstrumentedDFSM<>(this, listener);
+    }
+
+    /**
+     * Returns new execution counters sized for this machine, with a counter for each of its states and transitions, to
+     * {@link #instrument(ExecutionListener) instrument} it with.
+     * 
+     * @return new execution counters sized for this machine
+     */
+    public ExecutionCounters<S, I> counters() {
+        return new ExecutionCounters<>(table.states, table.inputElements);
+    }
+
+    /**
+     * Returns a new set of the states reachable from this machine's start state, which the caller may modify.
+     * 
+     * @return a new set of the states reachable from this machine's start state
+     * 
+     * @see #reachableStatesView()
+     */
     public Set<S> reachableStates() {
-        Set<S> reachableStates = new HashSet<>();
-        // Add the start state to the set of reachable states and add it to the visitation queue.
-        reachableStates.add(startState);
-        Deque<S> visit = new ArrayDeque<>(reachableStates);
-
-        // Continue until transitions have been taken for all visited states on every input element.
-        while (!visit.isEmpty()) {
-            for (I inputElement : inputElements) {
-                Entry<S, I> transitionKey = new SimpleEntry<>(visit.getFirst(), inputElement);
-                // Add the resulting state of the transition to be visited if it was not already reached.
-                if (reachableStates.add(transitions.get(transitionKey)))
-                    visit.add(transitions.get(transitionKey));
-            }
-            visit.removeFirst();
+        return new HashSet<>(reachableStatesView());
+    }
+
+    /**
+     * Returns the states reachable from this machine's start state, as a set that is computed once and cached, and
+     * cannot be modified. Unlike {@link #reachableStates()}, repeated calls neither search this machine nor copy the
+     * set.
+     * 
+     * @return the unmodifiable set of the states reachable from this machine's start state
+     */
+    public Set<S> reachableStatesView() {
+        Set<S> reachableStates = this.reachableStates;
+        if (reachableStates == null) {
+            Set<S> states = new HashSet<>();
+            for (int state : table.reachableStates)
+                states.add(table.state(state));
+            this.reachableStates = reachableStates = new StateSet<>(states);
         }
         return reachableStates;
     }
 
+    /**
+     * Returns the states from which one of this machine's accept states is reachable. The set is computed once and
+     * cached, and cannot be modified.
+     * 
+     * @return the unmodifiable set of the states from which an accept state is reachable
+     */
+    public Set<S> coreachableStates() {
+        Set<S> coreachableStates = this.coreachableStates;
+        if (coreachableStates == null) {
+            Set<S> states = new HashSet<>();
+            boolean[] coreachable = table.coreachable();
+            for (int state = 0; state < coreachable.length; state++)
+                if (coreachable[state])
+                    states.add(table.state(state));
+            this.coreachableStates = coreachableStates = new StateSet<>(states);
+        }
+        return coreachableStates;
+    }
+
+    /**
+     * Returns a machine that accepts the same inputs as this machine, without its unreachable states. If this machine
+     * has no Mealy or Moore translations, its reachable states from which no accept state is reachable are also merged
+     * into the first of them to be reached, which transitions only to itself. The states of a machine with translations
+     * are otherwise kept, as the outputs of its computations would change if they were merged.
+     * 
+     * @return a machine that accepts the same inputs as this machine, without its unreachable states
+     */
+    public OneWayDFSM<S, I, O> trim() {
+        boolean acceptor = MealyTranslations.isEmpty() && MooreTranslations.isEmpty();
+        boolean[] coreachable = table.coreachable();
+        int deadState = -1;
+        if (acceptor)
+            for (int state : table.reachableStates)
+                if (!coreachable[state]) {
+                    deadState = state;
+                    break;
+                }
+
+        // Keep the reachable states, redirecting the transitions into merged states to the one they merge into.
+        Set<S> trimmedStates = new HashSet<>();
+        Set<S> trimmedAcceptStates = new HashSet<>();
+        Map<Entry<S, I>, S> trimmedTransitions = new HashMap<>();
+        Map<Entry<S, I>, O> trimmedMealyTranslations = new HashMap<>();
+        Map<S, O> trimmedMooreTranslations = new HashMap<>();
+        for (int state : table.reachableStates) {
+            if (deadState >= 0 && !coreachable[state] && state != deadState)
+                continue;
+            S trimmedState = table.state(state);
+            trimmedStates.add(trimmedState);
+            if (table.accepting[state])
+                trimmedAcceptStates.add(trimmedState);
+            if (MooreTranslations.containsKey(trimmedState))
+                trimmedMooreTranslations.put(trimmedState, MooreTranslations.get(trimmedState));
+            for (int element = 0; element < table.alphabetSize; element++) {
+                int target = table.transitions[state * table.alphabetSize + element];
+                if (deadState >= 0 && !coreachable[target])
+                    target = deadState;
+                @SuppressWarnings("unchecked")
+                Entry<S, I> transitionKey = new SimpleEntry<>(trimmedState, (I) table.inputElements[element]);
+                trimmedTransitions.put(transitionKey, table.state(target));
+                if (MealyTranslations.containsKey(transitionKey))
+                    trimmedMealyTranslations.put(transitionKey, MealyTranslations.get(transitionKey));
+            }
+        }
+        return new OneWayDFSM<>(trimmedStates, trimmedAcceptStates, startState, inputElements, outputElements,
+                trimmedTransitions, trimmedMealyTranslations, trimmedMooreTranslations);
+    }
+
+    /**
+     * Returns the equivalence classes of this machine's reachable states. Two states are equivalent if they agree on
+     * acceptance and on their Moore and Mealy outputs, and transition into equivalent states on every input element.
+     * The classes are computed with Hopcroft's partition-refinement algorithm, and the returned map takes every
+     * reachable state to its class.
+     * 
+     * @return a map from every reachable state of this machine to its equivalence class
+     * 
+     * @see #minimize()
+     */
+    public Map<S, Set<S>> equivalenceClasses() {
+        Map<S, Set<S>> equivalenceClasses = new HashMap<>();
+        for (Set<S> equivalenceClass : equivalenceClasses(new DFSMPartition(table)))
+            for (S state : equivalenceClass)
+                equivalenceClasses.put(state, equivalenceClass);
+        return equivalenceClasses;
+    }
+
+    /**
+     * Returns the minimal one-way deterministic finite-state machine equivalent to this one. Its states are the
+     * equivalence classes of this machine's reachable states, and its accept states, transitions and translations are
+     * those of any state in each class.
+     * 
+     * @return the minimal one-way deterministic finite-state machine equivalent to this one
+     * 
+     * @see #equivalenceClasses()
+     */
+    public OneWayDFSM<Set<S>, I, O> minimize() {
+        DFSMPartition partition = new DFSMPartition(table);
+        List<Set<S>> equivalenceClasses = equivalenceClasses(partition);
+
+        // Take the acceptance, transitions and translations of each class from a representative state.
+        Set<Set<S>> acceptClasses = new HashSet<>();
+        Map<Entry<Set<S>, I>, Set<S>> minimalTransitions = new HashMap<>();
+        Map<Entry<Set<S>, I>, O> minimalMealyTranslations = new HashMap<>();
+        Map<Set<S>, O> minimalMooreTranslations = new HashMap<>();
+        for (Set<S> equivalenceClass : equivalenceClasses) {
+            int representative = table.stateIds.get(equivalenceClass.iterator().next());
+            if (table.accepting[representative])
+                acceptClasses.add(equivalenceClass);
+            if (!MooreTranslations.isEmpty())
+                minimalMooreTranslations.put(equivalenceClass, table.MooreOutput(representative));
+            for (int element = 0; element < table.alphabetSize; element++) {
+                @SuppressWarnings("unchecked")
+                Entry<Set<S>, I> transitionKey = new SimpleEntry<>(equivalenceClass,
+                        (I) table.inputElements[element]);
+                int transition = representative * table.alphabetSize + element;
+                minimalTransitions.put(transitionKey,
+                        equivalenceClasses.get(partition.blocks[table.transitions[transition]]));
+                if (!MealyTranslations.isEmpty())
+                    minimalMealyTranslations.put(transitionKey, table.MealyOutput(transition));
+            }
+        }
+        return new OneWayDFSM<>(new HashSet<>(equivalenceClasses), acceptClasses,
+                equivalenceClasses.get(partition.blocks[table.startState]), inputElements, outputElements,
+                minimalTransitions, minimalMealyTranslations, minimalMooreTranslations);
+    }
+
+    /**
+     * Returns a one-way deterministic finite-state acceptor of the intersection of this machine's language and the
+     * specified machine's, which accepts an input if both machines accept.
+     * 
+     * @param <T>   the type of the specified machine's states
+     * @param other the machine to combine with this machine
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return a one-way deterministic finite-state acceptor of the intersection of this machine's language and the
+     *         specified machine's
+     * 
+     * @see #product(OneWayDFSM, BiPredicate)
+     */
+    public <T> OneWayDFSM<Entry<S, T>, I, O> intersection(OneWayDFSM<T, I, ?> other) {
+        return product(other, (a, b) -> a && b);
+    }
+
+    /**
+     * Returns a one-way deterministic finite-state acceptor of the union of this machine's language and the specified
+     * machine's, which accepts an input if either machine accepts.
+     * 
+     * @param <T>   the type of the specified machine's states
+     * @param other the machine to combine with this machine
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return a one-way deterministic finite-state acceptor of the union of this machine's language and the specified
+     *         machine's
+     * 
+     * @see #product(OneWayDFSM, BiPredicate)
+     */
+    public <T> OneWayDFSM<Entry<S, T>, I, O> union(OneWayDFSM<T, I, ?> other) {
+        return product(other, (a, b) -> a || b);
+    }
+
+    /**
+     * Returns a one-way deterministic finite-state acceptor of the difference of this machine's language and the
+     * specified machine's, which accepts an input if this machine accepts and the specified machine does not.
+     * 
+     * @param <T>   the type of the specified machine's states
+     * @param other the machine to combine with this machine
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return a one-way deterministic finite-state acceptor of the difference of this machine's language and the
+     *         specified machine's
+     * 
+     * @see #product(OneWayDFSM, BiPredicate)
+     */
+    public <T> OneWayDFSM<Entry<S, T>, I, O> difference(OneWayDFSM<T, I, ?> other) {
+        return product(other, (a, b) -> a && !b);
+    }
+
+    /**
+     * Returns a one-way deterministic finite-state acceptor of the symmetric difference of this machine's language and
+     * the specified machine's, which accepts an input if exactly one of the machines accepts.
+     * 
+     * @param <T>   the type of the specified machine's states
+     * @param other the machine to combine with this machine
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return a one-way deterministic finite-state acceptor of the symmetric difference of this machine's language and
+     *         the specified machine's
+     * 
+     * @see #product(OneWayDFSM, BiPredicate)
+     */
+    public <T> OneWayDFSM<Entry<S, T>, I, O> symmetricDifference(OneWayDFSM<T, I, ?> other) {
+        return product(other, (a, b) -> a != b);
+    }
+
+    /**
+     * Returns the product of this machine and the specified machine, a one-way deterministic finite-state acceptor that
+     * runs both machines at once and accepts an input if the specified predicate holds for whether each machine accepts
+     * it. The product's states are the pairs of the machines' states reachable from the pair of their start states, and
+     * its input elements are those of either machine. A machine that reads an element that is not one of its input
+     * elements halts, which the product represents with a {@code null} state in the machine's place, so the predicate
+     * must not hold when neither machine accepts. The product is built in full when this method is called, rather than
+     * as inputs are read, since a one-way deterministic finite-state machine holds every one of its transitions; only
+     * the pairs reachable from the pair of start states are built, which are often far fewer than the pairs of all
+     * states. To run machines together without building their product, compute each of them incrementally with a
+     * {@link #runner() runner}.
+     * 
+     * @param <T>       the type of the specified machine's states
+     * @param other     the machine to combine with this machine
+     * @param accepting the predicate of whether this machine and the specified machine accept an input, which holds if
+     *                  the product accepts it
+     * 
+     * @throws NullPointerException     if {@code other} or {@code accepting} is {@code null}
+     * @throws IllegalArgumentException if {@code accepting} holds when neither machine accepts
+     * 
+     * @return the product of this machine and the specified machine
+     */
+    public <T> OneWayDFSM<Entry<S, T>, I, O> product(OneWayDFSM<T, I, ?> other,
+            BiPredicate<Boolean, Boolean> accepting) {
+        // Ensure the other machine and the predicate are not null, and inputs neither machine accepts are rejected.
+        if (other == null)
+            throw new NullPointerException("Cannot take the product of a one-way deterministic finite-state machine "
+                    + "and a null machine.");
+        if (accepting == null)
+            throw new NullPointerException("Cannot take the product of one-way deterministic finite-state machines "
+                    + "with a null acceptance predicate.");
+        if (accepting.test(false, false))
+            throw new IllegalArgumentException("Cannot take the product of one-way deterministic finite-state machines "
+                    + "with an acceptance predicate that holds when neither machine accepts.");
+
+        // Run both machines on the input elements of either, halting a machine on the elements that are not its own.
+        DFSMTable<T, I, ?> otherTable = other.table;
+        List<I> productInputElements = new ArrayList<>(inputElements);
+        for (I inputElement : other.inputElements)
+            if (!inputElements.contains(inputElement))
+                productInputElements.add(inputElement);
+        int alphabetSize = productInputElements.size();
+        int[] elementIds = new int[alphabetSize];
+        int[] otherElementIds = new int[alphabetSize];
+        for (int element = 0; element < alphabetSize; element++) {
+            elementIds[element] = table.inputElementId(productInputElements.get(element));
+            otherElementIds[element] = otherTable.inputElementId(productInputElements.get(element));
+        }
+
+        // Index every reached pair of states, packed into a long, with -1 standing in for the null state.
+        Map<Long, Integer> pairIds = new HashMap<>();
+        List<Long> pairs = new ArrayList<>();
+        pairIds.put(pair(table.startState, otherTable.startState), 0);
+        pairs.add(pair(table.startState, otherTable.startState));
+        List<int[]> pairTransitions = new ArrayList<>();
+        for (int p = 0; p < pairs.size(); p++) {
+            int state = (int) (pairs.get(p) >> 32);
+            int otherState = (int) (long) pairs.get(p);
+            int[] targets = new int[alphabetSize];
+            for (int element = 0; element < alphabetSize; element++) {
+                long target = pair(state < 0 || elementIds[element] < 0 ? -1
+                        : table.transitions[state * table.alphabetSize + elementIds[element]],
+                        otherState < 0 || otherElementIds[element] < 0 ? -1
+                                : otherTable.transitions[otherState * otherTable.alphabetSize
+                                        + otherElementIds[element]]);
+                Integer targetId = pairIds.get(target);
+                if (targetId == null) {
+                    targetId = pairs.size();
+                    pairIds.put(target, targetId);
+                    pairs.add(target);
+                }
+                targets[element] = targetId;
+            }
+            pairTransitions.add(targets);
+        }
+
+        // Build the acceptor over the reached pairs of states.
+        List<Entry<S, T>> productStates = new ArrayList<>(pairs.size());
+        Set<Entry<S, T>> productAcceptStates = new HashSet<>();
+        for (long pair : pairs) {
+            int state = (int) (pair >> 32);
+            int otherState = (int) pair;
+            productStates.add(new SimpleEntry<>(table.state(state), otherTable.state(otherState)));
+            if (accepting.test(state >= 0 && table.accepting[state],
+                    otherState >= 0 && otherTable.accepting[otherState]))
+                productAcceptStates.add(productStates.get(productStates.size() - 1));
+        }
+        Map<Entry<Entry<S, T>, I>, Entry<S, T>> productTransitions = new HashMap<>();
+        for (int p = 0; p < pairs.size(); p++)
+            for (int element = 0; element < alphabetSize; element++)
+                productTransitions.put(new SimpleEntry<>(productStates.get(p), productInputElements.get(element)),
+                        productStates.get(pairTransitions.get(p)[element]));
+        return new OneWayDFSM<>(new HashSet<>(productStates), productAcceptStates, productStates.get(0),
+                new HashSet<>(productInputElements), productTransitions);
+    }
+
+    private static long pair(int state, int otherState) {
+        return (long) state << 32 | otherState & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the same language as the specified machine, {@code false} otherwise.
+     * The languages are compared with the Hopcroft-Karp algorithm, which runs both machines side by side and merges the
+     * classes of paired states with a union-find structure, in near-linear time in the number of transitions and
+     * without minimizing either machine. The machines may have different input elements, and a machine rejects every
+     * input containing an element that is not one of its own.
+     * 
+     * @param other the machine to compare with this machine
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return {@code true} if this machine accepts the same language as the specified machine, {@code false} otherwise
+     * 
+     * @see #distinguishingInput(OneWayDFSM)
+     */
+    public boolean isEquivalentTo(OneWayDFSM<?, I, ?> other) {
+        // Ensure the other machine is not null.
+        if (other == null)
+            throw new NullPointerException("Cannot compare a one-way deterministic finite-state machine with a null "
+                    + "machine.");
+        return new DFSMComparison<>(table, other.table).equivalent();
+    }
+
+    /**
+     * Returns a shortest input accepted by exactly one of this machine and the specified machine, or {@code null} if
+     * they accept the same language. Equivalence is first decided as by {@link #isEquivalentTo(OneWayDFSM)}, and only
+     * if the machines are not equivalent are the pairs of their states searched breadth first for the input.
+     * 
+     * @param other the machine to compare with this machine
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return a shortest input accepted by exactly one of the machines, or {@code null} if they are equivalent
+     */
+    public List<I> distinguishingInput(OneWayDFSM<?, I, ?> other) {
+        // Ensure the other machine is not null.
+        if (other == null)
+            throw new NullPointerException("Cannot compare a one-way deterministic finite-state machine with a null "
+                    + "machine.");
+        DFSMComparison<I> comparison = new DFSMComparison<>(table, other.table);
+        return comparison.equivalent() ? null : comparison.counterexample(false);
+    }
+
+    /**
+     * Returns {@code true} if every input this machine accepts is accepted by the specified machine, {@code false}
+     * otherwise.
+     * 
+     * @param other the machine to compare with this machine
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return {@code true} if this machine's language is included in the specified machine's, {@code false} otherwise
+     * 
+     * @see #inclusionCounterexample(OneWayDFSM)
+     */
+    public boolean isIncludedIn(OneWayDFSM<?, I, ?> other) {
+        return inclusionCounterexample(other) == null;
+    }
+
+    /**
+     * Returns a shortest input accepted by this machine and not by the specified machine, or {@code null} if every
+     * input this machine accepts is accepted by the specified machine. The pairs of the machines' states reachable from
+     * their start states are searched breadth first, in linear time in the number of reachable pairs and their
+     * transitions.
+     * 
+     * @param other the machine to compare with this machine
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return a shortest input accepted by this machine and not by the specified machine, or {@code null} if there is
+     *         none
+     */
+    public List<I> inclusionCounterexample(OneWayDFSM<?, I, ?> other) {
+        // Ensure the other machine is not null.
+        if (other == null)
+            throw new NullPointerException("Cannot compare a one-way deterministic finite-state machine with a null "
+                    + "machine.");
+        return new DFSMComparison<>(table, other.table).counterexample(true);
+    }
+
+    /**
+     * Writes this machine to the specified file in a compact binary format, replacing the file if it exists. The file
+     * holds tables of this machine's encoded states, input elements and output elements, flat tables of its transitions
+     * and translations indexed by them, and a checksum, so that {@link MappedDFSM#open(Path, ElementCodec,
+     * ElementCodec, ElementCodec)} can run it directly from memory without rebuilding or revalidating it.
+     * 
+     * @param file        the path of the file to write
+     * @param stateCodec  the codec to encode this machine's states with
+     * @param inputCodec  the codec to encode this machine's input elements with
+     * @param outputCodec the codec to encode this machine's output elements with, which may be {@code null} if it has
+     *                    no output elements
+     * 
+     * @throws NullPointerException     if {@code file}, {@code stateCodec} or {@code inputCodec} is {@code null}, or if
+     *                                  {@code outputCodec} is {@code null} and this machine has output elements
+     * @throws IllegalArgumentException if this machine's binary format is larger than {@link Integer#MAX_VALUE} bytes
+     * @throws IOException              if the file cannot be written
+     */
+    public void write(Path file, ElementCodec<S> stateCodec, ElementCodec<I> inputCodec, ElementCodec<O> outputCodec)
+            throws IOException {
+        // Ensure neither the file nor the codecs are null.
+        if (file == null)
+            throw new NullPointerException("Cannot write a one-way deterministic finite-state machine to a null file.");
+        if (stateCodec == null || inputCodec == null || outputCodec == null && !outputElements.isEmpty())
+            throw new NullPointerException("Cannot write a one-way deterministic finite-state machine using a null "
+                    + "codec for its states, input elements or output elements.");
+        DFSMFormat.write(this, file, stateCodec, inputCodec, outputCodec);
+    }
+
+    /* Collects the states of every block of the specified partition into a set, indexed by block. */
+    private List<Set<S>> equivalenceClasses(DFSMPartition partition) {
+        List<Set<S>> blocks = new ArrayList<>(partition.blockCount);
+        for (int block = 0; block < partition.blockCount; block++)
+            blocks.add(new HashSet<>());
+        for (int state = 0; state < table.states.length; state++)
+            if (partition.blocks[state] >= 0)
+                blocks.get(partition.blocks[state]).add(table.state(state));
+        for (int block = 0; block < partition.blockCount; block++)
+            blocks.set(block, new StateSet<>(blocks.get(block)));
+        return blocks;
+    }
+
     /* Constructs the state diagrams of the one-way deterministic finite-state machines in this package. */
     public StateDiagram<S, I> diagram() {
         StateDiagram<S, I> diagram = new StateDiagram<>(startState);
@@ -172,18 +945,41 @@ public StateDiagram<S, I> diagram() {
         return diagram;
     }
 
+    /**
+     * Returns a read-only view of this machine's state diagram, backed by its compiled transition table. Unlike
+     * {@link #diagram()}, which copies every transition into a new graph, the view computes its vertices, edges and
+     * degrees on demand, so graph algorithms can run over large machines without materializing their diagrams. The view
+     * is constructed once and cached.
+     * 
+     * @return a read-only view of this machine's state diagram
+     */
+    public StateDiagramView<S, I> diagramView() {
+        StateDiagramView<S, I> diagramView = this.diagramView;
+        if (diagramView == null)
+            this.diagramView = diagramView = new StateDiagramView<>(table);
+        return diagramView;
+    }
+
+    /**
+     * Returns a compact trace of this machine's computation on the specified input, which stores the index of the
+     * state after every step rather than the steps themselves. Its serial trace is only built when it is asked for.
+     * 
+     * @param input the sequence of elements to compute this machine on
+     * 
+     * @throws NullPointerException if {@code input} is {@code null}
+     * 
+     * @return a compact trace of this machine's computation on the specified input
+     */
+    public DFSMTrace<S, I> compactTrace(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way deterministic finite-state machine on a null input.");
+        return new DFSMTrace<>(table, input);
+    }
+
     /* Constructs traces of the one-way deterministic finite-state machines' computations in this package. */
     public SerialTrace<S, I> trace(List<I> input) {
-        List<Entry<Entry<S, I>, S>> computation = compute(input);
-        StateVertex<S> currentStateVertex = new StateVertex<>(startState);
-        SerialTrace<S, I> trace = new SerialTrace<>(currentStateVertex);
-        trace.addVertex(currentStateVertex);
-        for (Entry<Entry<S, I>, S> step : computation.subList(1, computation.size())) {
-            StateVertex<S> nextStateVertex = new StateVertex<>(step.getValue());
-            trace.addVertex(nextStateVertex);
-            trace.addEdge(currentStateVertex, nextStateVertex, new TransitionEdge<>(step.getKey().getValue()));
-            currentStateVertex = nextStateVertex;
-        }
-        return trace;
+        return compactTrace(input).toSerialTrace();
     }
 }
@@ -1,18 +1,32 @@
 package ca.nmode.hopcroft.machines;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import ca.nmode.hopcroft.graphs.ParallelTrace;
+import ca.nmode.hopcroft.graphs.StateVertex;
+import ca.nmode.hopcroft.graphs.TransitionEdge;
 
 public class OneWayNFSM<S, I, O>
         extends AbstractNFSM<S, I, O, Entry<S, I>, Set<S>, List<Entry<Entry<Set<S>, I>, Set<S>>>> {
+    final NFSMTable<S, I, O> table;
+    private volatile MatchFinder matchFinder;
+    private volatile long[] simulation;
+    private volatile Set<S> reachableStates;
+    private volatile Set<S> coreachableStates;
+    private final Map<S, Set<S>> epsilonClosures;
     private boolean hasEpsilon;
 
     public OneWayNFSM(Set<S> states, Set<S> acceptStates, S startState, Set<I> inputElements, Set<O> outputElements,
@@ -38,6 +52,10 @@ else if (!this.inputElements().contains(transition.getKey().getValue()))
                 throw new IllegalArgumentException("Cannot construct a one-way nondeterministic finite-state machine "
                         + "whose transition map contains a value that is not a subset of its set of states.");
         }
+
+        // Compute the epsilon closure of every state once, then compile the transition function into bitmasks.
+        epsilonClosures = closeEpsilonTransitions();
+        table = new NFSMTable<>(this);
     }
 
     public OneWayNFSM(Set<S> states, S startState, Set<I> inputElements, Set<O> outputElements,
@@ -63,29 +81,27 @@ public List<Entry<Entry<Set<S>, I>, Set<S>>> compute(List<I> input) {
                     "Cannot compute a one-way nondeterministic finite-state machine on a null input.");
 
         // Initialize the current states to the epsilon closure of the start state.
-        Set<S> currentStates = new HashSet<>(epsilonClosure(startState));
+        long[] currentStates = table.startStates.clone();
 
         // Add an entry for step zero of the computation, before any element is read.
         List<Entry<Entry<Set<S>, I>, Set<S>>> computation = new ArrayList<>();
-        computation.add(new SimpleEntry<>(new SimpleEntry<>(Set.of(startState), null), currentStates));
+        Set<S> currentStateSet = table.states(currentStates);
+        computation.add(new SimpleEntry<>(new SimpleEntry<>(Set.of(startState), null), currentStateSet));
 
+        long[] nextStates = new long[currentStates.length];
         for (I inputElement : input) {
-            Set<S> nextStates = new HashSet<>();
             // Retrieve the next states of every current state on the current input element.
-            for (S currentState : currentStates) {
-                Set<S> transitionValue = transitions.get(new SimpleEntry<>(currentState, inputElement));
-                if (transitionValue == null || transitionValue.isEmpty())
-                    nextStates.add(null);
-                else
-                    nextStates.addAll(transitionValue);
-            }
-            nextStates.addAll(epsilonClosure(nextStates));
-            computation.add(new SimpleEntry<>(new SimpleEntry<>(currentStates, inputElement), nextStates));
+            table.step(currentStates, table.inputElementId(inputElement), nextStates);
+            Set<S> nextStateSet = table.states(nextStates);
+            computation.add(new SimpleEntry<>(new SimpleEntry<>(currentStateSet, inputElement), nextStateSet));
 
-            if (nextStates.size() == 1 && nextStates.contains(null))
+            if (table.isHalted(nextStates))
                 break;
 
+            long[] previousStates = currentStates;
             currentStates = nextStates;
+            nextStates = previousStates;
+            currentStateSet = nextStateSet;
         }
 
         return computation;
@@ -93,15 +109,12 @@ public List<Entry<Entry<Set<S>, I>, Set<S>>> compute(List<I> input) {
 
     @Override
     public Set<S> classify(List<I> input) {
-        List<Entry<Entry<Set<S>, I>, Set<S>>> computation = compute(input);
-        return computation.get(computation.size() - 1).getValue();
+        return table.states(run(input));
     }
 
     @Override
     public boolean accepts(List<I> input) {
-        if (input == null)
-            throw new NullPointerException();
-        return !Collections.disjoint(acceptStates, classify(input));
+        return table.isAccepting(run(input));
     }
 
     @Override
@@ -116,7 +129,7 @@ public boolean recognizes(Set<List<I>> inputs) {
 
         // The empty set is recognized if there are no reachable accept states.
         if (inputs.isEmpty())
-            return Collections.disjoint(acceptStates, reachableStates());
+            return Collections.disjoint(acceptStates, reachableStatesView());
 
         // Return true if every input in the set is accepted, false otherwise.
         for (List<I> input : inputs)
@@ -125,69 +138,738 @@ public boolean recognizes(Set<List<I>> inputs) {
         return true;
     }
 
+    /**
+     * Returns {@code true} if this machine recognizes the specified set of inputs, computed in parallel on the common
+     * fork/join pool, {@code false} otherwise.
+     * 
+     * @param inputs the set of inputs to compute this machine on
+     * 
+     * @throws NullPointerException if {@code inputs} is or contains {@code null}
+     * 
+     * @return {@code true} if this machine recognizes the specified set of inputs, {@code false} otherwise
+     * 
+     * @see #parallelRecognizes(Set, Executor)
+     */
+    public boolean parallelRecognizes(Set<List<I>> inputs) {
+        return parallelRecognizes(inputs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns {@code true} if this machine recognizes the specified set of inputs, computed in parallel on the
+     * specified executor, {@code false} otherwise. The inputs are partitioned across the executor's threads and the
+     * calling thread, and every thread stops as soon as any input is rejected.
+     * 
+     * @param inputs   the set of inputs to compute this machine on
+     * @param executor the executor to compute this machine on
+     * 
+     * @throws NullPointerException if {@code inputs} is or contains {@code null}, or if {@code executor} is
+     *                              {@code null}
+     * 
+     * @return {@code true} if this machine recognizes the specified set of inputs, {@code false} otherwise
+     * 
+     * @see #recognizes(Set)
+     */
+    public boolean parallelRecognizes(Set<List<I>> inputs, Executor executor) {
+        // Ensure the set of inputs neither is nor contains null, and the executor is not null.
+        if (inputs == null)
+            throw new NullPointerException("A one-way nondeterministic finite-state machine cannot attempt to "
+                    + "recognize a null set of inputs.");
+        if (inputs.contains(null))
+            throw new NullPointerException("A one-way nondeterministic finite-state machine cannot attempt to "
+                    + "recognize a set of inputs that contains null.");
+        if (executor == null)
+            throw new NullPointerException("A one-way nondeterministic finite-state machine cannot attempt to "
+                    + "recognize a set of inputs on a null executor.");
+
+        // The empty set is recognized if there are no reachable accept states.
+        if (inputs.isEmpty())
+            return Collections.disjoint(acceptStates, reachableStatesView());
+        return BatchRecognition.all(inputs, this::accepts, executor);
+    }
+
+    /**
+     * Returns whether this machine accepts each of the specified inputs, computed in parallel on the common fork/join
+     * pool.
+     * 
+     * @param inputs the list of inputs to compute this machine on
+     * 
+     * @throws NullPointerException if {@code inputs} is or contains {@code null}
+     * 
+     * @return an array whose every element is {@code true} if this machine accepts the input at the same index,
+     *         {@code false} otherwise
+     * 
+     * @see #acceptsEach(List, Executor)
+     */
+    public boolean[] acceptsEach(List<? extends List<I>> inputs) {
+        return acceptsEach(inputs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns whether this machine accepts each of the specified inputs, computed in parallel on the specified
+     * executor. The inputs are partitioned across the executor's threads and the calling thread.
+     * 
+     * @param inputs   the list of inputs to compute this machine on
+     * @param executor the executor to compute this machine on
+     * 
+     * @throws NullPointerException if {@code inputs} is or contains {@code null}, or if {@code executor} is
+     *                              {@code null}
+     * 
+     * @return an array whose every element is {@code true} if this machine accepts the input at the same index,
+     *         {@code false} otherwise
+     * 
+     * @see #accepts(List)
+     */
+    public boolean[] acceptsEach(List<? extends List<I>> inputs, Executor executor) {
+        // Ensure the list of inputs neither is nor contains null, and the executor is not null.
+        if (inputs == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way nondeterministic finite-state machine on a null list of inputs.");
+        if (inputs.contains(null))
+            throw new NullPointerException("Cannot compute a one-way nondeterministic finite-state machine on a "
+                    + "list of inputs that contains null.");
+        if (executor == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way nondeterministic finite-state machine on a null executor.");
+        return BatchRecognition.each(inputs, this::accepts, executor);
+    }
+
+    /**
+     * Returns this machine's Mealy transduction on the specified input, as a compact set of the output sequences of its
+     * computation's paths, which are enumerated and counted only when they are asked for.
+     * 
+     * @param input the sequence of elements to compute this machine on
+     * 
+     * @throws NullPointerException if {@code input} is {@code null}
+     * 
+     * @return this machine's Mealy transduction on the specified input
+     */
     @Override
-    public Set<List<O>> MealyTransduce(List<I> input) {
-        // TODO
-        return null;
+    public NFSMTransduction<O> MealyTransduce(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way nondeterministic finite-state machine on a null input.");
+        return new NFSMTransduction<>(table, input, false);
     }
 
+    /**
+     * Returns this machine's Moore transduction on the specified input, as a compact set of the output sequences of its
+     * computation's paths, which are enumerated and counted only when they are asked for.
+     * 
+     * @param input the sequence of elements to compute this machine on
+     * 
+     * @throws NullPointerException if {@code input} is {@code null}
+     * 
+     * @return this machine's Moore transduction on the specified input
+     */
     @Override
-    public Set<List<O>> MooreTransduce(List<I> input) {
-        // TODO
-        return null;
+    public NFSMTransduction<O> MooreTransduce(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way nondeterministic finite-state machine on a null input.");
+        return new NFSMTransduction<>(table, input, true);
+    }
+
+    /* Runs the machine on the specified input without recording its computation, returning the bitset of the final set
+       of states. */
+    private long[] run(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way nondeterministic finite-state machine on a null input.");
+        return table.run(input);
+    }
+
+    /**
+     * Returns a one-way deterministic finite-state acceptor equivalent to this machine, obtained by subset
+     * construction. Only the sets of states reachable from the epsilon closure of the start state are constructed, and
+     * each is the epsilon closure of the states reached on an input element. The empty set of states is the acceptor's
+     * dead state, and a set of states is accepting if it contains an accept state of this machine.
+     * 
+     * @return a one-way deterministic finite-state acceptor equivalent to this machine
+     * 
+     * @see #determinize(int)
+     */
+    public OneWayDFSM<Set<S>, I, O> determinize() {
+        return determinize(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a one-way deterministic finite-state acceptor equivalent to this machine, failing as soon as the subset
+     * construction reaches more than the specified number of states.
+     * 
+     * @param stateLimit the maximum number of states of the deterministic acceptor
+     * 
+     * @throws IllegalArgumentException if {@code stateLimit} is not positive
+     * @throws IllegalStateException    if the deterministic acceptor has more than {@code stateLimit} states
+     * 
+     * @return a one-way deterministic finite-state acceptor equivalent to this machine
+     * 
+     * @see #determinize()
+     */
+    public OneWayDFSM<Set<S>, I, O> determinize(int stateLimit) {
+        if (stateLimit < 1)
+            throw new IllegalArgumentException("Cannot determinize a one-way nondeterministic finite-state machine "
+                    + "into a machine with fewer than one state.");
+
+        // Index every reached set of states, ignoring the null state, which only marks halted paths.
+        Map<BitSet, Integer> subsetIds = new HashMap<>();
+        List<long[]> subsets = new ArrayList<>();
+        long[] startStates = table.startStates.clone();
+        startStates[table.words] = 0;
+        subsetIds.put(BitSet.valueOf(startStates), 0);
+        subsets.add(startStates);
+
+        // Take the transitions of every reached set of states, on every input element, in breadth-first order.
+        List<int[]> subsetTransitions = new ArrayList<>();
+        for (int subset = 0; subset < subsets.size(); subset++) {
+            int[] targets = new int[table.alphabetSize];
+            for (int element = 0; element < table.alphabetSize; element++) {
+                long[] nextStates = new long[table.words + 1];
+                table.step(subsets.get(subset), element, nextStates);
+                nextStates[table.words] = 0;
+                BitSet key = BitSet.valueOf(nextStates);
+                Integer target = subsetIds.get(key);
+                if (target == null) {
+                    if (subsets.size() == stateLimit)
+                        throw new IllegalStateException("Cannot determinize a one-way nondeterministic finite-state "
+                                + "machine into a machine with more than " + stateLimit + " states.");
+                    target = subsets.size();
+                    subsetIds.put(key, target);
+                    subsets.add(nextStates);
+                }
+                targets[element] = target;
+            }
+            subsetTransitions.add(targets);
+        }
+
+        // Build the deterministic acceptor over the reached sets of states.
+        List<Set<S>> stateSets = new ArrayList<>(subsets.size());
+        Set<Set<S>> acceptStateSets = new HashSet<>();
+        for (long[] subset : subsets) {
+            Set<S> stateSet = new StateSet<>(table.states(subset));
+            stateSets.add(stateSet);
+            if (table.isAccepting(subset))
+                acceptStateSets.add(stateSet);
+        }
+        Map<Entry<Set<S>, I>, Set<S>> deterministicTransitions = new HashMap<>();
+        for (int subset = 0; subset < subsets.size(); subset++)
+            for (int element = 0; element < table.alphabetSize; element++) {
+                @SuppressWarnings("unchecked")
+                I inputElement = (I) table.inputElements[element];
+                deterministicTransitions.put(new SimpleEntry<>(stateSets.get(subset), inputElement),
+                        stateSets.get(subsetTransitions.get(subset)[element]));
+            }
+        return new OneWayDFSM<>(new HashSet<>(stateSets), acceptStateSets, stateSets.get(0), inputElements,
+                deterministicTransitions);
+    }
+
+    /**
+     * Returns a lazily determinized view of this machine, which constructs deterministic states as inputs reach them
+     * and caches at most as many as fit in the specified memory budget.
+     * 
+     * @param memoryBudget the approximate number of bytes the cached deterministic states may occupy
+     * 
+     * @throws IllegalArgumentException if {@code memoryBudget} is not positive
+     * 
+     * @return a lazily determinized view of this machine
+     * 
+     * @see #determinize()
+     */
+    public LazyDFSM<S, I, O> lazyDeterminize(long memoryBudget) {
+        return new LazyDFSM<>(this, memoryBudget);
+    }
+
+    /**
+     * Returns the non-overlapping matches of this machine in the specified input, with leftmost-longest semantics.
+     * 
+     * @param input the sequence of elements to search
+     * 
+     * @throws NullPointerException if {@code input} is {@code null}
+     * 
+     * @return the matches of this machine in the specified input, in order of their start offsets
+     * 
+     * @see #search(List, MatchSemantics, boolean)
+     */
+    public List<Match> search(List<I> input) {
+        return search(input, MatchSemantics.LEFTMOST_LONGEST, false);
+    }
+
+    /**
+     * Returns the matches of this machine in the specified input, which are the subsequences of the input this machine
+     * accepts. A match begins at every offset at which this machine accepts some subsequence, and ends at the nearest
+     * or furthest offset at which it accepts one, so that it is the shortest or longest such subsequence, according to
+     * the specified semantics. Without overlapping, the search resumes at the end of every match, or after an empty
+     * match, so that the matches are the leftmost ones; with overlapping, a match is found at every offset at which one
+     * begins. The input is read once backwards to find where matches begin and where they can still be extended, and
+     * then once forwards over each match, so that the search takes time linear in the length of the input and of the
+     * matches.
+     * 
+     * @param input       the sequence of elements to search
+     * @param semantics   the semantics by which a match's end is chosen
+     * @param overlapping whether matches may overlap
+     * 
+     * @throws NullPointerException if {@code input} or {@code semantics} is {@code null}
+     * 
+     * @return the matches of this machine in the specified input, in order of their start offsets
+     */
+    public List<Match> search(List<I> input, MatchSemantics semantics, boolean overlapping) {
+        // Ensure the input and semantics are not null.
+        if (input == null)
+            throw new NullPointerException("Cannot search a null input with a one-way nondeterministic finite-state "
+                    + "machine.");
+        if (semantics == null)
+            throw new NullPointerException("Cannot search an input with a one-way nondeterministic finite-state "
+                    + "machine with null match semantics.");
+
+        // Construct the finder once, as it indexes the predecessors of every state.
+        MatchFinder finder = matchFinder;
+        if (finder == null)
+            matchFinder = finder = MatchFinder.of(table);
+        return finder.search(input, semantics, overlapping);
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts every input over its input elements, {@code false} otherwise.
+     * 
+     * @return {@code true} if this machine accepts every input over its input elements, {@code false} otherwise
+     * 
+     * @see #universalityCounterexample(boolean)
+     */
+    public boolean isUniversal() {
+        return universalityCounterexample(false) == null;
+    }
+
+    /**
+     * Returns an input over this machine's input elements that it rejects, or {@code null} if it accepts every such
+     * input. The sets of states this machine reaches are explored breadth first without determinizing it, keeping only
+     * an antichain of the sets reached so far: a set that contains a set already reached is pruned, as any input the
+     * larger set rejects is rejected by the smaller one. If so specified, this machine's simulation relation is
+     * computed first, and sets are compared up to simulation and rid of states that other states in them simulate,
+     * which prunes more sets at the cost of computing the relation in time quadratic in the number of states.
+     * 
+     * @param simulation whether to prune with this machine's simulation relation
+     * 
+     * @return an input over this machine's input elements that it rejects, or {@code null} if there is none
+     */
+    public List<I> universalityCounterexample(boolean simulation) {
+        return new NFSMAntichain<I>(null, null, table, simulation ? simulation() : null).counterexample();
+    }
+
+    /**
+     * Returns {@code true} if every input this machine accepts is accepted by the specified machine, {@code false}
+     * otherwise.
+     * 
+     * @param other the machine to compare with this machine
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return {@code true} if this machine's language is included in the specified machine's, {@code false} otherwise
+     * 
+     * @see #inclusionCounterexample(OneWayNFSM, boolean)
+     */
+    public boolean isIncludedIn(OneWayNFSM<?, I, ?> other) {
+        return inclusionCounterexample(other, false) == null;
+    }
+
+    /**
+     * Returns an input accepted by this machine and not by the specified machine, or {@code null} if every input this
+     * machine accepts is accepted by the specified machine. The pairs of a state of this machine and a set of states of
+     * the specified machine reached on the same input are explored breadth first without determinizing either machine,
+     * keeping only an antichain of the pairs reached so far: a pair whose set contains the set of a pair already
+     * reached with the same state is pruned. If so specified, both machines' simulation relations are computed first,
+     * and pairs are compared up to simulation, which prunes more pairs at the cost of computing the relations in time
+     * quadratic in the number of states.
+     * 
+     * @param other      the machine to compare with this machine
+     * @param simulation whether to prune with the machines' simulation relations
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return an input accepted by this machine and not by the specified machine, or {@code null} if there is none
+     */
+    public List<I> inclusionCounterexample(OneWayNFSM<?, I, ?> other, boolean simulation) {
+        // Ensure the other machine is not null.
+        if (other == null)
+            throw new NullPointerException("Cannot compare a one-way nondeterministic finite-state machine with a null "
+                    + "machine.");
+        return new NFSMAntichain<I>(table, simulation ? simulation() : null, other.table,
+                simulation ? other.simulation() : null).counterexample();
+    }
+
+    /**
+     * Returns {@code true} if this machine accepts the same language as the specified machine, {@code false} otherwise.
+     * 
+     * @param other the machine to compare with this machine
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return {@code true} if this machine accepts the same language as the specified machine, {@code false} otherwise
+     * 
+     * @see #distinguishingInput(OneWayNFSM, boolean)
+     */
+    public boolean isEquivalentTo(OneWayNFSM<?, I, ?> other) {
+        return distinguishingInput(other, false) == null;
+    }
+
+    /**
+     * Returns an input accepted by exactly one of this machine and the specified machine, or {@code null} if they
+     * accept the same language. The inclusion of each machine's language in the other's is checked in turn, as by
+     * {@link #inclusionCounterexample(OneWayNFSM, boolean)}.
+     * 
+     * @param other      the machine to compare with this machine
+     * @param simulation whether to prune with the machines' simulation relations
+     * 
+     * @throws NullPointerException if {@code other} is {@code null}
+     * 
+     * @return an input accepted by exactly one of the machines, or {@code null} if they are equivalent
+     */
+    public List<I> distinguishingInput(OneWayNFSM<?, I, ?> other, boolean simulation) {
+        List<I> counterexample = inclusionCounterexample(other, simulation);
+        return counterexample != null ? counterexample
+                : new NFSMAntichain<I>(other.table, simulation ? other.simulation() : null, table,
+                        simulation ? simulation() : null).counterexample();
+    }
+
+    /* Returns this machine's simulation relation, computing it once. */
+    private long[] simulation() {
+        long[] simulation = this.simulation;
+        if (simulation == null)
+            this.simulation = simulation = NFSMAntichain.simulation(table);
+        return simulation;
+    }
+
+    /**
+     * Returns a new runner that computes this machine incrementally, beginning at the epsilon closure of its start
+     * state.
+     * 
+     * @return a new runner that computes this machine incrementally
+     */
+    public NFSMRunner<S, I, O> runner() {
+        return new NFSMRunner<>(this);
+    }
+
+    /**
+     * Returns an instrumented view of this machine, which reports the events of its computations to the specified
+     * listener. This machine's own computations are not reported, and cost nothing more.
+     * 
+     * @param listener the listener to report the computations to
+     * 
+     * @throws NullPointerException if {@code listener} is {@code null}
+     * 
+     * @return an instrumented view of this machine
+     * 
+     * @see #counters()
+     */
+    public InstrumentedNFSM<S, I, O> instrument(ExecutionListener listener) {
+        return new InstrumentedNFSM<>(this, listener);
+    }
+
+    /**
+     * Returns new execution counters sized for this machine, with a counter for each of its states and transitions, to
+     * {@link #instrument(ExecutionListener) instrument} it with.
+     * 
+     * @return new execution counters sized for this machine
+     */
+    public ExecutionCounters<S, I> counters() {
+        return new ExecutionCounters<>(table.states, table.inputElements);
+    }
+
+    /**
+     * Returns the parallel trace of this machine's computation on the specified input, as a tree of its paths.
+     * 
+     * @param input the sequence of elements to compute this machine on
+     * 
+     * @throws NullPointerException if {@code input} is {@code null}
+     * 
+     * @return the parallel trace of this machine's computation on the specified input
+     * 
+     * @see #trace(List, boolean, int)
+     */
+    public ParallelTrace<S, I> trace(List<I> input) {
+        return trace(input, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the parallel trace of this machine's computation on the specified input, failing as soon as it has more
+     * than the specified number of vertices. Every vertex corresponds to a state on a step of the computation. Its
+     * edges go to the vertices of the epsilon closure of the state's successors on the element read on the next step,
+     * and are labeled with that element, or to a vertex of the {@code null} state if there are none, which ends its
+     * path. The start vertex also has edges labeled {@code null} to the other states of its epsilon closure on step
+     * zero. The vertices of accept states on the last step are accept vertices.
+     * <p>
+     * Unless its vertices are shared, the trace is a tree of every path of the computation, which can grow
+     * exponentially with the length of the input. If they are shared, the paths that reach the same state on the same
+     * step share its vertex, and the trace is a directed acyclic graph with at most one vertex for every state on every
+     * step.
+     * 
+     * @param input       the sequence of elements to compute this machine on
+     * @param shared      whether the paths that reach the same state on the same step share its vertex
+     * @param vertexLimit the maximum number of vertices of the trace
+     * 
+     * @throws NullPointerException     if {@code input} is {@code null}
+     * @throws IllegalArgumentException if {@code vertexLimit} is not positive
+     * @throws IllegalStateException    if the trace has more than {@code vertexLimit} vertices
+     * 
+     * @return the parallel trace of this machine's computation on the specified input
+     * 
+     * @see #trace(List)
+     */
+    @SuppressWarnings("unchecked")
+    public ParallelTrace<S, I> trace(List<I> input, boolean shared, int vertexLimit) {
+        // Ensure the input is not null, and the limit allows for the start vertex.
+        if (input == null)
+            throw new NullPointerException(
+                    "Cannot compute a one-way nondeterministic finite-state machine on a null input.");
+        if (vertexLimit < 1)
+            throw new IllegalArgumentException("Cannot trace a one-way nondeterministic finite-state machine's "
+                    + "computation with fewer than one vertex.");
+
+        StateVertex<S> startVertex = new StateVertex<>(startState);
+        ParallelTrace<S, I> trace = new ParallelTrace<>(startVertex, shared);
+        int vertexCount = 1;
+
+        // Follow the paths from the start state to the other states of its epsilon closure, on step zero.
+        int startId = table.stateIds.get(startState);
+        int[] pathStates = new int[table.states.length];
+        List<StateVertex<S>> pathVertices = new ArrayList<>();
+        int pathCount = 0;
+        pathStates[pathCount++] = startId;
+        pathVertices.add(startVertex);
+        for (int word = 0; word < table.words; word++)
+            for (long w = table.startStates[word]; w != 0; w &= w - 1) {
+                int state = (word << 6) + Long.numberOfTrailingZeros(w);
+                if (state == startId)
+                    continue;
+                if (++vertexCount > vertexLimit)
+                    throw traceLimitExceeded(vertexLimit);
+                StateVertex<S> vertex = new StateVertex<>((S) table.states[state]);
+                trace.addVertex(vertex);
+                trace.addEdge(startVertex, vertex, new TransitionEdge<>(null));
+                pathStates[pathCount++] = state;
+                pathVertices.add(vertex);
+            }
+
+        // Extend every path on every element, until every path has ended in the null state.
+        StateVertex<S>[] stepVertices = shared ? (StateVertex<S>[]) new StateVertex<?>[table.states.length] : null;
+        int[] successors = new int[table.states.length];
+        for (Iterator<I> it = input.iterator(); it.hasNext() && pathCount > 0;) {
+            I inputElement = it.next();
+            int element = table.inputElementId(inputElement);
+            int[] nextPathStates = new int[shared ? table.states.length : 16];
+            List<StateVertex<S>> nextPathVertices = new ArrayList<>();
+            int nextPathCount = 0;
+            StateVertex<S> nullVertex = null;
+            for (int path = 0; path < pathCount; path++) {
+                int count = element < 0 ? 0
+                        : table.successors(pathStates[path] * table.alphabetSize + element, successors);
+                boolean halts = count == 0;
+                for (int i = 0; i < count; i++) {
+                    int state = successors[i];
+                    StateVertex<S> vertex = shared ? stepVertices[state] : null;
+                    if (vertex == null) {
+                        if (++vertexCount > vertexLimit)
+                            throw traceLimitExceeded(vertexLimit);
+                        vertex = new StateVertex<>((S) table.states[state]);
+                        trace.addVertex(vertex);
+                        if (shared)
+                            stepVertices[state] = vertex;
+                        if (nextPathCount == nextPathStates.length)
+                            nextPathStates = Arrays.copyOf(nextPathStates, 2 * nextPathCount);
+                        nextPathStates[nextPathCount++] = state;
+                        nextPathVertices.add(vertex);
+                    }
+                    trace.addEdge(pathVertices.get(path), vertex, new TransitionEdge<>(inputElement));
+                }
+                // End the path in the null state if it has no successors on the element.
+                if (halts) {
+                    if (nullVertex == null || !shared) {
+                        if (++vertexCount > vertexLimit)
+                            throw traceLimitExceeded(vertexLimit);
+                        nullVertex = new StateVertex<>(null);
+                        trace.addVertex(nullVertex);
+                    }
+                    trace.addEdge(pathVertices.get(path), nullVertex, new TransitionEdge<>(inputElement));
+                }
+            }
+            if (shared)
+                for (int path = 0; path < nextPathCount; path++)
+                    stepVertices[nextPathStates[path]] = null;
+            pathStates = nextPathStates;
+            pathVertices = nextPathVertices;
+            pathCount = nextPathCount;
+        }
+
+        // Mark the vertices of accept states on the last step, which only remain if every element was read.
+        for (int path = 0; path < pathCount; path++)
+            if ((table.acceptStates[pathStates[path] >>> 6] & 1L << pathStates[path]) != 0)
+                trace.addAcceptVertex(pathVertices.get(path));
+        return trace;
+    }
+
+    /* Returns the exception thrown when a trace would have more vertices than the specified limit. */
+    private static IllegalStateException traceLimitExceeded(int vertexLimit) {
+        return new IllegalStateException("Cannot trace a one-way nondeterministic finite-state machine's computation "
+                + "in at most " + vertexLimit + " vertices.");
     }
 
     public boolean hasEpsilon() {
         return hasEpsilon;
     }
 
-    /* Retrieves the reachable states of the one-way nondeterministic finite-state machines in this package. */
+    /**
+     * Returns a new set of the states reachable from this machine's start state, on input elements or epsilon
+     * transitions, which the caller may modify.
+     * 
+     * @return a new set of the states reachable from this machine's start state
+     * 
+     * @see #reachableStatesView()
+     */
     public Set<S> reachableStates() {
-        Set<S> reachableStates = new HashSet<>();
-        // Add the start state to the set of reachable states and add it to the visitation queue.
-        reachableStates.add(startState);
-        Deque<S> visit = new ArrayDeque<>(reachableStates);
-
-        Set<I> inputElementsWithNull = new HashSet<>(inputElements);
-        inputElementsWithNull.add(null);
-        // Continue until transitions have been taken for all visited states on every input element, as well as null.
-        while (!visit.isEmpty()) {
-            for (I inputElement : inputElementsWithNull) {
-                Set<S> output = transitions.get(new SimpleEntry<>(visit.getFirst(), inputElement));
-                if (output != null)
-                    for (S state : output)
-                        // Add the resulting state of the transition to be visited if it was not already reached.
-                        if (reachableStates.add(state))
-                            visit.add(state);
-            }
-            visit.removeFirst();
-        }
+        return new HashSet<>(reachableStatesView());
+    }
+
+    /**
+     * Returns the states reachable from this machine's start state, on input elements or epsilon transitions, as a set
+     * that is computed once and cached, and cannot be modified. Unlike {@link #reachableStates()}, repeated calls
+     * neither search this machine nor copy the set.
+     * 
+     * @return the unmodifiable set of the states reachable from this machine's start state
+     */
+    public Set<S> reachableStatesView() {
+        Set<S> reachableStates = this.reachableStates;
+        if (reachableStates == null)
+            this.reachableStates = reachableStates = new StateSet<>(table.states(reachable()));
         return reachableStates;
     }
 
+    /**
+     * Returns the states from which one of this machine's accept states is reachable, on input elements or epsilon
+     * transitions. The set is computed once and cached, and cannot be modified.
+     * 
+     * @return the unmodifiable set of the states from which an accept state is reachable
+     */
+    public Set<S> coreachableStates() {
+        Set<S> coreachableStates = this.coreachableStates;
+        if (coreachableStates == null)
+            this.coreachableStates = coreachableStates = new StateSet<>(table.states(coreachable()));
+        return coreachableStates;
+    }
+
+    /**
+     * Returns a machine that accepts the same inputs as this machine, without its unreachable states. If this machine
+     * has no Mealy or Moore translations, the states other than its start state from which no accept state is reachable
+     * are also removed, along with the transitions into them. The states of a machine with translations are otherwise
+     * kept, as the outputs of its computations would change if they were removed.
+     * 
+     * @return a machine that accepts the same inputs as this machine, without its unreachable states
+     */
+    public OneWayNFSM<S, I, O> trim() {
+        // Keep the reachable states, and of those only the ones that can reach an accept state if there are no outputs.
+        long[] kept = reachable();
+        if (MealyTranslations.isEmpty() && MooreTranslations.isEmpty()) {
+            long[] coreachable = coreachable();
+            int start = table.stateIds.get(startState);
+            coreachable[start >>> 6] |= 1L << start;
+            for (int word = 0; word < table.words; word++)
+                kept[word] &= coreachable[word];
+        }
+        Set<S> trimmedStates = table.states(kept);
+
+        Set<S> trimmedAcceptStates = new HashSet<>(acceptStates);
+        trimmedAcceptStates.retainAll(trimmedStates);
+        Map<Entry<S, I>, Set<S>> trimmedTransitions = new HashMap<>();
+        Map<Entry<S, I>, O> trimmedMealyTranslations = new HashMap<>();
+        for (Entry<Entry<S, I>, Set<S>> transition : transitions.entrySet()) {
+            if (!trimmedStates.contains(transition.getKey().getKey()))
+                continue;
+            Set<S> targets = new HashSet<>(transition.getValue());
+            targets.retainAll(trimmedStates);
+            if (targets.isEmpty())
+                continue;
+            trimmedTransitions.put(transition.getKey(), targets);
+            if (MealyTranslations.containsKey(transition.getKey()))
+                trimmedMealyTranslations.put(transition.getKey(), MealyTranslations.get(transition.getKey()));
+        }
+        Map<S, O> trimmedMooreTranslations = new HashMap<>(MooreTranslations);
+        trimmedMooreTranslations.keySet().retainAll(trimmedStates);
+        return new OneWayNFSM<>(trimmedStates, trimmedAcceptStates, startState, inputElements, outputElements,
+                trimmedTransitions, trimmedMealyTranslations, trimmedMooreTranslations);
+    }
+
+    /* Returns the bitset of the states reachable from the start state, following the closure-folded transitions from
+       the start state's epsilon closure. */
+    private long[] reachable() {
+        long[] reached = table.startStates.clone();
+        reached[table.words] = 0;
+        int[] visit = new int[table.states.length];
+        int visitCount = 0;
+        for (int word = 0; word < table.words; word++)
+            for (long w = reached[word]; w != 0; w &= w - 1)
+                visit[visitCount++] = (word << 6) + Long.numberOfTrailingZeros(w);
+        int[] successors = new int[table.states.length];
+        for (int i = 0; i < visitCount; i++)
+            for (int element = 0; element < table.alphabetSize; element++)
+                for (int s = 0, count = table.successors(visit[i] * table.alphabetSize + element, successors);
+                        s < count; s++) {
+                    int successor = successors[s];
+                    if ((reached[successor >>> 6] & 1L << successor) == 0) {
+                        reached[successor >>> 6] |= 1L << successor;
+                        visit[visitCount++] = successor;
+                    }
+                }
+        return reached;
+    }
+
+    /* Returns the bitset of the states from which an accept state is reachable, following every transition, including
+       epsilon transitions, backwards from the accept states. */
+    private long[] coreachable() {
+        // Index the predecessors of every state on any input element or epsilon.
+        int[] predecessorStart = new int[table.states.length + 1];
+        for (Entry<Entry<S, I>, Set<S>> transition : transitions.entrySet())
+            for (S target : transition.getValue())
+                predecessorStart[table.stateIds.get(target) + 1]++;
+        for (int state = 0; state < table.states.length; state++)
+            predecessorStart[state + 1] += predecessorStart[state];
+        int[] predecessors = new int[predecessorStart[table.states.length]];
+        int[] fill = Arrays.copyOf(predecessorStart, table.states.length);
+        for (Entry<Entry<S, I>, Set<S>> transition : transitions.entrySet()) {
+            int source = table.stateIds.get(transition.getKey().getKey());
+            for (S target : transition.getValue())
+                predecessors[fill[table.stateIds.get(target)]++] = source;
+        }
+
+        long[] reached = table.acceptStates.clone();
+        reached[table.words] = 0;
+        int[] visit = new int[table.states.length];
+        int visitCount = 0;
+        for (int word = 0; word < table.words; word++)
+            for (long w = reached[word]; w != 0; w &= w - 1)
+                visit[visitCount++] = (word << 6) + Long.numberOfTrailingZeros(w);
+        for (int i = 0; i < visitCount; i++)
+            for (int p = predecessorStart[visit[i]]; p < predecessorStart[visit[i] + 1]; p++) {
+                int predecessor = predecessors[p];
+                if ((reached[predecessor >>> 6] & 1L << predecessor) == 0) {
+                    reached[predecessor >>> 6] |= 1L << predecessor;
+                    visit[visitCount++] = predecessor;
+                }
+            }
+        return reached;
+    }
+
     public final Set<S> epsilonClosure(S state) {
-        Set<S> epsilonClosure = new HashSet<>();
         // If the specified state is not in the set of states, return the empty set.
-        if (states.contains(state)) {
-            epsilonClosure.add(state);
-            Deque<S> visit = new ArrayDeque<>(epsilonClosure);
-            // Continue until epsilon transitions have been taken for all visited states
-            while (!visit.isEmpty()) {
-                Set<S> transitionValue = transitions.get(new SimpleEntry<>(visit.removeFirst(), null));
-                if (transitionValue != null)
-                    for (S s : transitionValue)
-                        // Add the resulting state of the transition to be visited if it was not already reached.
-                        if (epsilonClosure.add(s))
-                            visit.addLast(s);
-            }
-        }
-        return epsilonClosure;
+        Set<S> epsilonClosure = epsilonClosures.get(state);
+        return epsilonClosure == null ? Set.of() : epsilonClosure;
     }
 
     /**
      * Returns the epsilon closure of the specified set of states in this one-way nondeterministic finite-state
      * acceptor. The returned set contains the states of this acceptor that are reachable from any state in the
-     * specified set via zero or more epsilon transitions.
+     * specified set via zero or more epsilon transitions. The returned set is unmodifiable and attempts to modify it
+     * result in an {@code UnsupportedOperationException}. The epsilon closure of a set containing a single state is the
+     * set shared with {@link #epsilonClosure(Object)}.
      * 
      * @param states the set of states whose epsilon closure is to be taken
      * 
@@ -200,9 +882,130 @@ public final Set<S> epsilonClosure(Set<S> states) {
             throw new NullPointerException("Cannot take the epsilon closure of a null set of states in a one-way "
                     + "nondeterministic finite-state acceptor.");
 
+        if (states.size() == 1)
+            return epsilonClosure(states.iterator().next());
         Set<S> epsilonClosure = new HashSet<>();
         for (S state : states)
             epsilonClosure.addAll(epsilonClosure(state));
-        return epsilonClosure;
+        return Collections.unmodifiableSet(epsilonClosure);
+    }
+
+    /* Computes the epsilon closure of every state by condensing the graph of epsilon transitions into its strongly
+       connected components with Tarjan's algorithm. Components are completed in reverse topological order, so the
+       closure of a component is its own states together with the already computed closures of its successors. States
+       in the same component share a single unmodifiable closure. Closures are kept as arrays of state indices sized to
+       the closure, and a state without epsilon transitions, which is its own component, keeps no array at all. */
+    @SuppressWarnings("unchecked")
+    private Map<S, Set<S>> closeEpsilonTransitions() {
+        Object[] indexedStates = states.toArray();
+        Map<Object, Integer> stateIds = new HashMap<>();
+        for (int id = 0; id < indexedStates.length; id++)
+            stateIds.put(indexedStates[id], id);
+
+        // Index the epsilon successors of every state.
+        int[][] successors = new int[indexedStates.length][];
+        for (int id = 0; id < indexedStates.length; id++) {
+            Set<S> transitionValue = transitions.get(new SimpleEntry<>(indexedStates[id], null));
+            successors[id] = new int[transitionValue == null ? 0 : transitionValue.size()];
+            int i = 0;
+            if (transitionValue != null)
+                for (S s : transitionValue)
+                    successors[id][i++] = stateIds.get(s);
+        }
+
+        Map<S, Set<S>> epsilonClosures = new HashMap<>();
+        List<int[]> componentClosures = new ArrayList<>();
+        int[] closure = new int[indexedStates.length];
+        int[] closed = new int[indexedStates.length];
+        int[] component = new int[indexedStates.length];
+        int[] order = new int[indexedStates.length];
+        int[] lowLink = new int[indexedStates.length];
+        int[] edge = new int[indexedStates.length];
+        int[] stack = new int[indexedStates.length];
+        int[] callStack = new int[indexedStates.length];
+        Arrays.fill(component, -1);
+        Arrays.fill(order, -1);
+        int visited = 0;
+        int stackSize = 0;
+
+        for (int root = 0; root < indexedStates.length; root++) {
+            if (order[root] >= 0)
+                continue;
+            int callStackSize = 0;
+            callStack[callStackSize++] = root;
+            order[root] = lowLink[root] = visited++;
+            stack[stackSize++] = root;
+
+            while (callStackSize > 0) {
+                int v = callStack[callStackSize - 1];
+                if (edge[v] < successors[v].length) {
+                    // Descend into an unvisited successor, or lower the link of the current state.
+                    int w = successors[v][edge[v]++];
+                    if (order[w] < 0) {
+                        order[w] = lowLink[w] = visited++;
+                        stack[stackSize++] = w;
+                        callStack[callStackSize++] = w;
+                    } else if (component[w] < 0) {
+                        lowLink[v] = Math.min(lowLink[v], order[w]);
+                    }
+                    continue;
+                }
+
+                callStackSize--;
+                if (callStackSize > 0)
+                    lowLink[callStack[callStackSize - 1]] = Math.min(lowLink[callStack[callStackSize - 1]],
+                            lowLink[v]);
+                if (lowLink[v] != order[v])
+                    continue;
+
+                // Pop the completed component.
+                int id = componentClosures.size();
+                int first = stackSize;
+                do {
+                    component[stack[--first]] = id;
+                } while (stack[first] != v);
+                if (stackSize - first == 1 && successors[v].length == 0) {
+                    componentClosures.add(null);
+                    epsilonClosures.put((S) indexedStates[v], Collections.singleton((S) indexedStates[v]));
+                    stackSize = first;
+                    continue;
+                }
+
+                // Union its states with the closures of its successors, marking the states already in the union.
+                int size = 0;
+                for (int i = first; i < stackSize; i++) {
+                    closed[stack[i]] = id + 1;
+                    closure[size++] = stack[i];
+                }
+                for (int i = first; i < stackSize; i++)
+                    for (int w : successors[stack[i]]) {
+                        if (component[w] == id)
+                            continue;
+                        int[] successorClosure = componentClosures.get(component[w]);
+                        if (successorClosure == null) {
+                            if (closed[w] != id + 1) {
+                                closed[w] = id + 1;
+                                closure[size++] = w;
+                            }
+                            continue;
+                        }
+                        for (int s : successorClosure)
+                            if (closed[s] != id + 1) {
+                                closed[s] = id + 1;
+                                closure[size++] = s;
+                            }
+                    }
+                componentClosures.add(Arrays.copyOf(closure, size));
+
+                Set<S> epsilonClosure = new HashSet<>();
+                for (int i = 0; i < size; i++)
+                    epsilonClosure.add((S) indexedStates[closure[i]]);
+                epsilonClosure = Collections.unmodifiableSet(epsilonClosure);
+                for (int i = first; i < stackSize; i++)
+                    epsilonClosures.put((S) indexedStates[stack[i]], epsilonClosure);
+                stackSize = first;
+            }
+        }
+        return epsilonClosures;
     }
 }
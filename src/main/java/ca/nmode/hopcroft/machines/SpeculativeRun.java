@@ -0,0 +1,135 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/* A parallel computation of the final state of a deterministic machine on a large input. The input is split into
+   chunks, and every chunk but the first is run speculatively from every state at once, to obtain the function from the
+   state the chunk begins in to the state it ends in. Composing these functions in order yields the exact final state.
+   Only states reachable from the start state can begin a chunk, so runs are only begun from those, and runs that reach
+   the same state are merged as they go, so the cost of a chunk quickly drops to that of a single run for most machines.
+   Runs that reach a sink state are not advanced any further. Speculating on a chunk may take at most SPECULATION_COST
+   times the steps of running it once: a chunk whose runs do not converge soon enough to stay within that budget is
+   abandoned before the step that would exceed it, and instead run from its actual beginning state once the previous
+   chunks have been composed. A machine with too many reachable states to begin a run from each within the budget is
+   run sequentially. */
+abstract class SpeculativeRun {
+    /* Inputs shorter than two chunks of this size are run sequentially. */
+    static final int MIN_CHUNK_SIZE = 1 << 16;
+    /* The number of elements after which runs are first merged, and the most elements between merges. */
+    private static final int FIRST_MERGE = 16;
+    private static final int MAX_MERGE = 1 << 10;
+    /* The most steps speculating on a chunk may take, as a multiple of the chunk's length. */
+    static final int SPECULATION_COST = 4;
+
+    private final int stateCount;
+    private final int[] reachableStates;
+    private final boolean[] sinks;
+
+    SpeculativeRun(int stateCount, int[] reachableStates, boolean[] sinks) {
+        this.stateCount = stateCount;
+        this.reachableStates = reachableStates;
+        this.sinks = sinks;
+    }
+
+    /* Returns which of the states of the specified transition table transition only to themselves. */
+    static boolean[] sinks(int[] transitions, int stateCount, int alphabetSize) {
+        boolean[] sinks = new boolean[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            sinks[state] = true;
+            for (int element = 0; element < alphabetSize && sinks[state]; element++)
+                sinks[state] = transitions[state * alphabetSize + element] == state;
+        }
+        return sinks;
+    }
+
+    /* Returns the state reached from the specified state on the elements of the input in the specified range. */
+    abstract int run(int state, int from, int to);
+
+    /* Returns the final state reached from the specified start state on the input of the specified length, running it
+       in parallel on the specified pool. */
+    final int run(ForkJoinPool pool, int startState, int length) {
+        int chunks = (int) Math.min(pool.getParallelism() * 4L, length / MIN_CHUNK_SIZE);
+        if (chunks < 2 || pool.getParallelism() < 2
+                || (long) reachableStates.length * FIRST_MERGE > (long) SPECULATION_COST * (length / chunks))
+            return run(startState, 0, length);
+
+        // Speculate on every chunk but the first, which is run from the start state on the calling thread.
+        List<ForkJoinTask<int[]>> functions = new ArrayList<>(chunks);
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            int from = bound(chunk, chunks, length);
+            int to = bound(chunk + 1, chunks, length);
+            functions.add(pool.submit(() -> map(from, to)));
+        }
+        int state = run(startState, 0, bound(1, chunks, length));
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            int[] function = functions.get(chunk - 1).join();
+            state = function != null ? function[state]
+                    : run(state, bound(chunk, chunks, length), bound(chunk + 1, chunks, length));
+        }
+        return state;
+    }
+
+    private static int bound(int chunk, int chunks, int length) {
+        return (int) ((long) length * chunk / chunks);
+    }
+
+    /* Returns the function from every reachable state to the state reached from it on the elements in the specified
+       range, or null if the runs from every reachable state do not converge within the chunk's budget of steps. */
+    private int[] map(int from, int to) {
+        // Begin a run from every reachable state, each of which is tracked by the run it has merged into.
+        int runs = reachableStates.length;
+        int[] current = reachableStates.clone();
+        int[] runOf = new int[runs];
+        for (int r = 0; r < runs; r++)
+            runOf[r] = r;
+        int[] merged = new int[stateCount];
+        int[] remap = new int[runs];
+        Arrays.fill(merged, -1);
+
+        long budget = (long) SPECULATION_COST * (to - from);
+        int interval = FIRST_MERGE;
+        for (int i = from; i < to; i += interval, interval = Math.min(interval * 2, MAX_MERGE)) {
+            int end = Math.min(to, i + interval);
+            // Abandon the chunk rather than take more steps than its budget allows.
+            int advancing = 0;
+            for (int r = 0; r < runs; r++)
+                if (!sinks[current[r]])
+                    advancing++;
+            budget -= (long) advancing * (end - i);
+            if (budget < 0)
+                return null;
+            for (int r = 0; r < runs; r++)
+                if (!sinks[current[r]])
+                    current[r] = run(current[r], i, end);
+            if (runs == 1)
+                continue;
+
+            // Merge the runs that have reached the same state.
+            int mergedRuns = 0;
+            for (int r = 0; r < runs; r++) {
+                int state = current[r];
+                if (merged[state] < 0) {
+                    merged[state] = mergedRuns;
+                    current[mergedRuns++] = state;
+                }
+                remap[r] = merged[state];
+            }
+            for (int r = 0; r < mergedRuns; r++)
+                merged[current[r]] = -1;
+            if (mergedRuns < runs)
+                for (int r = 0; r < runOf.length; r++)
+                    runOf[r] = remap[runOf[r]];
+            runs = mergedRuns;
+        }
+
+        int[] function = new int[stateCount];
+        Arrays.fill(function, -1);
+        for (int r = 0; r < runOf.length; r++)
+            function[reachableStates[r]] = current[runOf[r]];
+        return function;
+    }
+}
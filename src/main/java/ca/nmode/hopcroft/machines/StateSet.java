@@ -0,0 +1,39 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+/* An unmodifiable set of states whose hash code is computed once. Machines derived from other machines, such as by
+   subset construction or minimization, use sets of states as their own states, and hash them repeatedly as keys of
+   their transition maps. */
+final class StateSet<S> extends AbstractSet<S> {
+    private final Set<S> states;
+    private final int hashCode;
+
+    StateSet(Set<S> states) {
+        this.states = Collections.unmodifiableSet(states);
+        hashCode = states.hashCode();
+    }
+
+    @Override
+    public Iterator<S> iterator() {
+        return states.iterator();
+    }
+
+    @Override
+    public int size() {
+        return states.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return states.contains(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
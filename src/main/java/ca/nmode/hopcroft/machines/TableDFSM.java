@@ -0,0 +1,415 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * A skeletal implementation of a precompiled, table-driven one-way {@link DFSM deterministic finite-state machine},
+ * extended by the classes the {@code generateMachines} build task generates from machine specifications. Its states
+ * and elements are interned to their indices in arrays, and its transition function is a flat table indexed by state
+ * then element, which are trusted to have been validated when they were generated. Constructing a table-driven machine
+ * therefore costs little more than loading its class, and its computations are those of a {@link OneWayDFSM}. Its
+ * sets and maps are only built the first time they are asked for.
+ * <p>
+ * The tables of a generated machine are packed into string constants, which the static methods of this class unpack,
+ * so that they are neither limited by the size of a class initializer nor run as code at startup.
+ *
+ * @param <S> the type of this machine's states
+ * @param <I> the type of this machine's input elements
+ * @param <O> the type of this machine's output elements
+ *
+ * @author Naeem Model
+ */
+public abstract class TableDFSM<S, I, O> implements DFSM<S, I, O, Entry<S, I>, S, List<Entry<Entry<S, I>, S>>> {
+    private final Object[] states;
+    private final Object[] inputElements;
+    private final Object[] outputElements;
+    private final int startState;
+    private final int alphabetSize;
+    private final int[] transitions;
+    private final boolean[] accepting;
+    private final int[] MealyOutputs;
+    private final int[] MooreOutputs;
+    private final Map<Object, Integer> inputElementIds;
+    private final Set<I> inputElementSet;
+    private final Set<O> outputElementSet;
+    private volatile Set<S> stateSet;
+    private volatile Set<S> acceptStateSet;
+    private volatile Map<Entry<S, I>, S> transitionMap;
+    private volatile Map<Entry<S, I>, O> MealyTranslations;
+    private volatile Map<S, O> MooreTranslations;
+
+    /**
+     * Constructs a table-driven machine from its tables, which are not copied, and must not be modified.
+     *
+     * @param states         the machine's states, indexed by their indices
+     * @param inputElements  the machine's input elements, indexed by their indices
+     * @param outputElements the machine's output elements, indexed by their indices
+     * @param startState     the index of the machine's start state
+     * @param transitions    the index of the target of every state-element pair, at the index of the state times the
+     *                       number of input elements plus the index of the element
+     * @param acceptStates   the indices of the machine's accept states
+     * @param MealyOutputs   the index of the output of every state-element pair, indexed like {@code transitions}, or
+     *                       -1 for none, or {@code null} if the machine has no Mealy translations
+     * @param MooreOutputs   the index of the output of every state, or -1 for none, or {@code null} if the machine has
+     *                       no Moore translations
+     *
+     * @throws NullPointerException     if {@code states}, {@code inputElements}, {@code outputElements},
+     *                                  {@code transitions} or {@code acceptStates} is {@code null}
+     * @throws IllegalArgumentException if the lengths of the tables do not match the numbers of states and input
+     *                                  elements
+     */
+    protected TableDFSM(Object[] states, Object[] inputElements, Object[] outputElements, int startState,
+            int[] transitions, int[] acceptStates, int[] MealyOutputs, int[] MooreOutputs) {
+        // Ensure the tables are not null, and that their lengths match the numbers of states and input elements.
+        if (states == null || inputElements == null || outputElements == null || transitions == null
+                || acceptStates == null)
+            throw new NullPointerException("Cannot construct a table-driven deterministic finite-state machine with a "
+                    + "null table.");
+        if (states.length == 0 || startState < 0 || startState >= states.length
+                || transitions.length != states.length * inputElements.length
+                || MealyOutputs != null && MealyOutputs.length != transitions.length
+                || MooreOutputs != null && MooreOutputs.length != states.length)
+            throw new IllegalArgumentException("Cannot construct a table-driven deterministic finite-state machine "
+                    + "whose tables' lengths do not match its numbers of states and input elements.");
+
+        this.states = states;
+        this.inputElements = inputElements;
+        this.outputElements = outputElements;
+        this.startState = startState;
+        alphabetSize = inputElements.length;
+        this.transitions = transitions;
+        accepting = new boolean[states.length];
+        for (int state : acceptStates)
+            accepting[state] = true;
+        this.MealyOutputs = MealyOutputs;
+        this.MooreOutputs = MooreOutputs;
+        inputElementIds = new HashMap<>();
+        for (int id = 0; id < inputElements.length; id++)
+            inputElementIds.put(inputElements[id], id);
+        inputElementSet = set(inputElements);
+        outputElementSet = set(outputElements);
+    }
+
+    /**
+     * Returns the integers packed into the specified chunks, which are concatenated in order. Each integer is packed
+     * as its value plus one, in groups of 15 bits from the most significant, one group per character, and every
+     * character but the last of an integer has its most significant bit set.
+     *
+     * @param length the number of packed integers
+     * @param chunks the strings the integers are packed into
+     *
+     * @return the integers packed into the specified chunks
+     */
+    protected static int[] unpackIntegers(int length, String... chunks) {
+        int[] values = new int[length];
+        int i = 0;
+        int value = 0;
+        for (String chunk : chunks)
+            for (int c = 0; c < chunk.length(); c++) {
+                char group = chunk.charAt(c);
+                value = value << 15 | group & 0x7FFF;
+                if (group < 0x8000) {
+                    values[i++] = value - 1;
+                    value = 0;
+                }
+            }
+        return values;
+    }
+
+    /**
+     * Returns the strings packed into the specified chunks, which are concatenated in order. Each string is packed as
+     * its length, as by {@link #unpackIntegers(int, String...)}, followed by its characters.
+     *
+     * @param length the number of packed strings
+     * @param chunks the strings the strings are packed into
+     *
+     * @return the strings packed into the specified chunks
+     */
+    protected static String[] unpackStrings(int length, String... chunks) {
+        String packed = String.join("", chunks);
+        String[] values = new String[length];
+        int c = 0;
+        for (int i = 0; i < length; i++) {
+            int stringLength = 0;
+            char group;
+            do {
+                group = packed.charAt(c++);
+                stringLength = stringLength << 15 | group & 0x7FFF;
+            } while (group >= 0x8000);
+            values[i] = packed.substring(c, c + stringLength - 1);
+            c += stringLength - 1;
+        }
+        return values;
+    }
+
+    /**
+     * Returns the characters of the specified string, boxed.
+     *
+     * @param characters the string of characters to box
+     *
+     * @return the characters of the specified string, boxed
+     */
+    protected static Character[] unpackCharacters(String characters) {
+        Character[] values = new Character[characters.length()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = characters.charAt(i);
+        return values;
+    }
+
+    @Override
+    public Set<S> states() {
+        Set<S> stateSet = this.stateSet;
+        if (stateSet == null)
+            this.stateSet = stateSet = set(states);
+        return stateSet;
+    }
+
+    @Override
+    public Set<S> acceptStates() {
+        Set<S> acceptStateSet = this.acceptStateSet;
+        if (acceptStateSet == null) {
+            acceptStateSet = new HashSet<>();
+            for (int state = 0; state < states.length; state++)
+                if (accepting[state])
+                    acceptStateSet.add(state(state));
+            this.acceptStateSet = acceptStateSet = Collections.unmodifiableSet(acceptStateSet);
+        }
+        return acceptStateSet;
+    }
+
+    @Override
+    public S startState() {
+        return state(startState);
+    }
+
+    @Override
+    public Set<I> inputElements() {
+        return inputElementSet;
+    }
+
+    @Override
+    public Set<O> outputElements() {
+        return outputElementSet;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Entry<S, I>, S> transitions() {
+        Map<Entry<S, I>, S> transitionMap = this.transitionMap;
+        if (transitionMap == null) {
+            transitionMap = new HashMap<>();
+            for (int state = 0; state < states.length; state++)
+                for (int element = 0; element < alphabetSize; element++)
+                    transitionMap.put(new SimpleEntry<>(state(state), (I) inputElements[element]),
+                            state(transitions[state * alphabetSize + element]));
+            this.transitionMap = transitionMap = Collections.unmodifiableMap(transitionMap);
+        }
+        return transitionMap;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<Entry<S, I>, O> MealyTranslations() {
+        Map<Entry<S, I>, O> MealyTranslations = this.MealyTranslations;
+        if (MealyTranslations == null) {
+            MealyTranslations = new HashMap<>();
+            for (int state = 0; state < states.length; state++)
+                for (int element = 0; element < alphabetSize; element++) {
+                    O output = output(MealyOutputs, state * alphabetSize + element);
+                    if (output != null)
+                        MealyTranslations.put(new SimpleEntry<>(state(state), (I) inputElements[element]), output);
+                }
+            this.MealyTranslations = MealyTranslations = Collections.unmodifiableMap(MealyTranslations);
+        }
+        return MealyTranslations;
+    }
+
+    @Override
+    public Map<S, O> MooreTranslations() {
+        Map<S, O> MooreTranslations = this.MooreTranslations;
+        if (MooreTranslations == null) {
+            MooreTranslations = new HashMap<>();
+            for (int state = 0; state < states.length; state++)
+                if (output(MooreOutputs, state) != null)
+                    MooreTranslations.put(state(state), output(MooreOutputs, state));
+            this.MooreTranslations = MooreTranslations = Collections.unmodifiableMap(MooreTranslations);
+        }
+        return MooreTranslations;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Entry<Entry<S, I>, S>> compute(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException("Cannot compute a table-driven deterministic finite-state machine on a null "
+                    + "input.");
+
+        List<Entry<Entry<S, I>, S>> computation = new ArrayList<>(input.size() + 1);
+        int state = startState;
+        // Add an entry for step zero of the computation, before any element is read.
+        computation.add(new SimpleEntry<>(new SimpleEntry<>(state(state), null), state(state)));
+        for (I inputElement : input) {
+            Integer element = inputElementIds.get(inputElement);
+            Entry<S, I> transitionKey = new SimpleEntry<>(state(state), inputElement);
+            // Halt the computation in the null state if the element is not in the set of input elements.
+            if (element == null) {
+                computation.add(new SimpleEntry<>(transitionKey, null));
+                break;
+            }
+            state = transitions[state * alphabetSize + element];
+            computation.add(new SimpleEntry<>(transitionKey, state(state)));
+        }
+        return computation;
+    }
+
+    @Override
+    public S classify(List<I> input) {
+        int state = run(input);
+        return state < 0 ? null : state(state);
+    }
+
+    @Override
+    public boolean accepts(List<I> input) {
+        int state = run(input);
+        return state >= 0 && accepting[state];
+    }
+
+    @Override
+    public boolean recognizes(Set<List<I>> inputs) {
+        // Ensure the set of inputs neither is nor contains null.
+        if (inputs == null)
+            throw new NullPointerException("A table-driven deterministic finite-state machine cannot attempt to "
+                    + "recognize a null set of inputs.");
+        if (inputs.contains(null))
+            throw new NullPointerException("A table-driven deterministic finite-state machine cannot attempt to "
+                    + "recognize a set of inputs that contains null.");
+
+        // The empty set is recognized if there are no reachable accept states.
+        if (inputs.isEmpty()) {
+            boolean[] reached = new boolean[states.length];
+            int[] queue = new int[states.length];
+            int size = 0;
+            reached[startState] = true;
+            queue[size++] = startState;
+            for (int head = 0; head < size; head++) {
+                if (accepting[queue[head]])
+                    return false;
+                for (int element = 0; element < alphabetSize; element++) {
+                    int target = transitions[queue[head] * alphabetSize + element];
+                    if (!reached[target]) {
+                        reached[target] = true;
+                        queue[size++] = target;
+                    }
+                }
+            }
+            return true;
+        }
+
+        // Return true if every input in the set is accepted, false otherwise.
+        for (List<I> input : inputs)
+            if (!accepts(input))
+                return false;
+        return true;
+    }
+
+    @Override
+    public List<O> MealyTransduce(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException("Cannot compute a table-driven deterministic finite-state machine on a null "
+                    + "input.");
+
+        List<O> transduction = new ArrayList<>(input.size());
+        int state = startState;
+        for (I inputElement : input) {
+            Integer element = inputElementIds.get(inputElement);
+            // Halt the transduction with a null output if the element is not in the set of input elements.
+            if (element == null) {
+                transduction.add(null);
+                break;
+            }
+            int transition = state * alphabetSize + element;
+            transduction.add(output(MealyOutputs, transition));
+            state = transitions[transition];
+        }
+        return transduction;
+    }
+
+    @Override
+    public List<O> MooreTransduce(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException("Cannot compute a table-driven deterministic finite-state machine on a null "
+                    + "input.");
+
+        List<O> transduction = new ArrayList<>(input.size() + 1);
+        int state = startState;
+        transduction.add(output(MooreOutputs, state));
+        for (I inputElement : input) {
+            Integer element = inputElementIds.get(inputElement);
+            // Halt the transduction with a null output if the element is not in the set of input elements.
+            if (element == null) {
+                transduction.add(null);
+                break;
+            }
+            state = transitions[state * alphabetSize + element];
+            transduction.add(output(MooreOutputs, state));
+        }
+        return transduction;
+    }
+
+    /**
+     * Returns a one-way deterministic finite-state machine equal to this machine. Unlike this machine, the returned
+     * machine is constructed from this machine's sets and maps, which are validated.
+     *
+     * @return a one-way deterministic finite-state machine equal to this machine
+     */
+    public OneWayDFSM<S, I, O> toMachine() {
+        return new OneWayDFSM<>(states(), acceptStates(), startState(), inputElements(), outputElements(),
+                transitions(), MealyTranslations(), MooreTranslations());
+    }
+
+    /* Returns the index of the state after reading the input from the start state, or -1 if the computation halts on
+       an element that is not in the set of input elements. */
+    private int run(List<I> input) {
+        // Ensure the input is not null.
+        if (input == null)
+            throw new NullPointerException("Cannot compute a table-driven deterministic finite-state machine on a null "
+                    + "input.");
+
+        int state = startState;
+        for (I inputElement : input) {
+            Integer element = inputElementIds.get(inputElement);
+            if (element == null)
+                return -1;
+            state = transitions[state * alphabetSize + element];
+        }
+        return state;
+    }
+
+    @SuppressWarnings("unchecked")
+    private S state(int state) {
+        return (S) states[state];
+    }
+
+    @SuppressWarnings("unchecked")
+    private O output(int[] outputs, int index) {
+        int output = outputs == null ? -1 : outputs[index];
+        return output < 0 ? null : (O) outputElements[output];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Set<T> set(Object[] elements) {
+        return (Set<T>) Collections.unmodifiableSet(new HashSet<>(Arrays.asList(elements)));
+    }
+}
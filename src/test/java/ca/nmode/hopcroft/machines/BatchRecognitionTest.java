@@ -0,0 +1,171 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the parallel recognitions of machines with their sequential recognitions, and checks that batches of inputs
+   stop at the first rejection, are computed in full when the executor rejects workers, and rethrow the exceptions of
+   any worker. */
+class BatchRecognitionTest {
+    private static final int SEEDS = 20;
+
+    @Test
+    void parallelRecognitionMatchesSequentialRecognition() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<List<Character>> inputs = RandomMachines.inputs(10);
+            for (int seed = 0; seed < SEEDS; seed++) {
+                Random random = new Random(seed);
+                OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(random, 2 + random.nextInt(30));
+                OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(random, 2 + random.nextInt(30), 0);
+                boolean[] nfsmAccepted = new boolean[inputs.size()];
+                boolean[] dfsmAccepted = new boolean[inputs.size()];
+                Set<List<Character>> nfsmAccepts = new HashSet<>();
+                Set<List<Character>> dfsmAccepts = new HashSet<>();
+                for (int i = 0; i < inputs.size(); i++) {
+                    if (nfsmAccepted[i] = nfsm.accepts(inputs.get(i)))
+                        nfsmAccepts.add(inputs.get(i));
+                    if (dfsmAccepted[i] = dfsm.accepts(inputs.get(i)))
+                        dfsmAccepts.add(inputs.get(i));
+                }
+                String message = "seed " + seed;
+                assertArrayEquals(nfsmAccepted, nfsm.acceptsEach(inputs, pool), message);
+                assertArrayEquals(dfsmAccepted, dfsm.acceptsEach(inputs, pool), message);
+                List<Set<List<Character>>> sets = List.of(new HashSet<>(inputs), nfsmAccepts, dfsmAccepts,
+                        new HashSet<>());
+                for (Set<List<Character>> set : sets) {
+                    assertEquals(nfsm.recognizes(set), nfsm.parallelRecognizes(set, pool), message);
+                    assertEquals(dfsm.recognizes(set), dfsm.parallelRecognizes(set, pool), message);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void rejectionStopsEveryWorker() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<List<Character>> inputs = inputs(100_000);
+            // Every worker stops after the first input it rejects, so no more inputs are computed than there are
+            // workers.
+            AtomicInteger computed = new AtomicInteger();
+            assertFalse(BatchRecognition.all(inputs, input -> computed.incrementAndGet() < 0, pool));
+            assertTrue(computed.get() <= pool.getParallelism(), "computed " + computed.get());
+
+            // A single rejection among many accepted inputs still settles the result.
+            List<List<Character>> rejected = new ArrayList<>(inputs);
+            rejected.set(rejected.size() / 2, List.of('b'));
+            assertFalse(BatchRecognition.all(rejected, input -> !input.equals(List.of('b')), pool));
+            assertTrue(BatchRecognition.all(inputs, input -> !input.equals(List.of('b')), pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void rejectedWorkersLeaveInputsToTheCallingThread() throws InterruptedException {
+        List<List<Character>> inputs = inputs(10_000);
+        Predicate<List<Character>> accepts = input -> input.size() % 7 != 0;
+        boolean[] accepted = new boolean[inputs.size()];
+        for (int i = 0; i < inputs.size(); i++)
+            accepted[i] = accepts.test(inputs.get(i));
+
+        // A pool that has been shut down rejects every worker.
+        ForkJoinPool shutDown = new ForkJoinPool(4);
+        shutDown.shutdown();
+        assertArrayEquals(accepted, BatchRecognition.each(inputs, accepts, shutDown));
+        assertFalse(BatchRecognition.all(inputs, accepts, shutDown));
+
+        // An executor whose only thread is busy, and which does not queue tasks, rejects every worker after the first.
+        ExecutorService busy = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            busy.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertArrayEquals(accepted, BatchRecognition.each(inputs, accepts, busy));
+        } finally {
+            release.countDown();
+            busy.shutdown();
+            assertTrue(busy.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void failuresAreRethrown() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<List<Character>> inputs = inputs(10_000);
+            IllegalStateException failure = new IllegalStateException();
+            Predicate<List<Character>> fails = input -> {
+                if (input.size() == 3)
+                    throw failure;
+                return true;
+            };
+            assertSame(failure, assertThrows(IllegalStateException.class,
+                    () -> BatchRecognition.all(inputs, fails, pool)));
+            assertSame(failure, assertThrows(IllegalStateException.class,
+                    () -> BatchRecognition.each(inputs, fails, pool)));
+            assertThrows(AssertionError.class, () -> BatchRecognition.each(inputs, input -> {
+                throw new AssertionError();
+            }, pool));
+
+            // A failure on a worker thread is rethrown on the calling thread, which waits for it before finishing.
+            Thread caller = Thread.currentThread();
+            CountDownLatch failed = new CountDownLatch(1);
+            assertSame(failure, assertThrows(IllegalStateException.class,
+                    () -> BatchRecognition.each(inputs, input -> {
+                        if (Thread.currentThread() != caller) {
+                            failed.countDown();
+                            throw failure;
+                        }
+                        try {
+                            failed.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return true;
+                    }, pool)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /* Returns the specified number of inputs, of lengths cycling from 0 to 9. */
+    private static List<List<Character>> inputs(int count) {
+        List<List<Character>> inputs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<Character> input = new ArrayList<>();
+            while (input.size() < i % 10)
+                input.add(RandomMachines.ALPHABET.get(input.size() % 2));
+            inputs.add(input);
+        }
+        return inputs;
+    }
+}
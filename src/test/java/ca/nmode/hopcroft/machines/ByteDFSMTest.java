@@ -0,0 +1,159 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares byte-specialized machines with the one-way deterministic finite-state machines they specialize, on byte
+   arrays, ranges of arrays, heap, read-only and direct buffers, and files mapped in one or many regions. */
+class ByteDFSMTest {
+    private static final int SEEDS = 20;
+    /* The input elements of the machines, which include bytes that are negative when signed. */
+    private static final List<Byte> ELEMENTS = List.of((byte) 0, (byte) 1, (byte) 'a', (byte) 127, (byte) -128,
+            (byte) -1);
+
+    @Test
+    void arraysAndBuffersMatchMachine() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            OneWayDFSM<Integer, Byte, Object> dfsm = dfsm(random, 1 + random.nextInt(50));
+            ByteDFSM<Integer> bytes = new ByteDFSM<>(dfsm);
+            for (int i = 0; i < 50; i++) {
+                byte[] input = input(random, random.nextInt(300));
+                Integer state = dfsm.classify(list(input));
+                boolean accepted = dfsm.accepts(list(input));
+                String message = "seed " + seed + ", input " + list(input);
+                assertEquals(state, bytes.classify(input), message);
+                assertEquals(accepted, bytes.accepts(input), message);
+
+                // Embed the input in a larger array, surrounded by bytes that are not input elements.
+                int offset = random.nextInt(10);
+                byte[] padded = new byte[offset + input.length + random.nextInt(10)];
+                Arrays.fill(padded, (byte) 2);
+                System.arraycopy(input, 0, padded, offset, input.length);
+                assertEquals(state, bytes.classify(padded, offset, input.length), message);
+                assertEquals(accepted, bytes.accepts(padded, offset, input.length), message);
+
+                ByteBuffer heap = ByteBuffer.wrap(padded, offset, input.length);
+                assertEquals(state, bytes.classify(heap), message);
+                assertEquals(accepted, bytes.accepts(heap), message);
+                assertEquals(offset, heap.position(), message);
+                ByteBuffer slice = ByteBuffer.wrap(padded).position(offset).slice().limit(input.length);
+                assertEquals(state, bytes.classify(slice), message);
+                assertEquals(state, bytes.classify(heap.asReadOnlyBuffer()), message);
+                ByteBuffer direct = ByteBuffer.allocateDirect(input.length).put(input).flip();
+                assertEquals(state, bytes.classify(direct), message);
+                assertEquals(accepted, bytes.accepts(direct), message);
+                assertEquals(0, direct.position(), message);
+            }
+        }
+    }
+
+    @Test
+    void filesMatchMachine() throws IOException {
+        Path file = Files.createTempFile("hopcroft", ".bin");
+        try {
+            for (int seed = 0; seed < SEEDS; seed++) {
+                Random random = new Random(seed);
+                OneWayDFSM<Integer, Byte, Object> dfsm = dfsm(random, 1 + random.nextInt(50));
+                ByteDFSM<Integer> bytes = new ByteDFSM<>(dfsm);
+                for (int i = 0; i < 10; i++) {
+                    byte[] input = input(random, random.nextInt(5000));
+                    Files.write(file, input);
+                    Integer state = dfsm.classify(list(input));
+                    String message = "seed " + seed + ", length " + input.length;
+                    assertEquals(state, bytes.classify(file), message);
+                    assertEquals(dfsm.accepts(list(input)), bytes.accepts(file), message);
+                    // Map the file in small regions, so that the computation carries its state across them.
+                    assertEquals(state, bytes.classify(file, 7), message);
+                    assertEquals(state, bytes.classify(file, 4096), message);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void bytesThatAreNotInputElementsHalt() throws IOException {
+        ByteDFSM<Integer> bytes = new ByteDFSM<>(dfsm(new Random(0), 10));
+        byte[] input = input(new Random(1), 100_000);
+        input[3] = 2;
+        assertNull(bytes.classify(input));
+        assertNull(bytes.classify(ByteBuffer.wrap(input)));
+        assertNull(bytes.classify(ByteBuffer.allocateDirect(input.length).put(input).flip()));
+        Path file = Files.createTempFile("hopcroft", ".bin");
+        try {
+            Files.write(file, input);
+            assertNull(bytes.classify(file, 7));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        ByteDFSM<Integer> bytes = new ByteDFSM<>(dfsm(new Random(0), 10));
+        assertThrows(NullPointerException.class, () -> new ByteDFSM<Integer>(null));
+        assertThrows(NullPointerException.class, () -> bytes.classify((byte[]) null));
+        assertThrows(NullPointerException.class, () -> bytes.classify((ByteBuffer) null));
+        assertThrows(NullPointerException.class, () -> bytes.classify((Path) null));
+        assertThrows(IndexOutOfBoundsException.class, () -> bytes.classify(new byte[4], 2, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> bytes.classify(new byte[4], -1, 2));
+    }
+
+    @Test
+    void transitionTablesBeyondArrayLimitAreRejected() {
+        // A table of 2^23 states, counting the dead state, has 2^31 entries, one more than the largest array.
+        assertEquals(Integer.MAX_VALUE - 255, ByteDFSM.tableSize((1 << 23) - 1));
+        assertThrows(IllegalArgumentException.class, () -> ByteDFSM.tableSize(1 << 23));
+        assertThrows(IllegalArgumentException.class, () -> ByteDFSM.tableSize(Integer.MAX_VALUE));
+    }
+
+    /* Returns a random machine over the input elements with the specified number of states. */
+    private static OneWayDFSM<Integer, Byte, Object> dfsm(Random random, int stateCount) {
+        Set<Integer> states = new HashSet<>();
+        Set<Integer> acceptStates = new HashSet<>();
+        Map<Entry<Integer, Byte>, Integer> transitions = new HashMap<>();
+        for (int state = 0; state < stateCount; state++) {
+            states.add(state);
+            if (random.nextInt(3) == 0)
+                acceptStates.add(state);
+            for (Byte element : ELEMENTS)
+                transitions.put(new SimpleEntry<>(state, element), random.nextInt(stateCount));
+        }
+        return new OneWayDFSM<>(states, acceptStates, 0, new HashSet<>(ELEMENTS), transitions);
+    }
+
+    /* Returns random bytes of the input elements, with a rare byte that is not an input element. */
+    private static byte[] input(Random random, int length) {
+        byte[] input = new byte[length];
+        for (int i = 0; i < length; i++)
+            input[i] = random.nextInt(1000) == 0 ? 2 : ELEMENTS.get(random.nextInt(ELEMENTS.size()));
+        return input;
+    }
+
+    private static List<Byte> list(byte[] input) {
+        List<Byte> list = new ArrayList<>(input.length);
+        for (byte b : input)
+            list.add(b);
+        return list;
+    }
+}
@@ -0,0 +1,75 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares machines compiled into classes of their own with the table-driven machines they are compiled from, on short
+   inputs and on inputs spanning several chunks of elements, and checks that machines too large to compile are
+   rejected. */
+class CompiledDFSMTest {
+    private static final int SEEDS = 30;
+
+    @Test
+    void compiledMachinesMatchMachines() {
+        List<List<Character>> inputs = RandomMachines.inputs(8);
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(random, 1 + random.nextInt(60), 0);
+            CompiledDFSM<Integer, Character> compiled = new CompiledDFSM<>(dfsm);
+            assertSame(dfsm, compiled.machine());
+
+            List<List<Character>> seedInputs = new ArrayList<>(inputs);
+            seedInputs.add(List.of('a', 'c', 'b'));
+            for (int length : new int[] { 1023, 1024, 1025, 5000 }) {
+                List<Character> input = new ArrayList<>();
+                while (input.size() < length)
+                    input.add(RandomMachines.ALPHABET.get(random.nextInt(2)));
+                seedInputs.add(input);
+                // An element that is not an input element halts the computation in a later chunk.
+                List<Character> halting = new ArrayList<>(input);
+                halting.set(length - 1, 'c');
+                seedInputs.add(halting);
+            }
+            for (List<Character> input : seedInputs) {
+                String message = "seed " + seed + ", length " + input.size();
+                assertEquals(dfsm.classify(input), compiled.classify(input), message);
+                assertEquals(dfsm.accepts(input), compiled.accepts(input), message);
+            }
+        }
+    }
+
+    @Test
+    void machinesTooLargeToCompileAreRejected() {
+        // Every state of a machine over 50 elements jumps through a table of 50 targets, so the match loop of 1,000
+        // states is far larger than the largest method the JIT compiles.
+        int stateCount = 1000;
+        int alphabetSize = 50;
+        Set<Integer> states = new HashSet<>();
+        Set<Integer> inputElements = new HashSet<>();
+        Map<Entry<Integer, Integer>, Integer> transitions = new HashMap<>();
+        for (int element = 0; element < alphabetSize; element++)
+            inputElements.add(element);
+        for (int state = 0; state < stateCount; state++) {
+            states.add(state);
+            for (int element = 0; element < alphabetSize; element++)
+                transitions.put(new SimpleEntry<>(state, element), (state + element) % stateCount);
+        }
+        OneWayDFSM<Integer, Integer, Object> dfsm = new OneWayDFSM<>(states, Set.of(0), 0, inputElements,
+                transitions);
+        assertThrows(IllegalArgumentException.class, () -> new CompiledDFSM<>(dfsm));
+        assertThrows(NullPointerException.class, () -> new CompiledDFSM<Integer, Integer>(null));
+    }
+}
@@ -0,0 +1,156 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the equivalence and inclusion checks of one-way deterministic finite-state machines, and the lengths of
+   their counterexamples, with a breadth-first search of the pairs of states the machines reach on the same input. */
+class DFSMComparisonTest {
+    private static final int SEEDS = 60;
+
+    @Test
+    void equivalenceMatchesProductSearch() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            OneWayDFSM<Integer, Character, Integer> dfsm = dfsm(seed);
+            OneWayDFSM<?, Character, ?> other = other(new Random(~seed), dfsm, seed);
+            int shortest = shortestCounterexample(dfsm, other, false);
+            assertEquals(shortest < 0, dfsm.isEquivalentTo(other), "seed " + seed);
+            assertEquals(shortest < 0, other.isEquivalentTo(dfsm), "seed " + seed);
+            List<Character> distinguishingInput = dfsm.distinguishingInput(other);
+            if (shortest < 0) {
+                assertNull(distinguishingInput, "seed " + seed);
+                continue;
+            }
+            assertEquals(shortest, distinguishingInput.size(), "seed " + seed);
+            assertNotEquals(dfsm.accepts(distinguishingInput), other.accepts(distinguishingInput), "seed " + seed);
+        }
+    }
+
+    @Test
+    void inclusionMatchesProductSearch() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            OneWayDFSM<Integer, Character, Integer> dfsm = dfsm(seed);
+            OneWayDFSM<?, Character, ?> other = other(new Random(~seed), dfsm, seed);
+            assertInclusion(dfsm, other, seed);
+            assertInclusion(other, dfsm, seed);
+        }
+    }
+
+    @Test
+    void machinesOfDifferentInputElementsRejectForeignElements() {
+        OneWayDFSM<Integer, Character, Integer> dfsm = dfsm(0);
+        OneWayDFSM<Integer, Character, Integer> extended = withElement(new Random(0), dfsm, 'c', true);
+        // The extended machine accepts an input ending in the new element, which the original machine rejects.
+        List<Character> counterexample = extended.inclusionCounterexample(dfsm);
+        assertTrue(counterexample.contains('c'));
+        assertTrue(extended.accepts(counterexample));
+        assertFalse(dfsm.accepts(counterexample));
+        assertTrue(dfsm.isIncludedIn(extended));
+        assertFalse(dfsm.isEquivalentTo(extended));
+    }
+
+    private static void assertInclusion(OneWayDFSM<?, Character, ?> left, OneWayDFSM<?, Character, ?> right,
+            int seed) {
+        int shortest = shortestCounterexample(left, right, true);
+        assertEquals(shortest < 0, left.isIncludedIn(right), "seed " + seed);
+        List<Character> counterexample = left.inclusionCounterexample(right);
+        if (shortest < 0) {
+            assertNull(counterexample, "seed " + seed);
+            return;
+        }
+        assertEquals(shortest, counterexample.size(), "seed " + seed);
+        assertTrue(left.accepts(counterexample), "seed " + seed);
+        assertFalse(right.accepts(counterexample), "seed " + seed);
+    }
+
+    private static OneWayDFSM<Integer, Character, Integer> dfsm(int seed) {
+        Random random = new Random(seed);
+        return RandomMachines.dfsm(random, 4 + random.nextInt(200), 0);
+    }
+
+    /* Returns a machine to compare with the specified one: its minimal machine, which is equivalent to it, its
+       intersection with another machine, which it includes, another machine, or itself with a new input element. */
+    private static OneWayDFSM<?, Character, ?> other(Random random, OneWayDFSM<Integer, Character, Integer> dfsm,
+            int seed) {
+        switch (seed % 4) {
+        case 0:
+            return dfsm.minimize();
+        case 1:
+            return dfsm.intersection(RandomMachines.dfsm(random, 4 + random.nextInt(40), 0));
+        case 2:
+            return RandomMachines.dfsm(random, 4 + random.nextInt(200), 0);
+        default:
+            return withElement(random, dfsm, 'c', random.nextBoolean());
+        }
+    }
+
+    /* Returns a copy of the specified machine with a new input element, on which every state transitions to a random
+       state, or to a new accept state if so specified. */
+    private static OneWayDFSM<Integer, Character, Integer> withElement(Random random,
+            OneWayDFSM<Integer, Character, Integer> dfsm, Character element, boolean accepting) {
+        int stateCount = dfsm.states().size();
+        Set<Integer> states = new HashSet<>(dfsm.states());
+        states.add(stateCount);
+        Set<Integer> acceptStates = new HashSet<>(dfsm.acceptStates());
+        if (accepting)
+            acceptStates.add(stateCount);
+        Set<Character> inputElements = new HashSet<>(dfsm.inputElements());
+        inputElements.add(element);
+        Map<Entry<Integer, Character>, Integer> transitions = new HashMap<>(dfsm.transitions());
+        for (int state : states) {
+            transitions.put(new SimpleEntry<>(state, element), accepting ? stateCount : random.nextInt(stateCount));
+            if (state == stateCount)
+                for (Character inputElement : dfsm.inputElements())
+                    transitions.put(new SimpleEntry<>(state, inputElement), stateCount);
+        }
+        return new OneWayDFSM<>(states, acceptStates, dfsm.startState(), inputElements, transitions);
+    }
+
+    /* Returns the length of a shortest input accepted by the left machine and not the right, or by exactly one of them
+       if inclusion is not specified, or -1 if there is none. A machine that reads an element that is not one of its
+       own is in the null state, which rejects. */
+    private static <S, T> int shortestCounterexample(OneWayDFSM<S, Character, ?> left,
+            OneWayDFSM<T, Character, ?> right, boolean inclusion) {
+        Set<Character> inputElements = new LinkedHashSet<>(left.inputElements());
+        inputElements.addAll(right.inputElements());
+        Map<Entry<S, T>, Integer> lengths = new HashMap<>();
+        Deque<Entry<S, T>> pairs = new ArrayDeque<>();
+        Entry<S, T> start = new SimpleEntry<>(left.startState(), right.startState());
+        lengths.put(start, 0);
+        pairs.add(start);
+        while (!pairs.isEmpty()) {
+            Entry<S, T> pair = pairs.poll();
+            boolean leftAccepts = pair.getKey() != null && left.acceptStates().contains(pair.getKey());
+            boolean rightAccepts = pair.getValue() != null && right.acceptStates().contains(pair.getValue());
+            if (inclusion ? leftAccepts && !rightAccepts : leftAccepts != rightAccepts)
+                return lengths.get(pair);
+            for (Character element : inputElements) {
+                S leftState = pair.getKey() == null ? null
+                        : left.transitions().get(new SimpleEntry<>(pair.getKey(), element));
+                T rightState = pair.getValue() == null ? null
+                        : right.transitions().get(new SimpleEntry<>(pair.getValue(), element));
+                Entry<S, T> next = new SimpleEntry<>(leftState, rightState);
+                if (lengths.putIfAbsent(next, lengths.get(pair) + 1) == null)
+                    pairs.add(next);
+            }
+        }
+        return -1;
+    }
+}
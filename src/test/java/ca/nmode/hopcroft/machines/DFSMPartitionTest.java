@@ -0,0 +1,92 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the equivalence classes and minimal machines that Hopcroft's partition refinement computes with those of
+   naive Moore refinement, on random acceptors and transducers with many equivalent states. */
+class DFSMPartitionTest {
+    private static final int SEEDS = 40;
+
+    @Test
+    void equivalenceClassesMatchNaiveRefinement() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            OneWayDFSM<Integer, Character, Integer> dfsm = dfsm(seed);
+            Map<Integer, Integer> blocks = naiveBlocks(dfsm);
+            Map<Integer, Set<Integer>> equivalenceClasses = dfsm.equivalenceClasses();
+            assertEquals(dfsm.reachableStates(), equivalenceClasses.keySet(), "seed " + seed);
+            assertEquals(new HashSet<>(blocks.values()).size(), new HashSet<>(equivalenceClasses.values()).size(),
+                    "seed " + seed);
+            for (Map.Entry<Integer, Set<Integer>> equivalenceClass : equivalenceClasses.entrySet()) {
+                assertTrue(equivalenceClass.getValue().contains(equivalenceClass.getKey()), "seed " + seed);
+                for (int state : equivalenceClass.getValue())
+                    assertEquals(blocks.get(equivalenceClass.getKey()), blocks.get(state), "seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void minimizedMachineIsEquivalentAndMinimal() {
+        List<List<Character>> inputs = RandomMachines.inputs(10);
+        for (int seed = 0; seed < SEEDS; seed++) {
+            OneWayDFSM<Integer, Character, Integer> dfsm = dfsm(seed);
+            OneWayDFSM<Set<Integer>, Character, Integer> minimal = dfsm.minimize();
+            assertEquals(new HashSet<>(naiveBlocks(dfsm).values()).size(), minimal.states().size(), "seed " + seed);
+            assertTrue(minimal.states().size() <= Math.max(1, dfsm.states().size() / 4), "seed " + seed);
+            // A minimal machine has no equivalent states left to merge.
+            assertEquals(minimal.states().size(), minimal.minimize().states().size(), "seed " + seed);
+            for (List<Character> input : inputs) {
+                assertEquals(dfsm.accepts(input), minimal.accepts(input), "seed " + seed);
+                assertEquals(dfsm.MealyTransduce(input), minimal.MealyTransduce(input), "seed " + seed);
+                assertEquals(dfsm.MooreTransduce(input), minimal.MooreTransduce(input), "seed " + seed);
+                assertTrue(minimal.classify(input).contains(dfsm.classify(input)), "seed " + seed);
+            }
+        }
+    }
+
+    /* Returns a random machine of up to a few hundred states, which is an acceptor for even seeds and a transducer for
+       odd ones. */
+    private static OneWayDFSM<Integer, Character, Integer> dfsm(int seed) {
+        Random random = new Random(seed);
+        return RandomMachines.dfsm(random, 4 + random.nextInt(400), seed % 2 == 0 ? 0 : 3);
+    }
+
+    /* Returns the block of every reachable state of the specified machine, refining the partition by acceptance and
+       Moore output by the blocks and Mealy outputs of every state's transitions until it is stable. */
+    private static Map<Integer, Integer> naiveBlocks(OneWayDFSM<Integer, Character, Integer> dfsm) {
+        Map<Integer, Integer> blocks = new HashMap<>();
+        Map<List<Object>, Integer> signatures = new HashMap<>();
+        for (int state : dfsm.reachableStates())
+            blocks.put(state, signatures.computeIfAbsent(
+                    List.of(dfsm.acceptStates().contains(state), String.valueOf(dfsm.MooreTranslations().get(state))),
+                    signature -> signatures.size()));
+        for (int blockCount = -1; blockCount != signatures.size();) {
+            blockCount = signatures.size();
+            Map<Integer, Integer> refinedBlocks = new HashMap<>();
+            signatures.clear();
+            for (int state : dfsm.reachableStates()) {
+                List<Object> signature = new ArrayList<>();
+                signature.add(blocks.get(state));
+                for (Character element : RandomMachines.ALPHABET) {
+                    SimpleEntry<Integer, Character> transitionKey = new SimpleEntry<>(state, element);
+                    signature.add(blocks.get(dfsm.transitions().get(transitionKey)));
+                    signature.add(String.valueOf(dfsm.MealyTranslations().get(transitionKey)));
+                }
+                refinedBlocks.put(state, signatures.computeIfAbsent(signature, s -> signatures.size()));
+            }
+            blocks = refinedBlocks;
+        }
+        return blocks;
+    }
+}
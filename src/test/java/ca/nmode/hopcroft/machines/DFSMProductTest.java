@@ -0,0 +1,95 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the products of one-way deterministic finite-state machines with running both machines separately, for
+   machines of the same input elements and of different ones, and checks that only reachable pairs are built. */
+class DFSMProductTest {
+    private static final int SEEDS = 40;
+
+    @Test
+    void productsMatchSeparateComputations() {
+        List<List<Character>> inputs = RandomMachines.inputs(8);
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            OneWayDFSM<Integer, Character, Integer> a = RandomMachines.dfsm(random, 1 + random.nextInt(20), 0);
+            OneWayDFSM<Integer, Character, Integer> b = RandomMachines.dfsm(random, 1 + random.nextInt(20), 0);
+            OneWayDFSM<Entry<Integer, Integer>, Character, Integer> intersection = a.intersection(b);
+            OneWayDFSM<Entry<Integer, Integer>, Character, Integer> union = a.union(b);
+            OneWayDFSM<Entry<Integer, Integer>, Character, Integer> difference = a.difference(b);
+            OneWayDFSM<Entry<Integer, Integer>, Character, Integer> symmetricDifference = a.symmetricDifference(b);
+            for (List<Character> input : inputs) {
+                boolean acceptsA = a.accepts(input);
+                boolean acceptsB = b.accepts(input);
+                String message = "seed " + seed + ", input " + input;
+                assertEquals(acceptsA && acceptsB, intersection.accepts(input), message);
+                assertEquals(acceptsA || acceptsB, union.accepts(input), message);
+                assertEquals(acceptsA && !acceptsB, difference.accepts(input), message);
+                assertEquals(acceptsA != acceptsB, symmetricDifference.accepts(input), message);
+                assertEquals(new SimpleEntry<>(a.classify(input), b.classify(input)), union.classify(input), message);
+            }
+            // The product of a machine with itself only reaches the pairs of equal states.
+            assertEquals(a.reachableStates().size(), a.intersection(a).states().size(), "seed " + seed);
+        }
+    }
+
+    @Test
+    void machinesOfDifferentInputElementsHaltSeparately() {
+        // The first machine reads a and b, and the second reads b and c, each accepting inputs of even length.
+        OneWayDFSM<Integer, Character, Object> ab = parity(Set.of('a', 'b'));
+        OneWayDFSM<Integer, Character, Object> bc = parity(Set.of('b', 'c'));
+        OneWayDFSM<Entry<Integer, Integer>, Character, Object> union = ab.union(bc);
+        OneWayDFSM<Entry<Integer, Integer>, Character, Object> difference = ab.difference(bc);
+        assertEquals(Set.of('a', 'b', 'c'), union.inputElements());
+
+        Random random = new Random(0);
+        List<Character> elements = List.of('a', 'b', 'c', 'd');
+        for (int i = 0; i < 500; i++) {
+            List<Character> input = new ArrayList<>();
+            for (int length = random.nextInt(8); input.size() < length;)
+                input.add(elements.get(random.nextInt(random.nextInt(10) == 0 ? 4 : 3)));
+            String message = "input " + input;
+            assertEquals(ab.accepts(input) || bc.accepts(input), union.accepts(input), message);
+            assertEquals(ab.accepts(input) && !bc.accepts(input), difference.accepts(input), message);
+            if (!input.contains('d'))
+                assertEquals(new SimpleEntry<>(ab.classify(input), bc.classify(input)), union.classify(input),
+                        message);
+        }
+        assertTrue(union.accepts(List.of('a', 'a')));
+        assertEquals(new SimpleEntry<>(null, 0), union.classify(List.of('c', 'b')));
+        assertNull(union.classify(List.of('a', 'd')));
+    }
+
+    @Test
+    void predicatesAcceptingWhenNeitherMachineAcceptsAreRejected() {
+        OneWayDFSM<Integer, Character, Object> ab = parity(Set.of('a', 'b'));
+        assertThrows(IllegalArgumentException.class, () -> ab.product(ab, (x, y) -> !x));
+        assertThrows(NullPointerException.class, () -> ab.product(null, (x, y) -> x));
+        assertThrows(NullPointerException.class, () -> ab.product(ab, null));
+    }
+
+    /* Returns a machine over the specified input elements that accepts the inputs of even length. */
+    private static OneWayDFSM<Integer, Character, Object> parity(Set<Character> inputElements) {
+        Map<Entry<Integer, Character>, Integer> transitions = new HashMap<>();
+        for (Character element : inputElements) {
+            transitions.put(new SimpleEntry<>(0, element), 1);
+            transitions.put(new SimpleEntry<>(1, element), 0);
+        }
+        return new OneWayDFSM<>(Set.of(0, 1), Set.of(0), 0, new HashSet<>(inputElements), transitions);
+    }
+}
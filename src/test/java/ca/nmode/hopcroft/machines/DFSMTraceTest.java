@@ -0,0 +1,86 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import ca.nmode.hopcroft.graphs.SerialTrace;
+import ca.nmode.hopcroft.graphs.StateVertex;
+import ca.nmode.hopcroft.graphs.TransitionEdge;
+
+/* Compares the compact traces of one-way deterministic finite-state machines' computations with their computations,
+   and the serial traces built from them, or from ranges of their steps, with the steps they trace. */
+class DFSMTraceTest {
+    private static final int SEEDS = 40;
+
+    @Test
+    void compactTracesMatchComputations() {
+        List<List<Character>> inputs = RandomMachines.inputs(6);
+        inputs.add(List.of('a', 'c', 'b'));
+        inputs.add(new LinkedList<>(List.of('b', 'a', 'b', 'b')));
+        for (int seed = 0; seed < SEEDS; seed++) {
+            OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(new Random(seed), 1 + seed % 20, 0);
+            for (List<Character> input : inputs) {
+                String message = "seed " + seed + ", input " + input;
+                List<?> computation = dfsm.compute(input);
+                DFSMTrace<Integer, Character> trace = dfsm.compactTrace(input);
+                assertEquals(computation, trace, message);
+                assertEquals(computation.size(), trace.size(), message);
+                assertNull(trace.inputElement(0), message);
+                for (int step = 0; step < trace.size(); step++) {
+                    assertEquals(trace.get(step).getValue(), trace.state(step), message);
+                    if (step > 0)
+                        assertEquals(input.get(step - 1), trace.inputElement(step), message);
+                }
+                assertSerialTrace(trace, 0, trace.size(), dfsm.trace(input), message);
+            }
+        }
+    }
+
+    @Test
+    void serialTracesOfRangesMatchSteps() {
+        OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(new Random(0), 20, 0);
+        Random random = new Random(0);
+        List<Character> input = new ArrayList<>();
+        while (input.size() < 200)
+            input.add(RandomMachines.ALPHABET.get(random.nextInt(2)));
+        DFSMTrace<Integer, Character> trace = dfsm.compactTrace(input);
+        for (int i = 0; i < 100; i++) {
+            int from = random.nextInt(trace.size());
+            int to = from + 1 + random.nextInt(trace.size() - from);
+            assertSerialTrace(trace, from, to, trace.toSerialTrace(from, to), "range " + from + " to " + to);
+        }
+
+        assertThrows(IndexOutOfBoundsException.class, () -> trace.toSerialTrace(5, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> trace.toSerialTrace(-1, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> trace.toSerialTrace(0, trace.size() + 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> trace.get(trace.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> trace.state(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> trace.inputElement(trace.size()));
+        assertThrows(UnsupportedOperationException.class, () -> trace.remove(0));
+        assertThrows(NullPointerException.class, () -> dfsm.compactTrace(null));
+    }
+
+    /* Asserts that the specified serial trace is a path through the states of the specified range of steps of the
+       specified compact trace, labeled with the elements read on them. */
+    private static void assertSerialTrace(DFSMTrace<Integer, Character> trace, int fromStep, int toStep,
+            SerialTrace<Integer, Character> serialTrace, String message) {
+        assertEquals(toStep - fromStep, serialTrace.vertexSet().size(), message);
+        StateVertex<Integer> vertex = serialTrace.startVertex();
+        assertEquals(trace.state(fromStep), vertex.state(), message);
+        for (int step = fromStep + 1; step < toStep; step++) {
+            TransitionEdge<Character> edge = serialTrace.outgoingEdgesOf(vertex).iterator().next();
+            assertEquals(trace.inputElement(step), edge.label(), message);
+            vertex = serialTrace.getEdgeTarget(edge);
+            assertEquals(trace.state(step), vertex.state(), message);
+        }
+        assertEquals(0, serialTrace.outDegreeOf(vertex), message);
+    }
+}
@@ -0,0 +1,229 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the events instrumented machines report, and the counts of execution counters, with the events expected
+   from the machines' computations, and checks that counters count computations on several threads and are reset. */
+class InstrumentationTest {
+    private static final int SEEDS = 30;
+
+    @Test
+    void instrumentedDFSMsReportComputations() {
+        List<List<Character>> inputs = RandomMachines.inputs(6);
+        inputs.add(List.of('a', 'c', 'b'));
+        inputs.add(List.of('c'));
+        for (int seed = 0; seed < SEEDS; seed++) {
+            OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(new Random(seed), 1 + seed % 20, 0);
+            List<List<Object>> events = new ArrayList<>();
+            InstrumentedDFSM<Integer, Character, Integer> instrumented = dfsm.instrument(recorder(events));
+            assertSame(dfsm, instrumented.machine());
+            for (List<Character> input : inputs) {
+                String message = "seed " + seed + ", input " + input;
+                List<Entry<Entry<Integer, Character>, Integer>> computation = dfsm.compute(input);
+                events.clear();
+                assertEquals(computation, instrumented.compute(input), message);
+
+                // The computation visits the start state, then takes a transition and visits its target on every step.
+                List<List<Object>> expected = new ArrayList<>();
+                expected.add(List.of("started", input.size()));
+                expected.add(List.of("visited", dfsm.startState()));
+                for (int step = 1; step < computation.size(); step++) {
+                    Entry<Integer, Character> key = computation.get(step).getKey();
+                    if (computation.get(step).getValue() == null) {
+                        expected.add(List.of("halted", step));
+                        break;
+                    }
+                    expected.add(List.of("taken", key.getKey(), key.getValue()));
+                    expected.add(List.of("visited", computation.get(step).getValue()));
+                }
+                expected.add(List.of("ended", computation.size() - 1));
+                assertEquals(expected, resolve(events, instrumented::state, instrumented::inputElement), message);
+
+                events.clear();
+                assertEquals(dfsm.classify(input), instrumented.classify(input), message);
+                assertEquals(expected, resolve(events, instrumented::state, instrumented::inputElement), message);
+                assertEquals(dfsm.accepts(input), instrumented.accepts(input), message);
+            }
+            // The machine's own computations are not reported.
+            events.clear();
+            dfsm.compute(List.of('a', 'b'));
+            assertEquals(List.of(), events, "seed " + seed);
+        }
+    }
+
+    @Test
+    void countersMatchNFSMComputations() {
+        List<List<Character>> inputs = RandomMachines.inputs(6);
+        inputs.add(List.of('a', 'c', 'b'));
+        for (int seed = 0; seed < SEEDS; seed++) {
+            OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(new Random(seed), 1 + seed % 20);
+            ExecutionCounters<Integer, Character> counters = nfsm.counters();
+            InstrumentedNFSM<Integer, Character, Object> instrumented = nfsm.instrument(counters);
+            assertSame(counters, instrumented.listener());
+
+            // Every input is computed three times. Every state of every step is visited, and every one with
+            // transitions on the next element takes them.
+            Map<Integer, Long> stateVisits = new HashMap<>();
+            Map<Entry<Integer, Character>, Long> transitionCounts = new HashMap<>();
+            long elements = 0;
+            long halts = 0;
+            long[] inputLengths = new long[Integer.SIZE];
+            for (List<Character> input : inputs) {
+                String message = "seed " + seed + ", input " + input;
+                List<Entry<Entry<Set<Integer>, Character>, Set<Integer>>> computation = nfsm.compute(input);
+                assertEquals(computation, instrumented.compute(input), message);
+                assertEquals(nfsm.classify(input), instrumented.classify(input), message);
+                assertEquals(nfsm.accepts(input), instrumented.accepts(input), message);
+                for (int step = 0; step < computation.size(); step++) {
+                    // The null state of the paths that have ended is not visited, and the computation halts once it
+                    // is in the null state alone.
+                    Set<Integer> states = computation.get(step).getValue();
+                    if (states.size() == 1 && states.contains(null))
+                        halts += 3;
+                    for (Integer state : states)
+                        if (state != null)
+                            stateVisits.merge(state, 3L, Long::sum);
+                    if (step == 0)
+                        continue;
+                    Character element = computation.get(step).getKey().getValue();
+                    for (Integer state : computation.get(step).getKey().getKey())
+                        if (!nfsm.transitions().getOrDefault(new SimpleEntry<>(state, element), Set.of()).isEmpty())
+                            transitionCounts.merge(new SimpleEntry<>(state, element), 3L, Long::sum);
+                }
+                elements += 3 * (computation.size() - 1);
+                inputLengths[31 - Integer.numberOfLeadingZeros(input.size() | 1)] += 3;
+            }
+            String message = "seed " + seed;
+            assertEquals(3L * inputs.size(), counters.computations(), message);
+            assertEquals(elements, counters.elements(), message);
+            assertEquals(halts, counters.halts(), message);
+            assertEquals(stateVisits, counters.stateVisits(), message);
+            assertEquals(transitionCounts, counters.transitionCounts(), message);
+            assertArrayEquals(inputLengths, counters.inputLengthHistogram(), message);
+            assertEquals(counters.computations(), Arrays.stream(counters.latencyHistogram()).sum(), message);
+            assertTrue(counters.nanos() >= 0 && counters.elementsPerSecond() >= 0, message);
+        }
+    }
+
+    @Test
+    void countersCountComputationsOnSeveralThreads() throws InterruptedException {
+        OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(new Random(0), 20, 0);
+        List<List<Character>> inputs = RandomMachines.inputs(8);
+        ExecutionCounters<Integer, Character> single = dfsm.counters();
+        InstrumentedDFSM<Integer, Character, Integer> counted = dfsm.instrument(single);
+        for (List<Character> input : inputs)
+            counted.accepts(input);
+
+        ExecutionCounters<Integer, Character> counters = dfsm.counters();
+        InstrumentedDFSM<Integer, Character, Integer> instrumented = dfsm.instrument(counters);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (List<Character> input : inputs)
+                    instrumented.accepts(input);
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(threads.length * single.computations(), counters.computations());
+        assertEquals(threads.length * single.elements(), counters.elements());
+        assertEquals(threads.length * single.halts(), counters.halts());
+        Map<Integer, Long> stateVisits = new HashMap<>(single.stateVisits());
+        stateVisits.replaceAll((state, visits) -> threads.length * visits);
+        assertEquals(stateVisits, counters.stateVisits());
+        Map<Entry<Integer, Character>, Long> transitionCounts = new HashMap<>(single.transitionCounts());
+        transitionCounts.replaceAll((transition, taken) -> threads.length * taken);
+        assertEquals(transitionCounts, counters.transitionCounts());
+
+        counters.reset();
+        assertEquals(0, counters.computations());
+        assertEquals(0, counters.elements());
+        assertEquals(0, counters.nanos());
+        assertEquals(0.0, counters.elementsPerSecond());
+        assertEquals(Map.of(), counters.stateVisits());
+        assertEquals(Map.of(), counters.transitionCounts());
+        assertArrayEquals(new long[Long.SIZE], counters.latencyHistogram());
+        assertArrayEquals(new long[Integer.SIZE], counters.inputLengthHistogram());
+    }
+
+    @Test
+    void invalidIndicesAndListenersAreRejected() {
+        OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(new Random(0), 5, 0);
+        OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(new Random(0), 5);
+        InstrumentedDFSM<Integer, Character, Integer> instrumentedDFSM = dfsm.instrument(new ExecutionListener() {
+        });
+        InstrumentedNFSM<Integer, Character, Object> instrumentedNFSM = nfsm.instrument(nfsm.counters());
+        assertThrows(IndexOutOfBoundsException.class, () -> instrumentedDFSM.state(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> instrumentedDFSM.inputElement(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> instrumentedNFSM.state(5));
+        assertThrows(IndexOutOfBoundsException.class, () -> instrumentedNFSM.inputElement(-1));
+        assertThrows(NullPointerException.class, () -> instrumentedDFSM.accepts(null));
+        assertThrows(NullPointerException.class, () -> instrumentedNFSM.compute(null));
+        assertThrows(NullPointerException.class, () -> dfsm.instrument(null));
+        assertThrows(NullPointerException.class, () -> nfsm.instrument(null));
+    }
+
+    /* Returns a listener that records every event, with the indices of states and input elements. */
+    private static ExecutionListener recorder(List<List<Object>> events) {
+        return new ExecutionListener() {
+            @Override
+            public void computationStarted(int inputLength) {
+                events.add(List.of("started", inputLength));
+            }
+
+            @Override
+            public void stateVisited(int state) {
+                events.add(List.of("visited", state));
+            }
+
+            @Override
+            public void transitionTaken(int state, int inputElement) {
+                events.add(List.of("taken", state, inputElement));
+            }
+
+            @Override
+            public void computationHalted(int step) {
+                events.add(List.of("halted", step));
+            }
+
+            @Override
+            public void computationEnded(int elementsRead, long nanos) {
+                assertTrue(nanos >= 0);
+                events.add(List.of("ended", elementsRead));
+            }
+        };
+    }
+
+    /* Returns the specified events with the indices of states and input elements resolved. */
+    private static List<List<Object>> resolve(List<List<Object>> events, IntFunction<Integer> states,
+            IntFunction<Character> inputElements) {
+        List<List<Object>> resolved = new ArrayList<>();
+        for (List<Object> event : events)
+            if (event.get(0).equals("visited"))
+                resolved.add(List.of("visited", states.apply((Integer) event.get(1))));
+            else if (event.get(0).equals("taken"))
+                resolved.add(List.of("taken", states.apply((Integer) event.get(1)),
+                        inputElements.apply((Integer) event.get(2))));
+            else
+                resolved.add(event);
+        return resolved;
+    }
+}
@@ -0,0 +1,152 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares lazily determinized machines with the nondeterministic machines they determinize, under memory budgets small
+   enough to force evictions, and checks the counters of their caches. */
+class LazyDFSMTest {
+    private static final int SEEDS = 30;
+
+    @Test
+    void computationMatchesUnderEvictingBudgets() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(random, 2 + random.nextInt(120));
+            List<List<Character>> inputs = RandomMachines.inputs(8);
+            for (int i = 0; i < 20; i++)
+                inputs.add(randomInput(random, random.nextInt(2000)));
+            // A budget of a byte leaves the minimum of two cached states.
+            for (long memoryBudget : new long[] { 1, 4096, 1 << 20 }) {
+                LazyDFSM<Integer, Character, Object> lazy = nfsm.lazyDeterminize(memoryBudget);
+                for (List<Character> input : inputs) {
+                    assertEquals(nfsm.classify(input), lazy.classify(input), "seed " + seed);
+                    assertEquals(nfsm.accepts(input), lazy.accepts(input), "seed " + seed);
+                }
+                if (memoryBudget == 1)
+                    assertTrue(lazy.cachedStates() <= 2, "seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void transitionsIntoEvictedStatesMiss() {
+        // State 0 leads to states 1 and 2 on a and b, which lead back to 0 on any element.
+        Map<Entry<Integer, Character>, Set<Integer>> transitions = new HashMap<>();
+        transitions.put(new SimpleEntry<>(0, 'a'), Set.of(1));
+        transitions.put(new SimpleEntry<>(0, 'b'), Set.of(2));
+        for (int state = 1; state <= 2; state++)
+            for (Character element : RandomMachines.ALPHABET)
+                transitions.put(new SimpleEntry<>(state, element), Set.of(0));
+        OneWayNFSM<Integer, Character, Object> nfsm = new OneWayNFSM<>(Set.of(0, 1, 2), Set.of(1), 0,
+                Set.of('a', 'b'), transitions);
+        LazyDFSM<Integer, Character, Object> lazy = nfsm.lazyDeterminize(1);
+
+        assertEquals(Set.of(1), lazy.classify(List.of('a')));
+        assertEquals(1, lazy.misses());
+        // Caching {2} evicts {1}, as {0} is the state being stepped from.
+        assertEquals(Set.of(2), lazy.classify(List.of('b')));
+        assertEquals(2, lazy.misses());
+        assertEquals(1, lazy.evictions());
+        // The transition from {0} on a still names the slot {2} took over, and must not be followed.
+        assertEquals(Set.of(1), lazy.classify(List.of('a')));
+        assertEquals(3, lazy.misses());
+        assertEquals(0, lazy.hits());
+        assertEquals(2, lazy.evictions());
+        // Recomputing the transition recorded the new generation of its target, so it is followed from now on.
+        assertTrue(lazy.accepts(List.of('a')));
+        assertEquals(1, lazy.hits());
+    }
+
+    @Test
+    void frequentlyReachedStatesStayCached() {
+        // States 0 and 1 alternate on element 0, and state 0 leaves to a cold state 1 + j on every other element j,
+        // which returns to 0 on element 0.
+        int exits = 10;
+        Set<Integer> states = new HashSet<>();
+        Set<Integer> inputElements = new HashSet<>();
+        Map<Entry<Integer, Integer>, Set<Integer>> transitions = new HashMap<>();
+        transitions.put(new SimpleEntry<>(0, 0), Set.of(1));
+        transitions.put(new SimpleEntry<>(1, 0), Set.of(0));
+        for (int j = 0; j <= exits; j++) {
+            states.add(1 + j);
+            inputElements.add(j);
+            if (j > 0) {
+                transitions.put(new SimpleEntry<>(0, j), Set.of(1 + j));
+                transitions.put(new SimpleEntry<>(1 + j, 0), Set.of(0));
+            }
+        }
+        states.add(0);
+        OneWayNFSM<Integer, Integer, Object> nfsm = new OneWayNFSM<>(states, Set.of(0), 0, inputElements,
+                transitions);
+
+        // Cache four states: 0, 1 and two of the ten cold states.
+        long stateBytes = 8 * 2 + 8 * (exits + 1) + 96;
+        LazyDFSM<Integer, Integer, Object> lazy = nfsm.lazyDeterminize(4 * stateBytes);
+        List<Integer> input = new ArrayList<>();
+        int iterations = 100;
+        for (int i = 0; i < iterations; i++) {
+            input.addAll(Collections.nCopies(10, 0));
+            input.add(1 + i % exits);
+            input.add(0);
+        }
+        assertEquals(Set.of(0), lazy.classify(input));
+        assertEquals(input.size(), lazy.hits() + lazy.misses());
+        // Past the first iteration, only the steps into and out of the cold states miss, since the alternating states
+        // are reached on every other element and are never evicted.
+        assertTrue(lazy.misses() <= 2 * iterations + 2, "misses " + lazy.misses());
+        assertTrue(lazy.evictions() > 0);
+        assertEquals(0, lazy.fallbacks());
+    }
+
+    @Test
+    void thrashingFallsBackToSetSimulation() {
+        // The machine accepting inputs whose eleventh last element is a has 2^11 reachable sets of states.
+        int n = 10;
+        Set<Integer> states = new HashSet<>();
+        Map<Entry<Integer, Character>, Set<Integer>> transitions = new HashMap<>();
+        for (int state = 0; state <= n + 1; state++)
+            states.add(state);
+        transitions.put(new SimpleEntry<>(0, 'a'), Set.of(0, 1));
+        transitions.put(new SimpleEntry<>(0, 'b'), Set.of(0));
+        for (int state = 1; state <= n; state++)
+            for (Character element : RandomMachines.ALPHABET)
+                transitions.put(new SimpleEntry<>(state, element), Set.of(state + 1));
+        OneWayNFSM<Integer, Character, Object> nfsm = new OneWayNFSM<>(states, Set.of(n + 1), 0,
+                Set.of('a', 'b'), transitions);
+        LazyDFSM<Integer, Character, Object> lazy = nfsm.lazyDeterminize(1);
+
+        Random random = new Random(0);
+        List<Character> input = randomInput(random, 5000);
+        assertEquals(nfsm.classify(input), lazy.classify(input));
+        assertEquals(1, lazy.fallbacks());
+        assertTrue(lazy.evictions() > 0);
+        // The cache stops being consulted once the run falls back.
+        assertTrue(lazy.hits() + lazy.misses() < input.size());
+        assertTrue(lazy.misses() * 4 > lazy.hits() + lazy.misses());
+
+        // A short input does not fill the window over which thrashing is measured.
+        assertEquals(nfsm.classify(input.subList(0, 500)), lazy.classify(input.subList(0, 500)));
+        assertEquals(1, lazy.fallbacks());
+    }
+
+    private static List<Character> randomInput(Random random, int length) {
+        List<Character> input = new ArrayList<>();
+        while (input.size() < length)
+            input.add(RandomMachines.ALPHABET.get(random.nextInt(RandomMachines.ALPHABET.size())));
+        return input;
+    }
+}
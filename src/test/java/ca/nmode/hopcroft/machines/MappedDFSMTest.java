@@ -0,0 +1,136 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+import org.junit.jupiter.api.Test;
+
+/* Writes one-way deterministic finite-state machines to files and compares the machines mapped from them with the
+   machines written, and checks that files that are corrupted, of another format or version, or whose sections are
+   inconsistent are rejected. */
+class MappedDFSMTest {
+    private static final int SEEDS = 30;
+
+    @Test
+    void mappedMachinesMatchWrittenMachines() throws IOException {
+        Path file = Files.createTempFile("hopcroft", ".dfsm");
+        try {
+            List<List<Character>> inputs = RandomMachines.inputs(6);
+            inputs.add(List.of('a', 'c', 'b'));
+            for (int seed = 0; seed < SEEDS; seed++) {
+                Random random = new Random(seed);
+                // Machines of even seeds are acceptors without output elements, written without an output codec.
+                boolean acceptor = seed % 2 == 0;
+                OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(random, 1 + random.nextInt(100),
+                        acceptor ? 0 : 1 + random.nextInt(5));
+                ElementCodec<Integer> outputCodec = acceptor ? null : ElementCodec.integers();
+                dfsm.write(file, ElementCodec.integers(), ElementCodec.characters(), outputCodec);
+                MappedDFSM<Integer, Character, Integer> mapped = MappedDFSM.open(file, ElementCodec.integers(),
+                        ElementCodec.characters(), outputCodec);
+
+                String message = "seed " + seed;
+                assertEquals(dfsm.states().size(), mapped.stateCount(), message);
+                for (List<Character> input : inputs) {
+                    String inputMessage = message + ", input " + input;
+                    assertEquals(dfsm.classify(input), mapped.classify(input), inputMessage);
+                    assertEquals(dfsm.accepts(input), mapped.accepts(input), inputMessage);
+                    assertEquals(dfsm.MealyTransduce(input), mapped.MealyTransduce(input), inputMessage);
+                    assertEquals(dfsm.MooreTransduce(input), mapped.MooreTransduce(input), inputMessage);
+                }
+                OneWayDFSM<Integer, Character, Integer> copy = mapped.toMachine();
+                assertEquals(dfsm.states(), copy.states(), message);
+                assertEquals(dfsm.acceptStates(), copy.acceptStates(), message);
+                assertEquals(dfsm.startState(), copy.startState(), message);
+                assertEquals(dfsm.inputElements(), copy.inputElements(), message);
+                assertEquals(dfsm.outputElements(), copy.outputElements(), message);
+                assertEquals(dfsm.transitions(), copy.transitions(), message);
+                assertEquals(dfsm.MealyTranslations(), copy.MealyTranslations(), message);
+                assertEquals(dfsm.MooreTranslations(), copy.MooreTranslations(), message);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void corruptedFilesAreRejected() throws IOException {
+        Path file = Files.createTempFile("hopcroft", ".dfsm");
+        try {
+            OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(new Random(0), 20, 3);
+            dfsm.write(file, ElementCodec.integers(), ElementCodec.characters(), ElementCodec.integers());
+            byte[] bytes = Files.readAllBytes(file);
+
+            // Flipping any bit of the contents or of the checksum no longer matches the checksum.
+            for (int position : new int[] { DFSMFormat.HEADER_SIZE, bytes.length / 2, bytes.length - 5,
+                    bytes.length - 1 }) {
+                byte[] flipped = bytes.clone();
+                flipped[position] ^= 0x10;
+                assertRejected(file, flipped);
+            }
+            byte[] magic = bytes.clone();
+            magic[0] = 'X';
+            assertRejected(file, magic);
+            byte[] version = bytes.clone();
+            ByteBuffer.wrap(version).putInt(4, DFSMFormat.VERSION + 1);
+            assertRejected(file, checksummed(version));
+            assertRejected(file, new byte[0]);
+            assertRejected(file, new byte[DFSMFormat.HEADER_SIZE]);
+            assertRejected(file, checksummed(new byte[DFSMFormat.HEADER_SIZE + Integer.BYTES]));
+            assertRejected(file, checksummed(Arrays.copyOf(bytes, bytes.length - 8)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void inconsistentSectionsAreRejected() throws IOException {
+        Path file = Files.createTempFile("hopcroft", ".dfsm");
+        try {
+            OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(new Random(0), 20, 3);
+            dfsm.write(file, ElementCodec.integers(), ElementCodec.characters(), ElementCodec.integers());
+            byte[] bytes = Files.readAllBytes(file);
+            int stateOffsets = DFSMFormat.HEADER_SIZE;
+
+            // Every offset of the state table is correctly checksummed, but negative, decreasing or out of the file.
+            for (int offset : new int[] { -4, -1 << 30, 100, Integer.MAX_VALUE }) {
+                byte[] corrupted = bytes.clone();
+                ByteBuffer.wrap(corrupted).putInt(stateOffsets + 4, offset);
+                assertRejected(file, checksummed(corrupted));
+            }
+            byte[] first = bytes.clone();
+            ByteBuffer.wrap(first).putInt(stateOffsets, -4);
+            assertRejected(file, checksummed(first));
+            for (int count : new int[] { -1, -5, 21, Integer.MAX_VALUE }) {
+                byte[] corrupted = bytes.clone();
+                ByteBuffer.wrap(corrupted).putInt(8, count);
+                assertRejected(file, checksummed(corrupted));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /* Asserts that the specified contents of the specified file cannot be mapped. */
+    private static void assertRejected(Path file, byte[] bytes) throws IOException {
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> MappedDFSM.open(file, ElementCodec.integers(),
+                ElementCodec.characters(), ElementCodec.integers()));
+    }
+
+    /* Returns the specified contents with their last four bytes replaced by the checksum of the rest. */
+    private static byte[] checksummed(byte[] bytes) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(bytes, 0, bytes.length - Integer.BYTES);
+        ByteBuffer.wrap(bytes).putInt(bytes.length - Integer.BYTES, (int) checksum.getValue());
+        return bytes;
+    }
+}
@@ -0,0 +1,83 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the matches machines find in inputs with those found by computing the machines on every subsequence of the
+   inputs, under both semantics, with and without overlapping, on inputs that contain elements that are not input
+   elements and on machines whose start states accept, so that empty matches are found. */
+class MatchFinderTest {
+    private static final int SEEDS = 40;
+    private static final List<Character> ELEMENTS = List.of('a', 'b', 'c');
+
+    @Test
+    void matchesMatchSubsequenceSearch() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(random, 1 + random.nextInt(20), 0);
+            OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(random, 1 + random.nextInt(20));
+            for (int i = 0; i < 30; i++) {
+                List<Character> input = new ArrayList<>();
+                for (int length = random.nextInt(30); input.size() < length;)
+                    input.add(ELEMENTS.get(random.nextInt(random.nextInt(8) == 0 ? 3 : 2)));
+                for (MatchSemantics semantics : MatchSemantics.values())
+                    for (boolean overlapping : new boolean[] { false, true }) {
+                        String message = "seed " + seed + ", input " + input + ", " + semantics + ", overlapping "
+                                + overlapping;
+                        assertEquals(search(dfsm::accepts, input, semantics, overlapping),
+                                dfsm.search(input, semantics, overlapping), message);
+                        assertEquals(search(nfsm::accepts, input, semantics, overlapping),
+                                nfsm.search(input, semantics, overlapping), message);
+                    }
+            }
+        }
+    }
+
+    @Test
+    void semanticsChooseShortestAndLongestMatches() {
+        // The machine accepts one or more a's, followed by at most one b.
+        OneWayDFSM<Integer, Character, Object> dfsm = new OneWayDFSM<>(Set.of(0, 1, 2, 3), Set.of(1, 2), 0,
+                Set.of('a', 'b'), Map.of(new SimpleEntry<>(0, 'a'), 1, new SimpleEntry<>(0, 'b'), 3,
+                        new SimpleEntry<>(1, 'a'), 1, new SimpleEntry<>(1, 'b'), 2, new SimpleEntry<>(2, 'a'), 3,
+                        new SimpleEntry<>(2, 'b'), 3, new SimpleEntry<>(3, 'a'), 3, new SimpleEntry<>(3, 'b'), 3));
+        List<Character> input = List.of('b', 'a', 'a', 'b', 'c', 'a');
+
+        assertEquals(List.of(new Match(1, 2), new Match(2, 3), new Match(5, 6)),
+                dfsm.search(input, MatchSemantics.LEFTMOST_SHORTEST, false));
+        assertEquals(List.of(new Match(1, 4), new Match(5, 6)), dfsm.search(input));
+        assertEquals(List.of(new Match(1, 4), new Match(2, 4), new Match(5, 6)),
+                dfsm.search(input, MatchSemantics.LEFTMOST_LONGEST, true));
+    }
+
+    /* Returns the matches in the specified input of the machine accepting what the specified predicate accepts, found
+       by testing every subsequence of the input. */
+    private static List<Match> search(Predicate<List<Character>> accepts, List<Character> input,
+            MatchSemantics semantics, boolean overlapping) {
+        List<Match> matches = new ArrayList<>();
+        for (int start = 0; start <= input.size();) {
+            int end = -1;
+            for (int e = start; e <= input.size(); e++)
+                if (accepts.test(input.subList(start, e))) {
+                    end = e;
+                    if (semantics == MatchSemantics.LEFTMOST_SHORTEST)
+                        break;
+                }
+            if (end < 0) {
+                start++;
+                continue;
+            }
+            matches.add(new Match(start, end));
+            start = overlapping || end == start ? start + 1 : end;
+        }
+        return matches;
+    }
+}
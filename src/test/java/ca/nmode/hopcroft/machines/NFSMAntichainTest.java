@@ -0,0 +1,170 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the antichain-based universality, inclusion and equivalence checks of one-way nondeterministic finite-state
+   machines, with and without simulation, to the same checks on their determinized machines. Machines of even seeds have
+   more than 64 states, so that their sets of states span several words. */
+class NFSMAntichainTest {
+    private static final int SEEDS = 30;
+
+    @Test
+    void universalityMatchesDeterminizedMachine() {
+        OneWayDFSM<Integer, Character, Object> all = universalDFSM();
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(random, stateCount(random, seed));
+            if (random.nextBoolean())
+                nfsm = RandomMachines.universal(nfsm);
+            boolean universal = all.isIncludedIn(nfsm.determinize());
+            assertEquals(universal, nfsm.isUniversal(), "seed " + seed);
+            for (boolean simulation : new boolean[] { false, true }) {
+                List<Character> counterexample = nfsm.universalityCounterexample(simulation);
+                assertEquals(universal, counterexample == null, "seed " + seed);
+                if (counterexample != null) {
+                    assertTrue(RandomMachines.ALPHABET.containsAll(counterexample), "seed " + seed);
+                    assertFalse(nfsm.accepts(counterexample), "seed " + seed);
+                }
+            }
+        }
+    }
+
+    @Test
+    void inclusionMatchesDeterminizedMachines() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            OneWayNFSM<Integer, Character, Object> left = RandomMachines.nfsm(random, stateCount(random, seed));
+            OneWayNFSM<Integer, Character, Object> right = random.nextBoolean()
+                    ? RandomMachines.superset(random, left)
+                    : RandomMachines.nfsm(random, stateCount(random, seed));
+            assertInclusion(left, right, seed);
+            assertInclusion(right, left, seed);
+        }
+    }
+
+    @Test
+    void equivalenceMatchesDeterminizedMachines() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(random, stateCount(random, seed));
+            OneWayNFSM<Integer, Character, Object> other;
+            switch (seed % 3) {
+            case 0:
+                other = RandomMachines.equivalent(nfsm);
+                break;
+            case 1:
+                other = RandomMachines.superset(random, nfsm);
+                break;
+            default:
+                other = RandomMachines.nfsm(random, stateCount(random, seed));
+            }
+            boolean equivalent = nfsm.determinize().isEquivalentTo(other.determinize());
+            if (seed % 3 == 0)
+                assertTrue(equivalent, "seed " + seed);
+            assertEquals(equivalent, nfsm.isEquivalentTo(other), "seed " + seed);
+            for (boolean simulation : new boolean[] { false, true }) {
+                List<Character> distinguishingInput = nfsm.distinguishingInput(other, simulation);
+                assertEquals(equivalent, distinguishingInput == null, "seed " + seed);
+                if (distinguishingInput != null)
+                    assertNotEquals(nfsm.accepts(distinguishingInput), other.accepts(distinguishingInput),
+                            "seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void simulatingStatesAcceptEveryInputTheSimulatedStatesAccept() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            NFSMTable<Integer, Character, Object> table = RandomMachines.nfsm(random, stateCount(random, seed)).table;
+            long[] simulation = NFSMAntichain.simulation(table);
+            int stateCount = table.states.length;
+            for (int state = 0; state < stateCount; state++) {
+                // Every state simulates itself.
+                assertTrue((simulation[state * table.words + (state >>> 6)] & 1L << state) != 0, "seed " + seed);
+                for (int word = 0; word < table.words; word++)
+                    for (long w = simulation[state * table.words + word]; w != 0; w &= w - 1) {
+                        int simulating = (word << 6) + Long.numberOfTrailingZeros(w);
+                        if (simulating != state)
+                            assertTrue(includes(table, state, simulating),
+                                    "seed " + seed + ": " + simulating + " simulates " + state);
+                    }
+            }
+        }
+    }
+
+    private static void assertInclusion(OneWayNFSM<Integer, Character, Object> left,
+            OneWayNFSM<Integer, Character, Object> right, int seed) {
+        boolean included = left.determinize().isIncludedIn(right.determinize());
+        assertEquals(included, left.isIncludedIn(right), "seed " + seed);
+        for (boolean simulation : new boolean[] { false, true }) {
+            List<Character> counterexample = left.inclusionCounterexample(right, simulation);
+            assertEquals(included, counterexample == null, "seed " + seed);
+            if (counterexample != null) {
+                assertTrue(left.accepts(counterexample), "seed " + seed);
+                assertFalse(right.accepts(counterexample), "seed " + seed);
+            }
+        }
+    }
+
+    /* Returns true if every input that leads the table from the first state alone to an accept state leads it there
+       from the second state alone, by exploring every pair of sets of states they reach on the same input. */
+    private static boolean includes(NFSMTable<?, ?, ?> table, int state, int otherState) {
+        Set<List<BitSet>> explored = new HashSet<>();
+        Deque<long[][]> pairs = new ArrayDeque<>();
+        pairs.add(new long[][] { singleton(table, state), singleton(table, otherState) });
+        while (!pairs.isEmpty()) {
+            long[][] pair = pairs.poll();
+            if (!explored.add(List.of(BitSet.valueOf(pair[0]), BitSet.valueOf(pair[1]))))
+                continue;
+            if (table.isAccepting(pair[0]) && !table.isAccepting(pair[1]))
+                return false;
+            for (int element = 0; element < table.alphabetSize; element++) {
+                long[][] next = { new long[table.words + 1], new long[table.words + 1] };
+                table.step(pair[0], element, next[0]);
+                table.step(pair[1], element, next[1]);
+                // Ignore the null state, which accepts nothing.
+                next[0][table.words] = next[1][table.words] = 0;
+                if (!BitSet.valueOf(next[0]).isEmpty())
+                    pairs.add(next);
+            }
+        }
+        return true;
+    }
+
+    private static long[] singleton(NFSMTable<?, ?, ?> table, int state) {
+        long[] bits = new long[table.words + 1];
+        bits[state >>> 6] |= 1L << state;
+        return bits;
+    }
+
+    /* Returns a number of states above 64 for even seeds, and at most 64 for odd ones. */
+    private static int stateCount(Random random, int seed) {
+        return seed % 2 == 0 ? 65 + random.nextInt(70) : 5 + random.nextInt(60);
+    }
+
+    /* Returns a deterministic acceptor of every input over the alphabet. */
+    private static OneWayDFSM<Integer, Character, Object> universalDFSM() {
+        Map<Entry<Integer, Character>, Integer> transitions = new HashMap<>();
+        for (Character element : RandomMachines.ALPHABET)
+            transitions.put(new SimpleEntry<>(0, element), 0);
+        return new OneWayDFSM<>(Set.of(0), Set.of(0), 0, new HashSet<>(RandomMachines.ALPHABET), transitions);
+    }
+}
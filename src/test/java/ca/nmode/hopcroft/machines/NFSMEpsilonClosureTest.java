@@ -0,0 +1,88 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the precomputed epsilon closures of one-way nondeterministic finite-state machines with a breadth-first
+   search of their epsilon transitions, on machines whose epsilon transitions form cycles and chains of components. */
+class NFSMEpsilonClosureTest {
+    private static final int SEEDS = 40;
+
+    @Test
+    void epsilonClosuresMatchSearch() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            int stateCount = 1 + random.nextInt(150);
+            OneWayNFSM<Integer, Character, Object> nfsm = epsilonNFSM(random, stateCount, 1 + random.nextInt(4));
+            for (int state = 0; state < stateCount; state++)
+                assertEquals(search(nfsm, Set.of(state)), nfsm.epsilonClosure(state), "seed " + seed);
+            for (int i = 0; i < 20; i++) {
+                Set<Integer> states = new HashSet<>();
+                for (int size = random.nextInt(5); states.size() < Math.min(size, stateCount);)
+                    states.add(random.nextInt(stateCount));
+                assertEquals(search(nfsm, states), nfsm.epsilonClosure(states), "seed " + seed);
+            }
+            assertEquals(Set.of(), nfsm.epsilonClosure(stateCount));
+        }
+    }
+
+    @Test
+    void epsilonClosuresAreUnmodifiable() {
+        OneWayNFSM<Integer, Character, Object> nfsm = epsilonNFSM(new Random(0), 50, 2);
+        assertThrows(UnsupportedOperationException.class, () -> nfsm.epsilonClosure(0).add(1));
+        assertThrows(UnsupportedOperationException.class, () -> nfsm.epsilonClosure(Set.of(0, 1)).add(2));
+        assertThrows(UnsupportedOperationException.class, () -> nfsm.epsilonClosure(Set.of()).add(2));
+        assertSame(nfsm.epsilonClosure(3), nfsm.epsilonClosure(Set.of(3)));
+    }
+
+    @Test
+    void statesWithoutEpsilonTransitionsCloseOnThemselves() {
+        Random random = new Random(0);
+        OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(random, 20_000);
+        for (int state = 0; state < 20_000; state++)
+            if (!nfsm.transitions().containsKey(new SimpleEntry<>(state, null)))
+                assertEquals(Set.of(state), nfsm.epsilonClosure(state));
+    }
+
+    /* Returns a machine with the specified number of states, each of which has up to the specified number of epsilon
+       transitions, mostly to nearby states so that they form cycles, and no other transitions. */
+    private static OneWayNFSM<Integer, Character, Object> epsilonNFSM(Random random, int stateCount,
+            int maxEpsilonTransitions) {
+        Set<Integer> states = new HashSet<>();
+        Map<Entry<Integer, Character>, Set<Integer>> transitions = new HashMap<>();
+        for (int state = 0; state < stateCount; state++) {
+            states.add(state);
+            Set<Integer> targets = new HashSet<>();
+            for (int t = random.nextInt(maxEpsilonTransitions + 1); t > 0; t--)
+                targets.add(random.nextInt(4) == 0 ? random.nextInt(stateCount)
+                        : Math.floorMod(state + random.nextInt(7) - 3, stateCount));
+            if (!targets.isEmpty())
+                transitions.put(new SimpleEntry<>(state, null), targets);
+        }
+        return new OneWayNFSM<>(states, Set.of(), 0, new HashSet<>(RandomMachines.ALPHABET), transitions);
+    }
+
+    /* Returns the states reachable from the specified states by epsilon transitions. */
+    private static Set<Integer> search(OneWayNFSM<Integer, Character, Object> nfsm, Set<Integer> states) {
+        Set<Integer> closure = new HashSet<>(states);
+        Deque<Integer> visit = new ArrayDeque<>(states);
+        while (!visit.isEmpty())
+            for (int target : nfsm.transitions().getOrDefault(new SimpleEntry<>(visit.poll(), null), Set.of()))
+                if (closure.add(target))
+                    visit.add(target);
+        return closure;
+    }
+}
@@ -0,0 +1,137 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the computations of one-way nondeterministic finite-state machines on bitsets of states with a simulation on
+   sets of states that follows the transition map directly, both for machines whose successors are kept as masks and for
+   machines too large for them, whose successors are kept as lists. */
+class NFSMTableTest {
+    private static final int SEEDS = 30;
+
+    @Test
+    void computationMatchesSetSimulation() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            // Machines of odd seeds have more than 64 states, so that their sets of states span several words.
+            OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(random,
+                    seed % 2 == 0 ? 2 + random.nextInt(60) : 65 + random.nextInt(100));
+            List<List<Character>> inputs = RandomMachines.inputs(8);
+            inputs.add(List.of('a', 'c', 'b'));
+            inputs.add(List.of('c'));
+            for (List<Character> input : inputs) {
+                Set<Integer> classification = classify(nfsm, input);
+                assertEquals(classification, nfsm.classify(input), "seed " + seed + ", input " + input);
+                assertEquals(accepts(nfsm, classification), nfsm.accepts(input), "seed " + seed + ", input " + input);
+            }
+        }
+    }
+
+    @Test
+    void largeMachinesMatchSetSimulation() {
+        // The successor masks of 3,000 states on 50 elements would take 7,050,000 words, beyond the dense limit.
+        Random random = new Random(0);
+        int stateCount = 3000;
+        int alphabetSize = 50;
+        Set<Integer> states = new HashSet<>();
+        Set<Integer> acceptStates = new HashSet<>();
+        Set<Integer> inputElements = new HashSet<>();
+        for (int state = 0; state < stateCount; state++) {
+            states.add(state);
+            if (random.nextInt(10) == 0)
+                acceptStates.add(state);
+        }
+        for (int element = 0; element < alphabetSize; element++)
+            inputElements.add(element);
+        Map<Entry<Integer, Integer>, Set<Integer>> transitions = new HashMap<>();
+        for (int state = 0; state < stateCount; state++) {
+            for (int t = 0; t < 8; t++) {
+                Entry<Integer, Integer> key = new SimpleEntry<>(state, random.nextInt(alphabetSize));
+                transitions.computeIfAbsent(key, k -> new HashSet<>()).add(random.nextInt(stateCount));
+            }
+            if (random.nextInt(4) == 0)
+                transitions.put(new SimpleEntry<>(state, null), Set.of(random.nextInt(stateCount)));
+        }
+        OneWayNFSM<Integer, Integer, Object> nfsm = new OneWayNFSM<>(states, acceptStates, 0, inputElements,
+                transitions);
+
+        for (int i = 0; i < 200; i++) {
+            List<Integer> input = new ArrayList<>();
+            for (int length = random.nextInt(40); input.size() < length;)
+                input.add(random.nextInt(alphabetSize));
+            Set<Integer> classification = classify(nfsm, input);
+            assertEquals(classification, nfsm.classify(input), "input " + input);
+            assertEquals(accepts(nfsm, classification), nfsm.accepts(input), "input " + input);
+        }
+        assertEquals(reachableStates(nfsm), nfsm.reachableStates());
+    }
+
+    /* Returns the final states of the specified machine's computation on the specified input, following its transition
+       map on sets of states. */
+    private static <S, I> Set<S> classify(OneWayNFSM<S, I, ?> nfsm, List<I> input) {
+        Set<S> current = closure(nfsm, Set.of(nfsm.startState()));
+        for (I element : input) {
+            if (current.equals(Collections.singleton(null)))
+                break;
+            Set<S> next = new HashSet<>();
+            for (S state : current) {
+                Set<S> targets = state == null || !nfsm.inputElements().contains(element) ? null
+                        : nfsm.transitions().get(new SimpleEntry<>(state, element));
+                if (targets == null || targets.isEmpty())
+                    next.add(null);
+                else
+                    next.addAll(closure(nfsm, targets));
+            }
+            // An element that is not an input element halts every path.
+            current = nfsm.inputElements().contains(element) ? next : Collections.singleton(null);
+        }
+        return current;
+    }
+
+    private static <S> boolean accepts(OneWayNFSM<S, ?, ?> nfsm, Set<S> classification) {
+        for (S state : classification)
+            if (state != null && nfsm.acceptStates().contains(state))
+                return true;
+        return false;
+    }
+
+    /* Returns the states reachable from the specified states by epsilon transitions. */
+    private static <S> Set<S> closure(OneWayNFSM<S, ?, ?> nfsm, Set<S> states) {
+        Set<S> closure = new HashSet<>(states);
+        Deque<S> visit = new ArrayDeque<>(states);
+        while (!visit.isEmpty())
+            for (S target : nfsm.transitions().getOrDefault(new SimpleEntry<>(visit.poll(), null), Set.of()))
+                if (closure.add(target))
+                    visit.add(target);
+        return closure;
+    }
+
+    /* Returns the states reachable from the start state by any transitions. */
+    private static <S, I> Set<S> reachableStates(OneWayNFSM<S, I, ?> nfsm) {
+        Set<S> reached = closure(nfsm, Set.of(nfsm.startState()));
+        Deque<S> visit = new ArrayDeque<>(reached);
+        while (!visit.isEmpty()) {
+            S state = visit.poll();
+            for (I element : nfsm.inputElements())
+                for (S target : closure(nfsm, nfsm.transitions().getOrDefault(new SimpleEntry<>(state, element),
+                        Set.of())))
+                    if (reached.add(target))
+                        visit.add(target);
+        }
+        return reached;
+    }
+}
@@ -0,0 +1,148 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import ca.nmode.hopcroft.graphs.ParallelTrace;
+import ca.nmode.hopcroft.graphs.StateVertex;
+import ca.nmode.hopcroft.graphs.TransitionEdge;
+
+/* Compares the parallel traces of one-way nondeterministic finite-state machines' computations, as trees and as
+   directed acyclic graphs of shared vertices, with their computations and with the paths of their computations
+   enumerated one by one, and checks that traces exceeding their vertex limits fail. */
+class NFSMTraceTest {
+    private static final int SEEDS = 40;
+
+    @Test
+    void tracesMatchComputationsAndPaths() {
+        List<List<Character>> inputs = RandomMachines.inputs(5);
+        inputs.add(List.of('a', 'c', 'b'));
+        for (int seed = 0; seed < SEEDS; seed++) {
+            OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(new Random(seed), 1 + seed % 10);
+            for (List<Character> input : inputs) {
+                String message = "seed " + seed + ", input " + input;
+                List<Entry<Entry<Set<Integer>, Character>, Set<Integer>>> computation = nfsm.compute(input);
+                ParallelTrace<Integer, Character> tree = nfsm.trace(input);
+                ParallelTrace<Integer, Character> dag = nfsm.trace(input, true, Integer.MAX_VALUE);
+                assertFalse(tree.isShared(), message);
+                assertTrue(dag.isShared(), message);
+                for (ParallelTrace<Integer, Character> trace : List.of(tree, dag)) {
+                    List<List<StateVertex<Integer>>> steps = steps(trace, input, message);
+                    assertEquals(computation.size(), steps.size(), message);
+                    // The computation halts in the set of the null state, when every path has ended.
+                    for (int step = 0; step < computation.size(); step++) {
+                        Set<Integer> states = new HashSet<>(computation.get(step).getValue());
+                        states.remove(null);
+                        assertEquals(states, states(steps.get(step)), message);
+                    }
+                    assertEquals(nfsm.accepts(input), !trace.acceptVertexSet().isEmpty(), message);
+                    for (StateVertex<Integer> vertex : trace.acceptVertexSet()) {
+                        assertTrue(steps.get(input.size()).contains(vertex), message);
+                        assertTrue(nfsm.acceptStates().contains(vertex.state()), message);
+                    }
+                }
+
+                // Every vertex of the tree is on a single path, and every vertex without edges labeled with an element
+                // ends one of the computation's paths.
+                int leaves = 0;
+                for (StateVertex<Integer> vertex : tree.vertexSet()) {
+                    assertTrue(vertex == tree.startVertex() || tree.inDegreeOf(vertex) == 1, message);
+                    if (tree.outgoingEdgesOf(vertex).stream().allMatch(edge -> edge.label() == null))
+                        leaves++;
+                }
+                long paths = 0;
+                for (int state : nfsm.epsilonClosure(nfsm.startState()))
+                    paths += paths(nfsm, state, input, 0);
+                assertEquals(paths, leaves, message);
+
+                // The vertices of the graph are shared by the paths reaching the same state on the same step.
+                for (List<StateVertex<Integer>> step : steps(dag, input, message)) {
+                    long halted = step.stream().filter(vertex -> vertex.state() == null).count();
+                    assertTrue(halted <= 1, message);
+                    assertEquals(step.size(), states(step).size() + halted, message);
+                }
+                assertTrue(dag.vertexSet().size() <= tree.vertexSet().size(), message);
+            }
+        }
+    }
+
+    @Test
+    void tracesExceedingVertexLimitsFail() {
+        OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(new Random(3), 8);
+        Random random = new Random(0);
+        for (int i = 0; i < 50; i++) {
+            List<Character> input = new ArrayList<>();
+            for (int length = random.nextInt(8); input.size() < length;)
+                input.add(RandomMachines.ALPHABET.get(random.nextInt(2)));
+            for (boolean shared : new boolean[] { false, true }) {
+                int vertexCount = nfsm.trace(input, shared, Integer.MAX_VALUE).vertexSet().size();
+                assertEquals(vertexCount, nfsm.trace(input, shared, vertexCount).vertexSet().size());
+                if (vertexCount > 1)
+                    assertThrows(IllegalStateException.class, () -> nfsm.trace(input, shared, vertexCount - 1));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> nfsm.trace(List.of(), false, 0));
+        assertThrows(NullPointerException.class, () -> nfsm.trace(null));
+    }
+
+    /* Returns the vertices of the specified trace on every step, following the edges labeled with the element read on
+       every step, after the start vertex and its edges labeled null on step zero. */
+    private static List<List<StateVertex<Integer>>> steps(ParallelTrace<Integer, Character> trace,
+            List<Character> input, String message) {
+        List<List<StateVertex<Integer>>> steps = new ArrayList<>();
+        List<StateVertex<Integer>> step = new ArrayList<>(List.of(trace.startVertex()));
+        for (TransitionEdge<Character> edge : trace.outgoingEdgesOf(trace.startVertex()))
+            if (edge.label() == null)
+                step.add(trace.getEdgeTarget(edge));
+        while (!step.isEmpty()) {
+            steps.add(step);
+            List<StateVertex<Integer>> next = new ArrayList<>();
+            for (StateVertex<Integer> vertex : step)
+                for (TransitionEdge<Character> edge : trace.outgoingEdgesOf(vertex)) {
+                    if (edge.label() == null)
+                        continue;
+                    assertEquals(input.get(steps.size() - 1), edge.label(), message);
+                    if (!next.contains(trace.getEdgeTarget(edge)))
+                        next.add(trace.getEdgeTarget(edge));
+                }
+            step = next;
+        }
+        return steps;
+    }
+
+    /* Returns the states of the specified vertices, without the null state of the vertices ending halted paths. */
+    private static Set<Integer> states(List<StateVertex<Integer>> vertices) {
+        Set<Integer> states = new HashSet<>();
+        for (StateVertex<Integer> vertex : vertices)
+            if (vertex.state() != null)
+                states.add(vertex.state());
+        return states;
+    }
+
+    /* Returns the number of paths of the specified machine's computation on the specified input, from the specified
+       state on the specified step, a path ending where it has no successors or where the input ends. */
+    private static long paths(OneWayNFSM<Integer, Character, Object> nfsm, int state, List<Character> input,
+            int step) {
+        if (step == input.size())
+            return 1;
+        Set<Integer> targets = nfsm.transitions().getOrDefault(new SimpleEntry<>(state, input.get(step)), Set.of());
+        if (targets.isEmpty())
+            return 1;
+        long paths = 0;
+        for (int target : nfsm.epsilonClosure(targets))
+            paths += paths(nfsm, target, input, step + 1);
+        return paths;
+    }
+}
@@ -0,0 +1,178 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the Mealy and Moore transductions of one-way nondeterministic finite-state machines with the output
+   sequences of their computations' paths, enumerated one by one, and checks that halted paths are not output twice,
+   that the start states are output on step zero of Moore transductions, and that counts saturate. */
+class NFSMTransductionTest {
+    private static final int SEEDS = 60;
+    private static final List<Integer> OUTPUTS = Arrays.asList(0, 1, null);
+
+    @Test
+    void transductionsMatchPathEnumeration() {
+        List<List<Character>> inputs = RandomMachines.inputs(5);
+        inputs.add(List.of('a', 'c', 'b'));
+        inputs.add(List.of('c'));
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            // Machines of even seeds are acceptors, all of whose paths output null on every step.
+            OneWayNFSM<Integer, Character, Integer> nfsm = transducer(random, 1 + random.nextInt(8), seed % 2 == 0);
+            for (List<Character> input : inputs)
+                for (boolean Moore : new boolean[] { false, true }) {
+                    String message = "seed " + seed + ", input " + input + ", Moore " + Moore;
+                    Set<List<Integer>> sequences = paths(nfsm, input, Moore);
+                    NFSMTransduction<Integer> transduction = Moore ? nfsm.MooreTransduce(input)
+                            : nfsm.MealyTransduce(input);
+
+                    // The sequences are enumerated without duplicates, and counted without being enumerated.
+                    List<List<Integer>> enumerated = new ArrayList<>();
+                    transduction.forEach(enumerated::add);
+                    assertEquals(sequences, new HashSet<>(enumerated), message);
+                    assertEquals(sequences.size(), enumerated.size(), message);
+                    assertEquals(sequences.size(), transduction.count(), message);
+                    assertEquals(sequences.size(), transduction.size(), message);
+                    assertFalse(transduction.isEmpty(), message);
+                    assertEquals(sequences, transduction, message);
+
+                    for (List<Integer> sequence : sequences)
+                        assertTrue(transduction.contains(sequence), message + ", sequence " + sequence);
+                    for (int i = 0; i < 50; i++) {
+                        List<Integer> sequence = new ArrayList<>();
+                        for (int length = random.nextInt(input.size() + 3); sequence.size() < length;)
+                            sequence.add(OUTPUTS.get(random.nextInt(3)));
+                        assertEquals(sequences.contains(sequence), transduction.contains(sequence),
+                                message + ", sequence " + sequence);
+                    }
+                    assertFalse(transduction.contains("a"), message);
+                }
+        }
+    }
+
+    @Test
+    void haltedPathsAreOutputOnce() {
+        // State 0 goes to either state on a, and state 1 has no transitions, so it halts on the next element.
+        OneWayNFSM<Integer, Character, Integer> nfsm = new OneWayNFSM<>(Set.of(0, 1), Set.of(), 0, Set.of('a'),
+                Set.of(), Map.of(new SimpleEntry<>(0, 'a'), Set.of(0, 1)), Map.of(), Map.of());
+        List<Integer> nulls = Arrays.asList(null, null);
+        assertEquals(Set.of(nulls), new HashSet<>(nfsm.MealyTransduce(List.of('a', 'a'))));
+        assertEquals(1, nfsm.MealyTransduce(List.of('a', 'a')).count());
+        assertEquals(1, nfsm.MooreTransduce(List.of('a')).count());
+        assertTrue(nfsm.MooreTransduce(List.of('a')).contains(nulls));
+        assertFalse(nfsm.MooreTransduce(List.of('a')).contains(Arrays.asList((Integer) null)));
+    }
+
+    @Test
+    void MooreTransductionsOutputStartStates() {
+        // The start state has an epsilon transition to state 1, so both states are output on step zero.
+        OneWayNFSM<Integer, Character, Integer> nfsm = new OneWayNFSM<>(Set.of(0, 1), Set.of(), 0, Set.of('a'),
+                Set.of(0, 1), Map.of(new SimpleEntry<>(0, null), Set.of(1)), Map.of(new SimpleEntry<>(0, null), 0),
+                Map.of(0, 0, 1, 1));
+        NFSMTransduction<Integer> transduction = nfsm.MooreTransduce(List.of());
+        assertEquals(Set.of(List.of(0), List.of(1)), new HashSet<>(transduction));
+        assertEquals(2, transduction.count());
+        assertTrue(transduction.contains(List.of(1)));
+        assertFalse(transduction.contains(List.of()));
+        assertEquals(Set.of(List.of()), new HashSet<>(nfsm.MealyTransduce(List.of())));
+        assertTrue(nfsm.MealyTransduce(List.of()).contains(List.of()));
+        // Neither state has a transition on a, so every path halts on step one.
+        assertEquals(Set.of(Arrays.asList(0, null), Arrays.asList(1, null)),
+                new HashSet<>(nfsm.MooreTransduce(List.of('a'))));
+    }
+
+    @Test
+    void countsSaturate() {
+        // Both states go to either state on a, outputting their own index, so every step doubles the sequences.
+        Map<Entry<Integer, Character>, Set<Integer>> transitions = Map.of(new SimpleEntry<>(0, 'a'), Set.of(0, 1),
+                new SimpleEntry<>(1, 'a'), Set.of(0, 1));
+        OneWayNFSM<Integer, Character, Integer> nfsm = new OneWayNFSM<>(Set.of(0, 1), Set.of(), 0, Set.of('a'),
+                Set.of(0, 1), transitions, Map.of(), Map.of(0, 0, 1, 1));
+        assertEquals(1L << 62, nfsm.MooreTransduce(Collections.nCopies(62, 'a')).count());
+        assertEquals(Long.MAX_VALUE, nfsm.MooreTransduce(Collections.nCopies(63, 'a')).count());
+
+        NFSMTransduction<Integer> transduction = nfsm.MooreTransduce(Collections.nCopies(100, 'a'));
+        assertEquals(Long.MAX_VALUE, transduction.count());
+        assertEquals(Integer.MAX_VALUE, transduction.size());
+        Iterator<List<Integer>> it = transduction.iterator();
+        assertEquals(101, it.next().size());
+        assertTrue(it.hasNext());
+        // Only the start state is output on step zero, and either state on every later step.
+        List<Integer> sequence = new ArrayList<>(Collections.nCopies(101, 1));
+        sequence.set(0, 0);
+        assertTrue(transduction.contains(sequence));
+        assertTrue(transduction.contains(Collections.nCopies(101, 0)));
+        assertFalse(transduction.contains(Collections.nCopies(101, 1)));
+        assertFalse(transduction.contains(sequence.subList(0, 100)));
+    }
+
+    /* Returns a random machine with the specified number of states, whose transitions and states output 0 or 1, or an
+       acceptor without outputs. */
+    private static OneWayNFSM<Integer, Character, Integer> transducer(Random random, int stateCount,
+            boolean acceptor) {
+        OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(random, stateCount);
+        Map<Entry<Integer, Character>, Integer> MealyTranslations = new HashMap<>();
+        Map<Integer, Integer> MooreTranslations = new HashMap<>();
+        if (!acceptor) {
+            for (Entry<Integer, Character> key : nfsm.transitions().keySet())
+                MealyTranslations.put(key, random.nextInt(2));
+            for (Integer state : nfsm.states())
+                MooreTranslations.put(state, random.nextInt(2));
+        }
+        return new OneWayNFSM<>(nfsm.states(), nfsm.acceptStates(), nfsm.startState(), nfsm.inputElements(),
+                Set.of(0, 1), nfsm.transitions(), MealyTranslations, MooreTranslations);
+    }
+
+    /* Returns the output sequences of every path of the specified machine's computation on the specified input. */
+    private static Set<List<Integer>> paths(OneWayNFSM<Integer, Character, Integer> nfsm, List<Character> input,
+            boolean Moore) {
+        Set<List<Integer>> sequences = new HashSet<>();
+        for (Integer state : nfsm.epsilonClosure(nfsm.startState())) {
+            List<Integer> prefix = new ArrayList<>();
+            if (Moore)
+                prefix.add(nfsm.MooreTranslations().get(state));
+            paths(nfsm, input, Moore, state, prefix, sequences);
+        }
+        return sequences;
+    }
+
+    /* Adds the output sequences of the paths from the specified state, after the specified prefix, to the sequences. */
+    private static void paths(OneWayNFSM<Integer, Character, Integer> nfsm, List<Character> input, boolean Moore,
+            Integer state, List<Integer> prefix, Set<List<Integer>> sequences) {
+        if (prefix.size() == input.size() + (Moore ? 1 : 0)) {
+            sequences.add(new ArrayList<>(prefix));
+            return;
+        }
+        Entry<Integer, Character> key = new SimpleEntry<>(state, input.get(prefix.size() - (Moore ? 1 : 0)));
+        Set<Integer> targets = nfsm.transitions().getOrDefault(key, Set.of());
+        // A path that cannot read the element outputs null and ends.
+        if (targets.isEmpty()) {
+            prefix.add(null);
+            sequences.add(new ArrayList<>(prefix));
+            prefix.remove(prefix.size() - 1);
+            return;
+        }
+        for (Integer target : targets)
+            for (Integer next : nfsm.epsilonClosure(target)) {
+                prefix.add(Moore ? nfsm.MooreTranslations().get(next) : nfsm.MealyTranslations().get(key));
+                paths(nfsm, input, Moore, next, prefix, sequences);
+                prefix.remove(prefix.size() - 1);
+            }
+    }
+}
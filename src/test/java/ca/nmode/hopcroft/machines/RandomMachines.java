@@ -0,0 +1,176 @@
+package ca.nmode.hopcroft.machines;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+/* Generates random machines over small alphabets of characters for the tests, and the inputs to compute them on. */
+final class RandomMachines {
+    static final List<Character> ALPHABET = List.of('a', 'b');
+
+    private RandomMachines() {
+    }
+
+    /* Returns a random nondeterministic acceptor with the specified number of states, whose start state is 0. Every
+       state has zero, one or two transitions on every element, and some states have an epsilon transition. Half of the
+       transitions are missing, so that paths halt often enough for the acceptor to determinize into a few hundred
+       states. */
+    static OneWayNFSM<Integer, Character, Object> nfsm(Random random, int stateCount) {
+        Map<Entry<Integer, Character>, Set<Integer>> transitions = new HashMap<>();
+        for (int state = 0; state < stateCount; state++) {
+            for (Character element : ALPHABET) {
+                if (random.nextInt(2) == 0)
+                    continue;
+                Set<Integer> targets = new HashSet<>();
+                targets.add(random.nextInt(stateCount));
+                if (random.nextInt(3) == 0)
+                    targets.add(random.nextInt(stateCount));
+                transitions.put(new SimpleEntry<>(state, element), targets);
+            }
+            if (random.nextInt(8) == 0)
+                transitions.put(new SimpleEntry<>(state, null), Set.of(random.nextInt(stateCount)));
+        }
+        return new OneWayNFSM<>(states(stateCount), acceptStates(random, stateCount), 0, new HashSet<>(ALPHABET),
+                transitions);
+    }
+
+    /* Returns a nondeterministic acceptor whose language contains the specified machine's, with some of its rejecting
+       states made accepting and some transitions added. */
+    static OneWayNFSM<Integer, Character, Object> superset(Random random, OneWayNFSM<Integer, Character, Object> nfsm) {
+        int stateCount = nfsm.states().size();
+        Set<Integer> acceptStates = new HashSet<>(nfsm.acceptStates());
+        acceptStates.add(random.nextInt(stateCount));
+        Map<Entry<Integer, Character>, Set<Integer>> transitions = new HashMap<>(nfsm.transitions());
+        for (int i = 0; i < 2; i++) {
+            Entry<Integer, Character> key = new SimpleEntry<>(random.nextInt(stateCount),
+                    ALPHABET.get(random.nextInt(ALPHABET.size())));
+            Set<Integer> targets = new HashSet<>(transitions.getOrDefault(key, Set.of()));
+            targets.add(random.nextInt(stateCount));
+            transitions.put(key, targets);
+        }
+        return new OneWayNFSM<>(nfsm.states(), acceptStates, 0, nfsm.inputElements(), transitions);
+    }
+
+    /* Returns a nondeterministic acceptor equivalent to the specified machine, made of a copy of it with its states
+       shifted by the number of states, and the original states, which cannot be reached from the copy's start state
+       and lead into the copy. */
+    static OneWayNFSM<Integer, Character, Object> equivalent(OneWayNFSM<Integer, Character, Object> nfsm) {
+        int stateCount = nfsm.states().size();
+        Set<Integer> acceptStates = new HashSet<>();
+        for (int state : nfsm.acceptStates()) {
+            acceptStates.add(state);
+            acceptStates.add(state + stateCount);
+        }
+        Map<Entry<Integer, Character>, Set<Integer>> transitions = new HashMap<>();
+        for (Entry<Entry<Integer, Character>, Set<Integer>> transition : nfsm.transitions().entrySet()) {
+            Set<Integer> shiftedTargets = new HashSet<>();
+            for (int target : transition.getValue())
+                shiftedTargets.add(target + stateCount);
+            transitions.put(new SimpleEntry<>(transition.getKey().getKey(), transition.getKey().getValue()),
+                    shiftedTargets);
+            transitions.put(new SimpleEntry<>(transition.getKey().getKey() + stateCount,
+                    transition.getKey().getValue()), shiftedTargets);
+        }
+        return new OneWayNFSM<>(states(2 * stateCount), acceptStates, stateCount, nfsm.inputElements(),
+                transitions);
+    }
+
+    /* Returns a nondeterministic acceptor of every input, made of the specified machine and a new accepting start state
+       that loops on every element and has an epsilon transition into the machine's start state. */
+    static OneWayNFSM<Integer, Character, Object> universal(OneWayNFSM<Integer, Character, Object> nfsm) {
+        int stateCount = nfsm.states().size();
+        Map<Entry<Integer, Character>, Set<Integer>> transitions = new HashMap<>(nfsm.transitions());
+        for (Character element : ALPHABET)
+            transitions.put(new SimpleEntry<>(stateCount, element), Set.of(stateCount));
+        transitions.put(new SimpleEntry<>(stateCount, null), Set.of(nfsm.startState()));
+        Set<Integer> acceptStates = new HashSet<>(nfsm.acceptStates());
+        acceptStates.add(stateCount);
+        return new OneWayNFSM<>(states(stateCount + 1), acceptStates, stateCount, nfsm.inputElements(),
+                transitions);
+    }
+
+    /* Returns a random deterministic machine with the specified number of states, whose start state is 0, with
+       translations into the specified number of output elements if it is positive. The machine is made of copies of a
+       random machine with a quarter as many states: state s copies state s % classCount of the small machine, and its
+       transitions lead to random copies of the small machine's targets, so it has states to merge when minimized. */
+    static OneWayDFSM<Integer, Character, Integer> dfsm(Random random, int stateCount, int outputCount) {
+        int classCount = Math.max(1, stateCount / 4);
+        boolean[] accepting = new boolean[classCount];
+        int[] classTargets = new int[classCount * ALPHABET.size()];
+        int[] MealyOutputs = new int[classTargets.length];
+        int[] MooreOutputs = new int[classCount];
+        for (int c = 0; c < classCount; c++) {
+            accepting[c] = random.nextInt(3) == 0;
+            MooreOutputs[c] = outputCount > 0 ? random.nextInt(outputCount) : 0;
+            for (int element = 0; element < ALPHABET.size(); element++) {
+                classTargets[c * ALPHABET.size() + element] = random.nextInt(classCount);
+                MealyOutputs[c * ALPHABET.size() + element] = outputCount > 0 ? random.nextInt(outputCount) : 0;
+            }
+        }
+
+        Set<Integer> outputElements = new HashSet<>();
+        for (int output = 0; output < outputCount; output++)
+            outputElements.add(output);
+        Set<Integer> acceptStates = new HashSet<>();
+        Map<Entry<Integer, Character>, Integer> transitions = new HashMap<>();
+        Map<Entry<Integer, Character>, Integer> MealyTranslations = new HashMap<>();
+        Map<Integer, Integer> MooreTranslations = new HashMap<>();
+        int copies = stateCount / classCount;
+        for (int state = 0; state < classCount * copies; state++) {
+            int c = state % classCount;
+            if (accepting[c])
+                acceptStates.add(state);
+            if (outputCount > 0)
+                MooreTranslations.put(state, MooreOutputs[c]);
+            for (int element = 0; element < ALPHABET.size(); element++) {
+                Entry<Integer, Character> key = new SimpleEntry<>(state, ALPHABET.get(element));
+                int target = classTargets[c * ALPHABET.size() + element] + classCount * random.nextInt(copies);
+                transitions.put(key, target);
+                if (outputCount > 0)
+                    MealyTranslations.put(key, MealyOutputs[c * ALPHABET.size() + element]);
+            }
+        }
+        return new OneWayDFSM<>(states(classCount * copies), acceptStates, 0, new HashSet<>(ALPHABET), outputElements,
+                transitions, MealyTranslations, MooreTranslations);
+    }
+
+    /* Returns every input over the alphabet up to the specified length. */
+    static List<List<Character>> inputs(int maxLength) {
+        List<List<Character>> inputs = new ArrayList<>();
+        List<List<Character>> layer = List.of(List.of());
+        for (int length = 0; length <= maxLength; length++) {
+            List<List<Character>> nextLayer = new ArrayList<>();
+            for (List<Character> input : layer) {
+                inputs.add(input);
+                for (Character element : ALPHABET) {
+                    List<Character> next = new ArrayList<>(input);
+                    next.add(element);
+                    nextLayer.add(next);
+                }
+            }
+            layer = nextLayer;
+        }
+        return inputs;
+    }
+
+    private static Set<Integer> states(int stateCount) {
+        Set<Integer> states = new HashSet<>();
+        for (int state = 0; state < stateCount; state++)
+            states.add(state);
+        return states;
+    }
+
+    private static Set<Integer> acceptStates(Random random, int stateCount) {
+        Set<Integer> acceptStates = new HashSet<>();
+        for (int state = 0; state < stateCount; state++)
+            if (random.nextInt(5) == 0)
+                acceptStates.add(state);
+        return acceptStates;
+    }
+}
@@ -0,0 +1,131 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the reachable and co-reachable states of one-way finite-state machines with searches of their transition
+   maps, checks which of the sets returned may be modified, and compares trimmed machines with the machines they
+   trim. */
+class ReachabilityTest {
+    private static final int SEEDS = 40;
+
+    @Test
+    void reachableStatesMatchSearch() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(random, 1 + random.nextInt(40), 0);
+            OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(random, 1 + random.nextInt(40));
+            String message = "seed " + seed;
+            assertEquals(reachable(dfsm.startState(), state -> dfsmTargets(dfsm, state)), dfsm.reachableStates(),
+                    message);
+            assertEquals(reachable(nfsm.startState(), state -> nfsmTargets(nfsm, state)), nfsm.reachableStates(),
+                    message);
+            assertEquals(dfsm.reachableStates(), dfsm.reachableStatesView(), message);
+            assertEquals(nfsm.reachableStates(), nfsm.reachableStatesView(), message);
+
+            // A state is co-reachable if an accept state is reachable from it.
+            Set<Integer> coreachable = new HashSet<>();
+            for (int state : dfsm.states())
+                if (!Collections.disjoint(dfsm.acceptStates(), reachable(state, s -> dfsmTargets(dfsm, s))))
+                    coreachable.add(state);
+            assertEquals(coreachable, dfsm.coreachableStates(), message);
+            coreachable.clear();
+            for (int state : nfsm.states())
+                if (!Collections.disjoint(nfsm.acceptStates(), reachable(state, s -> nfsmTargets(nfsm, s))))
+                    coreachable.add(state);
+            assertEquals(coreachable, nfsm.coreachableStates(), message);
+        }
+    }
+
+    @Test
+    void reachableStatesAreCopiedAndViewsCached() {
+        OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(new Random(0), 20, 0);
+        OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(new Random(0), 20);
+
+        // The sets of reachable states are new every call, so modifying one does not affect the machine.
+        Set<Integer> states = dfsm.reachableStates();
+        assertTrue(states.remove(dfsm.startState()));
+        assertTrue(dfsm.reachableStates().contains(dfsm.startState()));
+        states = nfsm.reachableStates();
+        assertTrue(states.add(-1));
+        assertFalse(nfsm.reachableStates().contains(-1));
+
+        assertSame(dfsm.reachableStatesView(), dfsm.reachableStatesView());
+        assertSame(nfsm.reachableStatesView(), nfsm.reachableStatesView());
+        assertThrows(UnsupportedOperationException.class, () -> dfsm.reachableStatesView().add(-1));
+        assertThrows(UnsupportedOperationException.class, () -> nfsm.reachableStatesView().clear());
+        assertThrows(UnsupportedOperationException.class, () -> dfsm.coreachableStates().add(-1));
+        assertThrows(UnsupportedOperationException.class, () -> nfsm.coreachableStates().add(-1));
+    }
+
+    @Test
+    void trimmedMachinesMatchMachines() {
+        List<List<Character>> inputs = RandomMachines.inputs(8);
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            OneWayDFSM<Integer, Character, Integer> acceptor = RandomMachines.dfsm(random, 1 + random.nextInt(40), 0);
+            OneWayDFSM<Integer, Character, Integer> transducer = RandomMachines.dfsm(random, 1 + random.nextInt(40),
+                    3);
+            OneWayNFSM<Integer, Character, Object> nfsm = RandomMachines.nfsm(random, 1 + random.nextInt(40));
+            OneWayDFSM<Integer, Character, Integer> trimmedAcceptor = acceptor.trim();
+            OneWayDFSM<Integer, Character, Integer> trimmedTransducer = transducer.trim();
+            OneWayNFSM<Integer, Character, Object> trimmedNFSM = nfsm.trim();
+            String message = "seed " + seed;
+            assertTrue(acceptor.reachableStates().containsAll(trimmedAcceptor.states()), message);
+            assertEquals(transducer.reachableStates(), trimmedTransducer.states(), message);
+            assertTrue(nfsm.reachableStates().containsAll(trimmedNFSM.states()), message);
+            // At most one reachable state of a trimmed acceptor cannot reach an accept state.
+            Set<Integer> dead = new HashSet<>(trimmedAcceptor.states());
+            dead.removeAll(trimmedAcceptor.coreachableStates());
+            assertTrue(dead.size() <= 1, message);
+            for (List<Character> input : inputs) {
+                assertEquals(acceptor.accepts(input), trimmedAcceptor.accepts(input), message);
+                assertEquals(transducer.MealyTransduce(input), trimmedTransducer.MealyTransduce(input), message);
+                assertEquals(transducer.MooreTransduce(input), trimmedTransducer.MooreTransduce(input), message);
+                assertEquals(nfsm.accepts(input), trimmedNFSM.accepts(input), message);
+            }
+        }
+    }
+
+    /* Returns the states reachable from the specified state through the specified targets. */
+    private static Set<Integer> reachable(int state, Function<Integer, Set<Integer>> targets) {
+        Set<Integer> reached = new HashSet<>(Set.of(state));
+        Deque<Integer> visit = new ArrayDeque<>(reached);
+        while (!visit.isEmpty())
+            for (int target : targets.apply(visit.poll()))
+                if (reached.add(target))
+                    visit.add(target);
+        return reached;
+    }
+
+    private static Set<Integer> dfsmTargets(OneWayDFSM<Integer, Character, ?> dfsm, int state) {
+        Set<Integer> targets = new HashSet<>();
+        for (Character element : dfsm.inputElements())
+            targets.add(dfsm.transitions().get(new SimpleEntry<>(state, element)));
+        return targets;
+    }
+
+    /* Returns the targets of the specified state on every input element and on epsilon transitions. */
+    private static Set<Integer> nfsmTargets(OneWayNFSM<Integer, Character, ?> nfsm, int state) {
+        Set<Integer> targets = new HashSet<>();
+        for (Character element : nfsm.inputElements())
+            targets.addAll(nfsm.transitions().getOrDefault(new SimpleEntry<>(state, element), Set.of()));
+        targets.addAll(nfsm.transitions().getOrDefault(new SimpleEntry<>(state, null), Set.of()));
+        return targets;
+    }
+}
@@ -0,0 +1,169 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/* Compares the parallel computations of deterministic machines with their sequential computations, on inputs long
+   enough to be split into chunks, for machines whose speculative runs converge, machines whose runs never converge, and
+   machines with too many states to speculate on, and checks that speculation stays within its budget of steps. */
+class SpeculativeRunTest {
+    private static final int SEEDS = 10;
+    /* An input of this length is split into three or more chunks. */
+    private static final int LENGTH = 3 * SpeculativeRun.MIN_CHUNK_SIZE + 17;
+
+    @Test
+    void parallelComputationMatchesSequentialComputation() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int seed = 0; seed < SEEDS; seed++) {
+                Random random = new Random(seed);
+                List<OneWayDFSM<Integer, Character, ?>> dfsms = List.of(
+                        RandomMachines.dfsm(random, 1 + random.nextInt(200), 0), cycle(3), cycle(40), cycle(5000),
+                        cycle(20_000));
+                List<Character> input = input(random, LENGTH);
+                for (OneWayDFSM<Integer, Character, ?> dfsm : dfsms) {
+                    String message = "seed " + seed + ", " + dfsm.states().size() + " states";
+                    assertEquals(dfsm.classify(input), dfsm.parallelClassify(input, pool), message);
+                    assertEquals(dfsm.accepts(input), dfsm.parallelAccepts(input, pool), message);
+                    // An input without fast random access is computed sequentially.
+                    assertEquals(dfsm.classify(input), dfsm.parallelClassify(new LinkedList<>(input), pool), message);
+                }
+            }
+
+            // An element that is not an input element halts the computation, wherever it is.
+            List<Character> input = input(new Random(0), LENGTH);
+            input.set(LENGTH - 1, 'c');
+            assertNull(cycle(40).parallelClassify(input, pool));
+            assertEquals(false, cycle(40).parallelAccepts(input, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelByteComputationMatchesSequentialComputation() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Machines over every byte are slow to build, so fewer of them are compared.
+            for (int seed = 0; seed < SEEDS / 2; seed++) {
+                Random random = new Random(seed);
+                byte[] input = new byte[LENGTH];
+                random.nextBytes(input);
+                // The first machine is random, and the others permute their states.
+                int[] stateCounts = { 1 + random.nextInt(200), 3, 40, 300 };
+                for (int m = 0; m < stateCounts.length; m++) {
+                    int stateCount = stateCounts[m];
+                    ByteDFSM<Integer> bytes = new ByteDFSM<>(byteDFSM(random, stateCount, m > 0));
+                    String message = "seed " + seed + ", " + stateCount + " states";
+                    Integer state = bytes.classify(input);
+                    assertEquals(state, bytes.parallelClassify(input, pool), message);
+                    assertEquals(bytes.accepts(input), bytes.parallelAccepts(input, pool), message);
+                    ByteBuffer direct = ByteBuffer.allocateDirect(LENGTH).put(input).flip();
+                    assertEquals(state, bytes.parallelClassify(direct, pool), message);
+                    assertEquals(0, direct.position(), message);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void speculationStaysWithinBudget() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(0);
+            int[] elements = new int[LENGTH];
+            for (int i = 0; i < LENGTH; i++)
+                elements[i] = random.nextInt(2);
+            // Cycles of a few states are speculated on in full, and longer ones are abandoned or run sequentially.
+            for (int stateCount : new int[] { 1, 2, 4, 5, 40, 1000, 100_000 }) {
+                int[] reachableStates = new int[stateCount];
+                int[] transitions = new int[stateCount * 2];
+                for (int state = 0; state < stateCount; state++) {
+                    reachableStates[state] = state;
+                    transitions[state * 2] = (state + 1) % stateCount;
+                    transitions[state * 2 + 1] = state;
+                }
+                AtomicLong steps = new AtomicLong();
+                int finalState = new SpeculativeRun(stateCount, reachableStates,
+                        SpeculativeRun.sinks(transitions, stateCount, 2)) {
+                    @Override
+                    int run(int state, int from, int to) {
+                        steps.addAndGet(to - from);
+                        for (int i = from; i < to; i++)
+                            state = transitions[state * 2 + elements[i]];
+                        return state;
+                    }
+                }.run(pool, 0, LENGTH);
+
+                int expected = 0;
+                for (int element : elements)
+                    expected = transitions[expected * 2 + element];
+                assertEquals(expected, finalState, stateCount + " states");
+                // Every chunk is run once, and speculating on it takes at most its budget of steps.
+                assertTrue(steps.get() <= (SpeculativeRun.SPECULATION_COST + 1L) * LENGTH,
+                        stateCount + " states, " + steps.get() + " steps");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /* Returns a machine whose states form a cycle, which advances on a and stays on b, so that runs from different
+       states never converge. */
+    private static OneWayDFSM<Integer, Character, Object> cycle(int stateCount) {
+        Set<Integer> states = new HashSet<>();
+        Map<Entry<Integer, Character>, Integer> transitions = new HashMap<>();
+        for (int state = 0; state < stateCount; state++) {
+            states.add(state);
+            transitions.put(new SimpleEntry<>(state, 'a'), (state + 1) % stateCount);
+            transitions.put(new SimpleEntry<>(state, 'b'), state);
+        }
+        return new OneWayDFSM<>(states, Set.of(0), 0, new HashSet<>(RandomMachines.ALPHABET), transitions);
+    }
+
+    /* Returns a machine over every byte with the specified number of states, whose transitions permute its states if
+       so specified, and are otherwise random. */
+    private static OneWayDFSM<Integer, Byte, Object> byteDFSM(Random random, int stateCount, boolean permutation) {
+        Set<Integer> states = new HashSet<>();
+        Set<Integer> acceptStates = new HashSet<>();
+        Set<Byte> inputElements = new HashSet<>();
+        Map<Entry<Integer, Byte>, Integer> transitions = new HashMap<>();
+        for (int b = Byte.MIN_VALUE; b <= Byte.MAX_VALUE; b++)
+            inputElements.add((byte) b);
+        for (int state = 0; state < stateCount; state++) {
+            states.add(state);
+            if (random.nextInt(3) == 0)
+                acceptStates.add(state);
+            for (Byte element : inputElements)
+                transitions.put(new SimpleEntry<>(state, element),
+                        permutation ? (state + (element & 0xFF)) % stateCount : random.nextInt(stateCount));
+        }
+        return new OneWayDFSM<>(states, acceptStates, 0, inputElements, transitions);
+    }
+
+    private static List<Character> input(Random random, int length) {
+        List<Character> input = new ArrayList<>(length);
+        while (input.size() < length)
+            input.add(RandomMachines.ALPHABET.get(random.nextInt(RandomMachines.ALPHABET.size())));
+        return input;
+    }
+}
@@ -0,0 +1,86 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.jgrapht.Graph;
+import org.junit.jupiter.api.Test;
+
+import ca.nmode.hopcroft.graphs.StateDiagramView;
+import ca.nmode.hopcroft.graphs.TransitionEdge;
+
+/* Compares the state diagram views of one-way deterministic finite-state machines with their state diagrams, and checks
+   that the endpoints of edges are only found for edges of the views. */
+class StateDiagramViewTest {
+    private static final int SEEDS = 40;
+
+    @Test
+    void viewsMatchDiagrams() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(random, 1 + random.nextInt(40), 0);
+            StateDiagramView<Integer, Character> view = dfsm.diagramView();
+            Graph<Integer, TransitionEdge<Character>> diagram = dfsm.diagram();
+            String message = "seed " + seed;
+            assertEquals(diagram.vertexSet(), view.vertexSet(), message);
+            assertEquals(dfsm.startState(), view.startVertex(), message);
+            assertEquals(dfsm.acceptStates(), view.acceptVertexSet(), message);
+            assertEquals(transitions(diagram, diagram.edgeSet()), transitions(view, view.edgeSet()), message);
+            for (Integer state : dfsm.states()) {
+                String stateMessage = message + ", state " + state;
+                assertEquals(transitions(diagram, diagram.outgoingEdgesOf(state)),
+                        transitions(view, view.outgoingEdgesOf(state)), stateMessage);
+                assertEquals(transitions(diagram, diagram.incomingEdgesOf(state)),
+                        transitions(view, view.incomingEdgesOf(state)), stateMessage);
+                assertEquals(transitions(diagram, diagram.edgesOf(state)), transitions(view, view.edgesOf(state)),
+                        stateMessage);
+                assertEquals(diagram.degreeOf(state), view.degreeOf(state), stateMessage);
+                assertEquals(diagram.inDegreeOf(state), view.inDegreeOf(state), stateMessage);
+            }
+            // The edges of the diagram are edges of the view, whose endpoints the view resolves.
+            for (TransitionEdge<Character> edge : diagram.edgeSet()) {
+                assertTrue(view.containsEdge(edge), message);
+                assertEquals(diagram.getEdgeSource(edge), view.getEdgeSource(edge), message);
+                assertEquals(diagram.getEdgeTarget(edge), view.getEdgeTarget(edge), message);
+            }
+        }
+    }
+
+    @Test
+    void endpointsOfOtherEdgesAreRejected() {
+        OneWayDFSM<Integer, Character, Integer> dfsm = RandomMachines.dfsm(new Random(0), 20, 0);
+        StateDiagramView<Integer, Character> view = dfsm.diagramView();
+        TransitionEdge<Character> edge = view.edgeSet().iterator().next();
+        assertTrue(view.containsEdge(edge));
+        assertEquals(edge, view.getEdge(view.getEdgeSource(edge), view.getEdgeTarget(edge)));
+
+        // An edge in no graph has no endpoints, and an edge of another machine's view is not a transition of this one.
+        TransitionEdge<Character> detached = new TransitionEdge<>('a');
+        assertFalse(view.containsEdge(detached));
+        assertThrows(IllegalArgumentException.class, () -> view.getEdgeSource(detached));
+        StateDiagramView<Integer, Character> other = RandomMachines.dfsm(new Random(1), 20, 0).diagramView();
+        for (TransitionEdge<Character> otherEdge : other.edgeSet())
+            if (!view.containsEdge(otherEdge))
+                assertThrows(IllegalArgumentException.class, () -> view.getEdgeTarget(otherEdge));
+        assertThrows(NullPointerException.class, () -> view.getEdgeSource(null));
+        assertNull(view.getEdge(-1, view.startVertex()));
+        assertThrows(UnsupportedOperationException.class, () -> view.removeEdge(edge));
+    }
+
+    /* Returns the source, label and target of every specified edge of the specified graph. */
+    private static Set<List<Object>> transitions(Graph<Integer, TransitionEdge<Character>> graph,
+            Set<TransitionEdge<Character>> edges) {
+        Set<List<Object>> transitions = new HashSet<>();
+        for (TransitionEdge<Character> edge : edges)
+            transitions.add(List.of(graph.getEdgeSource(edge), edge.label(), graph.getEdgeTarget(edge)));
+        return transitions;
+    }
+}
@@ -0,0 +1,89 @@
+package ca.nmode.hopcroft.machines;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ca.nmode.hopcroft.generated.DivisibleBySeven;
+import ca.nmode.hopcroft.generated.Parity;
+
+/* Compares the machines the generateTestMachines task generates from src/test/machines with the one-way deterministic
+   finite-state machines their specifications describe. */
+class TableDFSMTest {
+    @Test
+    void parityMatchesItsMachine() {
+        Parity parity = new Parity();
+        assertMatchesMachine(parity, inputs(List.of('0', '1'), '2', 10));
+        assertTrue(parity.accepts(List.of('1', '0', '1')));
+        assertFalse(parity.accepts(List.of('1', '1', '1')));
+        assertEquals(List.of("flipped", "same", "flipped"), parity.MealyTransduce(List.of('1', '0', '1')));
+        assertEquals(List.of("even", "odd", "odd", "even"), parity.MooreTransduce(List.of('1', '0', '1')));
+    }
+
+    @Test
+    void divisibleBySevenMatchesItsMachine() {
+        DivisibleBySeven divisibleBySeven = new DivisibleBySeven();
+        List<List<Integer>> inputs = inputs(List.of(0, 1), 2, 10);
+        assertMatchesMachine(divisibleBySeven, inputs);
+        // Read as binary numerals, the accepted inputs are the multiples of seven.
+        for (List<Integer> input : inputs) {
+            if (input.contains(2))
+                continue;
+            int value = 0;
+            for (int bit : input)
+                value = 2 * value + bit;
+            assertEquals(value % 7 == 0, divisibleBySeven.accepts(input), input::toString);
+            assertEquals("r" + value % 7, divisibleBySeven.classify(input), input::toString);
+        }
+    }
+
+    /* Asserts that the generated machine has the same sets and maps as its machine, and computes and transduces every
+       input as it does. */
+    private static <I, O> void assertMatchesMachine(TableDFSM<String, I, O> generated, List<List<I>> inputs) {
+        OneWayDFSM<String, I, O> machine = generated.toMachine();
+        assertEquals(machine.states(), generated.states());
+        assertEquals(machine.acceptStates(), generated.acceptStates());
+        assertEquals(machine.startState(), generated.startState());
+        assertEquals(machine.inputElements(), generated.inputElements());
+        assertEquals(machine.outputElements(), generated.outputElements());
+        assertEquals(machine.transitions(), generated.transitions());
+        assertEquals(machine.MealyTranslations(), generated.MealyTranslations());
+        assertEquals(machine.MooreTranslations(), generated.MooreTranslations());
+        for (List<I> input : inputs) {
+            assertEquals(machine.compute(input), generated.compute(input), input::toString);
+            assertEquals(machine.accepts(input), generated.accepts(input), input::toString);
+            assertEquals(machine.classify(input), generated.classify(input), input::toString);
+            assertEquals(machine.MealyTransduce(input), generated.MealyTransduce(input), input::toString);
+            assertEquals(machine.MooreTransduce(input), generated.MooreTransduce(input), input::toString);
+        }
+    }
+
+    /* Returns every input of the specified elements up to the specified length, and each of them followed by an
+       element that is not in the machine's set of input elements, and then by the first element. */
+    private static <I> List<List<I>> inputs(List<I> elements, I foreignElement, int maxLength) {
+        List<List<I>> inputs = new ArrayList<>();
+        List<List<I>> layer = List.of(List.of());
+        for (int length = 0; length <= maxLength; length++) {
+            List<List<I>> nextLayer = new ArrayList<>();
+            for (List<I> input : layer) {
+                inputs.add(input);
+                List<I> halting = new ArrayList<>(input);
+                halting.add(foreignElement);
+                halting.add(elements.get(0));
+                inputs.add(halting);
+                for (I element : elements) {
+                    List<I> next = new ArrayList<>(input);
+                    next.add(element);
+                    nextLayer.add(next);
+                }
+            }
+            layer = nextLayer;
+        }
+        return inputs;
+    }
+}